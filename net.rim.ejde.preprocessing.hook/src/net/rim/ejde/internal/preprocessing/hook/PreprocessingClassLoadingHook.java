@@ -63,6 +63,8 @@ public class PreprocessingClassLoadingHook implements ClassLoadingHook, HookConf
     private static final String RESOURCE_FIELD = "resource";
     // name of the SourceMapperAccess.getMappedSourceFile() method
     private static final String GET_MAPPED_SOURCE_FILE_METHOD = "getMappedSourceFile";
+    // name of the SourceMapperAccess.getContent() method
+    private static final String GET_CONTENT_METHOD = "getContent";
 
     /**
      * Class adapter for rewriting the <code>SourceFile#getContents</code> method.
@@ -139,6 +141,14 @@ public class PreprocessingClassLoadingHook implements ClassLoadingHook, HookConf
             super( mv );
         }
 
+        /**
+         * @see org.objectweb.asm.MethodAdapter#visitCode()
+         */
+        public void visitCode() {
+            super.visitCode();
+            insertContentCode();
+        }
+
         /**
          * @see org.objectweb.asm.MethodAdapter#visitFieldInsn(int, java.lang.String, java.lang.String, java.lang.String)
          */
@@ -196,6 +206,26 @@ public class PreprocessingClassLoadingHook implements ClassLoadingHook, HookConf
             visitLabel( endLabel );
             // log.trace("Finished generated code");
         }
+
+        /**
+         * Insert the code at the beginning of the method that returns the content provided by
+         * <code>SourceMapperAccess#getContent(IFile)</code>, if there is any, without reading a file.
+         */
+        private void insertContentCode() {
+            Label continueLabel = new Label();
+
+            super.visitVarInsn( Opcodes.ALOAD, 0 ); // Load "this"
+            super.visitFieldInsn( Opcodes.GETFIELD, SOURCEFILE_TYPE.getInternalName(), RESOURCE_FIELD, IFILE_TYPE.getDescriptor() );
+            super.visitMethodInsn( Opcodes.INVOKESTATIC, SOURCEMAPPERACCESS_TYPE.getInternalName(), GET_CONTENT_METHOD, Type
+                    .getMethodDescriptor( Type.getType( char[].class ), new Type[] { IFILE_TYPE } ) );
+            // If the result was not null, return it
+            super.visitInsn( Opcodes.DUP );
+            super.visitJumpInsn( Opcodes.IFNULL, continueLabel );
+            super.visitInsn( Opcodes.ARETURN );
+            // otherwise clear the null and continue with the original code
+            super.visitLabel( continueLabel );
+            super.visitInsn( Opcodes.POP );
+        }
     }
 
     /**
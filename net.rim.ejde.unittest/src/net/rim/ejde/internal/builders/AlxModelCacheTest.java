@@ -0,0 +1,215 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.builders;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import net.rim.ejde.internal.core.ContextManager;
+import net.rim.ejde.internal.model.BlackBerryProject;
+import net.rim.ejde.internal.model.BlackBerryProperties;
+import net.rim.ejde.internal.model.BlackBerryPropertiesFactory;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the ALX file generated from the cached model of a project is identical to the ALX file generated from an empty
+ * cache after every kind of input change: the project properties, the title resource bundle, the alx imports and the projects
+ * the project depends on.
+ */
+public class AlxModelCacheTest {
+    private static final String PROJECT_NAME = "AlxModelCacheTest";
+    private static final String LIBRARY_NAME = "AlxModelCacheTestLibrary";
+    private static final String BUNDLE_FOLDER = "src/com/rim/test/";
+    private static final String ALX_IMPORT = "import.alx";
+
+    private IProject _project;
+    private IProject _library;
+    private BlackBerryProject _bbProject;
+
+    @Before
+    public void setUp() throws CoreException, IOException {
+        _library = createJavaProject( LIBRARY_NAME );
+        _project = createJavaProject( PROJECT_NAME );
+        IJavaProject javaProject = JavaCore.create( _project );
+        BlackBerryProperties properties = BlackBerryPropertiesFactory.createBlackBerryProperties( javaProject );
+        properties._general.setTitle( "Test" );
+        properties._general.setDescription( "Test application" );
+        properties._general.setVersion( "1.0" );
+        properties._general.setVendor( "Research In Motion" );
+        properties._resources.setHasTitleResource( Boolean.TRUE );
+        properties._resources.setTitleResourceBundleClassName( "com.rim.test.Title" );
+        properties._resources.setTitleResourceBundleKey( "TITLE" );
+        properties._resources.setDescriptionId( "DESCRIPTION" );
+        ContextManager.PLUGIN.setBBProperties( PROJECT_NAME, properties, true );
+        _bbProject = new BlackBerryProject( javaProject, properties );
+
+        write( _project.getFile( BUNDLE_FOLDER + "Title.rrh" ),
+                "package com.rim.test;\n\nTITLE#0=1;\nDESCRIPTION#0=2;\nOTHER_TITLE#0=3;\n" );
+        write( _project.getFile( BUNDLE_FOLDER + "Title.rrc" ),
+                "TITLE#0=\"Test\";\nDESCRIPTION#0=\"Test application\";\nOTHER_TITLE#0=\"Other\";\n" );
+        write( _project.getFile( BUNDLE_FOLDER + "Title_fr.rrc" ),
+                "TITLE#0=\"Essai\";\nDESCRIPTION#0=\"Application d'essai\";\nOTHER_TITLE#0=\"Autre\";\n" );
+        write( _project.getFile( ALX_IMPORT ), "<loader version=\"1.0\">\n<application id=\"com.rim.imported\">\n</application>\n"
+                + "</loader>\n" );
+    }
+
+    @After
+    public void tearDown() throws CoreException {
+        AlxModelCache.getInstance().clear();
+        ContextManager.PLUGIN.removeBBProperties( PROJECT_NAME );
+        _project.delete( true, true, null );
+        _library.delete( true, true, null );
+    }
+
+    @Test
+    public void testPropertiesChanged() throws Exception {
+        byte[] before = render();
+        getProperties()._general.setVersion( "1.1" );
+        assertIncremental( "version changed", before );
+
+        before = render();
+        getProperties()._general.setVendor( "RIM" );
+        assertIncremental( "vendor changed", before );
+
+        before = render();
+        getProperties()._resources.setHasTitleResource( Boolean.FALSE );
+        assertIncremental( "title resource disabled", before );
+
+        before = render();
+        getProperties()._general.setTitle( "Other test" );
+        assertIncremental( "title changed", before );
+    }
+
+    @Test
+    public void testTitleResourceChanged() throws Exception {
+        byte[] before = render();
+        write( _project.getFile( BUNDLE_FOLDER + "Title.rrc" ),
+                "TITLE#0=\"Changed test\";\nDESCRIPTION#0=\"Test application\";\nOTHER_TITLE#0=\"Other\";\n" );
+        assertIncremental( "root title changed", before );
+
+        before = render();
+        write( _project.getFile( BUNDLE_FOLDER + "Title_fr.rrc" ),
+                "TITLE#0=\"Essai\";\nDESCRIPTION#0=\"Une application d'essai\";\nOTHER_TITLE#0=\"Autre\";\n" );
+        assertIncremental( "localized description changed", before );
+
+        before = render();
+        getProperties()._resources.setTitleResourceBundleKey( "OTHER_TITLE" );
+        assertIncremental( "title key changed", before );
+    }
+
+    @Test
+    public void testLocalesChanged() throws Exception {
+        byte[] before = render();
+        write( _project.getFile( BUNDLE_FOLDER + "Title_de.rrc" ),
+                "TITLE#0=\"Test\";\nDESCRIPTION#0=\"Testanwendung\";\nOTHER_TITLE#0=\"Andere\";\n" );
+        assertIncremental( "locale added", before );
+
+        before = render();
+        _project.getFile( BUNDLE_FOLDER + "Title_fr.rrc" ).delete( true, null );
+        assertIncremental( "locale removed", before );
+    }
+
+    @Test
+    public void testAlxImportChanged() throws Exception {
+        byte[] before = render();
+        getProperties()._packaging.setAlxFiles( new String[] { ALX_IMPORT } );
+        assertIncremental( "alx import added", before );
+
+        before = render();
+        write( _project.getFile( ALX_IMPORT ), "<loader version=\"1.0\">\n<application id=\"com.rim.imported.changed\">\n"
+                + "</application>\n</loader>\n" );
+        assertIncremental( "alx import changed", before );
+    }
+
+    @Test
+    public void testDependencyChanged() throws Exception {
+        byte[] before = render();
+        IJavaProject javaProject = JavaCore.create( _project );
+        IClasspathEntry[] entries = javaProject.getRawClasspath();
+        IClasspathEntry[] newEntries = new IClasspathEntry[ entries.length + 1 ];
+        System.arraycopy( entries, 0, newEntries, 0, entries.length );
+        newEntries[ entries.length ] = JavaCore.newProjectEntry( _library.getFullPath() );
+        javaProject.setRawClasspath( newEntries, null );
+        assertIncremental( "dependency added", before );
+
+        before = render();
+        javaProject.setRawClasspath( entries, null );
+        assertIncremental( "dependency removed", before );
+    }
+
+    /**
+     * Renders the changed project with the cached model, then with an empty cache, and checks that both outputs are identical
+     * and differ from the output before the change.
+     */
+    private void assertIncremental( String change, byte[] before ) throws Exception {
+        byte[] incremental = render();
+        AlxModelCache.getInstance().clear();
+        byte[] full = render();
+        assertFalse( change + ": the output has not changed", Arrays.equals( before, full ) );
+        assertTrue( change + ": the cached output differs from a full regeneration", Arrays.equals( full, incremental ) );
+    }
+
+    private byte[] render() throws Exception {
+        return ALXBuilder.toBytes( ALXBuilder.generateAlx( null, _bbProject ) );
+    }
+
+    private static BlackBerryProperties getProperties() {
+        return ContextManager.PLUGIN.getBBProperties( PROJECT_NAME, false );
+    }
+
+    private static IProject createJavaProject( String name ) throws CoreException {
+        IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject( name );
+        project.create( null );
+        project.open( null );
+        IProjectDescription description = project.getDescription();
+        description.setNatureIds( new String[] { JavaCore.NATURE_ID } );
+        project.setDescription( description, null );
+        IFolder src = project.getFolder( "src" );
+        src.create( true, true, null );
+        JavaCore.create( project ).setRawClasspath( new IClasspathEntry[] { JavaCore.newSourceEntry( src.getFullPath() ) },
+                project.getFullPath().append( "bin" ), null );
+        return project;
+    }
+
+    private static void write( IFile file, String content ) throws CoreException, IOException {
+        ByteArrayInputStream input = new ByteArrayInputStream( content.getBytes( "ISO-8859-1" ) );
+        if( file.exists() ) {
+            file.setContents( input, true, false, null );
+        } else {
+            create( file.getParent() );
+            file.create( input, true, null );
+        }
+    }
+
+    private static void create( IContainer container ) throws CoreException {
+        if( !container.exists() && container instanceof IFolder ) {
+            create( container.getParent() );
+            ( (IFolder) container ).create( true, true, null );
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.imports;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import net.rim.ejde.internal.core.ContextManager;
+import net.rim.ide.Project;
+import net.rim.ide.Workspace;
+import net.rim.ide.core.DebugAPIHost;
+import net.rim.ide.core.IDEProperties;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Imports the legacy workspace <code>legacy/Fixture.jdw</code> into the Eclipse workspace without any user interface. The
+ * workspace holds the project <code>App</code>, which depends on the project <code>Library</code>.
+ * <p>
+ * The fixture is copied to a temporary folder first, since a link import creates the Eclipse projects next to the jdp files. The
+ * java files of the fixture are stored with a <code>.txt</code> suffix, so the test fragment does not compile them.
+ */
+public class LegacyImportHelperTest {
+    private static final String FIXTURE = "legacy/";
+    private static final String JAVA_SUFFIX = ".txt";
+    private static final String[] FIXTURE_FILES = { "Fixture.jdw", "App/App.jdp", "App/res/icon.png",
+            "App/src/com/rim/fixture/app/App.java.txt", "App/src/com/rim/fixture/app/AppResource.rrh",
+            "App/src/com/rim/fixture/app/AppResource.rrc", "App/src/com/rim/fixture/app/AppResource_fr.rrc",
+            "Library/Library.jdp", "Library/src/com/rim/fixture/library/Greeting.java.txt" };
+    private static final String APP = "App";
+    private static final String LIBRARY = "Library";
+
+    private File _root;
+    private Set< Project > _legacyProjects;
+
+    @Before
+    public void setUp() throws Exception {
+        _root = File.createTempFile( "legacy", "" );
+        _root.delete();
+        for( String name : FIXTURE_FILES ) {
+            String fileName = name.endsWith( ".java" + JAVA_SUFFIX ) ? name.substring( 0, name.length() - JAVA_SUFFIX.length() )
+                    : name;
+            copy( FIXTURE + name, new File( _root, fileName ) );
+        }
+        Workspace workspace = new Workspace( new File( _root, "Fixture.jdw" ), createHost( _root ) );
+        _legacyProjects = new LinkedHashSet< Project >();
+        for( int i = 0; i < workspace.getNumProjects(); i++ ) {
+            _legacyProjects.add( workspace.getProject( i ) );
+        }
+        assertEquals( 2, _legacyProjects.size() );
+    }
+
+    @After
+    public void tearDown() throws CoreException {
+        for( String name : new String[] { APP, LIBRARY } ) {
+            IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject( name );
+            if( project.exists() ) {
+                project.delete( true, true, null );
+            }
+            ContextManager.PLUGIN.removeBBProperties( name );
+        }
+        delete( _root );
+    }
+
+    @Test
+    public void testCopyImport() throws Exception {
+        IStatus status = importProjects( BasicLegacyImportHelper.COPY_IMPORT, new NullProgressMonitor() );
+        assertTrue( status.toString(), status.isOK() );
+        assertImported();
+        IFile javaFile = findFile( APP, "App.java" );
+        assertFalse( "copied", javaFile.isLinked() );
+        assertFalse( new File( _root, "App/src/com/rim/fixture/app/App.java" ).equals( javaFile.getLocation().toFile() ) );
+        assertEquals( "res/com/rim/fixture/app/AppResource.rrh", findFile( APP, "AppResource.rrh" ).getProjectRelativePath()
+                .toString() );
+    }
+
+    @Test
+    public void testLinkImport() throws Exception {
+        IStatus status = importProjects( BasicLegacyImportHelper.LINK_IMPORT, new NullProgressMonitor() );
+        assertTrue( status.toString(), status.isOK() );
+        assertImported();
+        IFile javaFile = findFile( APP, "App.java" );
+        assertEquals( "linked", new File( _root, "App/src/com/rim/fixture/app/App.java" ).getCanonicalFile(), javaFile
+                .getLocation().toFile().getCanonicalFile() );
+    }
+
+    @Test
+    public void testCanceledImport() throws Exception {
+        // cancel while the first project is imported, the import stops after it and deletes it again
+        NullProgressMonitor monitor = new NullProgressMonitor() {
+            @Override
+            public void subTask( String name ) {
+                setCanceled( true );
+            }
+        };
+        IStatus status = importProjects( BasicLegacyImportHelper.COPY_IMPORT, monitor );
+        assertEquals( IStatus.CANCEL, status.getSeverity() );
+        for( String name : new String[] { APP, LIBRARY } ) {
+            assertFalse( name, ResourcesPlugin.getWorkspace().getRoot().getProject( name ).exists() );
+        }
+    }
+
+    private IStatus importProjects( int importType, IProgressMonitor monitor ) throws CoreException {
+        LegacyImportHelper helper = new LegacyImportHelper( _legacyProjects, importType, null );
+        ResourcesPlugin.getWorkspace().run( helper, monitor );
+        return helper.getStatus();
+    }
+
+    /**
+     * Checks the projects, files, dependencies and properties both import types create.
+     */
+    private void assertImported() throws CoreException {
+        for( String name : new String[] { APP, LIBRARY } ) {
+            IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject( name );
+            assertTrue( name, project.isOpen() );
+            assertTrue( name, project.hasNature( JavaCore.NATURE_ID ) );
+        }
+        assertEquals( "Fixture", ContextManager.PLUGIN.getBBProperties( APP, false )._general.getTitle() );
+        findFile( LIBRARY, "Greeting.java" );
+        findFile( APP, "AppResource.rrc" );
+        findFile( APP, "AppResource_fr.rrc" );
+        findFile( APP, "icon.png" );
+        IProject library = ResourcesPlugin.getWorkspace().getRoot().getProject( LIBRARY );
+        IClasspathEntry[] entries = JavaCore.create( ResourcesPlugin.getWorkspace().getRoot().getProject( APP ) )
+                .getRawClasspath();
+        boolean dependsOnLibrary = false;
+        for( IClasspathEntry entry : entries ) {
+            if( entry.getEntryKind() == IClasspathEntry.CPE_PROJECT && entry.getPath().equals( library.getFullPath() ) ) {
+                dependsOnLibrary = true;
+            }
+        }
+        assertTrue( Arrays.asList( entries ).toString(), dependsOnLibrary );
+    }
+
+    private static IFile findFile( String projectName, final String fileName ) throws CoreException {
+        final IFile[] found = new IFile[ 1 ];
+        ResourcesPlugin.getWorkspace().getRoot().getProject( projectName ).accept( new IResourceProxyVisitor() {
+            public boolean visit( IResourceProxy proxy ) {
+                if( proxy.getType() == IResource.FILE && proxy.getName().equals( fileName ) ) {
+                    found[ 0 ] = (IFile) proxy.requestResource();
+                }
+                return found[ 0 ] == null;
+            }
+        }, IResource.NONE );
+        assertNotNull( projectName + "/" + fileName, found[ 0 ] );
+        assertTrue( projectName + "/" + fileName, found[ 0 ].getLocation().toFile().isFile() );
+        return found[ 0 ];
+    }
+
+    /**
+     * Creates the host the legacy workspace reads its properties and home folder from, instead of a BlackBerry runtime
+     * environment.
+     */
+    private static DebugAPIHost createHost( final File home ) {
+        return (DebugAPIHost) Proxy.newProxyInstance( LegacyImportHelperTest.class.getClassLoader(),
+                new Class< ? >[] { DebugAPIHost.class }, new InvocationHandler() {
+                    private IDEProperties _properties;
+
+                    public Object invoke( Object proxy, Method method, Object[] args ) {
+                        String name = method.getName();
+                        if( name.equals( "getProperties" ) ) {
+                            if( _properties == null ) {
+                                _properties = new IDEProperties( (DebugAPIHost) proxy );
+                            }
+                            return _properties;
+                        }
+                        if( name.equals( "getHomePath" ) ) {
+                            return home.getAbsolutePath();
+                        }
+                        if( name.equals( "equals" ) ) {
+                            return Boolean.valueOf( proxy == args[ 0 ] );
+                        }
+                        if( name.equals( "hashCode" ) ) {
+                            return Integer.valueOf( System.identityHashCode( proxy ) );
+                        }
+                        if( name.equals( "toString" ) ) {
+                            return "DebugAPIHost";
+                        }
+                        Class< ? > type = method.getReturnType();
+                        if( type == boolean.class ) {
+                            return Boolean.FALSE;
+                        }
+                        if( type == int.class ) {
+                            return Integer.valueOf( 0 );
+                        }
+                        if( type == long.class ) {
+                            return Long.valueOf( 0 );
+                        }
+                        return null;
+                    }
+                } );
+    }
+
+    private void copy( String resource, File file ) throws IOException {
+        InputStream input = getClass().getResourceAsStream( resource );
+        assertNotNull( "Missing fixture " + resource, input );
+        file.getParentFile().mkdirs();
+        OutputStream output = new FileOutputStream( file );
+        try {
+            byte[] buffer = new byte[ 4096 ];
+            for( int read = input.read( buffer ); read > 0; read = input.read( buffer ) ) {
+                output.write( buffer, 0, read );
+            }
+        } finally {
+            output.close();
+            input.close();
+        }
+    }
+
+    private static void delete( File file ) {
+        File[] children = file.listFiles();
+        if( children != null ) {
+            for( File child : children ) {
+                delete( child );
+            }
+        }
+        file.delete();
+    }
+}
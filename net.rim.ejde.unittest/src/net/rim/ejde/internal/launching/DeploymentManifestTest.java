@@ -0,0 +1,193 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.launching;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import net.rim.ejde.internal.util.DigestUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link DeploymentManifest}. Every test deploys to its own temporary folder, so it has its own manifest file in the
+ * state location of the plug-in.
+ */
+public class DeploymentManifestTest {
+    private static final String NAME = "Test.cod";
+
+    private File _root;
+    private File _srcFile;
+    private File _dstFolder;
+    private File _dstFile;
+
+    @Before
+    public void setUp() throws IOException {
+        _root = File.createTempFile( "deployment", "" );
+        _root.delete();
+        _dstFolder = new File( _root, "simulator" );
+        _dstFolder.mkdirs();
+        _srcFile = new File( _root, NAME );
+        _dstFile = new File( _dstFolder, NAME );
+        write( _srcFile, "content" );
+    }
+
+    @After
+    public void tearDown() {
+        DeploymentManifest.read( _dstFolder ).getManifestFile().delete();
+        delete( _root );
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        String hash = deploy();
+        DeploymentManifest manifest = DeploymentManifest.read( _dstFolder );
+        assertTrue( manifest.isDeployed( _dstFile, hash ) );
+        assertEquals( hash, manifest.getContentHash( _srcFile ) );
+    }
+
+    @Test
+    public void testFormatVersion() throws IOException {
+        String hash = deploy();
+        File manifestFile = DeploymentManifest.read( _dstFolder ).getManifestFile();
+        DataInputStream input = new DataInputStream( new FileInputStream( manifestFile ) );
+        try {
+            assertEquals( DeploymentManifest.FORMAT_VERSION, input.readInt() );
+        } finally {
+            input.close();
+        }
+        RandomAccessFile file = new RandomAccessFile( manifestFile, "rw" );
+        try {
+            file.writeInt( DeploymentManifest.FORMAT_VERSION + 1 );
+        } finally {
+            file.close();
+        }
+        assertFalse( DeploymentManifest.read( _dstFolder ).isDeployed( _dstFile, hash ) );
+    }
+
+    @Test
+    public void testDestinationChanged() throws IOException {
+        String hash = deploy();
+        DeploymentManifest manifest = DeploymentManifest.read( _dstFolder );
+        long lastModified = _dstFile.lastModified();
+        _dstFile.setLastModified( lastModified + 2000 );
+        assertFalse( "time stamp changed", manifest.isDeployed( _dstFile, hash ) );
+        _dstFile.setLastModified( lastModified );
+        assertTrue( manifest.isDeployed( _dstFile, hash ) );
+        write( _dstFile, "changed content" );
+        _dstFile.setLastModified( lastModified );
+        assertFalse( "size changed", manifest.isDeployed( _dstFile, hash ) );
+        _dstFile.delete();
+        assertFalse( "deleted", manifest.isDeployed( _dstFile, hash ) );
+    }
+
+    @Test
+    public void testSourceChanged() throws IOException {
+        String hash = deploy();
+        DeploymentManifest manifest = DeploymentManifest.read( _dstFolder );
+        long lastModified = _srcFile.lastModified();
+        write( _srcFile, "changed content" );
+        _srcFile.setLastModified( lastModified );
+        String newHash = manifest.getContentHash( _srcFile );
+        assertEquals( "size changed", DigestUtils.getFileDigest( _srcFile ), newHash );
+        assertFalse( manifest.isDeployed( _dstFile, newHash ) );
+
+        write( _srcFile, "content" );
+        _srcFile.setLastModified( lastModified + 2000 );
+        assertEquals( "time stamp changed", hash, manifest.getContentHash( _srcFile ) );
+        assertTrue( manifest.isDeployed( _dstFile, hash ) );
+    }
+
+    @Test
+    public void testContentHashReuse() throws IOException {
+        String hash = deploy();
+        DeploymentManifest manifest = DeploymentManifest.read( _dstFolder );
+        // same size and time stamp, the recorded hash is reused without reading the file
+        long lastModified = _srcFile.lastModified();
+        write( _srcFile, "CONTENT" );
+        _srcFile.setLastModified( lastModified );
+        assertEquals( hash, manifest.getContentHash( _srcFile ) );
+        _srcFile.setLastModified( lastModified + 2000 );
+        assertEquals( DigestUtils.getFileDigest( _srcFile ), manifest.getContentHash( _srcFile ) );
+    }
+
+    @Test
+    public void testTruncatedFile() throws IOException {
+        String hash = deploy();
+        File manifestFile = DeploymentManifest.read( _dstFolder ).getManifestFile();
+        RandomAccessFile file = new RandomAccessFile( manifestFile, "rw" );
+        try {
+            file.setLength( file.length() - 4 );
+        } finally {
+            file.close();
+        }
+        DeploymentManifest manifest = DeploymentManifest.read( _dstFolder );
+        assertFalse( manifest.isDeployed( _dstFile, hash ) );
+        // the next deployment writes a readable manifest again
+        manifest.deployed( _srcFile, _dstFile, hash );
+        manifest.save();
+        assertTrue( DeploymentManifest.read( _dstFolder ).isDeployed( _dstFile, hash ) );
+    }
+
+    @Test
+    public void testRemoved() throws IOException {
+        String hash = deploy();
+        DeploymentManifest manifest = DeploymentManifest.read( _dstFolder );
+        manifest.removed( _dstFile );
+        manifest.save();
+        assertFalse( DeploymentManifest.read( _dstFolder ).isDeployed( _dstFile, hash ) );
+    }
+
+    /**
+     * Copies the source file to the deployment folder, records it in a new manifest and saves the manifest.
+     */
+    private String deploy() throws IOException {
+        DeploymentManifest manifest = DeploymentManifest.read( _dstFolder );
+        String hash = manifest.getContentHash( _srcFile );
+        assertEquals( DigestUtils.getFileDigest( _srcFile ), hash );
+        assertFalse( manifest.isDeployed( _dstFile, hash ) );
+        write( _dstFile, "content" );
+        manifest.deployed( _srcFile, _dstFile, hash );
+        assertTrue( manifest.isDeployed( _dstFile, hash ) );
+        manifest.save();
+        assertTrue( manifest.getManifestFile().isFile() );
+        return hash;
+    }
+
+    private static void write( File file, String content ) throws IOException {
+        FileOutputStream output = new FileOutputStream( file );
+        try {
+            output.write( content.getBytes( "UTF-8" ) );
+        } finally {
+            output.close();
+        }
+    }
+
+    private static void delete( File file ) {
+        File[] children = file.listFiles();
+        if( children != null ) {
+            for( File child : children ) {
+                delete( child );
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.packaging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.rim.ejde.internal.packaging.PackagingManager.Problem;
+import net.rim.ejde.internal.packaging.RapcOutputParser.LineKind;
+
+import org.junit.Test;
+
+/**
+ * Runs recorded rapc output through {@link RapcOutputParser} and compares every line with a golden file.
+ * <p>
+ * The sample <code>rapc/&lt;name&gt;.txt</code> holds the recorded output, the golden file
+ * <code>rapc/&lt;name&gt;.expected</code> holds one line per output line: the kind of a line which does not report a problem,
+ * otherwise the kind, the level, the file, the line number and the message of the problem, separated by tabs.
+ */
+public class RapcOutputParserTest {
+    private static final String SAMPLES = "rapc/";
+    private static final char SEPARATOR = '\t';
+
+    /**
+     * javac errors as printed on stderr, with the source lines and the carets below them.
+     */
+    @Test
+    public void testCompileErrors() throws IOException {
+        assertSample( "compile-errors" );
+    }
+
+    /**
+     * javac and rapc warnings.
+     */
+    @Test
+    public void testWarnings() throws IOException {
+        assertSample( "warnings" );
+    }
+
+    /**
+     * Progress messages of a packaging run mixed with rapc errors and lines which only look like problems.
+     */
+    @Test
+    public void testProgress() throws IOException {
+        assertSample( "progress" );
+    }
+
+    @Test
+    public void testJavaLocation() {
+        Problem problem = RapcOutputParser.parse( "C:\\work\\src\\a\\B.java:7: cannot find symbol" );
+        assertNotNull( problem );
+        assertEquals( "C:\\work\\src\\a\\B.java", problem.getFile() );
+        assertEquals( 7, problem.getLine() );
+        assertEquals( "cannot find symbol", problem.msg );
+        assertEquals( Problem.ERROR, problem.level );
+
+        problem = RapcOutputParser.parse( "/work/src/a/B.java:12: warning: [unchecked] unchecked call" );
+        assertNotNull( problem );
+        assertEquals( "/work/src/a/B.java", problem.getFile() );
+        assertEquals( 12, problem.getLine() );
+        assertEquals( Problem.WARNING, problem.level );
+    }
+
+    @Test
+    public void testNotAJavaLocation() {
+        assertEquals( LineKind.OTHER, RapcOutputParser.classify( "B.java:7:cannot find symbol" ) );
+        assertEquals( LineKind.OTHER, RapcOutputParser.classify( "B.java:: cannot find symbol" ) );
+        assertEquals( LineKind.OTHER, RapcOutputParser.classify( "B.java:7: " ) );
+        assertNull( RapcOutputParser.parse( "Reading file B.java: done" ) );
+    }
+
+    private void assertSample( String name ) throws IOException {
+        List< String > lines = readLines( SAMPLES + name + ".txt" );
+        List< String > expected = readLines( SAMPLES + name + ".expected" );
+        assertEquals( name + ": number of lines", expected.size(), lines.size() );
+        for( int i = 0; i < lines.size(); i++ ) {
+            assertEquals( name + ".txt:" + ( i + 1 ) + ": " + lines.get( i ), expected.get( i ), describe( lines.get( i ) ) );
+        }
+    }
+
+    private static String describe( String line ) {
+        StringBuffer description = new StringBuffer( RapcOutputParser.classify( line ).name() );
+        Problem problem = RapcOutputParser.parse( line );
+        if( problem != null ) {
+            description.append( SEPARATOR ).append( problem.level == Problem.ERROR ? "ERROR" : "WARNING" );
+            description.append( SEPARATOR ).append( problem.getFile() == null ? "" : problem.getFile() );
+            description.append( SEPARATOR ).append( problem.getLine() );
+            description.append( SEPARATOR ).append( problem.msg );
+        }
+        return description.toString();
+    }
+
+    private List< String > readLines( String resource ) throws IOException {
+        InputStream input = getClass().getResourceAsStream( resource );
+        assertNotNull( "Missing sample " + resource, input );
+        List< String > lines = new ArrayList< String >();
+        BufferedReader reader = new BufferedReader( new InputStreamReader( input, "UTF-8" ) );
+        try {
+            for( String line = reader.readLine(); line != null; line = reader.readLine() ) {
+                lines.add( line );
+            }
+        } finally {
+            reader.close();
+        }
+        return lines;
+    }
+}
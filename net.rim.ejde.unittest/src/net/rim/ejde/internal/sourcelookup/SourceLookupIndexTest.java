@@ -0,0 +1,171 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.sourcelookup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import net.rim.ejde.internal.sourcelookup.RIMSourcePathProvider.UniqueList;
+
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.debug.core.sourcelookup.ISourceContainer;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.launching.sourcelookup.containers.JavaProjectSourceContainer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Times the {@link UniqueList} and the workspace index of the {@link SourceLookupIndex} with sizes of a large workspace and
+ * checks the files found in the index. The bounds are loose, they catch a quadratic regression rather than measure the speed;
+ * the timings are printed.
+ */
+public class SourceLookupIndexTest {
+    private static final String PROJECT_NAME = "SourceLookupIndexTest";
+    private static final int PACKAGES = 100;
+    private static final int FILES_PER_PACKAGE = 100;
+    private static final int ENTRIES = 100000;
+    private static final long MAX_TIME = 5000;
+
+    private IProject _project;
+    private IFolder _src;
+    private IFolder _res;
+    private ISourceContainer[] _containers;
+    private SourceLookupIndex _index;
+
+    @Before
+    public void setUp() throws CoreException, IOException {
+        _project = ResourcesPlugin.getWorkspace().getRoot().getProject( PROJECT_NAME );
+        _project.create( null );
+        _project.open( null );
+        IProjectDescription description = _project.getDescription();
+        description.setNatureIds( new String[] { JavaCore.NATURE_ID } );
+        _project.setDescription( description, null );
+        _src = _project.getFolder( "src" );
+        _res = _project.getFolder( "res" );
+        // the files are written to disk directly and refreshed once, as an import does
+        for( int i = 0; i < PACKAGES; i++ ) {
+            for( int j = 0; j < FILES_PER_PACKAGE; j++ ) {
+                write( new File( _src.getLocation().toFile(), getName( i, j ) ) );
+            }
+        }
+        write( new File( _res.getLocation().toFile(), getName( 0, 0 ) ) );
+        write( new File( _res.getLocation().toFile(), "com/rim/other/Only.java" ) );
+        _project.refreshLocal( IResource.DEPTH_INFINITE, null );
+        IJavaProject javaProject = JavaCore.create( _project );
+        javaProject.setRawClasspath( new IClasspathEntry[] { JavaCore.newSourceEntry( _src.getFullPath() ),
+                JavaCore.newSourceEntry( _res.getFullPath() ) }, _project.getFullPath().append( "bin" ), null );
+        _containers = new ISourceContainer[] { new JavaProjectSourceContainer( javaProject ) };
+        _index = new SourceLookupIndex();
+        _index.connect();
+    }
+
+    @After
+    public void tearDown() throws CoreException {
+        _index.disconnect();
+        _project.delete( true, true, null );
+    }
+
+    @Test
+    public void testUniqueList() {
+        long start = System.currentTimeMillis();
+        List< String > list = new UniqueList< String >( ENTRIES );
+        for( int i = 0; i < 2 * ENTRIES; i++ ) {
+            // every entry is added twice
+            list.add( "entry" + ( i % ENTRIES ) );
+        }
+        for( int i = 0; i < ENTRIES; i++ ) {
+            assertTrue( list.contains( "entry" + i ) );
+        }
+        long time = System.currentTimeMillis() - start;
+        System.out.println( "UniqueList: " + 2 * ENTRIES + " adds and " + ENTRIES + " lookups in " + time + "ms" );
+        assertEquals( ENTRIES, list.size() );
+        assertEquals( "entry0", list.get( 0 ) );
+        assertEquals( "entry" + ( ENTRIES - 1 ), list.get( ENTRIES - 1 ) );
+        assertTrue( "UniqueList took " + time + "ms", time < MAX_TIME );
+    }
+
+    @Test
+    public void testWorkspaceIndex() {
+        long start = System.currentTimeMillis();
+        for( int i = 0; i < PACKAGES; i++ ) {
+            for( int j = 0; j < FILES_PER_PACKAGE; j++ ) {
+                String name = getName( i, j );
+                assertEquals( name, _src.getFile( name ), _index.getWorkspaceFile( name, _containers ) );
+            }
+        }
+        long time = System.currentTimeMillis() - start;
+        System.out.println( "SourceLookupIndex: indexed and looked up " + PACKAGES * FILES_PER_PACKAGE + " files in " + time
+                + "ms" );
+        assertTrue( "the workspace index took " + time + "ms", time < MAX_TIME );
+
+        String other = "com/rim/other/Only.java";
+        assertEquals( _res.getFile( other ), _index.getWorkspaceFile( other.replace( '/', File.separatorChar ), _containers ) );
+        assertNull( _index.getWorkspaceFile( "a/Missing.java", _containers ) );
+        assertNull( "not a java file", _index.getWorkspaceFile( "a/Missing.txt", _containers ) );
+    }
+
+    @Test
+    public void testLeadingProjectsOnly() {
+        ISourceContainer[] containers = new ISourceContainer[] { new RIMDirSourceContainer( new File( "." ), false ),
+                _containers[ 0 ] };
+        assertNull( "a project after another container", _index.getWorkspaceFile( getName( 0, 0 ), containers ) );
+    }
+
+    @Test
+    public void testWorkspaceChanges() throws CoreException {
+        String name = getName( 0, 0 );
+        assertEquals( "the first source folder wins", _src.getFile( name ), _index.getWorkspaceFile( name, _containers ) );
+
+        _src.getFile( name ).delete( true, null );
+        assertEquals( "removed", _res.getFile( name ), _index.getWorkspaceFile( name, _containers ) );
+
+        _src.getFile( name ).create( new ByteArrayInputStream( new byte[ 0 ] ), true, null );
+        assertEquals( "added", _src.getFile( name ), _index.getWorkspaceFile( name, _containers ) );
+
+        String added = "com/rim/other/Added.java";
+        _res.getFile( added ).create( new ByteArrayInputStream( new byte[ 0 ] ), true, null );
+        assertEquals( _res.getFile( added ), _index.getWorkspaceFile( added, _containers ) );
+
+        // the second source folder is no longer on the classpath
+        JavaCore.create( _project ).setRawClasspath( new IClasspathEntry[] { JavaCore.newSourceEntry( _src.getFullPath() ) },
+                null );
+        assertNull( "classpath changed", _index.getWorkspaceFile( added, _containers ) );
+    }
+
+    private static String getName( int packageIndex, int fileIndex ) {
+        return "com/rim/test/p" + packageIndex + "/Type" + fileIndex + ".java";
+    }
+
+    private static void write( File file ) throws IOException {
+        file.getParentFile().mkdirs();
+        FileOutputStream output = new FileOutputStream( file );
+        try {
+            output.write( ( "package " + file.getParentFile().getName() + ";\n" ).getBytes( "UTF-8" ) );
+        } finally {
+            output.close();
+        }
+    }
+}
@@ -25,10 +25,11 @@ public interface ISourceMapper {
     IFile getMappedResource( IFile sourceFile );
 
     /**
-     * Return the content of the given <code>soruceFile</code>.
+     * Return the content of the given <code>sourceFile</code> or <code>null</code> if the content of the resource returned by
+     * {@link ISourceMapper#getMappedResource(IFile)} should be used.
      * <p>
-     * <b>Currently this method is only called when the {@link ISourceMapper#getMappedResource()} return null. We provide a change
-     * to return an empty char array to eclipse compiler to skip compiling the source file.</b>
+     * <b>This method is called before {@link ISourceMapper#getMappedResource(IFile)}, so that preprocessed content kept in memory
+     * can be returned to the eclipse compiler without reading a mapped file.</b>
      *
      * @param sourceFile
      * @return
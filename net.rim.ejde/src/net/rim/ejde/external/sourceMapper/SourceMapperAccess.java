@@ -10,6 +10,8 @@
 */
 package net.rim.ejde.external.sourceMapper;
 
+import net.rim.ejde.internal.builders.PreprocessDirectiveIndex;
+import net.rim.ejde.internal.builders.PreprocessedContentStore;
 import net.rim.ejde.internal.builders.PreprocessingBuilder;
 
 import org.eclipse.core.resources.IFile;
@@ -30,6 +32,10 @@ public class SourceMapperAccess {
      * @return
      */
     public static IFile getMappedSourceFile( IFile file ) {
+        // a file without preprocessor directives is never preprocessed, the original file is used
+        if( PreprocessDirectiveIndex.isNotPreprocessed( file ) ) {
+            return file;
+        }
         if( !PreprocessingBuilder.shouldBuiltByJavaBuilder( file ) ) {
             return null;
         }
@@ -42,19 +48,20 @@ public class SourceMapperAccess {
     }
 
     /**
-     * {@link ISourceMapper#getContent(IFile)}
+     * Return the preprocessed content of the specified file or <code>null</code> if the content of the file returned by
+     * {@link #getMappedSourceFile(IFile)} should be used. {@link ISourceMapper#getContent(IFile)}
      *
      * @param file
      * @return
      */
     public static char[] getContent( IFile file ) {
-        char[] content = new char[ 0 ];
-
-        if( sourceMapper != null ) {
-            content = sourceMapper.getContent( file );
+        // the compiler reads the mapped file if the content is not kept in memory
+        if( sourceMapper == null || !PreprocessedContentStore.getInstance().isEnabled()
+                || PreprocessDirectiveIndex.isNotPreprocessed( file )
+                || !PreprocessingBuilder.shouldBuiltByJavaBuilder( file ) ) {
+            return null;
         }
-
-        return content;
+        return sourceMapper.getContent( file );
     }
 
     /**
@@ -12,6 +12,8 @@ package net.rim.ejde.internal.builders;
 
 import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -20,6 +22,7 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashMap;
@@ -129,6 +132,7 @@ public final class ALXBuilder {
         private List< FileSet > _filesetList;
         private Vector< Alx > _dependencies; // further AlxElement items describing the dependencies of this module
         private Vector< AlxImport > _alxImports; // further AlxElement items describing required alx files
+        private Element _element; // built once, an Alx is reused as long as its inputs do not change
 
         /**
          * The core element of the ALX builder
@@ -187,6 +191,9 @@ public final class ALXBuilder {
         }
 
         /* package */Element toElement( AlxProperties props ) {
+            if( _element != null ) {
+                return _element;
+            }
             Element e = new Element( props.getStringProperty( ALX_TAG_APP ) );
             e.attribute( props.getStringProperty( ALX_TAG_APP_ATTR_ID ), _applicationId );
 
@@ -246,6 +253,7 @@ public final class ALXBuilder {
                 return null;
             }
             ALXBuilder.debug( "element built" );
+            _element = e;
             return e;
         }
 
@@ -542,7 +550,8 @@ public final class ALXBuilder {
     }
 
     /**
-     * Write out the ALX file. ALX files are used by the desktop tools to load applications onto devices
+     * Write out the ALX file. ALX files are used by the desktop tools to load applications onto devices. The file is not
+     * rewritten if its content has not changed.
      *
      * @param filename
      *            the name of alx file
@@ -555,16 +564,18 @@ public final class ALXBuilder {
         }
         try {
             ALXBuilder.debug( "FileName: " + fileName );
-            // FileWriter fw = new FileWriter(fileName + _props.getStringProperty(ALX_FILENAME_EXTENSION));
-            FileOutputStream fos = new FileOutputStream( fileName + _props.getStringProperty( ALX_FILENAME_EXTENSION ) );
-            Writer fw = new BufferedWriter( new OutputStreamWriter( fos, "ISO8859_1" ) );
-
-            ALXBuilder.debug( "adding application tag" );
-            Element loader = new Element( _props.getStringProperty( ALX_TAG_LOADER ) );
-            loader.attribute( _props.getStringProperty( ALX_TAG_LOADER_ATTR_VERSION ), _props.getStringProperty( ALX_VERSION ) );
-            loader.add( alx.toElement( _props ) );
-            loader.write( fw, "" );
-            fw.close();
+            File alxFile = new File( fileName + _props.getStringProperty( ALX_FILENAME_EXTENSION ) );
+            byte[] content = toBytes( alx );
+            if( hasContent( alxFile, content ) ) {
+                ALXBuilder.debug( "alx file has not changed" );
+                return true;
+            }
+            FileOutputStream fos = new FileOutputStream( alxFile );
+            try {
+                fos.write( content );
+            } finally {
+                fos.close();
+            }
         } catch( IOException ex ) {
             System.err.println( "AlxBuilder.write() failed:" + ex );
             return false;
@@ -572,6 +583,41 @@ public final class ALXBuilder {
         return true;
     }
 
+    /**
+     * Renders the given <code>alx</code> to the content of an ALX file.
+     *
+     * @param alx
+     * @return
+     * @throws IOException
+     */
+    static byte[] toBytes( Alx alx ) throws IOException {
+        // FileWriter fw = new FileWriter(fileName + _props.getStringProperty(ALX_FILENAME_EXTENSION));
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        Writer fw = new BufferedWriter( new OutputStreamWriter( bos, "ISO8859_1" ) );
+
+        ALXBuilder.debug( "adding application tag" );
+        Element loader = new Element( _props.getStringProperty( ALX_TAG_LOADER ) );
+        loader.attribute( _props.getStringProperty( ALX_TAG_LOADER_ATTR_VERSION ), _props.getStringProperty( ALX_VERSION ) );
+        loader.add( alx.toElement( _props ) );
+        loader.write( fw, "" );
+        fw.close();
+        return bos.toByteArray();
+    }
+
+    private static boolean hasContent( File file, byte[] content ) throws IOException {
+        if( !file.isFile() || file.length() != content.length ) {
+            return false;
+        }
+        byte[] existingContent = new byte[ content.length ];
+        DataInputStream in = new DataInputStream( new FileInputStream( file ) );
+        try {
+            in.readFully( existingContent );
+        } finally {
+            in.close();
+        }
+        return Arrays.equals( content, existingContent );
+    }
+
     /**
      * Generates the alx based on the old method from RIA.
      *
@@ -594,11 +640,16 @@ public final class ALXBuilder {
      */
     public static ALXBuilder.Alx generateAlx( HashMap inherited, BlackBerryProject bbProject ) throws CoreException,
             ResourceParseException, FileNotFoundException {
-        return generateAlx( inherited, bbProject, true );
+        return generateApplication( inherited, bbProject, true )._alx;
     }
 
-    private static ALXBuilder.Alx generateAlx( HashMap inherited, BlackBerryProject bbProject, boolean checkDependency )
-            throws CoreException, ResourceParseException, FileNotFoundException {
+    /**
+     * Generates the application of the given project. A cached application is reused if none of its inputs has changed, i.e.
+     * the project properties, the title resource bundle, the alx imports, the packaged cod files and the applications of the
+     * projects it depends on. Every file which is read while the application is rendered has to be part of its fingerprint.
+     */
+    private static AlxModelCache.Application generateApplication( HashMap inherited, BlackBerryProject bbProject,
+            boolean checkDependency ) throws CoreException, ResourceParseException, FileNotFoundException {
         if( inherited == null ) {
             inherited = new HashMap(); // used to pass values to projects this depends on
         }
@@ -607,6 +658,12 @@ public final class ALXBuilder {
         String outputName = properties._packaging.getOutputFileName();
         int end = outputName.lastIndexOf( '.' ) == -1 ? outputName.length() : outputName.lastIndexOf( '.' );
         String outputNamenoext = outputName.substring( 0, end );
+        StringBuffer fingerprint = new StringBuffer();
+        addInput( fingerprint, outputName );
+        addInput( fingerprint, properties._general.getTitle() );
+        addInput( fingerprint, properties._general.getDescription() );
+        addInput( fingerprint, properties._general.getVersion() );
+        addInput( fingerprint, properties._general.getVendor() );
 
         // access the resource tools and generate AlxBuilder.Language instances for each langauge supported (we're
         // looking for the resources for Title and Description, if provided
@@ -615,53 +672,31 @@ public final class ALXBuilder {
         HashMap< String, Object > requiredFilesList = new HashMap< String, Object >(); // use a hashmap to eliminate duplicates
         requiredFilesList.put( outputName, null );
 
-        // Languages - generate an AlxBuilder.Lanuage instance for each language supported by the app
-        Vector< Language > languages = new Vector< Language >(); // a vector to hold the Lanuage instances
         // If title resource not active, it is possibly a library,skip the languages step
         String titleResourceBundleClassName = properties._resources.getTitleResourceBundleClassName();
         String titleResourceBundleKey = properties._resources.getTitleResourceBundleKey();
-        String rootTitle = IConstants.EMPTY_STRING, rootDescription = IConstants.EMPTY_STRING;
-        if( properties._resources.hasTitleResource() && !StringUtils.isEmpty( titleResourceBundleClassName )
-                && !StringUtils.isEmpty( titleResourceBundleKey ) ) {
-            ResourceCollection resources;
+        boolean hasTitleResource = properties._resources.hasTitleResource()
+                && !StringUtils.isEmpty( titleResourceBundleClassName ) && !StringUtils.isEmpty( titleResourceBundleKey );
+        File rrhFile = null;
+        String rrhFingerprint = null;
+        if( hasTitleResource ) {
             Map< String, RRHFile > resourceMap = ProjectUtils.getProjectResources( bbProject );
             IFile resourceFile = resourceMap.get( properties._resources.getTitleResourceBundleClassName() ).getFile();
             if( resourceFile != null && resourceFile.exists() ) {
-                resources = ResourceCollectionFactory.newResourceCollection( resourceFile.getLocation().toOSString() );
-                ResourceLocale[] resourceLocales = resources.getLocales();
-                String titlevalue = null, descvalue = null;
-                for( ResourceLocale resourceLocale : resourceLocales ) {
-                    ResourceElement titleElement = resourceLocale.getResourceElement( properties._resources
-                            .getTitleResourceBundleKey() );
-                    if( titleElement != null ) {
-                        titlevalue = ResourceUtil.unicodeToEscaped( titleElement.getValueAsString() );
-                    }
-                    ResourceElement descrElement = resourceLocale.getResourceElement( properties._resources.getDescriptionId() );
-                    if( descrElement != null ) {
-                        descvalue = ResourceUtil.unicodeToEscaped( descrElement.getValueAsString() );
-                    }
-                    if( ( ( titlevalue == null ) && ( descvalue == null ) )
-                            || ( ( titlevalue == null ) && ( descvalue.length() == 0 ) )
-                            || ( ( titlevalue.length() == 0 ) && ( descvalue == null ) )
-                            || ( ( titlevalue.length() == 0 ) && ( descvalue.length() == 0 ) ) ) {
-                        continue;
-                    }
-                    // don't generate a language element for the root
-                    if( resourceLocale.getLocaleName().equals( IConstants.EMPTY_STRING ) ) {
-                        // we need to remember the root title and the description values
-                        rootTitle = titlevalue;
-                        rootDescription = descvalue;
-                        continue;
-                    }
-                    Locale locale = ConvertUtil.localeValueOf( resourceLocale.getLocaleName() );
-                    languages.addElement( new ALXBuilder.Language( locale.getISO3Language(), locale.getCountry(), titlevalue,
-                            descvalue ) );
-                }
+                rrhFile = resourceFile.getLocation().toFile();
+                // the fingerprint is taken before the bundle is read, so a change during the read is noticed next time
+                rrhFingerprint = AlxModelCache.getFingerprint( rrhFile );
             }
         }
+        addInput( fingerprint, Boolean.valueOf( hasTitleResource ) );
+        addInput( fingerprint, titleResourceBundleKey );
+        addInput( fingerprint, properties._resources.getDescriptionId() );
+        addInput( fingerprint, rrhFile );
+        addInput( fingerprint, rrhFingerprint );
 
         String copyright = "Copyright (c) " + Integer.toString( Calendar.getInstance().get( Calendar.YEAR ) ) + " "
                 + properties._general.getVendor();
+        addInput( fingerprint, copyright );
 
         // TODO: what directory for the FileSet? currently using the vendor name as the subdir, with '_' substituted for ' '
         /*
@@ -676,7 +711,9 @@ public final class ALXBuilder {
         if( checkDependency ) {
             for( BlackBerryProject dependantProj : ProjectUtils.getAllReferencedProjects( bbProject ) ) {
                 // we do not need to recursively check the dependent project
-                dependencies.addElement( ALXBuilder.generateAlx( inherited, dependantProj, false ) );
+                AlxModelCache.Application dependency = generateApplication( inherited, dependantProj, false );
+                dependencies.addElement( dependency._alx );
+                addInput( fingerprint, dependency._fingerprint );
             }
         }
 
@@ -689,6 +726,8 @@ public final class ALXBuilder {
             alxFile = bbProject.getProject().getFile( alxFileName );
             if( alxFile.exists() ) {
                 alxImports.addElement( new ALXBuilder.AlxImport( alxFile.getLocation().toOSString() ) );
+                // the id of the imported application is read from the file when the element is rendered
+                addFileInput( fingerprint, alxFile.getLocation().toFile() );
             }
         }
 
@@ -717,18 +756,100 @@ public final class ALXBuilder {
             }
             fileSetList.add( new ALXBuilder.FileSet( currentVersionString, new Vector< String >( requiredFilesList.keySet() ),
                     vmversion, compatiableVersion ) );
+            addInput( fingerprint, currentVersionString + compatiableVersion );
+        }
+
+        AlxModelCache cache = AlxModelCache.getInstance();
+        String key = AlxModelCache.getKey( bbProject.getProject(), checkDependency );
+        AlxModelCache.Application application = cache.getApplication( key, fingerprint.toString() );
+        if( application != null ) {
+            ALXBuilder.debug( "reusing application of " + bbProject.getProject().getName() );
+            return application;
+        }
+
+        // Languages - generate an AlxBuilder.Lanuage instance for each language supported by the app
+        Vector< Language > languages = new Vector< Language >(); // a vector to hold the Lanuage instances
+        String rootTitle = IConstants.EMPTY_STRING, rootDescription = IConstants.EMPTY_STRING;
+        if( rrhFile != null ) {
+            AlxModelCache.TitleResources titleResources = getTitleResources( bbProject, rrhFile, rrhFingerprint, properties );
+            languages.addAll( titleResources._languages );
+            rootTitle = titleResources._rootTitle;
+            rootDescription = titleResources._rootDescription;
         }
-        if( properties._resources.hasTitleResource() && !StringUtils.isEmpty( titleResourceBundleClassName )
-                && !StringUtils.isEmpty( titleResourceBundleKey ) ) {
+        ALXBuilder.Alx alx;
+        if( hasTitleResource ) {
             // if resource is used, we use the root title and description
-            return new ALXBuilder.Alx( outputNamenoext, rootTitle, rootDescription, properties._general.getVersion(),
+            alx = new ALXBuilder.Alx( outputNamenoext, rootTitle, rootDescription, properties._general.getVersion(),
                     properties._general.getVendor(), copyright, languages, fileSetList, dependencies, alxImports );
         } else {
-            return new ALXBuilder.Alx( outputNamenoext, properties._general.getTitle(), properties._general.getDescription(),
+            alx = new ALXBuilder.Alx( outputNamenoext, properties._general.getTitle(), properties._general.getDescription(),
                     properties._general.getVersion(), properties._general.getVendor(), copyright, languages, fileSetList,
                     dependencies, alxImports );
         }
+        application = new AlxModelCache.Application( fingerprint.toString(), alx );
+        // the titles of a bundle which could not be listed can not be validated, so the application is generated again
+        if( rrhFile == null || rrhFingerprint != null ) {
+            cache.putApplication( key, application );
+        }
+        return application;
+    }
+
+    // appends an input of an application to its fingerprint
+    private static void addInput( StringBuffer fingerprint, Object input ) {
+        fingerprint.append( input ).append( '\n' );
+    }
+
+    // appends a file which is read while the application is rendered to its fingerprint
+    private static void addFileInput( StringBuffer fingerprint, File file ) {
+        addInput( fingerprint, file.getAbsolutePath() + ':' + file.length() + '@' + file.lastModified() );
+    }
 
+    /**
+     * Reads the titles and descriptions of all locales from the given title resource bundle. The result is cached until a file of
+     * the bundle changes.
+     */
+    private static AlxModelCache.TitleResources getTitleResources( BlackBerryProject bbProject, File rrhFile, String fingerprint,
+            BlackBerryProperties properties ) throws ResourceParseException, FileNotFoundException {
+        AlxModelCache cache = AlxModelCache.getInstance();
+        String key = AlxModelCache.getKey( bbProject.getProject(), rrhFile, properties._resources.getTitleResourceBundleKey(),
+                properties._resources.getDescriptionId() );
+        AlxModelCache.TitleResources titleResources = cache.get( key, fingerprint );
+        if( titleResources != null ) {
+            return titleResources;
+        }
+        Vector< Language > languages = new Vector< Language >();
+        String rootTitle = IConstants.EMPTY_STRING, rootDescription = IConstants.EMPTY_STRING;
+        ResourceCollection resources = ResourceCollectionFactory.newResourceCollection( rrhFile.getPath() );
+        ResourceLocale[] resourceLocales = resources.getLocales();
+        String titlevalue = null, descvalue = null;
+        for( ResourceLocale resourceLocale : resourceLocales ) {
+            ResourceElement titleElement = resourceLocale.getResourceElement( properties._resources.getTitleResourceBundleKey() );
+            if( titleElement != null ) {
+                titlevalue = ResourceUtil.unicodeToEscaped( titleElement.getValueAsString() );
+            }
+            ResourceElement descrElement = resourceLocale.getResourceElement( properties._resources.getDescriptionId() );
+            if( descrElement != null ) {
+                descvalue = ResourceUtil.unicodeToEscaped( descrElement.getValueAsString() );
+            }
+            if( ( ( titlevalue == null ) && ( descvalue == null ) ) || ( ( titlevalue == null ) && ( descvalue.length() == 0 ) )
+                    || ( ( titlevalue.length() == 0 ) && ( descvalue == null ) )
+                    || ( ( titlevalue.length() == 0 ) && ( descvalue.length() == 0 ) ) ) {
+                continue;
+            }
+            // don't generate a language element for the root
+            if( resourceLocale.getLocaleName().equals( IConstants.EMPTY_STRING ) ) {
+                // we need to remember the root title and the description values
+                rootTitle = titlevalue;
+                rootDescription = descvalue;
+                continue;
+            }
+            Locale locale = ConvertUtil.localeValueOf( resourceLocale.getLocaleName() );
+            languages.addElement( new ALXBuilder.Language( locale.getISO3Language(), locale.getCountry(), titlevalue,
+                    descvalue ) );
+        }
+        titleResources = new AlxModelCache.TitleResources( fingerprint, languages, rootTitle, rootDescription );
+        cache.put( key, titleResources );
+        return titleResources;
     }
 
     private static int nextValidBBVM( BlackBerrySDKInstall currentVM, List< IVMInstall > vmList, BlackBerryProject bbProject ) {
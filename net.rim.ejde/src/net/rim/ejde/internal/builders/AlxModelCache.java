@@ -0,0 +1,252 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.builders;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.rim.ejde.internal.builders.ALXBuilder.Alx;
+import net.rim.ejde.internal.builders.ALXBuilder.Language;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+/**
+ * Caches the parts of the ALX model of the projects:
+ * <ul>
+ * <li>the localized titles and descriptions read from the title resource bundle of a project. Parsing the resource bundle is
+ * the expensive part of generating an ALX file. An entry records the rrh file and the rrc files of the bundle it has been read
+ * from and stays valid as long as no such file is added, removed or changed in size or time stamp.</li>
+ * <li>the <code>&lt;application&gt;</code> element of a project together with its <code>&lt;fileset&gt;</code> elements. An
+ * entry records the inputs it has been generated from, including the applications of the projects it depends on, so the
+ * application of a library is generated once and reused by every project which depends on it.</li>
+ * </ul>
+ * The entries of a project are dropped when the project is closed or deleted.
+ */
+public class AlxModelCache implements IResourceChangeListener {
+    private static final String RRH_EXTENSION = ".rrh"; //$NON-NLS-1$
+    private static final String RRC_EXTENSION = ".rrc"; //$NON-NLS-1$
+
+    private static class AlxModelCacheHolder {
+        public static AlxModelCache alxModelCache = new AlxModelCache();
+    }
+
+    private final Map< String, TitleResources > _titleResources = new ConcurrentHashMap< String, TitleResources >();
+    private final Map< String, Application > _applications = new ConcurrentHashMap< String, Application >();
+
+    /**
+     * The titles and descriptions read from a title resource bundle.
+     */
+    static class TitleResources {
+        final String _fingerprint;
+        final Vector< Language > _languages;
+        final String _rootTitle;
+        final String _rootDescription;
+
+        TitleResources( String fingerprint, Vector< Language > languages, String rootTitle, String rootDescription ) {
+            _fingerprint = fingerprint;
+            _languages = languages;
+            _rootTitle = rootTitle;
+            _rootDescription = rootDescription;
+        }
+    }
+
+    /**
+     * The application generated for a project.
+     */
+    static class Application {
+        final String _fingerprint;
+        final Alx _alx;
+
+        Application( String fingerprint, Alx alx ) {
+            _fingerprint = fingerprint;
+            _alx = alx;
+        }
+    }
+
+    private AlxModelCache() {
+    }
+
+    /**
+     * Singleton getInstance() method.
+     *
+     * @return the unique instance of the class
+     */
+    public static AlxModelCache getInstance() {
+        return AlxModelCacheHolder.alxModelCache;
+    }
+
+    /**
+     * Starts listening to the projects which are closed or deleted.
+     */
+    public static void addListener() {
+        ResourcesPlugin.getWorkspace().addResourceChangeListener( getInstance(),
+                IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE );
+    }
+
+    /**
+     * Stops listening to resource changes.
+     */
+    public static void removeListener() {
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener( getInstance() );
+    }
+
+    private static String getPrefix( IProject project ) {
+        return project.getName() + File.pathSeparator;
+    }
+
+    /**
+     * Gets the key of the titles read from the given <code>rrhFile</code> of the given <code>project</code> with the given
+     * resource keys.
+     *
+     * @param project
+     * @param rrhFile
+     * @param titleKey
+     * @param descriptionKey
+     * @return
+     */
+    static String getKey( IProject project, File rrhFile, String titleKey, String descriptionKey ) {
+        return getPrefix( project ) + rrhFile.getAbsolutePath() + File.pathSeparator + titleKey + File.pathSeparator
+                + descriptionKey;
+    }
+
+    /**
+     * Gets the key of the application of the given <code>project</code>.
+     *
+     * @param project
+     * @param withDependencies
+     *            <code>true</code> if the application contains the applications of the projects it depends on
+     * @return
+     */
+    static String getKey( IProject project, boolean withDependencies ) {
+        return getPrefix( project ) + withDependencies;
+    }
+
+    /**
+     * Gets the fingerprint of the resource bundle of the given <code>rrhFile</code>, made of the names, sizes and time stamps of
+     * the rrh file and its rrc files.
+     *
+     * @param rrhFile
+     * @return
+     */
+    static String getFingerprint( File rrhFile ) {
+        String name = rrhFile.getName();
+        String baseName = name.endsWith( RRH_EXTENSION ) ? name.substring( 0, name.length() - RRH_EXTENSION.length() ) : name;
+        File[] files = rrhFile.getParentFile() == null ? null : rrhFile.getParentFile().listFiles();
+        if( files == null ) {
+            return null;
+        }
+        // the order of a directory listing is not defined
+        Arrays.sort( files );
+        StringBuffer fingerprint = new StringBuffer();
+        for( File file : files ) {
+            String fileName = file.getName();
+            if( fileName.equals( name ) || ( fileName.startsWith( baseName ) && fileName.endsWith( RRC_EXTENSION ) ) ) {
+                fingerprint.append( fileName ).append( ':' ).append( file.length() ).append( '@' ).append( file.lastModified() )
+                        .append( ';' );
+            }
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * Gets the cached titles with the given <code>key</code>.
+     *
+     * @param key
+     * @param fingerprint
+     *            the current fingerprint of the resource bundle
+     * @return the titles or <code>null</code> if they have not been cached or the resource bundle has changed since
+     */
+    TitleResources get( String key, String fingerprint ) {
+        TitleResources titleResources = _titleResources.get( key );
+        if( titleResources != null && fingerprint != null && fingerprint.equals( titleResources._fingerprint ) ) {
+            return titleResources;
+        }
+        return null;
+    }
+
+    /**
+     * Caches the given titles with the given <code>key</code>.
+     *
+     * @param key
+     * @param titleResources
+     */
+    void put( String key, TitleResources titleResources ) {
+        if( titleResources._fingerprint != null ) {
+            _titleResources.put( key, titleResources );
+        }
+    }
+
+    /**
+     * Gets the cached application with the given <code>key</code>.
+     *
+     * @param key
+     * @param fingerprint
+     *            the current inputs of the application
+     * @return the application or <code>null</code> if it has not been cached or an input has changed since
+     */
+    Application getApplication( String key, String fingerprint ) {
+        Application application = _applications.get( key );
+        if( application != null && application._fingerprint.equals( fingerprint ) ) {
+            return application;
+        }
+        return null;
+    }
+
+    /**
+     * Caches the given application with the given <code>key</code>.
+     *
+     * @param key
+     * @param application
+     */
+    void putApplication( String key, Application application ) {
+        _applications.put( key, application );
+    }
+
+    /**
+     * Drops all entries, so every title resource bundle and every application is generated again.
+     */
+    void clear() {
+        _titleResources.clear();
+        _applications.clear();
+    }
+
+    private void remove( IProject project ) {
+        String prefix = getPrefix( project );
+        for( Iterator< String > iterator = _titleResources.keySet().iterator(); iterator.hasNext(); ) {
+            if( iterator.next().startsWith( prefix ) ) {
+                iterator.remove();
+            }
+        }
+        for( Iterator< String > iterator = _applications.keySet().iterator(); iterator.hasNext(); ) {
+            if( iterator.next().startsWith( prefix ) ) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.eclipse.core.resources.IResourceChangeListener#resourceChanged(org.eclipse.core.resources.IResourceChangeEvent)
+     */
+    public void resourceChanged( IResourceChangeEvent event ) {
+        if( event.getResource() instanceof IProject ) {
+            remove( (IProject) event.getResource() );
+        }
+    }
+}
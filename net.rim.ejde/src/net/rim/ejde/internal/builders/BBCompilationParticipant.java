@@ -16,7 +16,6 @@ import java.util.List;
 import java.util.Map;
 
 import net.rim.ejde.internal.core.IRIMMarker;
-import net.rim.ejde.internal.packaging.PackagingJob;
 import net.rim.ejde.internal.signing.BBSigningKeys;
 import net.rim.ejde.internal.util.NatureUtils;
 import net.rim.ejde.internal.util.PackagingUtils;
@@ -615,6 +614,8 @@ public class BBCompilationParticipant extends CompilationParticipant {
     public void buildFinished( IJavaProject project ) {
         // check run on startup property
         CompilerToAppDescriptorManager.onProjectPropertiesChange( project );
+        // apply the markers reported during the build
+        CompilerToAppDescriptorManager.getInstance().flushMarkers();
         // _buildStop = System.currentTimeMillis();
         // _log.debug( "*********************************** BUILD STOPPING  ***********************************" );
         // _totalBuiltTime += ( _buildStop - _buildStart );
@@ -656,7 +657,6 @@ public class BBCompilationParticipant extends CompilationParticipant {
         //        _log.trace( "Entering BBCompilationParticipant buildStarting();Running As Batch=" + runBatch ); //$NON-NLS-1$
         // long start = System.currentTimeMillis();
         if( files.length > 0 ) {
-            // mark this project is built by the java builder
             IProject project = files[ 0 ].getFile().getProject();
             // remove the packaging problems
             try {
@@ -665,7 +665,6 @@ public class BBCompilationParticipant extends CompilationParticipant {
             } catch( CoreException e ) {
                 _log.error( e.getMessage() );
             }
-            PackagingJob.setBuiltByJavaBuilders( project, true );
             try {
                 IJavaElement javaElem;
                 Map< ICompilationUnit, BuildContext > buildContextMap = new HashMap< ICompilationUnit, BuildContext >();
@@ -761,6 +760,7 @@ public class BBCompilationParticipant extends CompilationParticipant {
         try {
             PackagingUtils.cleanProjectOutputFolder( project );
             CompilerToAppDescriptorManager.getInstance().onProjectClean( project );
+            CompilerToAppDescriptorManager.getInstance().flushMarkers();
             // remove the packaging problems
             try {
                 ResourceBuilderUtils.cleanProblemMarkers( project.getProject(), new String[] {
@@ -10,12 +10,6 @@
 */
 package net.rim.ejde.internal.builders;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-
 import net.rim.ejde.internal.core.ContextManager;
 import net.rim.ejde.internal.core.IRIMMarker;
 import net.rim.ejde.internal.model.BasicBlackBerryProperties.AlternateEntryPoint;
@@ -35,42 +29,36 @@ import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.ISourceRange;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
-import org.eclipse.swt.widgets.Display;
 
 /**
  * The Class CompilerToProjectEditorManager is used to manage markers that can be generated both by the app descriptor and the
  * compiler.
+ * <p>
+ * The markers are not changed while the compiler reports the problems. The changes are collected in a {@link MarkerBatch} and
+ * applied in one workspace operation when {@link #flushMarkers()} is called, e.g. when the build has finished.
  */
 public class CompilerToAppDescriptorManager {
 
-    /** The _lib main marker map. */
-    private static Map< IJavaProject, List< IMarker >> _managedMarkerMap;
-
-    /** The _managed problem map. */
-    private static Map< ICompilationUnit, List< CategorizedProblem >> _managedProblemMap;
-
-    /** The _problem to marker map. */
-    private static Map< CategorizedProblem, IMarker > _problemToMarkerMap;
-
     /** The Constant _log. */
     static final Logger _log = Logger.getLogger( CompilerToAppDescriptorManager.class );
 
-    /** The INSTANCE. */
-    private static CompilerToAppDescriptorManager INSTANCE;
+    private final MarkerBatch _markerBatch = new MarkerBatch( "BlackBerry Compiler Markers" ); //$NON-NLS-1$
+
+    private static class CompilerToAppDescriptorManagerHolder {
+        private static final CompilerToAppDescriptorManager INSTANCE = new CompilerToAppDescriptorManager();
+    }
 
     /**
-     * Gets the single instance of LibMainMethodManager.
+     * Gets the single instance of CompilerToAppDescriptorManager.
      *
-     * @return single instance of LibMainMethodManager
+     * @return single instance of CompilerToAppDescriptorManager
      */
     public static CompilerToAppDescriptorManager getInstance() {
-        if( INSTANCE == null ) {
-            INSTANCE = new CompilerToAppDescriptorManager();
-        }
-        return INSTANCE;
+        return CompilerToAppDescriptorManagerHolder.INSTANCE;
     }
 
     /**
@@ -78,9 +66,6 @@ public class CompilerToAppDescriptorManager {
      */
     private CompilerToAppDescriptorManager() {
         super();
-        _managedMarkerMap = new HashMap< IJavaProject, List< IMarker > >();
-        _managedProblemMap = new HashMap< ICompilationUnit, List< CategorizedProblem > >();
-        _problemToMarkerMap = new HashMap< CategorizedProblem, IMarker >();
     }
 
     /**
@@ -105,40 +90,21 @@ public class CompilerToAppDescriptorManager {
                     return;
                 }
             }
-            final IMethod libMainMethod = primaryType.getMethod( "libMain", new String[] { "[QString;" } ); //$NON-NLS-1$ //$NON-NLS-2$
+            IMethod libMainMethod = primaryType.getMethod( "libMain", new String[] { "[QString;" } ); //$NON-NLS-1$ //$NON-NLS-2$
             if( libMainMethod.exists() && ( libMainMethod.getExceptionTypes().length == 0 )
                     && Flags.isStatic( libMainMethod.getFlags() ) && Flags.isPublic( libMainMethod.getFlags() ) ) {
-                final IJavaProject javaProject = cu.getJavaProject();
-                IProject project = javaProject.getProject();
+                IProject project = cu.getJavaProject().getProject();
                 if( NatureUtils.hasBBNature( project ) ) {
                     BlackBerryProperties properties = ContextManager.PLUGIN.getBBProperties( project.getName(), false );
                     if( properties._application.getType().equals( BlackBerryProject.LIBRARY )
                             && !properties._application.isAutostartup().booleanValue() ) {
-
-                        Display.getDefault().asyncExec( new Runnable() {
-
-                            @Override
-                            public void run() {
-                                IMarker problem;
-                                try {
-                                    problem = libMainMethod.getResource().createMarker( IRIMMarker.BLACKBERRY_PROBLEM );
-                                    int startPos = libMainMethod.getSourceRange().getOffset(), endPos = startPos
-                                            + libMainMethod.getSourceRange().getLength() - 1;
-                                    problem.setAttributes(
-                                            new String[] { IMarker.MESSAGE, IMarker.CHAR_START, IMarker.CHAR_END,
-                                                    IMarker.SEVERITY, IRIMMarker.ID },
-                                            new Object[] { Messages.CompilerToProjectEditorManager_libWarnMsg,
-                                                    Integer.valueOf( startPos ), Integer.valueOf( endPos ),
-                                                    Integer.valueOf( IMarker.SEVERITY_WARNING ),
-                                                    Integer.valueOf( IRIMMarker.LIBMAIN_PROBLEM_ID ) } );
-
-                                    addManagedMarker( javaProject, problem );
-                                } catch( CoreException e ) {
-                                    _log.error( "LibMainMethodManager.add: ", e );
-                                }
-
-                            }
-                        } );
+                        ISourceRange sourceRange = libMainMethod.getSourceRange();
+                        int startPos = sourceRange.getOffset(), endPos = startPos + sourceRange.getLength() - 1;
+                        _markerBatch.add( libMainMethod.getResource(), IRIMMarker.BLACKBERRY_PROBLEM,
+                                IRIMMarker.LIBMAIN_PROBLEM_ID, new MarkerBatch.MarkerInfo( new String[] { IMarker.MESSAGE,
+                                        IMarker.CHAR_START, IMarker.CHAR_END, IMarker.SEVERITY }, new Object[] {
+                                        Messages.CompilerToProjectEditorManager_libWarnMsg, Integer.valueOf( startPos ),
+                                        Integer.valueOf( endPos ), Integer.valueOf( IMarker.SEVERITY_WARNING ) } ) );
                     }
                 }
             }
@@ -155,34 +121,17 @@ public class CompilerToAppDescriptorManager {
      * @param hasCompileTimeValue
      *            the has compile time value
      */
-    private void findCompileTimeFieldUse( final ICompilationUnit cu, final CategorizedProblem problem, boolean hasCompileTimeValue ) {
-        final boolean hasMarker = _problemToMarkerMap.get( problem ) != null;
-
-        if( !hasMarker && ( !hasCompileTimeValue ) ) {
-            Display.getDefault().asyncExec( new Runnable() {
-
-                @Override
-                public void run() {
-                    IMarker marker;
-                    try {
-                    	String preferenceLabel = VMUtils.convertCodeSignErrorMsgToPreferenceLabel(problem.getMessage());
-                    	Integer key = VMUtils.convertPreferenceLabelToKey(preferenceLabel);
-
-                        marker = cu.getResource().createMarker( IRIMMarker.CODE_SIGN_PROBLEM_MARKER );
-                        marker.setAttributes(
-                                new String[] { IMarker.MESSAGE, IMarker.CHAR_START, IMarker.CHAR_END, IMarker.SEVERITY,
-                                               IRIMMarker.KEY, IRIMMarker.ID, IMarker.LOCATION },
-                                new Object[] { problem.getMessage(), Integer.valueOf( problem.getSourceStart() ),
-                                        Integer.valueOf( problem.getSourceEnd() ), Integer.valueOf( IMarker.SEVERITY_WARNING ),key,
-                                        Integer.valueOf(IRIMMarker.FIELD_USAGE_CODE_SIGN_PROBLEM_ID),"line " +problem.getSourceLineNumber() } );
-                        addMarkerForProblem( problem, marker );
-                    } catch( CoreException e ) {
-                        _log.error( "LibMainMethodManager.add: ", e );
-                    }
-
-                }
-            } );
+    private void findCompileTimeFieldUse( ICompilationUnit cu, CategorizedProblem problem, boolean hasCompileTimeValue ) {
+        if( hasCompileTimeValue ) {
+            return;
         }
+        String preferenceLabel = VMUtils.convertCodeSignErrorMsgToPreferenceLabel( problem.getMessage() );
+        Integer key = VMUtils.convertPreferenceLabelToKey( preferenceLabel );
+        _markerBatch.add( cu.getResource(), IRIMMarker.CODE_SIGN_PROBLEM_MARKER, IRIMMarker.FIELD_USAGE_CODE_SIGN_PROBLEM_ID,
+                new MarkerBatch.MarkerInfo( new String[] { IMarker.MESSAGE, IMarker.CHAR_START, IMarker.CHAR_END,
+                        IMarker.SEVERITY, IRIMMarker.KEY, IMarker.LOCATION }, new Object[] { problem.getMessage(),
+                        Integer.valueOf( problem.getSourceStart() ), Integer.valueOf( problem.getSourceEnd() ),
+                        Integer.valueOf( IMarker.SEVERITY_WARNING ), key, "line " + problem.getSourceLineNumber() } ) ); //$NON-NLS-1$
     }
 
     /**
@@ -207,121 +156,8 @@ public class CompilerToAppDescriptorManager {
     }
 
     /**
-     * Deletes managed markers for a given project
-     *
-     * @param javaProject
-     *            the java project
-     */
-    private void deleteMarkersForProject( IJavaProject javaProject ) {
-        List< IMarker > recordedProblems = _managedMarkerMap.get( javaProject );
-        _managedMarkerMap.put( javaProject, null );
-        if( recordedProblems != null ) {
-            for( final IMarker problem : recordedProblems ) {
-                Display.getDefault().asyncExec( new Runnable() {
-
-                    @Override
-                    public void run() {
-                        try {
-                            problem.delete();
-                        } catch( CoreException e ) {
-                            _log.error( "LibMainMethodManager.clean: ", e );
-                        }
-                    }
-                } );
-
-            }
-        }
-    }
-
-    /**
-     * Delete managed problems and their associated markers for a given project
-     *
-     * @param project
-     *            the project
-     * @param preserveProblems
-     *            whether or not to preserve the root problems
-     *
-     * @throws CoreException
-     *             the core exception
-     */
-    private void deleteProblemsForProject( IJavaProject project, boolean preserveProblems ) throws CoreException {
-        Set< ICompilationUnit > cus = _managedProblemMap.keySet();
-        for( ICompilationUnit cu : cus ) {
-            if( cu.getJavaProject().equals( project ) ) {
-                deleteProblemsForCU( cu, preserveProblems );
-            }
-        }
-    }
-
-    /**
-     * Deletes the managed markers associated with a CompilationUnit
-     *
-     * @param cu
-     *            the cu
-     *
-     * @throws CoreException
-     *             the core exception
-     */
-    private void deleteMarkersForCU( ICompilationUnit cu ) throws CoreException {
-        IMarker[] markers = cu.getResource().findMarkers( IRIMMarker.BLACKBERRY_PROBLEM, true, IResource.DEPTH_ZERO );
-        for( final IMarker marker : markers ) {
-            Object id = marker.getAttribute( IRIMMarker.ID );
-            if( id != null && id.equals( Integer.valueOf( IRIMMarker.LIBMAIN_PROBLEM_ID ) ) ) {
-                Display.getDefault().asyncExec( new Runnable() {
-
-                    @Override
-                    public void run() {
-                        try {
-                            marker.delete();
-                        } catch( CoreException e ) {
-                            _log.error( "LibMainMethodManager.clean: ", e );
-                        }
-                    }
-                } );
-            }
-        }
-    }
-
-    /**
-     * Delete the managed problems and their associated markers for a given CompilationUnit
-     *
-     * @param cu
-     *            the cu
-     * @param preserveProblems
-     *            whether or not to preserve the root problems
-     *
-     * @throws CoreException
-     *             the core exception
-     */
-    private void deleteProblemsForCU( ICompilationUnit cu, boolean preserveProblems ) throws CoreException {
-        List< CategorizedProblem > problems = _managedProblemMap.get( cu );
-        // Delete Root problems for CU
-        if( !preserveProblems ) {
-            _managedProblemMap.put( cu, null );
-        }
-        // Delete markers associated with problems for CU
-        if( problems != null ) {
-            for( CategorizedProblem problem : problems ) {
-                final IMarker marker = _problemToMarkerMap.get( problem );
-                if( marker != null ) {
-                    _problemToMarkerMap.put( problem, null );
-                    Display.getDefault().asyncExec( new Runnable() {
-                        @Override
-                        public void run() {
-                            try {
-                                marker.delete();
-                            } catch( CoreException e ) {
-                                _log.error( "LibMainMethodManager.clean: ", e );
-                            }
-                        }
-                    } );
-                }
-            }
-        }
-    }
-
-    /**
-     * Called when a Compilation unit is being re-compiled so all problems must be deleted.
+     * Called when a Compilation unit is being re-compiled so all problems must be deleted. The markers of the compilation unit are
+     * replaced by the ones reported until {@link #flushMarkers()} is called.
      *
      * @param cu
      *            the cu
@@ -330,8 +166,12 @@ public class CompilerToAppDescriptorManager {
      *             the core exception
      */
     public void onCompilationUnitCompile( ICompilationUnit cu ) throws CoreException {
-        deleteMarkersForCU( cu );
-        deleteProblemsForCU( cu, false );
+        IResource resource = cu.getResource();
+        if( resource == null ) {
+            return;
+        }
+        _markerBatch.replace( resource, IRIMMarker.BLACKBERRY_PROBLEM, IRIMMarker.LIBMAIN_PROBLEM_ID );
+        _markerBatch.replace( resource, IRIMMarker.CODE_SIGN_PROBLEM_MARKER, IRIMMarker.FIELD_USAGE_CODE_SIGN_PROBLEM_ID );
         findLibMainInCU( cu );
         // No need to check for *** because the compiler will
     }
@@ -346,8 +186,9 @@ public class CompilerToAppDescriptorManager {
      *             the core exception
      */
     public void onProjectClean( IJavaProject javaProject ) throws CoreException {
-        deleteMarkersForProject( javaProject );
-        deleteProblemsForProject( javaProject, false );
+        IProject project = javaProject.getProject();
+        _markerBatch.clear( project, IRIMMarker.BLACKBERRY_PROBLEM, IRIMMarker.LIBMAIN_PROBLEM_ID );
+        _markerBatch.clear( project, IRIMMarker.CODE_SIGN_PROBLEM_MARKER, IRIMMarker.FIELD_USAGE_CODE_SIGN_PROBLEM_ID );
     }
 
     /**
@@ -362,10 +203,17 @@ public class CompilerToAppDescriptorManager {
      */
     public void onQualifiedNameFieldUsage( final CategorizedProblem problem, final ICompilationUnit cu,
             boolean hasCompileTimeValue ) {
-        addManagedProblem( cu, problem );
         findCompileTimeFieldUse( cu, problem, hasCompileTimeValue );
     }
 
+    /**
+     * Applies the marker changes collected since the last call in one workspace operation. The changes are applied by a system
+     * job, so this method can be called while the caller holds a scheduling rule.
+     */
+    public void flushMarkers() {
+        _markerBatch.flush();
+    }
+
     /**
      * Called whenever the project properties have changes
      *
@@ -413,51 +261,4 @@ public class CompilerToAppDescriptorManager {
         // }
         // }
     }
-
-    /**
-     * Put problem in map.
-     *
-     * @param javaProject
-     *            the java project
-     * @param problem
-     *            the problem
-     */
-    void addManagedMarker( IJavaProject javaProject, IMarker problem ) {
-        List< IMarker > recordedProblems = _managedMarkerMap.get( javaProject );
-        if( recordedProblems == null ) {
-            recordedProblems = new ArrayList< IMarker >();
-        }
-        recordedProblems.add( problem );
-        _managedMarkerMap.put( javaProject, recordedProblems );
-    }
-
-    /**
-     * Adds the managed problem.
-     *
-     * @param cu
-     *            the cu
-     * @param problem
-     *            the problem
-     */
-    void addManagedProblem( ICompilationUnit cu, CategorizedProblem problem ) {
-        List< CategorizedProblem > recordedProblems = _managedProblemMap.get( cu );
-        if( recordedProblems == null ) {
-            recordedProblems = new ArrayList< CategorizedProblem >();
-        }
-        recordedProblems.add( problem );
-        _managedProblemMap.put( cu, recordedProblems );
-    }
-
-    /**
-     * Adds the marker for problem.
-     *
-     * @param problem
-     *            the problem
-     * @param marker
-     *            the marker
-     */
-    void addMarkerForProblem( CategorizedProblem problem, IMarker marker ) {
-        _problemToMarkerMap.put( problem, marker );
-    }
-
 }
@@ -0,0 +1,374 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.builders;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import net.rim.ejde.internal.core.IRIMMarker;
+
+import org.apache.log4j.Logger;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceRuleFactory;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.MultiRule;
+
+/**
+ * Collects marker changes, e.g. during a build, and applies them in one workspace operation from a system job instead of changing
+ * the markers one by one.
+ * <p>
+ * Markers are managed in groups. A group is made of the markers of one type with the same {@link IRIMMarker#ID} attribute on a
+ * resource. When a group is applied, the existing markers are compared with the requested ones by their attributes and only the
+ * differences are deleted and created. A pending group is dropped once it has been applied.
+ */
+public class MarkerBatch {
+    static private final Logger _log = Logger.getLogger( MarkerBatch.class );
+    // gives the builder some time to report further changes before they are applied
+    private static final long APPLY_DELAY = 100;
+
+    // pending groups in the order they have been requested, guarded by this
+    private Map< GroupKey, Group > _groups = new LinkedHashMap< GroupKey, Group >();
+    private final Job _applyJob;
+
+    /**
+     * The attributes of a marker. Two instances are equal if they have the same attributes.
+     */
+    public static class MarkerInfo {
+        final Map< String, Object > _attributes;
+        // the existing marker this instance has been read from, null for requested markers
+        final IMarker _marker;
+
+        /**
+         * Constructs a MarkerInfo instance with the given attributes. Attributes with a <code>null</code> value are ignored.
+         *
+         * @param names
+         * @param values
+         */
+        public MarkerInfo( String[] names, Object[] values ) {
+            _attributes = new TreeMap< String, Object >();
+            for( int i = 0; i < names.length; i++ ) {
+                if( values[ i ] != null ) {
+                    _attributes.put( names[ i ], values[ i ] );
+                }
+            }
+            _marker = null;
+        }
+
+        MarkerInfo( Map< String, Object > attributes, IMarker marker ) {
+            _attributes = new TreeMap< String, Object >();
+            for( Map.Entry< String, Object > entry : attributes.entrySet() ) {
+                if( entry.getValue() != null ) {
+                    _attributes.put( entry.getKey(), entry.getValue() );
+                }
+            }
+            _marker = marker;
+        }
+
+        /**
+         * Returns a copy of this instance with the given attribute.
+         *
+         * @param name
+         * @param value
+         * @return
+         */
+        MarkerInfo withAttribute( String name, Object value ) {
+            Map< String, Object > attributes = new TreeMap< String, Object >( _attributes );
+            attributes.put( name, value );
+            return new MarkerInfo( attributes, _marker );
+        }
+
+        @Override
+        public boolean equals( Object obj ) {
+            return ( obj instanceof MarkerInfo ) && _attributes.equals( ( (MarkerInfo) obj )._attributes );
+        }
+
+        @Override
+        public int hashCode() {
+            return _attributes.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return _attributes.toString();
+        }
+    }
+
+    /**
+     * The differences between the existing and the requested markers of a group.
+     */
+    public static class Diff {
+        final List< MarkerInfo > _toDelete;
+        final List< MarkerInfo > _toCreate;
+
+        Diff( List< MarkerInfo > toDelete, List< MarkerInfo > toCreate ) {
+            _toDelete = toDelete;
+            _toCreate = toCreate;
+        }
+
+        /**
+         * Gets the existing markers which are not requested any more.
+         *
+         * @return
+         */
+        public List< MarkerInfo > getToDelete() {
+            return _toDelete;
+        }
+
+        /**
+         * Gets the requested markers which do not exist yet.
+         *
+         * @return
+         */
+        public List< MarkerInfo > getToCreate() {
+            return _toCreate;
+        }
+
+        /**
+         * Checks if the existing markers are exactly the requested ones.
+         *
+         * @return
+         */
+        public boolean isEmpty() {
+            return _toDelete.isEmpty() && _toCreate.isEmpty();
+        }
+    }
+
+    private static class GroupKey {
+        final IResource _resource;
+        final String _type;
+        final int _id;
+        // true if the group covers the markers of the members of the resource as well
+        final boolean _deep;
+
+        GroupKey( IResource resource, String type, int id, boolean deep ) {
+            _resource = resource;
+            _type = type;
+            _id = id;
+            _deep = deep;
+        }
+
+        boolean covers( GroupKey key ) {
+            return _deep && _type.equals( key._type ) && _id == key._id
+                    && _resource.getFullPath().isPrefixOf( key._resource.getFullPath() );
+        }
+
+        @Override
+        public boolean equals( Object obj ) {
+            if( !( obj instanceof GroupKey ) ) {
+                return false;
+            }
+            GroupKey key = (GroupKey) obj;
+            return _resource.equals( key._resource ) && _type.equals( key._type ) && _id == key._id && _deep == key._deep;
+        }
+
+        @Override
+        public int hashCode() {
+            return ( _resource.hashCode() * 31 + _type.hashCode() ) * 31 + _id;
+        }
+    }
+
+    private static class Group {
+        // true if the existing markers are replaced, otherwise the requested markers are added to them
+        final boolean _replace;
+        final Set< MarkerInfo > _markers = new LinkedHashSet< MarkerInfo >();
+
+        Group( boolean replace ) {
+            _replace = replace;
+        }
+    }
+
+    /**
+     * Constructs a MarkerBatch instance.
+     *
+     * @param name
+     *            the name of the job which applies the changes
+     */
+    public MarkerBatch( String name ) {
+        _applyJob = new Job( name ) {
+            @Override
+            protected IStatus run( IProgressMonitor monitor ) {
+                try {
+                    apply( monitor );
+                } catch( CoreException e ) {
+                    _log.error( e.getMessage(), e );
+                }
+                return Status.OK_STATUS;
+            }
+        };
+        _applyJob.setSystem( true );
+    }
+
+    /**
+     * Requests that the markers of the given <code>type</code> and <code>id</code> on the given <code>resource</code> are
+     * replaced by the markers added by {@link #add(IResource, String, int, MarkerInfo)} afterwards. Unless markers are added, the
+     * existing markers are deleted.
+     *
+     * @param resource
+     * @param type
+     * @param id
+     */
+    public synchronized void replace( IResource resource, String type, int id ) {
+        _groups.put( new GroupKey( resource, type, id, false ), new Group( true ) );
+    }
+
+    /**
+     * Requests a marker of the given <code>type</code> and <code>id</code> on the given <code>resource</code>.
+     *
+     * @param resource
+     * @param type
+     * @param id
+     * @param marker
+     */
+    public synchronized void add( IResource resource, String type, int id, MarkerInfo marker ) {
+        GroupKey key = new GroupKey( resource, type, id, false );
+        Group group = _groups.get( key );
+        if( group == null ) {
+            group = new Group( false );
+            _groups.put( key, group );
+        }
+        group._markers.add( marker.withAttribute( IRIMMarker.ID, Integer.valueOf( id ) ) );
+    }
+
+    /**
+     * Requests that all markers of the given <code>type</code> and <code>id</code> on the given <code>resource</code> and its
+     * members are deleted. Changes requested for the members before are dropped.
+     *
+     * @param resource
+     * @param type
+     * @param id
+     */
+    public synchronized void clear( IResource resource, String type, int id ) {
+        GroupKey key = new GroupKey( resource, type, id, true );
+        for( Iterator< GroupKey > iterator = _groups.keySet().iterator(); iterator.hasNext(); ) {
+            if( key.covers( iterator.next() ) ) {
+                iterator.remove();
+            }
+        }
+        _groups.put( key, new Group( true ) );
+    }
+
+    /**
+     * Schedules the job which applies the requested changes.
+     */
+    public void flush() {
+        synchronized( this ) {
+            if( _groups.isEmpty() ) {
+                return;
+            }
+        }
+        _applyJob.schedule( APPLY_DELAY );
+    }
+
+    /**
+     * Applies the requested changes in one workspace operation.
+     *
+     * @param monitor
+     * @throws CoreException
+     */
+    void apply( IProgressMonitor monitor ) throws CoreException {
+        final Map< GroupKey, Group > groups;
+        synchronized( this ) {
+            if( _groups.isEmpty() ) {
+                return;
+            }
+            groups = _groups;
+            _groups = new LinkedHashMap< GroupKey, Group >();
+        }
+        IWorkspace workspace = ResourcesPlugin.getWorkspace();
+        IResourceRuleFactory ruleFactory = workspace.getRuleFactory();
+        ISchedulingRule rule = null;
+        for( GroupKey key : groups.keySet() ) {
+            rule = MultiRule.combine( rule, ruleFactory.markerRule( key._resource ) );
+        }
+        workspace.run( new IWorkspaceRunnable() {
+            public void run( IProgressMonitor monitor ) throws CoreException {
+                int deleted = 0, created = 0;
+                for( Map.Entry< GroupKey, Group > entry : groups.entrySet() ) {
+                    GroupKey key = entry.getKey();
+                    if( !key._resource.exists() ) {
+                        continue;
+                    }
+                    List< MarkerInfo > existing = findMarkers( key );
+                    Collection< MarkerInfo > requested = entry.getValue()._markers;
+                    if( !entry.getValue()._replace ) {
+                        requested = new ArrayList< MarkerInfo >( existing );
+                        for( MarkerInfo marker : entry.getValue()._markers ) {
+                            if( !existing.contains( marker ) ) {
+                                requested.add( marker );
+                            }
+                        }
+                    }
+                    Diff diff = diff( existing, requested );
+                    for( MarkerInfo marker : diff.getToDelete() ) {
+                        marker._marker.delete();
+                        deleted++;
+                    }
+                    for( MarkerInfo marker : diff.getToCreate() ) {
+                        IMarker newMarker = key._resource.createMarker( key._type );
+                        newMarker.setAttributes( marker._attributes.keySet().toArray( new String[ marker._attributes.size() ] ),
+                                marker._attributes.values().toArray() );
+                        created++;
+                    }
+                }
+                _log.trace( "Applied " + groups.size() + " marker groups, deleted " + deleted + " and created " + created //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                        + " markers" ); //$NON-NLS-1$
+            }
+        }, rule, IWorkspace.AVOID_UPDATE, monitor );
+    }
+
+    private static List< MarkerInfo > findMarkers( GroupKey key ) throws CoreException {
+        List< MarkerInfo > markers = new ArrayList< MarkerInfo >();
+        Integer id = Integer.valueOf( key._id );
+        for( IMarker marker : key._resource.findMarkers( key._type, false, key._deep ? IResource.DEPTH_INFINITE
+                : IResource.DEPTH_ZERO ) ) {
+            if( id.equals( marker.getAttribute( IRIMMarker.ID ) ) ) {
+                markers.add( new MarkerInfo( marker.getAttributes(), marker ) );
+            }
+        }
+        return markers;
+    }
+
+    /**
+     * Compares the <code>existing</code> markers with the <code>requested</code> ones. Markers are matched by their attributes,
+     * duplicates are matched one by one.
+     *
+     * @param existing
+     * @param requested
+     * @return the existing markers which have to be deleted and the requested markers which have to be created
+     */
+    public static Diff diff( Collection< MarkerInfo > existing, Collection< MarkerInfo > requested ) {
+        List< MarkerInfo > toCreate = new LinkedList< MarkerInfo >( requested );
+        List< MarkerInfo > toDelete = new ArrayList< MarkerInfo >();
+        for( MarkerInfo marker : existing ) {
+            if( !toCreate.remove( marker ) ) {
+                toDelete.add( marker );
+            }
+        }
+        return new Diff( toDelete, new ArrayList< MarkerInfo >( toCreate ) );
+    }
+}
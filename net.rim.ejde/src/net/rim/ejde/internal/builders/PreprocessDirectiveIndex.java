@@ -0,0 +1,241 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.builders;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.rim.ejde.internal.core.ContextManager;
+
+import org.apache.log4j.Logger;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Remembers per project which java files contain the <code>//#preprocess</code> directive. JavaPP only preprocesses a file if
+ * its first line starts with this directive and uses the original file otherwise, so files without it do not need to go through
+ * JavaPP nor be mapped to the preprocessed folder.
+ * <p>
+ * The scan result of a file is kept together with the modification stamp of the file and is persisted in the working location
+ * of the project, so a file is only scanned again after it has been changed.
+ */
+public class PreprocessDirectiveIndex {
+    private static final Logger _log = Logger.getLogger( PreprocessDirectiveIndex.class );
+    private static final String INDEX_FILE_NAME = "preprocessDirectives.index"; //$NON-NLS-1$
+    private static final int INDEX_FORMAT_VERSION = 1;
+    private static final byte[] PREPROCESS_DIRECTIVE = { '/', '/', '#', 'p', 'r', 'e', 'p', 'r', 'o', 'c', 'e', 's', 's' };
+
+    private static final Map< IProject, PreprocessDirectiveIndex > _indexes = new ConcurrentHashMap< IProject, PreprocessDirectiveIndex >();
+
+    private final File _indexFile;
+    // project relative path -> scan result
+    private final Map< String, Entry > _entries = new ConcurrentHashMap< String, Entry >();
+    private volatile boolean _dirty;
+
+    private static class Entry {
+        final long _modificationStamp;
+        final boolean _hasDirective;
+
+        Entry( long modificationStamp, boolean hasDirective ) {
+            _modificationStamp = modificationStamp;
+            _hasDirective = hasDirective;
+        }
+    }
+
+    private PreprocessDirectiveIndex( IProject project ) {
+        _indexFile = project.getWorkingLocation( ContextManager.PLUGIN_ID ).append( INDEX_FILE_NAME ).toFile();
+        load();
+    }
+
+    /**
+     * Returns the index of the given <code>project</code>.
+     *
+     * @param project
+     * @return
+     */
+    public static PreprocessDirectiveIndex getIndex( IProject project ) {
+        PreprocessDirectiveIndex index = _indexes.get( project );
+        if( index == null ) {
+            synchronized( _indexes ) {
+                index = _indexes.get( project );
+                if( index == null ) {
+                    index = new PreprocessDirectiveIndex( project );
+                    _indexes.put( project, index );
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Drops the index of the given <code>project</code>. Called when the project is closed or deleted, the index of a closed
+     * project is written to its working location first.
+     *
+     * @param project
+     * @param save
+     *            <code>true</code> if pending changes of the index should be written
+     */
+    static void removeIndex( IProject project, boolean save ) {
+        PreprocessDirectiveIndex index = _indexes.remove( project );
+        if( index != null && save ) {
+            index.save();
+        }
+    }
+
+    /**
+     * Checks if the given <code>file</code> is known to have no preprocessor directive in its current state. This method never
+     * reads the file and is cheap enough to be called by the java compiler. No index is created for projects which do not have
+     * the preprocessing nature.
+     *
+     * @param file
+     * @return <code>true</code> if the file has been scanned since its last modification and has no directive, otherwise
+     *         <code>false</code>
+     */
+    public static boolean isNotPreprocessed( IFile file ) {
+        IProject project = file.getProject();
+        if( !project.isOpen() || !PreprocessingStateCache.getInstance().isPreprocessingProject( project ) ) {
+            return false;
+        }
+        Entry entry = getIndex( project )._entries.get( getKey( file ) );
+        return entry != null && !entry._hasDirective && entry._modificationStamp == file.getModificationStamp();
+    }
+
+    /**
+     * Checks if the given <code>file</code> needs to be preprocessed. The file is only scanned if it has been modified since it
+     * was scanned last time.
+     *
+     * @param file
+     * @return
+     */
+    public boolean needsPreprocessing( IFile file ) {
+        String key = getKey( file );
+        long modificationStamp = file.getModificationStamp();
+        Entry entry = _entries.get( key );
+        if( entry != null && entry._modificationStamp == modificationStamp ) {
+            return entry._hasDirective;
+        }
+        boolean hasDirective;
+        try {
+            hasDirective = hasPreprocessDirective( file.getLocation().toFile() );
+        } catch( IOException e ) {
+            // let JavaPP report the problem
+            _log.debug( e.getMessage(), e );
+            return true;
+        }
+        _entries.put( key, new Entry( modificationStamp, hasDirective ) );
+        _dirty = true;
+        return hasDirective;
+    }
+
+    /**
+     * Removes the scan result of the given <code>file</code>.
+     *
+     * @param file
+     */
+    public void remove( IFile file ) {
+        if( _entries.remove( getKey( file ) ) != null ) {
+            _dirty = true;
+        }
+    }
+
+    /**
+     * Checks if the first line of the given <code>javaFile</code> starts with the <code>//#preprocess</code> directive. Leading
+     * white spaces are ignored. The file is read until the first character which does not match the directive.
+     *
+     * @param javaFile
+     * @return
+     * @throws IOException
+     */
+    public static boolean hasPreprocessDirective( File javaFile ) throws IOException {
+        InputStream input = new BufferedInputStream( new FileInputStream( javaFile ), 256 );
+        try {
+            int c = input.read();
+            while( c != -1 && c <= ' ' && c != '\n' && c != '\r' ) {
+                c = input.read();
+            }
+            for( int i = 0; i < PREPROCESS_DIRECTIVE.length; i++ ) {
+                if( c != PREPROCESS_DIRECTIVE[ i ] ) {
+                    return false;
+                }
+                c = input.read();
+            }
+            return true;
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Writes the index to the working location of the project if it has been changed.
+     */
+    public synchronized void save() {
+        if( !_dirty ) {
+            return;
+        }
+        _dirty = false;
+        try {
+            _indexFile.getParentFile().mkdirs();
+            DataOutputStream output = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( _indexFile ) ) );
+            try {
+                output.writeInt( INDEX_FORMAT_VERSION );
+                output.writeInt( _entries.size() );
+                for( Map.Entry< String, Entry > entry : _entries.entrySet() ) {
+                    output.writeUTF( entry.getKey() );
+                    output.writeLong( entry.getValue()._modificationStamp );
+                    output.writeBoolean( entry.getValue()._hasDirective );
+                }
+            } finally {
+                output.close();
+            }
+        } catch( IOException e ) {
+            _log.error( "Could not save " + _indexFile, e ); //$NON-NLS-1$
+        }
+    }
+
+    private void load() {
+        if( !_indexFile.exists() ) {
+            return;
+        }
+        try {
+            DataInputStream input = new DataInputStream( new BufferedInputStream( new FileInputStream( _indexFile ) ) );
+            try {
+                if( input.readInt() != INDEX_FORMAT_VERSION ) {
+                    return;
+                }
+                int count = input.readInt();
+                for( int i = 0; i < count; i++ ) {
+                    String key = input.readUTF();
+                    _entries.put( key, new Entry( input.readLong(), input.readBoolean() ) );
+                }
+            } finally {
+                input.close();
+            }
+        } catch( IOException e ) {
+            _log.error( "Could not load " + _indexFile, e ); //$NON-NLS-1$
+            _entries.clear();
+        }
+    }
+
+    private static String getKey( IFile file ) {
+        IPath path = file.getProjectRelativePath();
+        return path.toString();
+    }
+}
@@ -0,0 +1,437 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.builders;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.rim.ejde.internal.core.ContextManager;
+import net.rim.ejde.internal.core.IConstants;
+import net.rim.ejde.internal.util.FileUtils;
+import net.rim.ejde.internal.util.ImportUtils;
+
+import org.apache.log4j.Logger;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Keeps the preprocessed content of java files in memory, so that the java compiler can be served without going through the
+ * <code>project_preprocessed_folder</code> of the project. The store is enabled by a positive
+ * <code>preprocess_in_memory_store_size</code> key (in MB) in preferences.ini.
+ * <p>
+ * An entry is keyed by the source file and is only valid for the modification stamp the file had when the entry was stored.
+ * Stored contents are kept in memory only. They are written to a backing file in the working location of the project when
+ * they are evicted, when the project is closed or when the workbench shuts down, see {@link #save()}. A backing file starts
+ * with the modification stamp of the source file it has been written for and is ignored once the source file has been
+ * changed. The preprocessed folder itself is only written when the project is packaged, see
+ * {@link #materialize(IProject, IProgressMonitor)}.
+ */
+public class PreprocessedContentStore {
+    private static final Logger _log = Logger.getLogger( PreprocessedContentStore.class );
+    private static final String BACKING_FOLDER_NAME = "preprocessed"; //$NON-NLS-1$
+    private static final String OUTPUT_FOLDER_NAME = "preprocessOutput"; //$NON-NLS-1$
+    // length of the modification stamp at the beginning of a backing file
+    private static final int STAMP_LENGTH = 8;
+
+    private static class PreprocessedContentStoreHolder {
+        public static PreprocessedContentStore preprocessedContentStore = new PreprocessedContentStore();
+    }
+
+    // maximum number of bytes kept in memory
+    private final long _maxSize;
+    // source file -> content, in least recently used order
+    private final LinkedHashMap< IFile, Content > _contents = new LinkedHashMap< IFile, Content >( 64, 0.75f, true );
+    private long _totalSize;
+
+    private static class Content {
+        final long _modificationStamp;
+        final char[] _chars;
+        // the encoded content until it has been written to the backing file
+        byte[] _unsavedBytes;
+
+        Content( long modificationStamp, char[] chars, byte[] unsavedBytes ) {
+            _modificationStamp = modificationStamp;
+            _chars = chars;
+            _unsavedBytes = unsavedBytes;
+        }
+
+        long getSize() {
+            return _chars.length * 2L + ( _unsavedBytes == null ? 0 : _unsavedBytes.length );
+        }
+    }
+
+    private PreprocessedContentStore() {
+        _maxSize = ImportUtils.getIntImportPref( IConstants.PREPROCESS_IN_MEMORY_STORE_SIZE_KEY ) * 1024L * 1024L;
+    }
+
+    /**
+     * Singleton getInstance() method.
+     *
+     * @return the unique instance of the class
+     */
+    public static PreprocessedContentStore getInstance() {
+        return PreprocessedContentStoreHolder.preprocessedContentStore;
+    }
+
+    /**
+     * Checks if the preprocessed content is kept in memory instead of the preprocessed folder of the projects.
+     *
+     * @return
+     */
+    public boolean isEnabled() {
+        return _maxSize > 0;
+    }
+
+    /**
+     * Returns the folder JavaPP writes the preprocessed files of the given <code>project</code> to before they are read into
+     * memory.
+     *
+     * @param project
+     * @return
+     */
+    File getOutputFolder( IProject project ) {
+        return project.getWorkingLocation( ContextManager.PLUGIN_ID ).append( OUTPUT_FOLDER_NAME ).toFile();
+    }
+
+    /**
+     * Stores the preprocessed content of the given <code>file</code>, which has been written by JavaPP to
+     * <code>outputFile</code>. The output file is read into memory and deleted. The entry is valid for the current modification
+     * stamp of the source file.
+     *
+     * @param file
+     * @param outputFile
+     * @throws IOException
+     */
+    void put( IFile file, File outputFile ) throws IOException {
+        long modificationStamp = file.getModificationStamp();
+        byte[] bytes = FileUtils.readBytes( outputFile );
+        outputFile.delete();
+        put( file, modificationStamp, readContent( file, ByteBuffer.wrap( bytes ) ), bytes );
+    }
+
+    /**
+     * Returns the preprocessed content of the given <code>file</code> in its current state or <code>null</code> if the file has
+     * not been preprocessed.
+     *
+     * @param file
+     * @return
+     */
+    public char[] getContent( IFile file ) {
+        long modificationStamp = file.getModificationStamp();
+        synchronized( this ) {
+            Content content = _contents.get( file );
+            if( content != null && content._modificationStamp == modificationStamp ) {
+                return content._chars;
+            }
+        }
+        // the entry has been evicted or was stored in a previous session
+        File backingFile = getBackingFile( file );
+        if( !backingFile.isFile() ) {
+            return null;
+        }
+        try {
+            ByteBuffer bytes = readBackingFile( backingFile, modificationStamp );
+            if( bytes == null ) {
+                // the source file has been changed since, it has not been preprocessed yet
+                return null;
+            }
+            char[] chars = readContent( file, bytes );
+            put( file, modificationStamp, chars, null );
+            return chars;
+        } catch( IOException e ) {
+            _log.error( "Could not read " + backingFile, e ); //$NON-NLS-1$
+            return null;
+        }
+    }
+
+    /**
+     * Removes the preprocessed content of the given <code>file</code>.
+     *
+     * @param file
+     */
+    public void remove( IFile file ) {
+        synchronized( this ) {
+            Content content = _contents.remove( file );
+            if( content != null ) {
+                _totalSize -= content.getSize();
+            }
+        }
+        getBackingFile( file ).delete();
+    }
+
+    /**
+     * Removes the preprocessed content of all files of the given <code>project</code>.
+     *
+     * @param project
+     */
+    public void clear( IProject project ) {
+        synchronized( this ) {
+            Iterator< Map.Entry< IFile, Content >> iterator = _contents.entrySet().iterator();
+            while( iterator.hasNext() ) {
+                Map.Entry< IFile, Content > entry = iterator.next();
+                if( entry.getKey().getProject().equals( project ) ) {
+                    iterator.remove();
+                    _totalSize -= entry.getValue().getSize();
+                }
+            }
+        }
+        File backingFolder = getBackingFolder( project );
+        if( backingFolder.exists() ) {
+            FileUtils.deleteAll( new File[] { backingFolder } );
+        }
+    }
+
+    /**
+     * Writes the contents of the given <code>project</code> which have not been saved yet to their backing files and removes all
+     * contents of the project from memory, e.g. before the project is closed.
+     *
+     * @param project
+     */
+    public synchronized void unload( IProject project ) {
+        Iterator< Map.Entry< IFile, Content >> iterator = _contents.entrySet().iterator();
+        while( iterator.hasNext() ) {
+            Map.Entry< IFile, Content > entry = iterator.next();
+            if( entry.getKey().getProject().equals( project ) ) {
+                _totalSize -= entry.getValue().getSize();
+                save( entry.getKey(), entry.getValue() );
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Writes all contents which have not been saved yet to their backing files, e.g. before the workbench shuts down.
+     */
+    public synchronized void save() {
+        for( Map.Entry< IFile, Content > entry : _contents.entrySet() ) {
+            long size = entry.getValue().getSize();
+            save( entry.getKey(), entry.getValue() );
+            _totalSize -= size - entry.getValue().getSize();
+        }
+    }
+
+    /**
+     * Writes the preprocessed files of the given <code>project</code> to its preprocessed folder, e.g. before the project is
+     * packaged by rapc. Files which are already up to date are not touched, backing files of source files which have been changed
+     * since they were preprocessed are skipped.
+     *
+     * @param project
+     * @param monitor
+     * @throws CoreException
+     */
+    public void materialize( IProject project, IProgressMonitor monitor ) throws CoreException {
+        if( !isEnabled() ) {
+            return;
+        }
+        // the contents which have not been saved yet are written from memory, all others from their backing files
+        Map< IFile, byte[] > unsavedContents = new HashMap< IFile, byte[] >();
+        synchronized( this ) {
+            for( Map.Entry< IFile, Content > entry : _contents.entrySet() ) {
+                Content content = entry.getValue();
+                if( entry.getKey().getProject().equals( project ) && content._unsavedBytes != null
+                        && content._modificationStamp == entry.getKey().getModificationStamp() ) {
+                    unsavedContents.put( entry.getKey(), content._unsavedBytes );
+                }
+            }
+        }
+        int count = 0;
+        for( Map.Entry< IFile, byte[] > entry : unsavedContents.entrySet() ) {
+            IFile sourceFile = entry.getKey();
+            IFile outputFile = PreprocessingBuilder.getOutputFile( sourceFile );
+            if( sourceFile.exists() && !outputFile.equals( sourceFile )
+                    && writeOutputFile( project, outputFile, entry.getValue(), monitor ) ) {
+                count++;
+            }
+        }
+        File backingFolder = getBackingFolder( project );
+        count += materialize( project, backingFolder, new Path( backingFolder.getPath() ).segmentCount(), unsavedContents,
+                monitor );
+        _log.trace( "Wrote " + count + " preprocessed files of project " + project.getName() ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private int materialize( IProject project, File folder, int rootSegmentCount, Map< IFile, byte[] > unsavedContents,
+            IProgressMonitor monitor ) throws CoreException {
+        File[] files = folder.listFiles();
+        if( files == null ) {
+            return 0;
+        }
+        int count = 0;
+        for( File backingFile : files ) {
+            if( backingFile.isDirectory() ) {
+                count += materialize( project, backingFile, rootSegmentCount, unsavedContents, monitor );
+                continue;
+            }
+            IPath sourcePath = new Path( backingFile.getPath() ).removeFirstSegments( rootSegmentCount ).setDevice( null );
+            IFile sourceFile = project.getFile( sourcePath );
+            IFile outputFile = PreprocessingBuilder.getOutputFile( sourceFile );
+            if( !sourceFile.exists() || outputFile.equals( sourceFile ) ) {
+                backingFile.delete();
+                continue;
+            }
+            if( unsavedContents.containsKey( sourceFile ) ) {
+                // the backing file is older than the content in memory
+                continue;
+            }
+            try {
+                ByteBuffer buffer = readBackingFile( backingFile, sourceFile.getModificationStamp() );
+                if( buffer == null ) {
+                    _log.trace( "Skipped stale preprocessed content of " + sourcePath ); //$NON-NLS-1$
+                    continue;
+                }
+                byte[] bytes = new byte[ buffer.remaining() ];
+                buffer.get( bytes );
+                if( writeOutputFile( project, outputFile, bytes, monitor ) ) {
+                    count++;
+                }
+            } catch( IOException e ) {
+                _log.error( "Could not read " + backingFile, e ); //$NON-NLS-1$
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes the given preprocessed <code>bytes</code> to the given <code>outputFile</code> in the preprocessed folder unless it
+     * already has this content.
+     *
+     * @return <code>true</code> if the file has been written
+     */
+    private static boolean writeOutputFile( IProject project, IFile outputFile, byte[] bytes, IProgressMonitor monitor )
+            throws CoreException {
+        File file = outputFile.getLocation().toFile();
+        try {
+            if( file.isFile() && Arrays.equals( FileUtils.readBytes( file ), bytes ) ) {
+                return false;
+            }
+            ImportUtils.createFolders( project, outputFile.getProjectRelativePath().removeLastSegments( 1 ), IResource.DERIVED );
+            OutputStream output = new FileOutputStream( file );
+            try {
+                output.write( bytes );
+            } finally {
+                output.close();
+            }
+        } catch( IOException e ) {
+            _log.error( "Could not write " + file, e ); //$NON-NLS-1$
+            return false;
+        }
+        outputFile.refreshLocal( IResource.DEPTH_ZERO, monitor );
+        return true;
+    }
+
+    private synchronized void put( IFile file, long modificationStamp, char[] chars, byte[] unsavedBytes ) {
+        Content content = new Content( modificationStamp, chars, unsavedBytes );
+        Content old = _contents.put( file, content );
+        if( old != null ) {
+            _totalSize -= old.getSize();
+        }
+        _totalSize += content.getSize();
+        // evicted entries are written to their backing files and read from there again when needed, they are written while
+        // the store is locked so that an older content can never overwrite a newer one
+        Iterator< Map.Entry< IFile, Content >> iterator = _contents.entrySet().iterator();
+        while( _totalSize > _maxSize && iterator.hasNext() ) {
+            Map.Entry< IFile, Content > entry = iterator.next();
+            _totalSize -= entry.getValue().getSize();
+            save( entry.getKey(), entry.getValue() );
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Writes the given <code>content</code> of the given <code>file</code> to its backing file if it has not been saved yet.
+     * Must be called while the store is locked.
+     *
+     * @param file
+     * @param content
+     */
+    private void save( IFile file, Content content ) {
+        if( content._unsavedBytes == null ) {
+            return;
+        }
+        File backingFile = getBackingFile( file );
+        try {
+            backingFile.getParentFile().mkdirs();
+            DataOutputStream output = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( backingFile ) ) );
+            try {
+                output.writeLong( content._modificationStamp );
+                output.write( content._unsavedBytes );
+            } finally {
+                output.close();
+            }
+            content._unsavedBytes = null;
+        } catch( IOException e ) {
+            // the content has to be preprocessed again once it has been evicted
+            _log.error( "Could not write " + backingFile, e ); //$NON-NLS-1$
+            backingFile.delete();
+        }
+    }
+
+    private File getBackingFolder( IProject project ) {
+        return project.getWorkingLocation( ContextManager.PLUGIN_ID ).append( BACKING_FOLDER_NAME ).toFile();
+    }
+
+    private File getBackingFile( IFile file ) {
+        return new File( getBackingFolder( file.getProject() ), file.getProjectRelativePath().toOSString() );
+    }
+
+    /**
+     * Reads the preprocessed content from the given <code>backingFile</code>.
+     *
+     * @param backingFile
+     * @param modificationStamp
+     *            the current modification stamp of the source file
+     * @return the content or <code>null</code> if the backing file has been written for another modification stamp
+     * @throws IOException
+     */
+    private static ByteBuffer readBackingFile( File backingFile, long modificationStamp ) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap( FileUtils.readBytes( backingFile ) );
+        if( buffer.remaining() < STAMP_LENGTH || buffer.getLong() != modificationStamp ) {
+            return null;
+        }
+        return buffer;
+    }
+
+    /**
+     * Decodes the given preprocessed <code>bytes</code> the same way the java compiler decodes the source <code>file</code>.
+     *
+     * @param file
+     * @param bytes
+     * @return
+     */
+    private static char[] readContent( IFile file, ByteBuffer bytes ) {
+        Charset charset;
+        try {
+            charset = Charset.forName( file.getCharset() );
+        } catch( Exception e ) {
+            charset = Charset.defaultCharset();
+        }
+        CharBuffer buffer = charset.decode( bytes );
+        char[] chars = new char[ buffer.remaining() ];
+        buffer.get( chars );
+        return chars;
+    }
+}
@@ -11,24 +11,18 @@
 package net.rim.ejde.internal.builders;
 
 import net.rim.ejde.external.sourceMapper.ISourceMapper;
-import net.rim.ejde.internal.model.BlackBerryProjectPreprocessingNature;
 
-import org.apache.log4j.Logger;
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.IProject;
-import org.eclipse.core.runtime.CoreException;
 
 /**
  * An implementation of the {@link ISourceMapper} hook interface. This mapper attempts to map the requested file to a preprocessed
  * version of the file.
  */
 public class PreprocessedSourceMapper implements ISourceMapper {
-    private static final Logger log = Logger.getLogger( PreprocessedSourceMapper.class );
-
     public IFile getMappedResource( IFile sourceFile ) {
         IFile mappedFile = null;
 
-        if( isPreprocessingProject( sourceFile.getProject() ) ) {
+        if( PreprocessingStateCache.getInstance().isPreprocessingProject( sourceFile.getProject() ) ) {
             mappedFile = PreprocessingBuilder.getOutputFile( sourceFile );
             if( !mappedFile.exists() ) {
                 // if the preprocessed file does not exist, return the original one
@@ -42,27 +36,13 @@ public class PreprocessedSourceMapper implements ISourceMapper {
         return mappedFile;
     }
 
-    /**
-     * Return a boolean indicating whether the specified project has preprocessing enabled.
-     *
-     * @param project
-     * @return
-     */
-    private boolean isPreprocessingProject( IProject project ) {
-        boolean preprocessing = false;
-
-        try {
-            preprocessing = project.hasNature( BlackBerryProjectPreprocessingNature.NATURE_ID );
-        } catch( CoreException e ) {
-            log.error( e );
-        }
-
-        return preprocessing;
-    }
-
     @Override
     public char[] getContent( IFile sourceFile ) {
-        // currently we only simply return an empty char array
-        return new char[ 0 ];
+        PreprocessedContentStore contentStore = PreprocessedContentStore.getInstance();
+        if( !contentStore.isEnabled()
+                || !PreprocessingStateCache.getInstance().isPreprocessingProject( sourceFile.getProject() ) ) {
+            return null;
+        }
+        return contentStore.getContent( sourceFile );
     }
 }
@@ -0,0 +1,486 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.builders;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.rim.ejde.internal.core.IConstants;
+import net.rim.ejde.internal.util.FileUtils;
+import net.rim.ejde.internal.util.ImportUtils;
+import net.rim.ide.RIA;
+import net.rim.tools.javapp.delegate.IOutputFileCallbackDelegate;
+import net.rim.tools.javapp.delegate.IPreprocessingListenerDelegate;
+import net.rim.tools.javapp.delegate.JavaPPDelegate;
+
+import org.apache.log4j.Logger;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Preprocesses a list of java files in partitions on a bounded worker pool. Every partition uses its own {@link JavaPPDelegate}
+ * and collects the problems and dispositions reported by JavaPP into {@link Result}s. Files whose content and define set are
+ * found in the {@link PreprocessingCache} are restored from the cache instead of being run through JavaPP again.
+ * <p>
+ * No workspace API is called from the worker threads since the builder thread holds the build rule while it waits for them. The
+ * caller is responsible for applying the results (markers, build flags, derived folders) to the workspace.
+ */
+class PreprocessingBatch {
+    private static final Logger _log = Logger.getLogger( PreprocessingBatch.class );
+    // batches smaller than this are preprocessed on the builder thread
+    private static final int MIN_FILES_PER_PARTITION = 32;
+
+    private final Vector< String > _defines;
+    private final File _outputFolder;
+    private final PreprocessingCache _cache;
+    private final String _definesHash;
+    private final AtomicInteger _cacheHits = new AtomicInteger();
+
+    /**
+     * A problem reported by JavaPP for a single file.
+     */
+    static class Problem {
+        final String _message;
+        final int _lineNumber;
+        final int _severity;
+
+        Problem( String message, int lineNumber, int severity ) {
+            _message = message;
+            _lineNumber = lineNumber;
+            _severity = severity;
+        }
+    }
+
+    /**
+     * The preprocessing result of a single file.
+     */
+    static class Result {
+        final IFile _resource;
+        final File _javaFile;
+        final List< Problem > _problems = new ArrayList< Problem >();
+        File _outputFile;
+        // the key of the file in the preprocessing cache, <code>null</code> if the cache is not used
+        String _cacheKey;
+        // <code>false</code> if JavaPP decided the file should not be compiled at all
+        boolean _needBuild = true;
+        // <code>true</code> if JavaPP failed on the file, the output file should be discarded
+        boolean _failed;
+
+        Result( IFile resource ) {
+            _resource = resource;
+            _javaFile = resource.getLocation().toFile();
+        }
+
+        IFile getResource() {
+            return _resource;
+        }
+
+        List< Problem > getProblems() {
+            return _problems;
+        }
+
+        boolean needBuild() {
+            return _needBuild;
+        }
+
+        boolean isFailed() {
+            return _failed;
+        }
+    }
+
+    /**
+     * Constructs a batch which preprocesses files with the given <code>defines</code> into the given <code>outputFolder</code>.
+     *
+     * @param defines
+     * @param outputFolder
+     */
+    PreprocessingBatch( Vector< String > defines, File outputFolder ) {
+        _defines = defines;
+        _outputFolder = outputFolder;
+        PreprocessingCache cache = PreprocessingCache.getInstance();
+        if( cache.isEnabled() ) {
+            _cache = cache;
+            _definesHash = PreprocessingCache.getDefinesHash( defines );
+        } else {
+            _cache = null;
+            _definesHash = null;
+        }
+    }
+
+    /**
+     * Preprocesses the given <code>files</code>.
+     *
+     * @param files
+     * @param packageFolders
+     *            the project relative paths of all package folders used by the output files are added to this set
+     * @param monitor
+     * @return the results in the same order as <code>files</code>
+     */
+    List< Result > run( List< IFile > files, Set< IPath > packageFolders, IProgressMonitor monitor ) {
+        List< Result > results = new ArrayList< Result >( files.size() );
+        for( IFile file : files ) {
+            results.add( new Result( file ) );
+        }
+        int partitionCount = Math.min( getWorkerCount(), ( results.size() + MIN_FILES_PER_PARTITION - 1 )
+                / MIN_FILES_PER_PARTITION );
+        if( partitionCount <= 1 ) {
+            Partition partition = new Partition( results, monitor );
+            try {
+                partition.call();
+            } catch( OperationCanceledException e ) {
+                throw e;
+            } catch( RuntimeException e ) {
+                _log.error( e.getMessage(), e );
+                partition.fail( e );
+            }
+            return finish( results, packageFolders );
+        }
+        List< Partition > partitions = new ArrayList< Partition >( partitionCount );
+        int partitionSize = ( results.size() + partitionCount - 1 ) / partitionCount;
+        for( int start = 0; start < results.size(); start += partitionSize ) {
+            partitions.add( new Partition( results.subList( start, Math.min( start + partitionSize, results.size() ) ), monitor ) );
+        }
+        _log.trace( "Preprocessing " + results.size() + " files in " + partitions.size() + " partitions" ); //$NON-NLS-1$ //$NON-NLS-2$
+        ExecutorService executor = Executors.newFixedThreadPool( partitions.size(), new PreprocessingThreadFactory() );
+        try {
+            List< Future< Object >> futures = executor.invokeAll( partitions );
+            for( int i = 0; i < futures.size(); i++ ) {
+                try {
+                    futures.get( i ).get();
+                } catch( ExecutionException e ) {
+                    if( e.getCause() instanceof OperationCanceledException ) {
+                        throw (OperationCanceledException) e.getCause();
+                    }
+                    _log.error( e.getCause().getMessage(), e.getCause() );
+                    partitions.get( i ).fail( e.getCause() );
+                }
+            }
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new OperationCanceledException();
+        } finally {
+            executor.shutdownNow();
+        }
+        return finish( results, packageFolders );
+    }
+
+    private List< Result > finish( List< Result > results, Set< IPath > packageFolders ) {
+        for( Result result : results ) {
+            if( result._outputFile != null ) {
+                IPath packagePath = getPackagePath( result._outputFile );
+                if( !packagePath.isEmpty() ) {
+                    packageFolders.add( packagePath );
+                }
+            }
+        }
+        if( _cache != null ) {
+            _log.trace( "Preprocessed " + results.size() + " files, " + _cacheHits.get() + " restored from cache" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            _cache.traceStatistics();
+        }
+        return results;
+    }
+
+    /**
+     * Returns the path of the folder of the given <code>outputFile</code> relative to the output folder.
+     *
+     * @param outputFile
+     * @return
+     */
+    private IPath getPackagePath( File outputFile ) {
+        IPath outputPath = new Path( outputFile.getParentFile().getPath() );
+        return outputPath.removeFirstSegments( new Path( _outputFolder.getPath() ).segmentCount() ).setDevice( null );
+    }
+
+    /**
+     * Returns the path of the output file of the given <code>result</code> relative to the output folder or <code>null</code>
+     * if the file has not been reached by JavaPP.
+     *
+     * @param result
+     * @return
+     */
+    IPath getOutputPath( Result result ) {
+        if( result._outputFile == null ) {
+            return null;
+        }
+        return getPackagePath( result._outputFile ).append( result._outputFile.getName() );
+    }
+
+    /**
+     * Restores the preprocessing result of the given <code>result</code> from the cache.
+     *
+     * @param result
+     * @return <code>true</code> if the result was found in the cache, otherwise <code>false</code>
+     */
+    private boolean restoreFromCache( Result result ) {
+        if( _cache == null ) {
+            return false;
+        }
+        try {
+            result._cacheKey = PreprocessingCache.getKey( result._javaFile, _definesHash );
+        } catch( IOException e ) {
+            _log.debug( e.getMessage(), e );
+            return false;
+        }
+        PreprocessingCache.Entry entry = _cache.get( result._cacheKey );
+        if( entry == null ) {
+            return false;
+        }
+        File outputFile = new File( new Path( _outputFolder.getPath() ).append( entry._packagePath ).toFile(), result._javaFile
+                .getName() );
+        try {
+            if( entry._content != null ) {
+                outputFile.getParentFile().mkdirs();
+                OutputStream output = new FileOutputStream( outputFile );
+                try {
+                    output.write( entry._content );
+                } finally {
+                    output.close();
+                }
+            } else if( outputFile.exists() ) {
+                outputFile.delete();
+            }
+        } catch( IOException e ) {
+            _log.debug( e.getMessage(), e );
+            _cache.remove( result._cacheKey );
+            return false;
+        }
+        result._outputFile = outputFile;
+        result._needBuild = entry._needBuild;
+        result._problems.addAll( entry._problems );
+        _cacheHits.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Stores the preprocessing result of the given <code>result</code> in the cache. Failed results and results with errors are
+     * not cached.
+     *
+     * @param result
+     */
+    private void storeInCache( Result result ) {
+        if( _cache == null || result._cacheKey == null || result._failed || result._outputFile == null ) {
+            return;
+        }
+        for( Problem problem : result._problems ) {
+            if( problem._severity == IMarker.SEVERITY_ERROR ) {
+                return;
+            }
+        }
+        byte[] content = null;
+        if( result._outputFile.exists() ) {
+            try {
+                content = FileUtils.readBytes( result._outputFile );
+            } catch( IOException e ) {
+                _log.debug( e.getMessage(), e );
+                return;
+            }
+        }
+        _cache.put( result._cacheKey, new PreprocessingCache.Entry( result._needBuild, getPackagePath( result._outputFile )
+                .toString(), new ArrayList< Problem >( result._problems ), content ) );
+    }
+
+    /**
+     * Returns the number of worker threads. The <code>preprocess_worker_count</code> preference is used if it is set to a
+     * positive value, otherwise one worker per available processor is used.
+     *
+     * @return
+     */
+    static int getWorkerCount() {
+        int count = ImportUtils.getIntImportPref( IConstants.PREPROCESS_WORKER_COUNT_KEY );
+        if( count <= 0 ) {
+            count = Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max( 1, count );
+    }
+
+    /**
+     * Preprocesses a partition of the batch with its own JavaPP instance.
+     */
+    private class Partition implements Callable< Object >, IPreprocessingListenerDelegate, IOutputFileCallbackDelegate {
+        private final List< Result > _results;
+        private final IProgressMonitor _monitor;
+        private final Map< File, Result > _resultMap = new HashMap< File, Result >();
+        // the results which have been restored from the cache or reached by JavaPP
+        private final Set< Result > _completed = new HashSet< Result >();
+        private Set< Result > _processed;
+        private Result _current;
+
+        Partition( List< Result > results, IProgressMonitor monitor ) {
+            _results = results;
+            _monitor = monitor;
+            for( Result result : results ) {
+                _resultMap.put( result._javaFile, result );
+            }
+        }
+
+        public Object call() {
+            JavaPPDelegate javaPP = new JavaPPDelegate();
+            javaPP.setPreprocessingListener( this );
+            javaPP.setOutputFileCallback( this );
+            Set< Result > pending = new HashSet< Result >();
+            for( Result result : _results ) {
+                if( restoreFromCache( result ) ) {
+                    _completed.add( result );
+                } else {
+                    pending.add( result );
+                }
+            }
+            Set< Result > misses = new HashSet< Result >( pending );
+            while( !pending.isEmpty() ) {
+                if( _monitor.isCanceled() ) {
+                    throw new OperationCanceledException();
+                }
+                Vector< File > javaFiles = new Vector< File >( pending.size() );
+                for( Result result : _results ) {
+                    if( pending.contains( result ) ) {
+                        javaFiles.add( result._javaFile );
+                    }
+                }
+                _processed = new HashSet< Result >();
+                _current = null;
+                String failure = null;
+                try {
+                    javaPP.preProcess( javaFiles, _defines, _outputFolder );
+                } catch( IOException e ) {
+                    // the error has been reported by the listener, JavaPP stops at the first failing file
+                    failure = e.getMessage();
+                    failCurrent( null );
+                } catch( Exception e ) {
+                    _log.debug( e.getMessage(), e );
+                    failure = e.getMessage();
+                    failCurrent( failure );
+                }
+                if( _processed.isEmpty() ) {
+                    if( failure != null ) {
+                        // JavaPP failed before it reached the first file, do not retry the remaining files
+                        for( Result result : pending ) {
+                            result._failed = true;
+                            result._problems.add( new Problem( failure, -1, IMarker.SEVERITY_ERROR ) );
+                        }
+                    }
+                    break;
+                }
+                // JavaPP removes a file from the vector if it should not be built and replaces it by its output file if it
+                // has been preprocessed
+                Set< File > remainingFiles = new HashSet< File >( javaFiles );
+                for( Result result : _processed ) {
+                    if( !result._failed ) {
+                        result._needBuild = remainingFiles.contains( result._javaFile )
+                                || ( result._outputFile != null && remainingFiles.contains( result._outputFile ) );
+                    }
+                }
+                pending.removeAll( _processed );
+                _completed.addAll( _processed );
+            }
+            for( Result result : misses ) {
+                storeInCache( result );
+            }
+            return null;
+        }
+
+        /**
+         * Marks the results which have not been completed when the partition was aborted by an unexpected exception as failed.
+         * They are neither touched nor cached, so they are preprocessed again by the next build.
+         *
+         * @param cause
+         */
+        void fail( Throwable cause ) {
+            String message = cause.getMessage() == null ? cause.toString() : cause.getMessage();
+            for( Result result : _results ) {
+                if( _completed.contains( result ) ) {
+                    continue;
+                }
+                result._failed = true;
+                if( result._outputFile != null && result._outputFile.exists() ) {
+                    result._outputFile.delete();
+                }
+                result._problems.add( new Problem( message, -1, IMarker.SEVERITY_ERROR ) );
+            }
+        }
+
+        private void failCurrent( String message ) {
+            if( _current == null ) {
+                return;
+            }
+            _current._failed = true;
+            // if we got any exception, delete the preprocessed file
+            if( _current._outputFile != null && _current._outputFile.exists() ) {
+                _current._outputFile.delete();
+            }
+            if( message != null ) {
+                _current._problems.add( new Problem( message, -1, IMarker.SEVERITY_ERROR ) );
+            }
+        }
+
+        public File getOutputFile( File parent, File javaFile ) {
+            _current = _resultMap.get( javaFile );
+            File outputFile;
+            String packageName = RIA.getPackage( javaFile );
+            if( packageName != null && !packageName.trim().equals( IConstants.EMPTY_STRING ) ) {
+                File parentDir = new Path( parent.getPath() ).append( packageName.replace( '.', '/' ) ).toFile();
+                outputFile = new File( parentDir, javaFile.getName() );
+            } else {
+                outputFile = new File( parent, javaFile.getName() );
+            }
+            if( _current != null ) {
+                _current._outputFile = outputFile;
+                _processed.add( _current );
+            }
+            // JavaPP does not write an output file if the original file is used, make sure no stale one is left
+            if( outputFile.exists() ) {
+                outputFile.delete();
+            }
+            return outputFile;
+        }
+
+        public void error( String message, int lineNumber ) {
+            if( _current != null ) {
+                _current._problems.add( new Problem( message, lineNumber, IMarker.SEVERITY_ERROR ) );
+            }
+        }
+
+        public void warning( String message, int lineNumber ) {
+            if( _current != null ) {
+                _current._problems.add( new Problem( message, lineNumber, IMarker.SEVERITY_WARNING ) );
+            }
+        }
+    }
+
+    private static class PreprocessingThreadFactory implements ThreadFactory {
+        private static final AtomicInteger _threadNumber = new AtomicInteger( 1 );
+
+        public Thread newThread( Runnable runnable ) {
+            Thread thread = new Thread( runnable, "BlackBerry Preprocessor-" + _threadNumber.getAndIncrement() ); //$NON-NLS-1$
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+}
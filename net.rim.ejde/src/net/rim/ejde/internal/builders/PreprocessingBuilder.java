@@ -12,8 +12,11 @@ package net.rim.ejde.internal.builders;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
 
 import net.rim.ejde.external.sourceMapper.SourceMapperAccess;
@@ -22,7 +25,6 @@ import net.rim.ejde.internal.core.IConstants;
 import net.rim.ejde.internal.core.IRIMMarker;
 import net.rim.ejde.internal.model.BasicBlackBerryProperties.PreprocessorTag;
 import net.rim.ejde.internal.model.BlackBerryProject;
-import net.rim.ejde.internal.model.BlackBerryProperties;
 import net.rim.ejde.internal.model.preferences.PreprocessorPreferences;
 import net.rim.ejde.internal.util.EnvVarUtils;
 import net.rim.ejde.internal.util.ImportUtils;
@@ -31,22 +33,20 @@ import net.rim.ejde.internal.util.ProjectUtils;
 import net.rim.ejde.internal.util.ResourceBuilderUtils;
 import net.rim.ejde.internal.util.StatusFactory;
 import net.rim.ejde.internal.util.VMUtils;
-import net.rim.ide.RIA;
 import net.rim.ide.Workspace;
-import net.rim.tools.javapp.delegate.IOutputFileCallbackDelegate;
-import net.rim.tools.javapp.delegate.IPreprocessingListenerDelegate;
-import net.rim.tools.javapp.delegate.JavaPPDelegate;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
-import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -66,11 +66,18 @@ public class PreprocessingBuilder extends IncrementalProjectBuilder {
     private static final Logger _log = Logger.getLogger( PreprocessingBuilder.class );
     final static public QualifiedName NOT_BUILD_BY_JAVA_BUILDER_FLAG_QUALIFIED_NAME = new QualifiedName(
             ContextManager.PLUGIN_ID, "NotBuiltByJavaBuilders" ); //$NON-NLS-1$
-
-    private JavaPPDelegate _javaPP = new JavaPPDelegate();
+    // if set, the time a full refresh of the preprocessed folder takes is traced after every build for comparison
+    private static final boolean TRACE_FULL_REFRESH_TIME = System.getProperty( "PREPROCESS_REFRESH_METRICS" ) != null; //$NON-NLS-1$
 
     private IFolder _preprocessedFolder;
 
+    // java files collected from the resource delta which need to be preprocessed in the current build
+    private List< IFile > _pendingFiles;
+
+    // number of output files refreshed in the current build and the time it took
+    private int _refreshCount;
+    private long _refreshTime;
+
     /**
      * Construct a new builder instance.
      */
@@ -109,6 +116,9 @@ public class PreprocessingBuilder extends IncrementalProjectBuilder {
         if( delta != null ) {
             classpathFile = delta.findMember( new Path( IConstants.CLASSPATH_FILE_NAME ) );
         }
+        _pendingFiles = new ArrayList< IFile >();
+        _refreshCount = 0;
+        _refreshTime = 0;
         if( kind == IncrementalProjectBuilder.FULL_BUILD || classpathFile != null ) {
             // if is is a full build, we build all java files
             ResourceDeltaVisitor resourceVisitor = new ResourceDeltaVisitor( monitor );
@@ -120,7 +130,18 @@ public class PreprocessingBuilder extends IncrementalProjectBuilder {
                 delta.accept( deltaVisitor );
             }
         }
-        _preprocessedFolder.refreshLocal( IResource.DEPTH_INFINITE, monitor );
+        try {
+            preprocessResources( _pendingFiles, monitor );
+        } finally {
+            _pendingFiles = null;
+        }
+        // only the output files written by this build have been refreshed
+        _log.trace( "Refreshed " + _refreshCount + " preprocessed files in " + _refreshTime + " ms" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        if( TRACE_FULL_REFRESH_TIME ) {
+            long start = System.currentTimeMillis();
+            _preprocessedFolder.refreshLocal( IResource.DEPTH_INFINITE, monitor );
+            _log.trace( "Full refresh of the preprocessed folder took " + ( System.currentTimeMillis() - start ) + " ms" ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
         _log.trace( "Leaving PreprocessingBuilder build()" ); //$NON-NLS-1$
         return null;
     }
@@ -130,6 +151,7 @@ public class PreprocessingBuilder extends IncrementalProjectBuilder {
      */
     protected void clean( IProgressMonitor monitor ) throws CoreException {
         removePreprocessingMarkers( getProject(), IResource.DEPTH_INFINITE );
+        PreprocessedContentStore.getInstance().clear( getProject() );
         IFolder preprocessedFolder = getProject().getFolder( ImportUtils.getImportPref( PREPROCESSED_FILE_FOLDER_NAME ) );
         if( !preprocessedFolder.exists() )
             return;
@@ -167,10 +189,17 @@ public class PreprocessingBuilder extends IncrementalProjectBuilder {
     }
 
     void deletePreprocessedFile( IFile file, IProgressMonitor monitor ) throws CoreException {
+        PreprocessedContentStore.getInstance().remove( file );
         IFile preprocessedFile = getOutputFile( file );
         // eclipse resource might not be refreshed, we need double check the filesystem
-        if( preprocessedFile.exists() )
+        if( preprocessedFile.exists() ) {
             preprocessedFile.delete( true, monitor );
+        } else if( preprocessedFile.getLocation() != null ) {
+            File file = preprocessedFile.getLocation().toFile();
+            if( file.exists() ) {
+                file.delete();
+            }
+        }
     }
 
     /**
@@ -202,18 +231,35 @@ public class PreprocessingBuilder extends IncrementalProjectBuilder {
             if( ( oldBuildFlag == null ) || !oldBuildFlag.equals( newBuildFlag ) ) {
                 resource.setPersistentProperty( NOT_BUILD_BY_JAVA_BUILDER_FLAG_QUALIFIED_NAME, newBuildFlag );
             }
+            if( resource instanceof IFile ) {
+                PreprocessingStateCache.getInstance().setShouldBuiltByJavaBuilder( (IFile) resource, needBuild );
+            }
         } catch( CoreException e ) {
             _log.error( e );
         }
     }
 
     /**
-     * Check if the given <code>resource</code> needs to be built.
+     * Check if the given <code>resource</code> needs to be built. The flags of files are served from the
+     * {@link PreprocessingStateCache} without locking, since this method is called by the java compiler for every source file.
      *
      * @param file
      * @return
      */
-    static synchronized public boolean shouldBuiltByJavaBuilder( IResource resource ) {
+    static public boolean shouldBuiltByJavaBuilder( IResource resource ) {
+        if( resource instanceof IFile ) {
+            return PreprocessingStateCache.getInstance().shouldBuiltByJavaBuilder( (IFile) resource );
+        }
+        return readShouldBuiltByJavaBuilder( resource );
+    }
+
+    /**
+     * Reads the java builder flag of the given <code>resource</code> from its persistent properties.
+     *
+     * @param resource
+     * @return
+     */
+    static boolean readShouldBuiltByJavaBuilder( IResource resource ) {
         try {
             String value = resource.getPersistentProperty( NOT_BUILD_BY_JAVA_BUILDER_FLAG_QUALIFIED_NAME );
             if( ( value == null ) || value.equals( "true" ) ) {
@@ -227,25 +273,34 @@ public class PreprocessingBuilder extends IncrementalProjectBuilder {
     }
 
     /**
-     * Preprocess the specified java resource.
+     * Preprocess the specified java resources. The define set is resolved once for all <code>resources</code>, the files which
+     * contain the <code>//#preprocess</code> directive are preprocessed in partitions by a {@link PreprocessingBatch} and the
+     * resulting markers and build flags are applied in one workspace batch.
      *
-     * @param resource
-     * @param symbols
+     * @param resources
      * @param monitor
      * @throws CoreException
      */
-    private void preprocessResource( final IResource resource, IProgressMonitor monitor ) throws CoreException {
-        // remove the old markers and preprocessed file
-        removePreprocessingMarkers( resource, IResource.DEPTH_ONE );
-        deletePreprocessedFile( (IFile) resource, monitor );
-        //
-        BlackBerryProperties properties = ContextManager.PLUGIN.getBBProperties( getProject().getName(), false );
-        if( properties == null ) {
-            _log.error( "Could not find the correspond BlackBerry properties." );
+    private void preprocessResources( final List< IFile > resources, IProgressMonitor monitor ) throws CoreException {
+        if( resources.isEmpty() ) {
             return;
         }
+        IWorkspace workspace = ResourcesPlugin.getWorkspace();
+        // remove the old markers and preprocessed files
+        workspace.run( new IWorkspaceRunnable() {
+            public void run( IProgressMonitor monitor ) throws CoreException {
+                for( IFile resource : resources ) {
+                    removePreprocessingMarkers( resource, IResource.DEPTH_ONE );
+                    deletePreprocessedFile( resource, monitor );
+                }
+            }
+        }, getProject(), IWorkspace.AVOID_UPDATE, monitor );
         // get defined directives
-        Vector< String > defines = getDefines( new BlackBerryProject( JavaCore.create( getProject() ), properties ), true );
+        Vector< String > defines = PreprocessingStateCache.getInstance().getDefines( getProject() );
+        if( defines == null ) {
+            _log.error( "Could not find the correspond BlackBerry properties." );
+            return;
+        }
         // if there is no directive defined, we do not do preprocessing
         if( defines == null || defines.size() == 0 )
             return;
@@ -255,35 +310,112 @@ public class PreprocessingBuilder extends IncrementalProjectBuilder {
             ProjectUtils.setPreprocessorHook();
             return;
         } else {
-            _log.trace( "Preprocessing file : " + resource.getLocation() ); //$NON-NLS-1$
+            _log.trace( "Preprocessing " + resources.size() + " files of project " + getProject().getName() ); //$NON-NLS-1$ //$NON-NLS-2$
         }
         // remove the fake preprocess derive
         defines.remove( Workspace.getDefineOptNull() );
-        // get java file
-        File javaFile = resource.getLocation().toFile();
-        Vector< File > javaFiles = new Vector< File >();
-        javaFiles.add( javaFile );
-        IPreprocessingListenerDelegate listener = new PreprocessingListener( resource );
-        IOutputFileCallbackDelegate callback = new OutputFileCallback();
-        _javaPP.setPreprocessingListener( listener );
-        _javaPP.setOutputFileCallback( callback );
-        try {
-            _javaPP.preProcess( javaFiles, defines, _preprocessedFolder.getLocation().toFile() );
-            resource.touch( monitor );
-        } catch( IOException e ) {
-            // Is handled by PreprocessingListener
-        } catch( Exception e ) {
-            try {
-                ResourceBuilderUtils.createProblemMarker( resource, IRIMMarker.PREPROCESSING_PROBLEM_MARKER, e.getMessage(), -1,
-                        IMarker.SEVERITY_ERROR );
-            } catch( CoreException e1 ) {
-                _log.error( e1 );
+        // files without the preprocess directive are used as they are, JavaPP would not change them
+        PreprocessDirectiveIndex directiveIndex = PreprocessDirectiveIndex.getIndex( getProject() );
+        List< IFile > directiveFiles = new ArrayList< IFile >();
+        final List< IFile > plainFiles = new ArrayList< IFile >();
+        for( IFile resource : resources ) {
+            if( directiveIndex.needsPreprocessing( resource ) ) {
+                directiveFiles.add( resource );
+            } else {
+                plainFiles.add( resource );
             }
-            // if we got any exception, delete the proprocessed file.
-            _log.debug( e.getMessage(), e );
-            deletePreprocessedFile( (IFile) resource, monitor );
         }
-        setShouldBuiltByJavaBuilder( resource, javaFiles.size() != 0 );
+        directiveIndex.save();
+        _log.trace( plainFiles.size() + " files do not contain preprocessor directives" ); //$NON-NLS-1$
+        final Set< IPath > packageFolders = new HashSet< IPath >();
+        final List< PreprocessingBatch.Result > results;
+        // in memory mode the preprocessed folder is only written when the project is packaged
+        final PreprocessedContentStore contentStore = PreprocessedContentStore.getInstance();
+        final File outputFolder = contentStore.isEnabled() ? contentStore.getOutputFolder( getProject() ) : _preprocessedFolder
+                .getLocation().toFile();
+        final PreprocessingBatch batch = new PreprocessingBatch( defines, outputFolder );
+        if( directiveFiles.isEmpty() ) {
+            results = new ArrayList< PreprocessingBatch.Result >();
+        } else {
+            results = batch.run( directiveFiles, packageFolders, monitor );
+        }
+        // apply the preprocessing results
+        workspace.run( new IWorkspaceRunnable() {
+            public void run( IProgressMonitor monitor ) throws CoreException {
+                if( contentStore.isEnabled() ) {
+                    storeContents( contentStore, batch, outputFolder, results, plainFiles, monitor );
+                    return;
+                }
+                for( IPath packageFolder : packageFolders ) {
+                    ImportUtils.createFolders( _preprocessedFolder, packageFolder, IResource.DERIVED );
+                }
+                // the output files have been written or deleted directly on the file system
+                long start = System.currentTimeMillis();
+                for( PreprocessingBatch.Result result : results ) {
+                    IPath outputPath = batch.getOutputPath( result );
+                    if( outputPath != null ) {
+                        _preprocessedFolder.getFile( outputPath ).refreshLocal( IResource.DEPTH_ZERO, monitor );
+                        _refreshCount++;
+                    }
+                }
+                _refreshTime += System.currentTimeMillis() - start;
+                for( PreprocessingBatch.Result result : results ) {
+                    IFile resource = result.getResource();
+                    for( PreprocessingBatch.Problem problem : result.getProblems() ) {
+                        createResourceMarker( resource, problem._message, problem._lineNumber, problem._severity );
+                    }
+                    if( !result.isFailed() ) {
+                        resource.touch( monitor );
+                    }
+                    setShouldBuiltByJavaBuilder( resource, result.needBuild() );
+                }
+                for( IFile resource : plainFiles ) {
+                    setShouldBuiltByJavaBuilder( resource, true );
+                }
+            }
+        }, getProject(), IWorkspace.AVOID_UPDATE, monitor );
+    }
+
+    /**
+     * Applies the preprocessing <code>results</code> in memory mode. The output files written by JavaPP are moved to the
+     * <code>contentStore</code> once the source files have been touched, so that the stored contents match their modification
+     * stamps.
+     *
+     * @param contentStore
+     * @param batch
+     * @param outputFolder
+     * @param results
+     * @param plainFiles
+     * @param monitor
+     * @throws CoreException
+     */
+    private void storeContents( PreprocessedContentStore contentStore, PreprocessingBatch batch, File outputFolder,
+            List< PreprocessingBatch.Result > results, List< IFile > plainFiles, IProgressMonitor monitor )
+            throws CoreException {
+        for( PreprocessingBatch.Result result : results ) {
+            IFile resource = result.getResource();
+            for( PreprocessingBatch.Problem problem : result.getProblems() ) {
+                createResourceMarker( resource, problem._message, problem._lineNumber, problem._severity );
+            }
+            if( !result.isFailed() ) {
+                resource.touch( monitor );
+            }
+            IPath outputPath = batch.getOutputPath( result );
+            if( outputPath != null ) {
+                File outputFile = new Path( outputFolder.getPath() ).append( outputPath ).toFile();
+                if( outputFile.isFile() ) {
+                    try {
+                        contentStore.put( resource, outputFile );
+                    } catch( IOException e ) {
+                        _log.error( "Could not store the preprocessed content of " + resource.getName(), e ); //$NON-NLS-1$
+                    }
+                }
+            }
+            setShouldBuiltByJavaBuilder( resource, result.needBuild() );
+        }
+        for( IFile resource : plainFiles ) {
+            setShouldBuiltByJavaBuilder( resource, true );
+        }
     }
 
     /**
@@ -344,51 +476,6 @@ public class PreprocessingBuilder extends IncrementalProjectBuilder {
         }
     }
 
-    protected class PreprocessingListener implements IPreprocessingListenerDelegate {
-        IResource _resource;
-
-        public PreprocessingListener( IResource resource ) {
-            _resource = resource;
-        }
-
-        public void setResource( IResource resource ) {
-            _resource = resource;
-        }
-
-        public void error( String message, int lineNumber ) {
-
-            createResourceMarker( _resource, message, lineNumber, IMarker.SEVERITY_ERROR );
-        }
-
-        public void warning( String message, int lineNumber ) {
-
-            createResourceMarker( _resource, message, lineNumber, IMarker.SEVERITY_WARNING );
-        }
-    };
-
-    protected class OutputFileCallback implements IOutputFileCallbackDelegate {
-
-        public File getOutputFile( File parent, File javaFile ) {
-            String packageName = RIA.getPackage( javaFile );
-            if( packageName != null && !packageName.trim().equals( IConstants.EMPTY_STRING ) ) {
-                IPath parentPath = new Path( parent.getPath() );
-                IPath packagePath = new Path( packageName.replace( '.', '/' ) );
-                IFolder packageFolder = _preprocessedFolder.getFolder( packagePath );
-                if( !packageFolder.exists() )
-                    try {
-                        ImportUtils.createFolders( getProject(), packageFolder.getProjectRelativePath(), IResource.DERIVED );
-                    } catch( CoreException e ) {
-                        _log.error( e );
-                    }
-                parentPath = parentPath.append( packagePath );
-                File parentDir = parentPath.toFile();
-                return new File( parentDir, javaFile.getName() );
-            }
-            return new File( parent, javaFile.getName() );
-        }
-
-    }
-
     /**
      * Delta visitor for visiting changed resource files for resource builder.
      */
@@ -402,12 +489,14 @@ public class PreprocessingBuilder extends IncrementalProjectBuilder {
         protected void removeResource( IResource resource, IProgressMonitor monitor ) throws CoreException {
             if( !( resource instanceof IFile ) )
                 return;
+            PreprocessDirectiveIndex.getIndex( getProject() ).remove( (IFile) resource );
             deletePreprocessedFile( (IFile) resource, monitor );
         }
 
         @Override
         protected void buildResource( IResource resource, IProgressMonitor monitor ) throws CoreException {
-            preprocessResource( resource, monitor );
+            // the file is preprocessed together with the other changed files once the whole delta has been visited
+            _pendingFiles.add( (IFile) resource );
         }
 
         /**
@@ -0,0 +1,339 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.builders;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.rim.ejde.internal.core.ContextManager;
+import net.rim.ejde.internal.core.IConstants;
+import net.rim.ejde.internal.util.DigestUtils;
+import net.rim.ejde.internal.util.ImportUtils;
+
+import org.apache.log4j.Logger;
+
+/**
+ * An on-disk cache of JavaPP results. An entry is keyed by the content hash of a java file and a canonical hash of the define set
+ * it was preprocessed with, and stores the preprocessed content together with the disposition and the problems reported by
+ * JavaPP. Entries are evicted in least recently used order once the size limit configured by the
+ * <code>preprocess_cache_size</code> key (in MB) in preferences.ini is exceeded. A size of 0 disables the cache.
+ */
+public class PreprocessingCache {
+    private static final Logger _log = Logger.getLogger( PreprocessingCache.class );
+    private static final String CACHE_FOLDER_NAME = "preprocessCache"; //$NON-NLS-1$
+    private static final String ENTRY_EXTENSION = ".ppc"; //$NON-NLS-1$
+    private static final String TEMP_EXTENSION = ".tmp"; //$NON-NLS-1$
+    private static final int ENTRY_FORMAT_VERSION = 1;
+
+    private static class PreprocessingCacheHolder {
+        public static PreprocessingCache preprocessingCache = new PreprocessingCache();
+    }
+
+    private final File _cacheFolder;
+    private final long _maxSize;
+    // key -> entry size, in least recently used order
+    private final LinkedHashMap< String, Long > _entries = new LinkedHashMap< String, Long >( 64, 0.75f, true );
+    private long _totalSize;
+    private boolean _loaded;
+    private final AtomicLong _hits = new AtomicLong();
+    private final AtomicLong _misses = new AtomicLong();
+
+    /**
+     * A cached JavaPP result.
+     */
+    static class Entry {
+        final boolean _needBuild;
+        // the package folder of the output file relative to the preprocessed folder, empty for the default package
+        final String _packagePath;
+        final List< PreprocessingBatch.Problem > _problems;
+        // the preprocessed content or <code>null</code> if JavaPP did not write an output file
+        final byte[] _content;
+
+        Entry( boolean needBuild, String packagePath, List< PreprocessingBatch.Problem > problems, byte[] content ) {
+            _needBuild = needBuild;
+            _packagePath = packagePath;
+            _problems = problems;
+            _content = content;
+        }
+    }
+
+    private PreprocessingCache() {
+        _cacheFolder = ContextManager.PLUGIN.getStateLocation().append( CACHE_FOLDER_NAME ).toFile();
+        _maxSize = ImportUtils.getIntImportPref( IConstants.PREPROCESS_CACHE_SIZE_KEY ) * 1024L * 1024L;
+    }
+
+    /**
+     * Singleton getInstance() method.
+     *
+     * @return the unique instance of the class
+     */
+    public static PreprocessingCache getInstance() {
+        return PreprocessingCacheHolder.preprocessingCache;
+    }
+
+    /**
+     * Checks if the cache is enabled.
+     *
+     * @return
+     */
+    public boolean isEnabled() {
+        return _maxSize > 0;
+    }
+
+    /**
+     * Returns a canonical hash of the given <code>defines</code>. The hash does not depend on the order of the defines.
+     *
+     * @param defines
+     * @return
+     */
+    static String getDefinesHash( Vector< String > defines ) {
+        List< String > sortedDefines = new ArrayList< String >( defines );
+        Collections.sort( sortedDefines );
+        MessageDigest digest = DigestUtils.createDigest();
+        for( String define : sortedDefines ) {
+            DigestUtils.update( digest, define );
+        }
+        return DigestUtils.toHex( digest.digest() );
+    }
+
+    /**
+     * Returns the cache key of the given <code>javaFile</code> preprocessed with the defines represented by
+     * <code>definesHash</code>. The path of the file is part of the key since JavaPP puts it into its messages.
+     *
+     * @param javaFile
+     * @param definesHash
+     * @return
+     * @throws IOException
+     */
+    static String getKey( File javaFile, String definesHash ) throws IOException {
+        MessageDigest digest = DigestUtils.createDigest();
+        DigestUtils.update( digest, javaFile.getPath() );
+        DigestUtils.update( digest, javaFile );
+        return DigestUtils.toHex( digest.digest() ) + definesHash;
+    }
+
+    /**
+     * Returns the entry of the given <code>key</code> or <code>null</code> if there is none.
+     *
+     * @param key
+     * @return
+     */
+    Entry get( String key ) {
+        synchronized( this ) {
+            load();
+            if( _entries.get( key ) == null ) {
+                _misses.incrementAndGet();
+                return null;
+            }
+        }
+        File entryFile = getEntryFile( key );
+        Entry entry = null;
+        try {
+            entry = readEntry( entryFile );
+        } catch( IOException e ) {
+            _log.debug( "Could not read preprocessing cache entry " + entryFile, e ); //$NON-NLS-1$
+        }
+        if( entry == null ) {
+            remove( key );
+            _misses.incrementAndGet();
+            return null;
+        }
+        // keep the least recently used order across sessions
+        entryFile.setLastModified( System.currentTimeMillis() );
+        _hits.incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * Stores the given <code>entry</code> under the given <code>key</code> and evicts the least recently used entries if the
+     * cache grows beyond its size limit.
+     *
+     * @param key
+     * @param entry
+     */
+    void put( String key, Entry entry ) {
+        File entryFile = getEntryFile( key );
+        File tempFile = new File( _cacheFolder, key + Thread.currentThread().getId() + TEMP_EXTENSION );
+        try {
+            _cacheFolder.mkdirs();
+            writeEntry( tempFile, entry );
+            synchronized( this ) {
+                load();
+                removeEntry( key );
+                if( !tempFile.renameTo( entryFile ) ) {
+                    return;
+                }
+                long size = entryFile.length();
+                _entries.put( key, Long.valueOf( size ) );
+                _totalSize += size;
+                evict();
+            }
+        } catch( IOException e ) {
+            _log.debug( "Could not write preprocessing cache entry " + entryFile, e ); //$NON-NLS-1$
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Removes the entry of the given <code>key</code>.
+     *
+     * @param key
+     */
+    synchronized void remove( String key ) {
+        load();
+        removeEntry( key );
+    }
+
+    /**
+     * Returns the number of cache hits since the plug-in was started.
+     *
+     * @return
+     */
+    public long getHits() {
+        return _hits.get();
+    }
+
+    /**
+     * Returns the number of cache misses since the plug-in was started.
+     *
+     * @return
+     */
+    public long getMisses() {
+        return _misses.get();
+    }
+
+    /**
+     * Logs the statistics of the cache in the trace log.
+     */
+    public synchronized void traceStatistics() {
+        _log.trace( "Preprocessing cache: " + _hits.get() + " hits, " + _misses.get() + " misses, " + _entries.size() //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                + " entries, " + _totalSize + " bytes" ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private void removeEntry( String key ) {
+        Long size = _entries.remove( key );
+        if( size != null ) {
+            _totalSize -= size.longValue();
+        }
+        getEntryFile( key ).delete();
+    }
+
+    private void evict() {
+        Iterator< Map.Entry< String, Long >> iterator = _entries.entrySet().iterator();
+        while( _totalSize > _maxSize && iterator.hasNext() ) {
+            Map.Entry< String, Long > eldest = iterator.next();
+            iterator.remove();
+            _totalSize -= eldest.getValue().longValue();
+            getEntryFile( eldest.getKey() ).delete();
+        }
+    }
+
+    /**
+     * Loads the index of the cache from the cache folder, ordered by the last access time of the entries.
+     */
+    private void load() {
+        if( _loaded ) {
+            return;
+        }
+        _loaded = true;
+        File[] files = _cacheFolder.listFiles();
+        if( files == null ) {
+            return;
+        }
+        Arrays.sort( files, new Comparator< File >() {
+            public int compare( File file1, File file2 ) {
+                long modified1 = file1.lastModified();
+                long modified2 = file2.lastModified();
+                return modified1 < modified2 ? -1 : ( modified1 == modified2 ? 0 : 1 );
+            }
+        } );
+        for( File file : files ) {
+            String name = file.getName();
+            if( name.endsWith( ENTRY_EXTENSION ) ) {
+                long size = file.length();
+                _entries.put( name.substring( 0, name.length() - ENTRY_EXTENSION.length() ), Long.valueOf( size ) );
+                _totalSize += size;
+            } else {
+                // left over by an interrupted write
+                file.delete();
+            }
+        }
+        evict();
+    }
+
+    private File getEntryFile( String key ) {
+        return new File( _cacheFolder, key + ENTRY_EXTENSION );
+    }
+
+    private static Entry readEntry( File file ) throws IOException {
+        DataInputStream input = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) );
+        try {
+            if( input.readInt() != ENTRY_FORMAT_VERSION ) {
+                return null;
+            }
+            boolean needBuild = input.readBoolean();
+            String packagePath = input.readUTF();
+            int problemCount = input.readInt();
+            List< PreprocessingBatch.Problem > problems = new ArrayList< PreprocessingBatch.Problem >( problemCount );
+            for( int i = 0; i < problemCount; i++ ) {
+                problems.add( new PreprocessingBatch.Problem( input.readUTF(), input.readInt(), input.readInt() ) );
+            }
+            byte[] content = null;
+            if( input.readBoolean() ) {
+                content = new byte[ input.readInt() ];
+                input.readFully( content );
+            }
+            return new Entry( needBuild, packagePath, problems, content );
+        } finally {
+            input.close();
+        }
+    }
+
+    private static void writeEntry( File file, Entry entry ) throws IOException {
+        DataOutputStream output = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file ) ) );
+        try {
+            output.writeInt( ENTRY_FORMAT_VERSION );
+            output.writeBoolean( entry._needBuild );
+            output.writeUTF( entry._packagePath );
+            output.writeInt( entry._problems.size() );
+            for( PreprocessingBatch.Problem problem : entry._problems ) {
+                output.writeUTF( problem._message == null ? IConstants.EMPTY_STRING : problem._message );
+                output.writeInt( problem._lineNumber );
+                output.writeInt( problem._severity );
+            }
+            output.writeBoolean( entry._content != null );
+            if( entry._content != null ) {
+                output.writeInt( entry._content.length );
+                output.write( entry._content );
+            }
+        } finally {
+            output.close();
+        }
+    }
+}
@@ -0,0 +1,340 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.builders;
+
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.rim.ejde.internal.core.ContextManager;
+import net.rim.ejde.internal.core.EJDEEventAdapter;
+import net.rim.ejde.internal.core.EJDEEventNotifier;
+import net.rim.ejde.internal.model.BlackBerryProject;
+import net.rim.ejde.internal.model.BlackBerryProjectCoreNature;
+import net.rim.ejde.internal.model.BlackBerryProjectPreprocessingNature;
+import net.rim.ejde.internal.model.BlackBerryProperties;
+import net.rim.ejde.internal.model.BlackBerrySDKInstall;
+
+import org.apache.log4j.Logger;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.launching.IVMInstall;
+
+/**
+ * Caches per project the preprocessing state which is queried by the java compiler through the preprocess hook: whether the
+ * project has the BlackBerry and the preprocessing nature, the resolved preprocess defines and the java builder flags of the
+ * java files.
+ * <p>
+ * Lookups do not lock and do not read the project description, the natures are read once per open project. The state of a
+ * project is dropped when its description changes, when it is opened, closed or deleted and when the workspace or project
+ * preprocess defines or the BlackBerry JRE change, and it is resolved again on the next lookup.
+ */
+public class PreprocessingStateCache extends EJDEEventAdapter implements IResourceChangeListener {
+    private static final Logger _log = Logger.getLogger( PreprocessingStateCache.class );
+
+    private static class PreprocessingStateCacheHolder {
+        public static PreprocessingStateCache preprocessingStateCache = new PreprocessingStateCache();
+    }
+
+    private final ConcurrentHashMap< IProject, ProjectState > _states = new ConcurrentHashMap< IProject, ProjectState >();
+
+    // the state of a closed project, which is not cached
+    private static final ProjectState CLOSED_PROJECT_STATE = new ProjectState( false, false,
+            new ConcurrentHashMap< IFile, Boolean >() );
+
+    private static class ProjectState {
+        final boolean _blackBerryNature;
+        final boolean _preprocessingNature;
+        // resolved lazily, the state is replaced when the defines change so that a stale resolution is never seen again
+        volatile Vector< String > _defines;
+        final ConcurrentHashMap< IFile, Boolean > _buildFlags;
+
+        ProjectState( boolean blackBerryNature, boolean preprocessingNature, ConcurrentHashMap< IFile, Boolean > buildFlags ) {
+            _blackBerryNature = blackBerryNature;
+            _preprocessingNature = preprocessingNature;
+            _buildFlags = buildFlags;
+        }
+    }
+
+    private PreprocessingStateCache() {
+    }
+
+    /**
+     * Singleton getInstance() method.
+     *
+     * @return the unique instance of the class
+     */
+    public static PreprocessingStateCache getInstance() {
+        return PreprocessingStateCacheHolder.preprocessingStateCache;
+    }
+
+    /**
+     * Starts listening to the resource and eJDE events which invalidate the cached states.
+     */
+    public static void addListener() {
+        PreprocessingStateCache cache = getInstance();
+        ResourcesPlugin.getWorkspace().addResourceChangeListener( cache,
+                IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE | IResourceChangeEvent.POST_CHANGE );
+        EJDEEventNotifier.getInstance().addEJDEEventListener( cache );
+    }
+
+    /**
+     * Stops listening to the resource and eJDE events and drops the cached states.
+     */
+    public static void removeListener() {
+        PreprocessingStateCache cache = getInstance();
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener( cache );
+        EJDEEventNotifier.getInstance().removeEJDEEventListener( cache );
+        cache._states.clear();
+    }
+
+    /**
+     * Checks if the given <code>project</code> has the preprocessing nature.
+     *
+     * @param project
+     * @return
+     */
+    public boolean isPreprocessingProject( IProject project ) {
+        ProjectState state = getState( project );
+        return state._blackBerryNature && state._preprocessingNature;
+    }
+
+    /**
+     * Returns a copy of the active preprocess defines of the given <code>project</code> or <code>null</code> if the BlackBerry
+     * properties of the project can not be found.
+     *
+     * @param project
+     * @return
+     */
+    public Vector< String > getDefines( IProject project ) {
+        ProjectState state = getState( project );
+        if( !state._blackBerryNature ) {
+            return null;
+        }
+        Vector< String > defines = state._defines;
+        if( defines == null ) {
+            BlackBerryProperties properties = ContextManager.PLUGIN.getBBProperties( project.getName(), false );
+            if( properties == null ) {
+                return null;
+            }
+            defines = PreprocessingBuilder.getDefines( new BlackBerryProject( JavaCore.create( project ), properties ), true );
+            state._defines = defines;
+        }
+        return new Vector< String >( defines );
+    }
+
+    /**
+     * Checks if the given <code>file</code> needs to be built by the java builder.
+     *
+     * @param file
+     * @return
+     */
+    public boolean shouldBuiltByJavaBuilder( IFile file ) {
+        ProjectState state = getState( file.getProject() );
+        // files of other projects are never preprocessed
+        if( !state._blackBerryNature ) {
+            return true;
+        }
+        Boolean needBuild = state._buildFlags.get( file );
+        if( needBuild == null ) {
+            needBuild = Boolean.valueOf( PreprocessingBuilder.readShouldBuiltByJavaBuilder( file ) );
+            Boolean current = state._buildFlags.putIfAbsent( file, needBuild );
+            if( current != null ) {
+                needBuild = current;
+            }
+        }
+        return needBuild.booleanValue();
+    }
+
+    /**
+     * Updates the cached java builder flag of the given <code>file</code>.
+     *
+     * @param file
+     * @param needBuild
+     */
+    void setShouldBuiltByJavaBuilder( IFile file, boolean needBuild ) {
+        ProjectState state = _states.get( file.getProject() );
+        if( state != null && state._blackBerryNature ) {
+            state._buildFlags.put( file, Boolean.valueOf( needBuild ) );
+        }
+    }
+
+    /**
+     * Drops the cached state of the given <code>project</code>.
+     *
+     * @param project
+     */
+    public void invalidate( IProject project ) {
+        _states.remove( project );
+    }
+
+    /**
+     * Gets the state of the given <code>project</code>. The natures of an open project are read once and cached until the
+     * project description changes, the state of a project which does not have the BlackBerry nature is cached as well.
+     *
+     * @param project
+     * @return
+     */
+    private ProjectState getState( IProject project ) {
+        ProjectState state = _states.get( project );
+        if( state == null ) {
+            if( !project.isOpen() ) {
+                return CLOSED_PROJECT_STATE;
+            }
+            boolean blackBerryNature = false, preprocessingNature = false;
+            try {
+                blackBerryNature = project.hasNature( BlackBerryProjectCoreNature.NATURE_ID );
+                preprocessingNature = blackBerryNature && project.hasNature( BlackBerryProjectPreprocessingNature.NATURE_ID );
+            } catch( CoreException e ) {
+                // the project has been closed in the meantime
+                _log.error( e );
+                return CLOSED_PROJECT_STATE;
+            }
+            state = new ProjectState( blackBerryNature, preprocessingNature, new ConcurrentHashMap< IFile, Boolean >() );
+            ProjectState current = _states.putIfAbsent( project, state );
+            if( current != null ) {
+                state = current;
+            }
+        }
+        return state;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.eclipse.core.resources.IResourceChangeListener#resourceChanged(org.eclipse.core.resources.IResourceChangeEvent)
+     */
+    public void resourceChanged( IResourceChangeEvent event ) {
+        if( event.getType() != IResourceChangeEvent.POST_CHANGE ) {
+            if( event.getResource() instanceof IProject ) {
+                IProject project = (IProject) event.getResource();
+                invalidate( project );
+                PreprocessDirectiveIndex.removeIndex( project, event.getType() == IResourceChangeEvent.PRE_CLOSE );
+                if( event.getType() == IResourceChangeEvent.PRE_CLOSE ) {
+                    PreprocessedContentStore.getInstance().unload( project );
+                } else {
+                    PreprocessedContentStore.getInstance().clear( project );
+                }
+            }
+            return;
+        }
+        IResourceDelta delta = event.getDelta();
+        if( delta == null || _states.isEmpty() ) {
+            return;
+        }
+        try {
+            delta.accept( new IResourceDeltaVisitor() {
+                public boolean visit( IResourceDelta delta ) throws CoreException {
+                    IResource resource = delta.getResource();
+                    if( resource instanceof IProject ) {
+                        ProjectState state = _states.get( resource );
+                        if( state == null ) {
+                            return false;
+                        }
+                        if( delta.getKind() == IResourceDelta.REMOVED
+                                || ( delta.getFlags() & ( IResourceDelta.OPEN | IResourceDelta.DESCRIPTION ) ) != 0 ) {
+                            invalidate( (IProject) resource );
+                            return false;
+                        }
+                        return true;
+                    }
+                    if( resource instanceof IFile ) {
+                        if( delta.getKind() == IResourceDelta.REMOVED ) {
+                            ProjectState state = _states.get( resource.getProject() );
+                            if( state != null ) {
+                                state._buildFlags.remove( resource );
+                            }
+                        }
+                        return false;
+                    }
+                    return true;
+                }
+            } );
+        } catch( CoreException e ) {
+            _log.error( e );
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see net.rim.ejde.internal.core.EJDEEventAdapter#workspacePreprocessorTagsChanged()
+     */
+    @Override
+    public void workspacePreprocessorTagsChanged() {
+        clearDefines();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see net.rim.ejde.internal.core.EJDEEventAdapter#projectPreprocessorTagChanged(org.eclipse.core.resources.IProject)
+     */
+    @Override
+    public void projectPreprocessorTagChanged( IProject project ) {
+        ProjectState state = _states.get( project );
+        if( state != null ) {
+            clearDefines( project, state );
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see net.rim.ejde.internal.core.EJDEEventAdapter#classPathChanged(org.eclipse.jdt.core.IJavaProject, boolean)
+     */
+    @Override
+    public void classPathChanged( IJavaProject project, boolean isProjectJREChange ) {
+        // the JRE directive is part of the defines
+        projectPreprocessorTagChanged( project.getProject() );
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see net.rim.ejde.internal.core.EJDEEventAdapter#workspaceJREChanged(org.eclipse.jdt.launching.IVMInstall,
+     * org.eclipse.jdt.launching.IVMInstall)
+     */
+    @Override
+    public void workspaceJREChanged( IVMInstall previous, IVMInstall current ) {
+        clearDefines();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see net.rim.ejde.internal.core.EJDEEventAdapter#jreDefinitionChanged(net.rim.ejde.internal.model.BlackBerrySDKInstall)
+     */
+    @Override
+    public void jreDefinitionChanged( BlackBerrySDKInstall sourceVM ) {
+        clearDefines();
+    }
+
+    private void clearDefines() {
+        for( Map.Entry< IProject, ProjectState > entry : _states.entrySet() ) {
+            clearDefines( entry.getKey(), entry.getValue() );
+        }
+    }
+
+    private void clearDefines( IProject project, ProjectState state ) {
+        _states.replace( project, state, new ProjectState( state._blackBerryNature, state._preprocessingNature,
+                state._buildFlags ) );
+    }
+}
@@ -10,23 +10,25 @@
 */
 package net.rim.ejde.internal.builders;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 import java.util.Vector;
 
 import net.rim.ejde.internal.core.IConstants;
 import net.rim.ejde.internal.core.IRIMMarker;
+import net.rim.ejde.internal.util.FileUtils;
 import net.rim.ejde.internal.util.ImportUtils;
 import net.rim.ejde.internal.util.Messages;
 import net.rim.ejde.internal.util.PackageUtils;
 import net.rim.ejde.internal.util.ProjectUtils;
 import net.rim.ejde.internal.util.ResourceBuilderUtils;
 import net.rim.ejde.internal.util.StatusFactory;
-import net.rim.sdk.CompilerException;
 import net.rim.sdk.rc.ConvertUtil;
 import net.rim.sdk.rc.ResourceCompiler;
 
@@ -39,7 +41,10 @@ import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -61,6 +66,8 @@ public class ResourceBuilder extends IncrementalProjectBuilder {
     static private String _tmpOutputFolder;
     private Hashtable< String, String > _resourceBuilderOptions = null;
     private Vector< IFile > _filesNeedToReBuild = new Vector< IFile >();
+    // rrh/rrc files collected from the resource delta which need to be compiled in the current build
+    private List< IFile > _pendingFiles;
 
     /**
      * (non-javadoc)
@@ -75,20 +82,22 @@ public class ResourceBuilder extends IncrementalProjectBuilder {
         if( delta != null ) {
             classpathFile = delta.findMember( new Path( IConstants.CLASSPATH_FILE_NAME ) );
         }
-        if( kind == IncrementalProjectBuilder.FULL_BUILD || classpathFile != null ) {
-            ResourceDeltaVisitor resourceVisitor = new ResourceDeltaVisitor( monitor );
-            project.accept( resourceVisitor );
-        } else {
-            _filesNeedToReBuild = getFilesNeedRebuild();
-            if( delta != null ) {
-                ResourceDeltaVisitor deltaVisitor = new ResourceDeltaVisitor( monitor );
-                delta.accept( deltaVisitor );
-            }
-            if( _filesNeedToReBuild.size() > 0 ) {
-                for( IFile file : _filesNeedToReBuild ) {
-                    compile( file, monitor );
+        _pendingFiles = new ArrayList< IFile >();
+        try {
+            if( kind == IncrementalProjectBuilder.FULL_BUILD || classpathFile != null ) {
+                ResourceDeltaVisitor resourceVisitor = new ResourceDeltaVisitor( monitor );
+                project.accept( resourceVisitor );
+            } else {
+                _filesNeedToReBuild = getFilesNeedRebuild();
+                if( delta != null ) {
+                    ResourceDeltaVisitor deltaVisitor = new ResourceDeltaVisitor( monitor );
+                    delta.accept( deltaVisitor );
                 }
+                _pendingFiles.addAll( _filesNeedToReBuild );
             }
+            compile( _pendingFiles, monitor );
+        } finally {
+            _pendingFiles = null;
         }
         log.trace( "Leaving ResourcesBuilder build()" ); //$NON-NLS-1$
         return null;
@@ -147,100 +156,127 @@ public class ResourceBuilder extends IncrementalProjectBuilder {
     }
 
     /**
-     * Compiles given <code>iFile</code>. <code>iFIle</code> should be either of rrc or rrh file.
+     * Compiles the given rrh/rrc <code>files</code> on a worker pool and writes the generated files to the
+     * <code>project_locale_interfaces_folder</code> in one workspace batch. Generated files whose content has not changed are not
+     * written again, so that the java builder does not recompile their dependents.
      *
-     * @param resource
+     * @param files
+     * @param monitor
+     * @throws CoreException
+     */
+    void compile( List< IFile > files, IProgressMonitor monitor ) throws CoreException {
+        if( files.isEmpty() ) {
+            return;
+        }
+        log.trace( "Compiling " + files.size() + " resource files of project " + getProject().getName() ); //$NON-NLS-1$ //$NON-NLS-2$
+        ResourceCompileBatch batch = new ResourceCompileBatch( getResourceBuilderOptions(), new File( getTempOutputFolder() ) );
+        final List< ResourceCompileBatch.Result > results = batch.run( files, monitor );
+        // create the .locale_interface folder if it does not exist
+        final IFolder localeInterfaceFolderRoot = ResourceBuilderUtils.createResourcesOutputRoot( getProject(), monitor );
+        ResourcesPlugin.getWorkspace().run( new IWorkspaceRunnable() {
+            public void run( IProgressMonitor monitor ) throws CoreException {
+                int count = 0;
+                for( ResourceCompileBatch.Result result : results ) {
+                    count += applyResult( result, localeInterfaceFolderRoot, monitor );
+                }
+                log.trace( "Wrote " + count + " changed files to " + localeInterfaceFolderRoot.getName() ); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        }, getProject(), IWorkspace.AVOID_UPDATE, monitor );
+    }
+
+    /**
+     * Writes the files generated for a single rrh/rrc file and removes the file generated previously if it is no longer
+     * generated.
+     *
+     * @param result
+     * @param localeInterfaceFolderRoot
      * @param monitor
+     * @return the number of files which have been written
      * @throws CoreException
      */
-    void compile( IResource iFile, IProgressMonitor monitor ) throws CoreException {
-        log.trace( "ResourcesBuilder compile(IResource); Resource: " //$NON-NLS-1$
-                + iFile.getLocation().toOSString() );
+    private int applyResult( ResourceCompileBatch.Result result, IFolder localeInterfaceFolderRoot, IProgressMonitor monitor )
+            throws CoreException {
+        IFile iFile = result.getResource();
         // remove the old markers
         removeResourceBuildMarkers( iFile, IResource.DEPTH_ONE );
-        File resourceFile = null;
-        // get the absolute path of the file
-        resourceFile = ResourceBuilderUtils.getFile( iFile );
-        if( resourceFile == null )
-            log.error( NLS.bind( "", //$NON-NLS-1$
-                    iFile.getLocationURI() ) );
-
-        // get the parent directory of the resource file
-        Vector< String > fileList = new Vector< String >();
-        try {
-            ResourceCompiler.compile( resourceFile.getPath(), null, getResourceBuilderOptions(), fileList );
-        } catch( CompilerException e ) {
-            log.error( NLS.bind( Messages.RIMResourcesBuilder_COMPILE_FILE_ERROR_MSG, new String[] { e.getMessage() } ) );
-            createResourceMarker( iFile,
-                    NLS.bind( Messages.RIMResourcesBuilder_COMPILE_FILE_ERROR_MSG, new String[] { e.getMessage() } ), 0,
-                    IMarker.SEVERITY_ERROR );
-            return;
-        } catch( IOException e ) {
-            log.error( NLS.bind( Messages.RIMResourcesBuilder_COMPILE_FILE_ERROR_MSG, new String[] { e.getMessage() } ) );
-            createResourceMarker( iFile,
-                    NLS.bind( Messages.RIMResourcesBuilder_COMPILE_FILE_ERROR_MSG, new String[] { e.getMessage() } ), 0,
-                    IMarker.SEVERITY_ERROR );
-            return;
+        IFile previousFile;
+        if( PackageUtils.hasRRHExtension( iFile.getName() ) ) {
+            previousFile = getResourceInterfaceFile( iFile );
+        } else {
+            previousFile = getCorrespondingCRBFile( iFile );
+        }
+        int count = 0;
+        if( result.getError() != null ) {
+            createResourceMarker( iFile, result.getError(), 0, IMarker.SEVERITY_ERROR );
+        } else {
+            for( Map.Entry< String, byte[] > output : result.getOutputs().entrySet() ) {
+                IFolder parentFolder = getParentFolder( iFile, output.getKey(), localeInterfaceFolderRoot );
+                if( parentFolder == null ) {
+                    continue;
+                }
+                IFile file = parentFolder.getFile( output.getKey() );
+                if( file.equals( previousFile ) ) {
+                    previousFile = null;
+                }
+                if( writeIfChanged( file, output.getValue(), monitor ) ) {
+                    count++;
+                }
+            }
+        }
+        if( previousFile != null && previousFile.exists() ) {
+            previousFile.delete( true, monitor );
         }
-        // parse the result file list
-        for( String string : fileList ) {
-            File processedFile = new File( string );
-            IFolder tmpParentFolder = getParentFolder( iFile.getRawLocation().toFile(), processedFile, iFile.getProject(),
-                    monitor );
-            // get the name of the compiled resource file
-            String fileName = processedFile.getName();
-            // get the IFile handle of the compiled resource file
-            IFile file = tmpParentFolder.getFile( fileName );
-            if( file.exists() )
-                file.delete( IResource.DERIVED | IResource.FORCE, monitor );
-            FileInputStream fileInputStream = null;
+        return count;
+    }
+
+    /**
+     * Writes the given <code>content</code> to the given <code>file</code> unless the file already has this content.
+     *
+     * @param file
+     * @param content
+     * @param monitor
+     * @return <code>true</code> if the file has been written, otherwise <code>false</code>
+     * @throws CoreException
+     */
+    private boolean writeIfChanged( IFile file, byte[] content, IProgressMonitor monitor ) throws CoreException {
+        File osFile = file.getLocation().toFile();
+        if( file.exists() && osFile.isFile() ) {
             try {
-                fileInputStream = new FileInputStream( processedFile );
-                file.create( fileInputStream, IResource.DERIVED | IResource.FORCE, monitor );
-            } catch( FileNotFoundException e ) {
-                log.error( e );
-                continue;
-            } finally {
-                try {
-                    if( fileInputStream != null ) {
-                        fileInputStream.close();
-                    }
-                } catch( IOException e ) {
-                    log.error( e.getMessage() );
+                if( Arrays.equals( FileUtils.readBytes( osFile ), content ) ) {
+                    return false;
                 }
+            } catch( IOException e ) {
+                log.debug( e.getMessage(), e );
             }
+            file.setContents( new ByteArrayInputStream( content ), IResource.FORCE, monitor );
+        } else {
+            file.create( new ByteArrayInputStream( content ), IResource.DERIVED | IResource.FORCE, monitor );
         }
+        return true;
     }
 
     /**
-     * Gets the parent IFolder of the given <code>compildedFile</code>.
+     * Gets the parent IFolder of the generated file <code>compiledFileName</code> of the given <code>resourceFile</code>.
      * <p>
-     * If the <code>compiledFile</code> is a java file, we return the folder which is .locale_interfaces + package;
+     * If the compiled file is a java file, we return the folder which is .locale_interfaces + package of the resource file;
      * </p>
      * <p>
-     * If the <code>compiledFile</code> is a crb file, we return the folder which is .locale_interfaces because crb files are
-     * supposed to be put in the root of the jar file.
+     * Otherwise, e.g. for crb files, we return the folder which is .locale_interfaces because crb files are supposed to be put in
+     * the root of the jar file.
      *
-     * @param compiledFile
-     * @param originalFile
-     * @param project
-     * @param monitor
+     * @param resourceFile
+     * @param compiledFileName
+     * @param localeInterfaceFolderRoot
      * @return
      * @throws CoreException
      */
-    private IFolder getParentFolder( File compiledFile, File originalFile, IProject project, IProgressMonitor monitor )
+    private IFolder getParentFolder( IFile resourceFile, String compiledFileName, IFolder localeInterfaceFolderRoot )
             throws CoreException {
-        // get the resource builder output root folder
-        IFolder localeInterfaceFolderRoot = project.getFolder( ImportUtils
-                .getImportPref( ResourceBuilder.LOCALE_INTERFACES_FOLDER_NAME ) );
-        // create the .locale_interface folder if it does not exist
-        ResourceBuilderUtils.createResourcesOutputRoot( project, monitor );
-        if( PackageUtils.hasRRCExtension( originalFile.getName() ) ) {
+        if( !PackageUtils.hasJavaExtension( compiledFileName ) ) {
             return localeInterfaceFolderRoot;
         }
-        // get the package info of the file
-        String packageName = null;
-        packageName = PackageUtils.getFilePackageString( originalFile, null );
+        // the generated interface is in the package of the resource file
+        String packageName = getPackageString( resourceFile );
         IFolder localeInterfaceParentFolder;
         if( StringUtils.isBlank( packageName ) )
             localeInterfaceParentFolder = localeInterfaceFolderRoot;
@@ -249,7 +285,7 @@ public class ResourceBuilder extends IncrementalProjectBuilder {
             localeInterfaceParentFolder = localeInterfaceFolderRoot.getFolder( parentFolderPath );
         }
         if( !localeInterfaceParentFolder.exists() )
-            ImportUtils.createFolders( project, localeInterfaceParentFolder.getProjectRelativePath(), IResource.DERIVED );
+            ImportUtils.createFolders( getProject(), localeInterfaceParentFolder.getProjectRelativePath(), IResource.DERIVED );
         if( !localeInterfaceParentFolder.exists() ) {
             log.error( NLS.bind( Messages.RIMResourcesBuilder_ResourceInterfaceFolderMissingMessage,
                     localeInterfaceParentFolder.getProjectRelativePath() ) );
@@ -258,6 +294,18 @@ public class ResourceBuilder extends IncrementalProjectBuilder {
         return localeInterfaceParentFolder;
     }
 
+    /**
+     * Returns the package of the given rrh/rrc <code>file</code>, e.g. net/rim/api. The package of a rrc file is read from its rrh
+     * file. The package is cached by {@link PackageUtils} until the rrh file is modified.
+     *
+     * @param file
+     * @return
+     * @throws CoreException
+     */
+    static String getPackageString( IFile file ) throws CoreException {
+        return PackageUtils.getFilePackageString( file.getLocation().toFile(), null );
+    }
+
     /**
      * Create a new marker in the specified resource.
      *
@@ -374,6 +422,20 @@ public class ResourceBuilder extends IncrementalProjectBuilder {
     void removeResourceInterface( IFile rrhFile ) throws CoreException {
         if( rrhFile == null )
             return;
+        IFile iFile = getResourceInterfaceFile( rrhFile );
+        if( iFile.exists() ) {
+            iFile.refreshLocal( IResource.DEPTH_ONE, new NullProgressMonitor() );
+            iFile.delete( true, new NullProgressMonitor() );
+        }
+    }
+
+    /**
+     * Returns the handle of the resource interface generated for the given <code>rrhFile</code>.
+     *
+     * @param rrhFile
+     * @return
+     */
+    IFile getResourceInterfaceFile( IFile rrhFile ) {
         // get the resource builder output root folder
         IProject project = rrhFile.getProject();
         IFolder tmpRoot = project.getFolder( ImportUtils.getImportPref( ResourceBuilder.LOCALE_INTERFACES_FOLDER_NAME ) );
@@ -381,11 +443,7 @@ public class ResourceBuilder extends IncrementalProjectBuilder {
         String rrhFileName = rrhFile.getName();
         String interfaceFileName = rrhFileName.substring( 0, rrhFileName.length() - 4 ) + "Resource.java"; //$NON-NLS-1$
         interfacePath = interfacePath.append( interfaceFileName );
-        IFile iFile = tmpRoot.getFile( interfacePath );
-        if( iFile.exists() ) {
-            iFile.refreshLocal( IResource.DEPTH_ONE, new NullProgressMonitor() );
-            iFile.delete( true, new NullProgressMonitor() );
-        }
+        return tmpRoot.getFile( interfacePath );
     }
 
     /**
@@ -448,7 +506,7 @@ public class ResourceBuilder extends IncrementalProjectBuilder {
      */
     private boolean hasValidPackage( IFile file ) {
         try {
-            String packageID = PackageUtils.getFilePackageString( file.getLocation().toFile(), null );
+            String packageID = getPackageString( file );
             IPath packagePath = new Path( packageID );
             IPath currentPackagePath = getPackagePath( file );
             if( currentPackagePath.equals( packagePath ) ) {
@@ -474,12 +532,9 @@ public class ResourceBuilder extends IncrementalProjectBuilder {
         }
 
         protected void buildResource( IResource resource, IProgressMonitor monitor ) throws CoreException {
-            if( PackageUtils.hasRRHExtension( resource.getName() ) ) {
-                removeResourceInterface( (IFile) resource );
-            } else {
-                removeCorrespondingCRBFile( (IFile) resource );
-            }
-            compile( resource, monitor );
+            // the file is compiled together with the other changed files once the whole delta has been visited, its previous
+            // output is only replaced if the output changes
+            _pendingFiles.add( (IFile) resource );
             // remove the file from the need rebuild file list
             if( _filesNeedToReBuild != null ) {
                 _filesNeedToReBuild.remove( resource );
@@ -0,0 +1,214 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.builders;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.rim.ejde.internal.core.IConstants;
+import net.rim.ejde.internal.util.FileUtils;
+import net.rim.ejde.internal.util.ImportUtils;
+import net.rim.ejde.internal.util.Messages;
+import net.rim.sdk.rc.ResourceCompiler;
+
+import org.apache.log4j.Logger;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Compiles a list of rrh/rrc files on a bounded worker pool. Every worker compiles into its own temporary sub folder and reads
+ * the generated files into memory right after each compilation, so that equally named outputs of different files can not
+ * overwrite each other.
+ * <p>
+ * No workspace API is called from the worker threads since the builder thread holds the build rule while it waits for them. The
+ * caller is responsible for writing the results to the workspace.
+ */
+class ResourceCompileBatch {
+    private static final Logger _log = Logger.getLogger( ResourceCompileBatch.class );
+    private static final String WORKER_FOLDER_HEAD = "worker_"; //$NON-NLS-1$
+    // batches smaller than this are compiled on the builder thread
+    private static final int MIN_FILES_PER_WORKER = 4;
+
+    private final Hashtable< String, String > _options;
+    private final File _tempFolder;
+
+    /**
+     * The compilation result of a single rrh/rrc file.
+     */
+    static class Result {
+        final IFile _resource;
+        final File _resourceFile;
+        // generated file name -> content, in the order reported by the resource compiler
+        final Map< String, byte[] > _outputs = new LinkedHashMap< String, byte[] >();
+        String _error;
+
+        Result( IFile resource ) {
+            _resource = resource;
+            _resourceFile = resource.getLocation().toFile();
+        }
+
+        IFile getResource() {
+            return _resource;
+        }
+
+        Map< String, byte[] > getOutputs() {
+            return _outputs;
+        }
+
+        String getError() {
+            return _error;
+        }
+    }
+
+    /**
+     * Constructs a batch which compiles files with the given resource compiler <code>options</code>. The workers use sub folders
+     * of the given <code>tempFolder</code> as output folders.
+     *
+     * @param options
+     * @param tempFolder
+     */
+    ResourceCompileBatch( Hashtable< String, String > options, File tempFolder ) {
+        _options = options;
+        _tempFolder = tempFolder;
+    }
+
+    /**
+     * Compiles the given <code>files</code>.
+     *
+     * @param files
+     * @param monitor
+     * @return the results in the same order as <code>files</code>
+     */
+    List< Result > run( List< IFile > files, IProgressMonitor monitor ) {
+        List< Result > results = new ArrayList< Result >( files.size() );
+        for( IFile file : files ) {
+            results.add( new Result( file ) );
+        }
+        Queue< Result > queue = new ConcurrentLinkedQueue< Result >( results );
+        int workerCount = Math.min( getWorkerCount(), ( results.size() + MIN_FILES_PER_WORKER - 1 ) / MIN_FILES_PER_WORKER );
+        if( workerCount <= 1 ) {
+            new Worker( queue, 0, monitor ).call();
+            return results;
+        }
+        List< Worker > workers = new ArrayList< Worker >( workerCount );
+        for( int i = 0; i < workerCount; i++ ) {
+            workers.add( new Worker( queue, i, monitor ) );
+        }
+        _log.trace( "Compiling " + results.size() + " resource files with " + workerCount + " workers" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        ExecutorService executor = Executors.newFixedThreadPool( workerCount, new ResourceCompilerThreadFactory() );
+        try {
+            List< Future< Object >> futures = executor.invokeAll( workers );
+            for( Future< Object > future : futures ) {
+                future.get();
+            }
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new OperationCanceledException();
+        } catch( ExecutionException e ) {
+            if( e.getCause() instanceof OperationCanceledException ) {
+                throw (OperationCanceledException) e.getCause();
+            }
+            _log.error( e.getCause() );
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Returns the number of worker threads. The <code>resource_compile_worker_count</code> preference is used if it is set to a
+     * positive value, otherwise one worker per available processor is used.
+     *
+     * @return
+     */
+    static int getWorkerCount() {
+        int count = ImportUtils.getIntImportPref( IConstants.RESOURCE_COMPILE_WORKER_COUNT_KEY );
+        if( count <= 0 ) {
+            count = Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max( 1, count );
+    }
+
+    /**
+     * Compiles files taken from the shared queue into its own output folder.
+     */
+    private class Worker implements Callable< Object > {
+        private final Queue< Result > _queue;
+        private final File _outputFolder;
+        private final Hashtable< String, String > _workerOptions;
+        private final IProgressMonitor _monitor;
+
+        Worker( Queue< Result > queue, int index, IProgressMonitor monitor ) {
+            _queue = queue;
+            _outputFolder = new File( _tempFolder, WORKER_FOLDER_HEAD + index );
+            _workerOptions = new Hashtable< String, String >( _options );
+            _workerOptions.put( ResourceCompiler.OPT_OUTPUT_FOLDER, _outputFolder.getPath() );
+            _monitor = monitor;
+        }
+
+        public Object call() {
+            _outputFolder.mkdirs();
+            Result result;
+            while( ( result = _queue.poll() ) != null ) {
+                if( _monitor.isCanceled() ) {
+                    throw new OperationCanceledException();
+                }
+                compile( result );
+            }
+            return null;
+        }
+
+        private void compile( Result result ) {
+            Vector< String > fileList = new Vector< String >();
+            try {
+                ResourceCompiler.compile( result._resourceFile.getPath(), null, _workerOptions, fileList );
+                for( String fileName : fileList ) {
+                    File outputFile = new File( fileName );
+                    result._outputs.put( outputFile.getName(), FileUtils.readBytes( outputFile ) );
+                }
+            } catch( Exception e ) {
+                result._error = NLS.bind( Messages.RIMResourcesBuilder_COMPILE_FILE_ERROR_MSG, new String[] { e.getMessage() } );
+                result._outputs.clear();
+                _log.error( result._error );
+            } finally {
+                for( String fileName : fileList ) {
+                    new File( fileName ).delete();
+                }
+            }
+        }
+    }
+
+    private static class ResourceCompilerThreadFactory implements ThreadFactory {
+        private static final AtomicInteger _threadNumber = new AtomicInteger( 1 );
+
+        public Thread newThread( Runnable runnable ) {
+            Thread thread = new Thread( runnable, "BlackBerry Resource Compiler-" + _threadNumber.getAndIncrement() ); //$NON-NLS-1$
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+}
@@ -80,11 +80,8 @@ abstract public class BasicClasspathElementChangedListener implements IElementCh
                 // notify the listeners
                 EJDEEventNotifier.getInstance()
                         .notifyClassPathChanged( child.getElement().getJavaProject(), hasCPRemoved( child ) );
-                // validate the project
-                ValidationManager.getInstance()
-                        .validateProjects(
-                                ProjectUtils.getAllReferencingProjects( new IProject[] { child.getElement().getJavaProject()
-                                        .getProject() } ), null );
+                // validate the project and the projects referencing it
+                ValidationManager.getInstance().scheduleValidation( child.getElement().getJavaProject().getProject() );
             }
             if( ( child.getFlags() & IJavaElementDelta.F_CLASSPATH_CHANGED ) != 0
                     || ( child.getFlags() & IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED ) != 0 ) {
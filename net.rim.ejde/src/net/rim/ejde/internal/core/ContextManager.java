@@ -24,8 +24,11 @@ import java.util.ResourceBundle;
 
 import net.rim.ejde.IDebugConsoleWriter;
 import net.rim.ejde.external.sourceMapper.SourceMapperAccess;
+import net.rim.ejde.internal.builders.AlxModelCache;
 import net.rim.ejde.internal.builders.ClasspathChangeManager;
+import net.rim.ejde.internal.builders.PreprocessedContentStore;
 import net.rim.ejde.internal.builders.PreprocessedSourceMapper;
+import net.rim.ejde.internal.builders.PreprocessingStateCache;
 import net.rim.ejde.internal.internalplugin.InternalFragment;
 import net.rim.ejde.internal.launching.EJDEDebugFilesClient;
 import net.rim.ejde.internal.launching.IFledgeLaunchConstants;
@@ -34,12 +37,16 @@ import net.rim.ejde.internal.legacy.RIADialog;
 import net.rim.ejde.internal.model.BasicBlackBerryProperties;
 import net.rim.ejde.internal.model.BlackBerryProject;
 import net.rim.ejde.internal.model.BlackBerryProperties;
+import net.rim.ejde.internal.packaging.JarTypeCache;
+import net.rim.ejde.internal.ui.consoles.ConsoleLogWriter;
 import net.rim.ejde.internal.ui.consoles.SimulatorOutputConsole;
 import net.rim.ejde.internal.ui.preferences.PreferenceConstants;
 import net.rim.ejde.internal.util.DebugUtils;
 import net.rim.ejde.internal.util.InternalContextManagerUtils;
+import net.rim.ejde.internal.util.PackageDeclarationCache;
 import net.rim.ejde.internal.util.PackagingUtils;
 import net.rim.ejde.internal.util.RIAUtils;
+import net.rim.ejde.internal.util.ResourceBundleIndex;
 import net.rim.ejde.internal.util.UpgradingNotification;
 import net.rim.ejde.internal.util.VMToolsUtils;
 import net.rim.ejde.internal.validation.ValidationManager;
@@ -137,6 +144,9 @@ public class ContextManager extends AbstractUIPlugin implements IDebugEventSetLi
         RuntimeInstallsHandler.getInstance();
         enableResourceChangeListener( true );
         // set preprocess mapper
+        PreprocessingStateCache.addListener();
+        ResourceBundleIndex.addListener();
+        AlxModelCache.addListener();
         SourceMapperAccess.setSourceMapper( new PreprocessedSourceMapper() );
         // initialize validation manager
         ValidationManager.getInstance();
@@ -294,6 +304,13 @@ public class ContextManager extends AbstractUIPlugin implements IDebugEventSetLi
         BundleListenerHandler.removeInstance( context );
         RuntimeInstallsHandler.removeInstance();
         enableResourceChangeListener( false );
+        PreprocessingStateCache.removeListener();
+        ResourceBundleIndex.removeListener();
+        AlxModelCache.removeListener();
+        PackageDeclarationCache.getInstance().save();
+        JarTypeCache.getInstance().save();
+        PreprocessedContentStore.getInstance().save();
+        ConsoleLogWriter.closeAll();
         // remove property change listener
         PropertyChangeListenerImp.removeListener();
         // remove debug event and launch listener
@@ -58,6 +58,30 @@ public interface IConstants {
 
     final static String PACKAGE_EXPORTED_JAR = "package_exported_jar";
 
+    final static String PREPROCESS_WORKER_COUNT_KEY = "preprocess_worker_count";
+
+    final static String PREPROCESS_CACHE_SIZE_KEY = "preprocess_cache_size";
+
+    final static String PREPROCESS_IN_MEMORY_STORE_SIZE_KEY = "preprocess_in_memory_store_size";
+
+    final static String RESOURCE_COMPILE_WORKER_COUNT_KEY = "resource_compile_worker_count";
+
+    final static String PACKAGING_WORKER_COUNT_KEY = "packaging_worker_count";
+
+    final static String DEPLOYMENT_WORKER_COUNT_KEY = "deployment_worker_count";
+
+    final static String IMPORT_WORKER_COUNT_KEY = "import_worker_count";
+
+    final static String SIMULATOR_CONSOLE_CAPACITY_KEY = "simulator_console_capacity";
+
+    final static String SIMULATOR_CONSOLE_POLICY_KEY = "simulator_console_policy";
+
+    final static String CONSOLE_LOG_MAX_SIZE_KEY = "console_log_max_size";
+
+    final static String CONSOLE_LOG_ROTATION_HOURS_KEY = "console_log_rotation_hours";
+
+    final static String CONSOLE_LOG_MAX_FILES_KEY = "console_log_max_files";
+
     final static String DEFAULT_DEBUG_FILE_SERVER_URL = "https://developer.blackberry.com/BBDebugFiles/rest/debug";
 
     // File Extensions
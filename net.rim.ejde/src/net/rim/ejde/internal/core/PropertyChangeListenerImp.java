@@ -46,8 +46,9 @@ public class PropertyChangeListenerImp implements IPropertyChangeListener {
     public void propertyChange( PropertyChangeEvent event ) {
         log.trace( event.getProperty() + " was changed from \"" + event.getOldValue() + "\" to \"" + event.getNewValue() + "\"" );
         if( event.getProperty().equalsIgnoreCase( PreferenceConstants.PREPROCESSOR_DEFINE_LIST ) ) {
-            rebuildWorkspace( Messages.CleanProjectsDialog_PreprocessTag_description );
+            // notify the listeners first, the rebuild can be started before the dialog returns
             EJDEEventNotifier.getInstance().notifyWorkspacePreprocessorTagsChanged();
+            rebuildWorkspace( Messages.CleanProjectsDialog_PreprocessTag_description );
         } else if( event.getProperty().equalsIgnoreCase( PreferenceConstants.RUN_SIGNATURE_TOOL_AUTOMATICALLY ) ) {
             Object newValue = event.getNewValue();
             if( newValue instanceof Boolean ) {
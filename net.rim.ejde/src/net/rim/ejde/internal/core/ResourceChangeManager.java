@@ -189,7 +189,7 @@ public class ResourceChangeManager implements IResourceChangeListener, IResource
                 // Skip validation for closed projects
                 if( bbprops.mayReferFile( file.getName() ) && iproj.isOpen() ) {
                     // re-validate the App_Descriptor just in case any of these was used
-                    ValidationManager.getInstance().validateProject( iproj, null );
+                    ValidationManager.getInstance().scheduleValidation( iproj );
                 }
             }
         }
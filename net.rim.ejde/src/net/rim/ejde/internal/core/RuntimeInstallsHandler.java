@@ -13,6 +13,7 @@ package net.rim.ejde.internal.core;
 import java.io.IOException;
 
 import net.rim.ejde.internal.launching.DeviceProfileManager;
+import net.rim.ejde.internal.launching.LaunchCheckCache;
 import net.rim.ejde.internal.model.BlackBerrySDKInstall;
 import net.rim.ejde.internal.model.BlackBerryVMInstallType;
 import net.rim.ejde.internal.util.VMToolsUtils;
@@ -82,6 +83,10 @@ public final class RuntimeInstallsHandler implements IVMInstallChangedListener {
         } catch( IOException ioe ) {
             _log.error( "Error Updating Signature Tool", ioe );
         }
+        if( VMUtils.isBlackBerryVM( vm ) ) {
+            // cache the launch checks before the first launch
+            LaunchCheckCache.getInstance().schedulePreflight( vm );
+        }
     }
 
     /*
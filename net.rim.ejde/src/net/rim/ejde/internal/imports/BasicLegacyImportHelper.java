@@ -39,6 +39,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.osgi.util.NLS;
@@ -140,37 +141,60 @@ public abstract class BasicLegacyImportHelper implements IWorkspaceRunnable {
             resultStatus.merge( StatusFactory.createErrorStatus( e.getMessage() ) );
             return resultStatus;
         }
-        monitor.beginTask( "Importing legacy projects.", _legacyProjects.size() * 2 );
+        monitor.beginTask( "Importing legacy projects.", _legacyProjects.size() * 10 );
+        // the projects created by this import, they are deleted again if the import is canceled
+        List< Project > importedProjects = new ArrayList< Project >();
         for( Project legacyProject : _legacyProjects ) {// first loop for import
+            if( monitor.isCanceled() ) {
+                break;
+            }
+            IProject project = workspaceRoot.getProject( legacyProject.getDisplayName() );
+            monitor.subTask( NLS.bind( Messages.LegacyImportOperation_IMPORTING_PROJECT_MSG, legacyProject.getDisplayName() ) );
+            boolean existed = project.exists();
             try {
-                importProject( legacyProject, new SubProgressMonitor( monitor, 1 ) );
-                IProject project = workspaceRoot.getProject( legacyProject.getDisplayName() );
-                project.refreshLocal( IProject.DEPTH_INFINITE, monitor );
+                importProject( legacyProject, new SubProgressMonitor( monitor, 8 ) );
+                if( !existed ) {
+                    importedProjects.add( legacyProject );
+                }
+                // a copy import refreshes the project once the files have been copied, linked resources are refreshed here
+                if( _importType == LINK_IMPORT ) {
+                    project.refreshLocal( IProject.DEPTH_INFINITE, new SubProgressMonitor( monitor, 2 ) );
+                } else {
+                    monitor.worked( 2 );
+                }
             } catch( CoreException e ) {
                 _log.error( e );
                 // if the java project is not created successfully, roll back to delete the project
-                IProject project = workspaceRoot.getProject( legacyProject.getDisplayName() );
-                if( project.exists() ) {
-                    try {
-                        project.delete( true, new NullProgressMonitor() );
-                    } catch( CoreException e1 ) {
-                        _log.error( e1 );
-                    }
-                }
-                // remove the BB properties in case it is there
-                ContextManager.PLUGIN.removeBBProperties( legacyProject.getDisplayName() );
+                deleteProject( legacyProject );
                 resultStatus.merge( StatusFactory.createErrorStatus(
                         NLS.bind( Messages.LegacyImportOperation_PROJECT_IMPORT_FAIL_MSG, legacyProject.getDisplayName() ), e ) );
-                monitor.worked( 1 );
+                monitor.worked( 2 );
             }
-            if( monitor.isCanceled() ) {
-                break;
+        }
+        if( monitor.isCanceled() ) {
+            // roll back the projects which have been imported so far
+            for( Project legacyProject : importedProjects ) {
+                deleteProject( legacyProject );
             }
+            resultStatus.merge( Status.CANCEL_STATUS );
         }
         monitor.done();
         return resultStatus;
     }
 
+    private void deleteProject( Project legacyProject ) {
+        IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject( legacyProject.getDisplayName() );
+        if( project.exists() ) {
+            try {
+                project.delete( true, new NullProgressMonitor() );
+            } catch( CoreException e ) {
+                _log.error( e );
+            }
+        }
+        // remove the BB properties in case it is there
+        ContextManager.PLUGIN.removeBBProperties( legacyProject.getDisplayName() );
+    }
+
     private void initialize() throws CoreException {
         importWspPreprocessTags();
         if( _legacyProjects != null ) {
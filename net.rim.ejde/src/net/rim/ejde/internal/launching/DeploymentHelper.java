@@ -15,8 +15,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -77,6 +76,61 @@ public class DeploymentHelper {
 
     private static final Logger _logger = Logger.getLogger( DeploymentHelper.class );
 
+    /**
+     * A file which has to be copied to a deployment folder.
+     */
+    public static class Transfer {
+        final File _srcFile;
+        final File _dstFile;
+        final String _hash;
+        final DeploymentManifest _manifest;
+
+        Transfer( File srcFile, File dstFile, String hash, DeploymentManifest manifest ) {
+            _srcFile = srcFile;
+            _dstFile = dstFile;
+            _hash = hash;
+            _manifest = manifest;
+        }
+
+        /**
+         * Gets the destination file.
+         *
+         * @return
+         */
+        public File getDstFile() {
+            return _dstFile;
+        }
+
+        /**
+         * Gets the manifest of the deployment folder.
+         *
+         * @return
+         */
+        public DeploymentManifest getManifest() {
+            return _manifest;
+        }
+
+        /**
+         * Copies the file and records it in the manifest of the deployment folder. A copy which fails or is interrupted, e.g.
+         * because the deployment has been canceled, is deleted so that no partly written file is left in the deployment folder.
+         *
+         * @return 0 for success, non-zero for failure
+         * @throws CoreException
+         */
+        public int run() throws CoreException {
+            int rc = executeCopy( _srcFile, _dstFile );
+            if( rc == 0 ) {
+                _manifest.deployed( _srcFile, _dstFile, _hash );
+            } else {
+                _manifest.removed( _dstFile );
+                if( _dstFile.exists() && !_dstFile.delete() ) {
+                    _logger.error( "Could not delete " + _dstFile ); //$NON-NLS-1$
+                }
+            }
+            return rc;
+        }
+    }
+
     /**
      * Deploy the given project.
      *
@@ -90,33 +144,33 @@ public class DeploymentHelper {
      * @return <code>true</code> if deployment completes successfully. otherwise return <code>false</code>.
      */
     public static int deploy( BlackBerryProject project, String deploymentPath, boolean internalMode ) throws CoreException {
-        int rc;
-        // undeploy existing files first
-        rc = deploy( project, deploymentPath, true, internalMode );
-        if( rc != 0 ) {
-            return rc;
+        List< Transfer > transfers = new ArrayList< Transfer >();
+        int rc = prepare( project, deploymentPath, internalMode, transfers );
+        for( int i = 0; rc == 0 && i < transfers.size(); i++ ) {
+            rc = transfers.get( i ).run();
+        }
+        for( Transfer transfer : transfers ) {
+            transfer.getManifest().save();
         }
-        // deploy new files
-        rc = deploy( project, deploymentPath, false, internalMode );
         return rc;
     }
 
     /**
-     * Checks if the file represented by the <code>fileName</code> needs to be deployed.
+     * Prepares the deployment of the given project. Deployed files which the project does not produce any more are erased.
+     * Files whose content has been deployed before are skipped, the other files are added to <code>transfers</code>.
      *
-     * @param fileName
-     * @return
+     * @param project
+     *            The project to be deployed
+     * @param deploymentPath
+     *            The deployment path
+     * @param internalMode
+     *            If we are running in internal model
+     * @param transfers
+     *            The list the files to be copied are added to
+     * @return 0 for success, non-zero if error
+     * @throws CoreException
      */
-    public static final boolean isDeploymentFile( String fileName ) {
-        for( int i = 0; i < DeploymentHelper.deployableFileExtensions.length; i++ ) {
-            if( fileName.endsWith( DeploymentHelper.deployableFileExtensions[ i ] ) ) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private static int deploy( BlackBerryProject project, String depolymentPath, boolean erase, boolean isRIMModel )
+    public static int prepare( BlackBerryProject project, String deploymentPath, boolean internalMode, List< Transfer > transfers )
             throws CoreException {
         BlackBerryProperties properties = project.getProperties();
         String outputFileName = properties._packaging.getOutputFileName();
@@ -124,16 +178,16 @@ public class DeploymentHelper {
         String[] outputPaths = PackagingUtils.getPackagingOutputFolders( project );
         // we deploy the standard deliverables
         outputPath += IPath.SEPARATOR + outputPaths[ PackagingUtils.STANDARD_DEPLOYMENT ];
-        _logger.trace( "Project " + project.getElementName() + ( erase ? " undeploy from " : " deploy --> " ) + depolymentPath );
+        _logger.trace( "Project " + project.getElementName() + " deploy --> " + deploymentPath );
         for( int i = 0; i < deployableFileExtensions.length; ++i ) {
-            int rc = deploy( outputFileName, outputPath, depolymentPath, deployableFileExtensions[ i ], erase );
+            int rc = prepare( outputFileName, outputPath, deploymentPath, deployableFileExtensions[ i ], transfers );
             if( rc != 0 ) {
                 return rc;
             }
         }
         // if it is RIM model, also deploy the cod file to the lynx/debug/java folder
-        if( isRIMModel ) {
-            int rc = deploy( outputFileName, outputPath, depolymentPath + File.separator + "Java", codeExtension, erase );
+        if( internalMode ) {
+            int rc = prepare( outputFileName, outputPath, deploymentPath + File.separator + "Java", codeExtension, transfers );
             if( rc != 0 ) {
                 return rc;
             }
@@ -141,54 +195,53 @@ public class DeploymentHelper {
         return 0;
     }
 
-    private static int deploy( String projectName, String srcPath, String dstPath, String extension, boolean erase )
-            throws CoreException {
-        if( erase ) {
-            List< File > list = getSiblingList( projectName, dstPath, extension );
-            int rc = 0;
-            int count = list.size();
-            for( int i = 0; i < count; ++i ) {
-                File f = list.get( i );
-                if( !f.exists() ) {
-                    break;
-                }
-                rc = executeErase( f );
-                if( rc != 0 ) {
-                    _logger.error( "error deleting " + f.getName() );
-                    return rc;
-                }
-            }
-            return 0;
-        } else {
-            // _logger.info( "Deploy " + projectName + extension + " from " + srcPath + " to " + dstPath );
-            int rc = 0;
-            int i = 0;
-            String sibling = "";
-            for( ;; ) {
-                String name = projectName + sibling + extension;
-                File srcFile = new File( srcPath + File.separator + name );
-                if( !srcFile.exists() ) {
-                    break;
-                }
-                File dstFile = new File( dstPath + File.separator + name );
-                rc = deployFile( srcFile, dstFile );
-                if( rc != 0 ) {
-                    return rc;
-                }
-                sibling = makeSiblingExtension( Integer.toString( ++i ) );
+    /**
+     * Checks if the file represented by the <code>fileName</code> needs to be deployed.
+     *
+     * @param fileName
+     * @return
+     */
+    public static final boolean isDeploymentFile( String fileName ) {
+        for( int i = 0; i < DeploymentHelper.deployableFileExtensions.length; i++ ) {
+            if( fileName.endsWith( DeploymentHelper.deployableFileExtensions[ i ] ) ) {
+                return true;
             }
-            return rc;
         }
+        return false;
     }
 
-    private static int deployFile( File srcFile, File dstFile ) throws CoreException {
-        if( srcFile.lastModified() != dstFile.lastModified() ) {
-            int rc = executeCopy( srcFile, dstFile );
+    private static int prepare( String projectName, String srcPath, String dstPath, String extension, List< Transfer > transfers )
+            throws CoreException {
+        List< File > srcFiles = getSiblingList( projectName, srcPath, extension );
+        List< File > dstFiles = getSiblingList( projectName, dstPath, extension );
+        DeploymentManifest manifest = DeploymentManifest.getManifest( new File( dstPath ) );
+        // undeploy the siblings which are not produced any more
+        for( int i = srcFiles.size(); i < dstFiles.size(); ++i ) {
+            File f = dstFiles.get( i );
+            int rc = executeErase( f );
             if( rc != 0 ) {
+                _logger.error( "error deleting " + f.getName() );
                 return rc;
             }
-        } else {
-            _logger.info( "File " + srcFile.getName() + " is skipped because the destination file is newer" );
+            manifest.removed( f );
+        }
+        for( File srcFile : srcFiles ) {
+            File dstFile = new File( dstPath + File.separator + srcFile.getName() );
+            String hash;
+            try {
+                hash = manifest.getContentHash( srcFile );
+            } catch( IOException e ) {
+                String msg = NLS.bind( Messages.DeploymentHelper_FILE_NOT_EXIST_MSG, srcFile.getAbsolutePath() );
+                _logger.error( msg, e );
+                throw new CoreException( StatusFactory.createErrorStatus( msg ) );
+            }
+            if( manifest.isDeployed( dstFile, hash ) ) {
+                _logger.trace( "File " + srcFile.getName() + " is skipped because its content has been deployed" );
+                // the source may have been rebuilt with the same content
+                manifest.deployed( srcFile, dstFile, hash );
+            } else {
+                transfers.add( new Transfer( srcFile, dstFile, hash, manifest ) );
+            }
         }
         return 0;
     }
@@ -247,16 +300,16 @@ public class DeploymentHelper {
             _logger.error( msg );
             throw new CoreException( StatusFactory.createErrorStatus( msg ) );
         }
-    	InputStream in = null;
-        OutputStream out = null;
+        FileChannel in = null;
+        FileChannel out = null;
         int retValue = 0;
         try {
-            in = new FileInputStream( srcFile );
-            out = new FileOutputStream( dstFile );
-            byte[] buf = new byte[ 64 * 1024 ];
-            int len;
-            while( ( len = in.read( buf ) ) > 0 ) {
-                out.write( buf, 0, len );
+            in = new FileInputStream( srcFile ).getChannel();
+            out = new FileOutputStream( dstFile ).getChannel();
+            long size = in.size();
+            long position = 0;
+            while( position < size ) {
+                position += in.transferTo( position, size - position, out );
             }
         } catch( final IOException e ) {
             if(e instanceof FileNotFoundException) {
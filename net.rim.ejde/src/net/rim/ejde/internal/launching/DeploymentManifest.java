@@ -0,0 +1,251 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.launching;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.rim.ejde.internal.core.ContextManager;
+import net.rim.ejde.internal.util.DigestUtils;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Records the content hash of every file deployed to a folder, e.g. the simulator folder of a SDK. A file is only copied again
+ * if its content has changed or if the deployed copy has been changed or deleted by someone else.
+ * <p>
+ * The manifest of a folder is stored in the <code>deployment</code> folder of the state location of the plug-in. The name of the
+ * file is the hex encoded SHA-1 digest of the absolute path of the folder followed by <code>.manifest</code>. The file is
+ * written with a {@link DataOutputStream}:
+ *
+ * <pre>
+ * int     format version, currently 1
+ * UTF     absolute path of the deployment folder
+ * int     number of entries
+ * entries:
+ *   UTF   name of the deployed file
+ *   long  size of the source file
+ *   long  time stamp of the source file
+ *   UTF   hex encoded SHA-1 digest of the content
+ *   long  size of the deployed file
+ *   long  time stamp of the deployed file
+ * </pre>
+ *
+ * The size and the time stamp of the source file avoid hashing an unchanged source again. The size and the time stamp of the
+ * deployed file detect copies which have been modified outside of the IDE. A manifest with a different format version is
+ * ignored.
+ */
+public class DeploymentManifest {
+    private static final Logger _log = Logger.getLogger( DeploymentManifest.class );
+    private static final String MANIFEST_FOLDER_NAME = "deployment"; //$NON-NLS-1$
+    private static final String MANIFEST_EXTENSION = ".manifest"; //$NON-NLS-1$
+    private static final String TEMP_EXTENSION = ".tmp"; //$NON-NLS-1$
+    static final int FORMAT_VERSION = 1;
+
+    // the manifests read since the plug-in started, by absolute folder path
+    private static final Map< String, DeploymentManifest > _manifests = new HashMap< String, DeploymentManifest >();
+
+    private final File _folder;
+    private final Map< String, Entry > _entries = new ConcurrentHashMap< String, Entry >();
+    // guarded by this manifest, like all changes of the entries
+    private boolean _dirty;
+
+    private static class Entry {
+        final long _srcSize;
+        final long _srcLastModified;
+        final String _hash;
+        final long _dstSize;
+        final long _dstLastModified;
+
+        Entry( long srcSize, long srcLastModified, String hash, long dstSize, long dstLastModified ) {
+            _srcSize = srcSize;
+            _srcLastModified = srcLastModified;
+            _hash = hash;
+            _dstSize = dstSize;
+            _dstLastModified = dstLastModified;
+        }
+    }
+
+    private DeploymentManifest( File folder ) {
+        _folder = folder;
+    }
+
+    /**
+     * Gets the manifest of the given deployment <code>folder</code>.
+     *
+     * @param folder
+     * @return
+     */
+    public static DeploymentManifest getManifest( File folder ) {
+        String path = folder.getAbsolutePath();
+        synchronized( _manifests ) {
+            DeploymentManifest manifest = _manifests.get( path );
+            if( manifest == null ) {
+                manifest = read( folder );
+                _manifests.put( path, manifest );
+            }
+            return manifest;
+        }
+    }
+
+    /**
+     * Reads the manifest of the given deployment <code>folder</code> from the state location of the plug-in, bypassing the
+     * manifests read before.
+     *
+     * @param folder
+     * @return the manifest, empty if it has not been saved yet or can not be read
+     */
+    static DeploymentManifest read( File folder ) {
+        DeploymentManifest manifest = new DeploymentManifest( folder.getAbsoluteFile() );
+        manifest.load();
+        return manifest;
+    }
+
+    /**
+     * Gets the content hash of the given source file. The hash recorded for a deployed file is reused as long as the size and
+     * the time stamp of the source file do not change.
+     *
+     * @param srcFile
+     * @return the hex encoded SHA-1 digest of the content
+     * @throws IOException
+     */
+    public String getContentHash( File srcFile ) throws IOException {
+        Entry entry = _entries.get( srcFile.getName() );
+        if( entry != null && entry._srcSize == srcFile.length() && entry._srcLastModified == srcFile.lastModified() ) {
+            return entry._hash;
+        }
+        MessageDigest digest = DigestUtils.createDigest();
+        DigestUtils.update( digest, srcFile );
+        return DigestUtils.toHex( digest.digest() );
+    }
+
+    /**
+     * Checks if the given <code>dstFile</code> in the folder of this manifest has been deployed with the content of the given
+     * <code>hash</code> and has not been changed since.
+     *
+     * @param dstFile
+     * @param hash
+     * @return
+     */
+    public boolean isDeployed( File dstFile, String hash ) {
+        Entry entry = _entries.get( dstFile.getName() );
+        return entry != null && entry._hash.equals( hash ) && dstFile.isFile() && entry._dstSize == dstFile.length()
+                && entry._dstLastModified == dstFile.lastModified();
+    }
+
+    /**
+     * Records that the given <code>srcFile</code> with the given content <code>hash</code> has been deployed to the given
+     * <code>dstFile</code> or that the deployed copy is still up to date.
+     *
+     * @param srcFile
+     * @param dstFile
+     * @param hash
+     */
+    public synchronized void deployed( File srcFile, File dstFile, String hash ) {
+        _entries.put( dstFile.getName(), new Entry( srcFile.length(), srcFile.lastModified(), hash, dstFile.length(), dstFile
+                .lastModified() ) );
+        _dirty = true;
+    }
+
+    /**
+     * Records that the given <code>dstFile</code> has been removed from the folder of this manifest.
+     *
+     * @param dstFile
+     */
+    public synchronized void removed( File dstFile ) {
+        if( _entries.remove( dstFile.getName() ) != null ) {
+            _dirty = true;
+        }
+    }
+
+    File getManifestFile() {
+        MessageDigest digest = DigestUtils.createDigest();
+        DigestUtils.update( digest, _folder.getPath() );
+        return ContextManager.PLUGIN.getStateLocation().append( MANIFEST_FOLDER_NAME ).append(
+                DigestUtils.toHex( digest.digest() ) + MANIFEST_EXTENSION ).toFile();
+    }
+
+    private void load() {
+        File manifestFile = getManifestFile();
+        if( !manifestFile.isFile() ) {
+            return;
+        }
+        try {
+            DataInputStream input = new DataInputStream( new BufferedInputStream( new FileInputStream( manifestFile ) ) );
+            try {
+                if( input.readInt() != FORMAT_VERSION || !_folder.getPath().equals( input.readUTF() ) ) {
+                    return;
+                }
+                int count = input.readInt();
+                for( int i = 0; i < count; i++ ) {
+                    String name = input.readUTF();
+                    _entries.put( name, new Entry( input.readLong(), input.readLong(), input.readUTF(), input.readLong(), input
+                            .readLong() ) );
+                }
+            } finally {
+                input.close();
+            }
+        } catch( IOException e ) {
+            _log.debug( "Could not read deployment manifest " + manifestFile, e ); //$NON-NLS-1$
+            _entries.clear();
+        }
+    }
+
+    /**
+     * Writes the manifest to the state location of the plug-in if it has changed.
+     */
+    public synchronized void save() {
+        if( !_dirty ) {
+            return;
+        }
+        File manifestFile = getManifestFile();
+        File tempFile = new File( manifestFile.getPath() + TEMP_EXTENSION );
+        try {
+            manifestFile.getParentFile().mkdirs();
+            // no entry can be changed while the manifest is written
+            Map< String, Entry > entries = new HashMap< String, Entry >( _entries );
+            _dirty = false;
+            DataOutputStream output = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tempFile ) ) );
+            try {
+                output.writeInt( FORMAT_VERSION );
+                output.writeUTF( _folder.getPath() );
+                output.writeInt( entries.size() );
+                for( Map.Entry< String, Entry > entry : entries.entrySet() ) {
+                    output.writeUTF( entry.getKey() );
+                    output.writeLong( entry.getValue()._srcSize );
+                    output.writeLong( entry.getValue()._srcLastModified );
+                    output.writeUTF( entry.getValue()._hash );
+                    output.writeLong( entry.getValue()._dstSize );
+                    output.writeLong( entry.getValue()._dstLastModified );
+                }
+            } finally {
+                output.close();
+            }
+            manifestFile.delete();
+            tempFile.renameTo( manifestFile );
+        } catch( IOException e ) {
+            _log.debug( "Could not write deployment manifest " + manifestFile, e ); //$NON-NLS-1$
+            _dirty = true;
+        } finally {
+            tempFile.delete();
+        }
+    }
+}
@@ -17,16 +17,29 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.rim.ejde.internal.core.ContextManager;
 import net.rim.ejde.internal.core.IConstants;
 import net.rim.ejde.internal.model.BlackBerryProject;
 import net.rim.ejde.internal.model.BlackBerryProperties;
 import net.rim.ejde.internal.ui.launchers.LaunchUtils;
+import net.rim.ejde.internal.util.ImportUtils;
 import net.rim.ejde.internal.util.Messages;
 import net.rim.ejde.internal.util.PackagingUtils;
 import net.rim.ejde.internal.util.ProjectUtils;
@@ -42,6 +55,7 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.debug.core.ILaunch;
 import org.eclipse.debug.core.ILaunchConfiguration;
 import org.eclipse.jdt.launching.IVMInstall;
@@ -54,6 +68,8 @@ import org.eclipse.osgi.util.NLS;
 public class DeploymentTask {
 
     private static final Logger _log = Logger.getLogger( DeploymentTask.class );
+    // seconds to wait for the deployment threads to stop after they have been interrupted
+    private static final int TERMINATION_TIMEOUT = 30;
 
     private Set< BlackBerryProject > _projects;
     private ILaunchConfiguration _configuration;
@@ -169,7 +185,8 @@ public class DeploymentTask {
     }
 
     /**
-     * Deploy the projects to SDK folder.
+     * Deploy the projects to SDK folder. Only files whose content has changed since they were deployed are copied, the copies
+     * run in parallel.
      *
      * @param monitor
      * @return
@@ -181,26 +198,127 @@ public class DeploymentTask {
         String simDir = device.getDirectory();
         String vmDir = LaunchUtils.getSimualtorPath( vm );
         boolean internalMode = VMUtils.isInternal( vm );
+        List< DeploymentHelper.Transfer > transfers = new ArrayList< DeploymentHelper.Transfer >();
         for( BlackBerryProject bbProject : _projects ) {
             if( !ProjectUtils.hasCriticalProblems( bbProject.getProject() ) ) {
                 // always deploy to VM folder first
-                DeploymentHelper.deploy( bbProject, vmDir, internalMode );
+                DeploymentHelper.prepare( bbProject, vmDir, internalMode, transfers );
                 if( !vmDir.equals( simDir ) ) {
                     // this is external simulator, deploy to external simulator folder as well
-                    DeploymentHelper.deploy( bbProject, simDir, false );
+                    DeploymentHelper.prepare( bbProject, simDir, false, transfers );
                 }
             }
             if( monitor.isCanceled() ) {
                 monitor.done();
                 return Status.CANCEL_STATUS;
             }
-            monitor.worked( 1 );
-
+        }
+        // a file may only be copied once at a time, the last project wins as it did when the projects were deployed one by one
+        Map< File, DeploymentHelper.Transfer > transferMap = new LinkedHashMap< File, DeploymentHelper.Transfer >();
+        for( DeploymentHelper.Transfer transfer : transfers ) {
+            transferMap.remove( transfer.getDstFile() );
+            transferMap.put( transfer.getDstFile(), transfer );
+        }
+        _log.debug( transferMap.size() + " files to be deployed" ); //$NON-NLS-1$
+        IStatus status = runTransfers( transferMap.values(), new SubProgressMonitor( monitor, _projects.size() ) );
+        Set< DeploymentManifest > manifests = new HashSet< DeploymentManifest >();
+        for( DeploymentHelper.Transfer transfer : transfers ) {
+            manifests.add( transfer.getManifest() );
+        }
+        for( DeploymentManifest manifest : manifests ) {
+            manifest.save();
         }
         monitor.done();
+        return status;
+    }
+
+    /**
+     * Runs the given file copies on a pool of worker threads.
+     *
+     * @param transfers
+     * @param monitor
+     * @return
+     * @throws CoreException
+     */
+    private static IStatus runTransfers( Collection< DeploymentHelper.Transfer > transfers, IProgressMonitor monitor )
+            throws CoreException {
+        monitor.beginTask( IConstants.EMPTY_STRING, transfers.size() );
+        if( transfers.isEmpty() ) {
+            monitor.done();
+            return Status.OK_STATUS;
+        }
+        int workerCount = Math.max( 1, Math.min( getWorkerCount(), transfers.size() ) );
+        ExecutorService executor = Executors.newFixedThreadPool( workerCount, new DeploymentThreadFactory() );
+        CompletionService< Integer > completionService = new ExecutorCompletionService< Integer >( executor );
+        try {
+            for( final DeploymentHelper.Transfer transfer : transfers ) {
+                completionService.submit( new Callable< Integer >() {
+                    public Integer call() throws CoreException {
+                        return Integer.valueOf( transfer.run() );
+                    }
+                } );
+            }
+            for( int i = 0; i < transfers.size(); ) {
+                if( monitor.isCanceled() ) {
+                    return Status.CANCEL_STATUS;
+                }
+                Future< Integer > future = completionService.poll( 500, TimeUnit.MILLISECONDS );
+                if( future == null ) {
+                    continue;
+                }
+                i++;
+                monitor.worked( 1 );
+                try {
+                    future.get();
+                } catch( ExecutionException e ) {
+                    if( e.getCause() instanceof CoreException ) {
+                        throw (CoreException) e.getCause();
+                    }
+                    _log.error( e.getCause().getMessage(), e.getCause() );
+                }
+            }
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            return Status.CANCEL_STATUS;
+        } finally {
+            // interrupted copies delete their partly written files, wait for them before the manifests are written
+            executor.shutdownNow();
+            try {
+                if( !executor.awaitTermination( TERMINATION_TIMEOUT, TimeUnit.SECONDS ) ) {
+                    _log.error( "Deployment threads did not stop within " + TERMINATION_TIMEOUT + " seconds" ); //$NON-NLS-1$ //$NON-NLS-2$
+                }
+            } catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+            monitor.done();
+        }
         return Status.OK_STATUS;
     }
 
+    /**
+     * Returns the number of files which are copied at the same time. The <code>deployment_worker_count</code> preference is used
+     * if it is set to a positive value, otherwise one file per available processor is copied.
+     *
+     * @return
+     */
+    static int getWorkerCount() {
+        int count = ImportUtils.getIntImportPref( IConstants.DEPLOYMENT_WORKER_COUNT_KEY );
+        if( count <= 0 ) {
+            count = Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max( 1, count );
+    }
+
+    private static class DeploymentThreadFactory implements ThreadFactory {
+        private static final AtomicInteger _threadNumber = new AtomicInteger( 1 );
+
+        public Thread newThread( Runnable runnable ) {
+            Thread thread = new Thread( runnable, "BlackBerry Deployment-" + _threadNumber.getAndIncrement() ); //$NON-NLS-1$
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+
     /**
      * Simulator hot-swap.
      *
@@ -210,7 +328,8 @@ public class DeploymentTask {
      */
     private IStatus hotSwap( IProgressMonitor monitor ) throws CoreException {
         final RIA ria = RIA.getCurrentDebugger();
-        final List< File > files = getCodFiles( _projects );
+        // dependencies are added before the projects which use them
+        final List< File > files = getCodFiles( ProjectUtils.getProjectsByBuildOrder( _projects ) );
         if( files.isEmpty() ) {
             return StatusFactory.createErrorStatus( Messages.Luanch_Error_NoProjectToBeDeployed );
         }
@@ -26,14 +26,26 @@ public class JavaVMChecker {
     // greaterOrEqual: Major >=, Minor >=
     public static final String CHECK_TYPE_GREATEROREQUAL = "greaterOrEqual";
 
-    private static JavaVMChecker _instance = null;
+    static final String JAVA_VERSION_CHECK = "Java version"; //$NON-NLS-1$
+
+    private static class JavaVMCheckerHolder {
+        public static JavaVMChecker javaVMChecker = new JavaVMChecker();
+    }
 
     public static JavaVMChecker getInstance() {
-        if( _instance == null ) {
-            _instance = new JavaVMChecker();
-        }
+        return JavaVMCheckerHolder.javaVMChecker;
+    }
 
-        return _instance;
+    /**
+     * Reads the versions of the Java executables in the <code>JAVA_HOME</code> and <code>PATH</code> environment variables, so
+     * they are cached before they are checked by a launch.
+     */
+    public void probeJavaVMs() {
+        String javaHomeDir = System.getenv( "JAVA_HOME" ); //$NON-NLS-1$
+        if( javaHomeDir != null && javaHomeDir.trim().length() > 0 ) {
+            getJavaExeVersion( javaHomeDir.trim() + File.separator + "bin" + File.separator + JAVA_EXE_NAME ); //$NON-NLS-1$
+        }
+        getJavaExeVersion( JAVA_EXE_NAME );
     }
 
     /***
@@ -139,11 +151,60 @@ public class JavaVMChecker {
     }
 
     /**
+     * Gets the version of the given Java executable. The version is cached in the {@link LaunchCheckCache} as long as the
+     * executable does not change.
      *
      * @param javaExePath
      * @return return null if java.exe can not be found in passed path
      */
     protected CompatibilityVersion getJavaExeVersion( String javaExePath ) {
+        File javaExe = findExecutable( javaExePath );
+        if( javaExe == null ) {
+            // nothing to fingerprint
+            return readJavaExeVersion( javaExePath );
+        }
+        LaunchCheckCache.Entry entry = LaunchCheckCache.getInstance().get( JAVA_VERSION_CHECK, javaExe );
+        if( entry != null ) {
+            return (CompatibilityVersion) entry.getValue();
+        }
+        CompatibilityVersion result = readJavaExeVersion( javaExePath );
+        LaunchCheckCache.getInstance().put( JAVA_VERSION_CHECK, javaExe, result );
+        return result;
+    }
+
+    /**
+     * Finds the file of the given Java executable, a bare name is looked up in the <code>PATH</code> environment variable.
+     *
+     * @param javaExePath
+     * @return the file or <code>null</code> if it can not be found
+     */
+    private File findExecutable( String javaExePath ) {
+        File file = new File( javaExePath );
+        if( file.getParentFile() != null ) {
+            return file.isFile() ? file : null;
+        }
+        String path = System.getenv( "PATH" ); //$NON-NLS-1$
+        if( path == null ) {
+            return null;
+        }
+        for( String dir : path.split( File.pathSeparator ) ) {
+            if( dir.length() > 0 ) {
+                file = new File( dir, javaExePath );
+                if( file.isFile() ) {
+                    return file;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs <code>java -version</code> with the given Java executable.
+     *
+     * @param javaExePath
+     * @return return null if java.exe can not be found in passed path
+     */
+    private CompatibilityVersion readJavaExeVersion( String javaExePath ) {
         CompatibilityVersion result = null;
 
         try {
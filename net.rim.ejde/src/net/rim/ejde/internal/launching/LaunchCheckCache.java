@@ -0,0 +1,189 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.launching;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.launching.IVMInstall;
+
+/**
+ * Caches the results of the environment checks done before a simulator is launched, e.g. the version of a Java executable or
+ * of a MDS-CS installation. A result is keyed by the file it has been read from and stays valid as long as the size and the time
+ * stamp of the file do not change, so a launch only has to revalidate the fingerprints.
+ */
+public class LaunchCheckCache {
+    private static final Logger _log = Logger.getLogger( LaunchCheckCache.class );
+    static final String MDS_FOLDER_NAME = "MDS"; //$NON-NLS-1$
+
+    private static class LaunchCheckCacheHolder {
+        public static LaunchCheckCache launchCheckCache = new LaunchCheckCache();
+    }
+
+    private final Map< String, Entry > _entries = new ConcurrentHashMap< String, Entry >();
+
+    /**
+     * A cached check result.
+     */
+    public static class Entry {
+        final String _check;
+        final File _file;
+        final String _fingerprint;
+        final Object _value;
+        final long _checkedTime;
+
+        Entry( String check, File file, String fingerprint, Object value ) {
+            _check = check;
+            _file = file;
+            _fingerprint = fingerprint;
+            _value = value;
+            _checkedTime = System.currentTimeMillis();
+        }
+
+        /**
+         * Gets the name of the check.
+         *
+         * @return
+         */
+        public String getCheck() {
+            return _check;
+        }
+
+        /**
+         * Gets the file the result has been read from.
+         *
+         * @return
+         */
+        public File getFile() {
+            return _file;
+        }
+
+        /**
+         * Gets the result, may be <code>null</code> if the check has not found anything.
+         *
+         * @return
+         */
+        public Object getValue() {
+            return _value;
+        }
+
+        /**
+         * Gets the time the check has been done.
+         *
+         * @return
+         */
+        public long getCheckedTime() {
+            return _checkedTime;
+        }
+    }
+
+    private LaunchCheckCache() {
+    }
+
+    /**
+     * Singleton getInstance() method.
+     *
+     * @return the unique instance of the class
+     */
+    public static LaunchCheckCache getInstance() {
+        return LaunchCheckCacheHolder.launchCheckCache;
+    }
+
+    private static String getKey( String check, File file ) {
+        return check + File.pathSeparator + file.getAbsolutePath();
+    }
+
+    private static String getFingerprint( File file ) {
+        return file.isFile() ? file.length() + "@" + file.lastModified() : "missing"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Gets the cached result of the given <code>check</code> on the given <code>file</code>.
+     *
+     * @param check
+     * @param file
+     * @return the entry or <code>null</code> if the check has not been done or the file has changed since
+     */
+    public Entry get( String check, File file ) {
+        Entry entry = _entries.get( getKey( check, file ) );
+        if( entry != null && entry._fingerprint.equals( getFingerprint( file ) ) ) {
+            return entry;
+        }
+        return null;
+    }
+
+    /**
+     * Caches the result of the given <code>check</code> on the given <code>file</code>.
+     *
+     * @param check
+     * @param file
+     * @param value
+     *            the result, may be <code>null</code>
+     */
+    public void put( String check, File file, Object value ) {
+        _entries.put( getKey( check, file ), new Entry( check, file.getAbsoluteFile(), getFingerprint( file ), value ) );
+    }
+
+    /**
+     * Gets the cached results ordered by check and file.
+     *
+     * @return
+     */
+    public List< Entry > getEntries() {
+        List< Entry > entries = new ArrayList< Entry >( _entries.values() );
+        Collections.sort( entries, new Comparator< Entry >() {
+            public int compare( Entry entry1, Entry entry2 ) {
+                int result = entry1._check.compareTo( entry2._check );
+                return result != 0 ? result : entry1._file.compareTo( entry2._file );
+            }
+        } );
+        return entries;
+    }
+
+    /**
+     * Drops all cached results, the checks are done again on the next launch.
+     */
+    public void clear() {
+        _entries.clear();
+    }
+
+    /**
+     * Runs the checks of the given BlackBerry <code>vm</code> in the background, so the results are cached before the first
+     * launch.
+     *
+     * @param vm
+     */
+    public void schedulePreflight( final IVMInstall vm ) {
+        Job job = new Job( "Checking launch environment" ) { //$NON-NLS-1$
+            @Override
+            protected IStatus run( IProgressMonitor monitor ) {
+                JavaVMChecker.getInstance().probeJavaVMs();
+                if( vm.getInstallLocation() != null ) {
+                    MDSCSChecker.getMDSCSVersion( new File( vm.getInstallLocation(), MDS_FOLDER_NAME ) );
+                }
+                _log.debug( "Checked launch environment of " + vm.getName() ); //$NON-NLS-1$
+                return Status.OK_STATUS;
+            }
+        };
+        job.setSystem( true );
+        job.schedule();
+    }
+}
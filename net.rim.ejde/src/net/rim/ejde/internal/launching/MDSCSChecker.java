@@ -15,7 +15,6 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.PrintWriter;
-import java.util.Enumeration;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -49,6 +48,9 @@ public class MDSCSChecker {
         OK, CANCEL, DISABLE_MDSCS
     }
 
+    static final String MDSCS_VERSION_CHECK = "MDS-CS version"; //$NON-NLS-1$
+    private static final String VERSION_CLASS_ENTRY = "net/rim/application/ipproxyservice/Version.class"; //$NON-NLS-1$
+
     private static Logger _logger = Logger.getLogger( MDSCSChecker.class );
     private static int _userDecision = -1;
     private static String _currentVersion;
@@ -183,42 +185,46 @@ public class MDSCSChecker {
     }
 
     /***
+     * Gets the version of the MDS-CS in the given folder. The version is cached in the {@link LaunchCheckCache} as long as
+     * <code>bmds.jar</code> does not change.
      *
      * @return return null if MDS-CS can not be found. Otherwise, corresponding version is returned
      */
-    private static CompatibilityVersion getMDSCSVersion( File MDSHome ) {
+    static CompatibilityVersion getMDSCSVersion( File MDSHome ) {
+        String bmdsJarPath = MDSHome.getPath() + File.separator + "classpath" + File.separator + "bmds.jar"; //$NON-NLS-1$
+        File bmdsJarFile = new File( bmdsJarPath );
+        LaunchCheckCache.Entry entry = LaunchCheckCache.getInstance().get( MDSCS_VERSION_CHECK, bmdsJarFile );
+        if( entry != null ) {
+            return (CompatibilityVersion) entry.getValue();
+        }
         CompatibilityVersion mdscsVersion = null;
         try {
-            String bmdsJarPath = MDSHome.getPath() + File.separator + "classpath" + File.separator + "bmds.jar"; //$NON-NLS-1$
-            File bmdsJarFile = new File( bmdsJarPath );
             if( bmdsJarFile.exists() ) {
                 ZipFile zipFile = new ZipFile( bmdsJarFile );
-                Enumeration< ? > entries = zipFile.entries();
-                while( entries.hasMoreElements() ) {
-                    ZipEntry entry = (ZipEntry) entries.nextElement();
-                    if( !entry.isDirectory() ) {
-                        _logger.debug( entry.getName() );
-                        if( entry.getName().equalsIgnoreCase( "net/rim/application/ipproxyservice/Version.class" ) ) { //$NON-NLS-1$
-                            // find Version class
-                            InputStream is = zipFile.getInputStream( entry );
-                            String versionStr = getMDSCSVersion( is );
-                            if( versionStr != null ) {
-                                org.osgi.framework.Version osgiVersion = new org.osgi.framework.Version( versionStr );
-                                mdscsVersion = new CompatibilityVersion( osgiVersion.getMajor(), osgiVersion.getMinor(),
-                                        osgiVersion.getMicro() );
-                            }
-                            break;
+                try {
+                    ZipEntry versionEntry = zipFile.getEntry( VERSION_CLASS_ENTRY );
+                    if( versionEntry != null ) {
+                        // find Version class
+                        InputStream is = zipFile.getInputStream( versionEntry );
+                        String versionStr = getMDSCSVersion( is );
+                        if( versionStr != null ) {
+                            org.osgi.framework.Version osgiVersion = new org.osgi.framework.Version( versionStr );
+                            mdscsVersion = new CompatibilityVersion( osgiVersion.getMajor(), osgiVersion.getMinor(), osgiVersion
+                                    .getMicro() );
                         }
                     }
-                } // end of while
+                } finally {
+                    zipFile.close();
+                }
             }
         } catch( Exception ex ) {
             _logger.error( "getMDSCSVersion error:" + ex.getMessage() ); ////$NON-NLS-1$
         }
+        LaunchCheckCache.getInstance().put( MDSCS_VERSION_CHECK, bmdsJarFile, mdscsVersion );
         return mdscsVersion;
     }
 
-    private static String getMDSCSVersion( InputStream inputStream ) {
+    private static synchronized String getMDSCSVersion( InputStream inputStream ) {
         _currentVersion = null; // reset the value
         try {
             ClassReader classReader = new ClassReader( inputStream );
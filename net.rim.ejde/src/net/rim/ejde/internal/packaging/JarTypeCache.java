@@ -0,0 +1,382 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.packaging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import net.rim.ejde.internal.core.ContextManager;
+import net.rim.ejde.internal.core.IConstants;
+import net.rim.ejde.internal.util.DigestUtils;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Caches the type of imported jar files, see {@link PackagingManager#getJarFileType(File)}. An entry is keyed by the path of the
+ * jar and is valid as long as the size and the time stamp of the jar do not change. If they do change, the entry is still used
+ * if the content digest of the jar is unchanged. The cache is persisted in the state location of the plug-in after every
+ * packaging run and when the plug-in is stopped.
+ * <p>
+ * Jars which have to be classified are scanned class by class, only the constant pool and the method table of each class are
+ * read and the scan stops at the first method without code.
+ */
+public class JarTypeCache {
+    private static final Logger _log = Logger.getLogger( JarTypeCache.class );
+    private static final String CACHE_FILE_NAME = "jarTypes.dat"; //$NON-NLS-1$
+    private static final String TEMP_EXTENSION = ".tmp"; //$NON-NLS-1$
+    private static final int FORMAT_VERSION = 1;
+    private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    // marks of the constant pool entries which are relevant to the scan
+    private static final byte CODE_CONSTANT = 1;
+    private static final byte INITIALIZER_CONSTANT = 2;
+    private static final byte[] CODE_NAME = { 'C', 'o', 'd', 'e' };
+    private static final byte[] INIT_NAME = { '<', 'i', 'n', 'i', 't', '>' };
+    private static final byte[] CLINIT_NAME = { '<', 'c', 'l', 'i', 'n', 'i', 't', '>' };
+
+    private static class JarTypeCacheHolder {
+        public static JarTypeCache jarTypeCache = new JarTypeCache();
+    }
+
+    private final File _cacheFile;
+    private final Map< String, Entry > _entries = new ConcurrentHashMap< String, Entry >();
+    private boolean _loaded;
+    private volatile boolean _dirty;
+
+    private static class Entry {
+        final long _size;
+        final long _lastModified;
+        final String _digest;
+        final int _type;
+
+        Entry( long size, long lastModified, String digest, int type ) {
+            _size = size;
+            _lastModified = lastModified;
+            _digest = digest;
+            _type = type;
+        }
+    }
+
+    private JarTypeCache() {
+        _cacheFile = ContextManager.PLUGIN.getStateLocation().append( CACHE_FILE_NAME ).toFile();
+    }
+
+    /**
+     * Singleton getInstance() method.
+     *
+     * @return the unique instance of the class
+     */
+    public static JarTypeCache getInstance() {
+        return JarTypeCacheHolder.jarTypeCache;
+    }
+
+    /**
+     * Returns the type of the given jar <code>file</code>.
+     *
+     * @param file
+     * @return a combination of {@link PackagingManager#MIDLET_JAR} and {@link PackagingManager#EVISCERATED_JAR}
+     */
+    int getType( File file ) {
+        if( !file.exists() ) {
+            return 0x0;
+        }
+        load();
+        String key = file.getAbsolutePath();
+        long size = file.length();
+        long lastModified = file.lastModified();
+        Entry entry = _entries.get( key );
+        if( entry != null && entry._size == size && entry._lastModified == lastModified ) {
+            return entry._type;
+        }
+        String digest;
+        try {
+            digest = DigestUtils.getFileDigest( file );
+        } catch( IOException e ) {
+            _log.error( e.getMessage() );
+            return 0x0;
+        }
+        int type;
+        if( entry != null && entry._digest.equals( digest ) ) {
+            // the jar has only been touched or copied
+            type = entry._type;
+        } else {
+            long startTime = System.currentTimeMillis();
+            type = scan( file );
+            _log.trace( "Classified " + key + " as type " + type + " in " + ( System.currentTimeMillis() - startTime ) + "ms" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        }
+        _entries.put( key, new Entry( size, lastModified, digest, type ) );
+        _dirty = true;
+        return type;
+    }
+
+    /**
+     * Reads the type of the given jar <code>file</code>.
+     *
+     * @param file
+     * @return
+     */
+    private static int scan( File file ) {
+        int type = 0x0;
+        JarFile jar = null;
+        try {
+            jar = new JarFile( file, false );
+            Manifest manifest = jar.getManifest();
+            if( manifest != null ) {
+                Attributes attributes = manifest.getMainAttributes();
+                String profile = attributes.getValue( "MicroEdition-Profile" ); //$NON-NLS-1$
+                if( "MIDP-1.0".equals( profile ) || "MIDP-2.0".equals( profile ) ) { //$NON-NLS-1$ //$NON-NLS-2$
+                    type = type | PackagingManager.MIDLET_JAR;
+                }
+            }
+            // check the attribute of the class files in the jar file
+            Enumeration< JarEntry > entries = jar.entries();
+            while( entries.hasMoreElements() ) {
+                JarEntry entry = entries.nextElement();
+                if( !entry.getName().endsWith( IConstants.CLASS_FILE_EXTENSION_WITH_DOT ) ) {
+                    continue;
+                }
+                InputStream input = jar.getInputStream( entry );
+                try {
+                    if( isEvisceratedClass( new DataInputStream( new BufferedInputStream( input ) ) ) ) {
+                        type = type | PackagingManager.EVISCERATED_JAR;
+                        break;
+                    }
+                } catch( IOException e ) {
+                    _log.debug( "Could not read " + entry.getName() + " in " + file, e ); //$NON-NLS-1$ //$NON-NLS-2$
+                } finally {
+                    input.close();
+                }
+            }
+        } catch( IOException e ) {
+            _log.error( e.getMessage() );
+        } finally {
+            try {
+                if( jar != null ) {
+                    jar.close();
+                }
+            } catch( IOException e ) {
+                _log.error( e.getMessage() );
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Checks if the class read from the given <code>input</code> has a method without code attribute. Interfaces, constructors,
+     * static initializers and abstract methods are ignored. Only the constant pool and the methods of the class are read.
+     *
+     * @param input
+     * @return
+     * @throws IOException
+     */
+    private static boolean isEvisceratedClass( DataInputStream input ) throws IOException {
+        if( input.readInt() != CLASS_FILE_MAGIC ) {
+            throw new IOException( "Not a class file" ); //$NON-NLS-1$
+        }
+        // minor and major version
+        skip( input, 4 );
+        byte[] constants = readConstantPool( input );
+        int accessFlags = input.readUnsignedShort();
+        if( ( accessFlags & ACC_INTERFACE ) != 0 ) {
+            return false;
+        }
+        // this class and super class
+        skip( input, 4 );
+        skip( input, input.readUnsignedShort() * 2 );
+        // fields
+        int fieldCount = input.readUnsignedShort();
+        for( int i = 0; i < fieldCount; i++ ) {
+            skip( input, 6 );
+            skipAttributes( input );
+        }
+        int methodCount = input.readUnsignedShort();
+        for( int i = 0; i < methodCount; i++ ) {
+            int methodAccessFlags = input.readUnsignedShort();
+            int nameIndex = input.readUnsignedShort();
+            // descriptor
+            skip( input, 2 );
+            boolean hasCode = false;
+            int attributeCount = input.readUnsignedShort();
+            for( int j = 0; j < attributeCount; j++ ) {
+                hasCode |= constants[ input.readUnsignedShort() ] == CODE_CONSTANT;
+                skip( input, input.readInt() & 0xFFFFFFFFL );
+            }
+            if( !hasCode && constants[ nameIndex ] != INITIALIZER_CONSTANT && ( methodAccessFlags & ACC_ABSTRACT ) == 0 ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the constant pool and marks the entries which are relevant to the scan.
+     *
+     * @param input
+     * @return the marks indexed by constant pool index
+     * @throws IOException
+     */
+    private static byte[] readConstantPool( DataInputStream input ) throws IOException {
+        int count = input.readUnsignedShort();
+        byte[] constants = new byte[ count ];
+        for( int i = 1; i < count; i++ ) {
+            int tag = input.readUnsignedByte();
+            switch( tag ) {
+                case 1: {
+                    // utf8
+                    int length = input.readUnsignedShort();
+                    if( length == CODE_NAME.length || length == INIT_NAME.length || length == CLINIT_NAME.length ) {
+                        byte[] bytes = new byte[ length ];
+                        input.readFully( bytes );
+                        if( Arrays.equals( bytes, CODE_NAME ) ) {
+                            constants[ i ] = CODE_CONSTANT;
+                        } else if( Arrays.equals( bytes, INIT_NAME ) || Arrays.equals( bytes, CLINIT_NAME ) ) {
+                            constants[ i ] = INITIALIZER_CONSTANT;
+                        }
+                    } else {
+                        skip( input, length );
+                    }
+                    break;
+                }
+                case 5:
+                case 6: {
+                    // long and double take two entries
+                    skip( input, 8 );
+                    i++;
+                    break;
+                }
+                case 7:
+                case 8:
+                case 16: {
+                    skip( input, 2 );
+                    break;
+                }
+                case 15: {
+                    skip( input, 3 );
+                    break;
+                }
+                case 3:
+                case 4:
+                case 9:
+                case 10:
+                case 11:
+                case 12:
+                case 18: {
+                    skip( input, 4 );
+                    break;
+                }
+                default:
+                    throw new IOException( "Unknown constant pool tag " + tag ); //$NON-NLS-1$
+            }
+        }
+        return constants;
+    }
+
+    private static void skipAttributes( DataInputStream input ) throws IOException {
+        int attributeCount = input.readUnsignedShort();
+        for( int i = 0; i < attributeCount; i++ ) {
+            skip( input, 2 );
+            skip( input, input.readInt() & 0xFFFFFFFFL );
+        }
+    }
+
+    private static void skip( DataInputStream input, long count ) throws IOException {
+        while( count > 0 ) {
+            long skipped = input.skip( count );
+            if( skipped <= 0 ) {
+                // skip() may return 0 before the end of the stream
+                input.readByte();
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    private synchronized void load() {
+        if( _loaded ) {
+            return;
+        }
+        _loaded = true;
+        if( !_cacheFile.isFile() ) {
+            return;
+        }
+        try {
+            DataInputStream input = new DataInputStream( new BufferedInputStream( new FileInputStream( _cacheFile ) ) );
+            try {
+                if( input.readInt() != FORMAT_VERSION ) {
+                    return;
+                }
+                int count = input.readInt();
+                for( int i = 0; i < count; i++ ) {
+                    String key = input.readUTF();
+                    _entries.put( key, new Entry( input.readLong(), input.readLong(), input.readUTF(), input.readInt() ) );
+                }
+            } finally {
+                input.close();
+            }
+        } catch( IOException e ) {
+            _log.debug( "Could not read jar type cache " + _cacheFile, e ); //$NON-NLS-1$
+            _entries.clear();
+        }
+    }
+
+    /**
+     * Writes the cache to the state location of the plug-in if it has changed.
+     */
+    public synchronized void save() {
+        if( !_dirty ) {
+            return;
+        }
+        // entries added while the cache is written mark it dirty again
+        _dirty = false;
+        File tempFile = new File( _cacheFile.getPath() + TEMP_EXTENSION );
+        try {
+            DataOutputStream output = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tempFile ) ) );
+            try {
+                Map< String, Entry > entries = new HashMap< String, Entry >( _entries );
+                output.writeInt( FORMAT_VERSION );
+                output.writeInt( entries.size() );
+                for( Map.Entry< String, Entry > entry : entries.entrySet() ) {
+                    output.writeUTF( entry.getKey() );
+                    output.writeLong( entry.getValue()._size );
+                    output.writeLong( entry.getValue()._lastModified );
+                    output.writeUTF( entry.getValue()._digest );
+                    output.writeInt( entry.getValue()._type );
+                }
+            } finally {
+                output.close();
+            }
+            _cacheFile.delete();
+            tempFile.renameTo( _cacheFile );
+        } catch( IOException e ) {
+            _log.debug( "Could not write jar type cache " + _cacheFile, e ); //$NON-NLS-1$
+            _dirty = true;
+        } finally {
+            tempFile.delete();
+        }
+    }
+}
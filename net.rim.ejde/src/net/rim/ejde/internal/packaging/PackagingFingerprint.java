@@ -0,0 +1,215 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.packaging;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import net.rim.ejde.internal.core.ContextManager;
+import net.rim.ejde.internal.core.IConstants;
+import net.rim.ejde.internal.model.BlackBerryProject;
+import net.rim.ejde.internal.util.DigestUtils;
+import net.rim.ejde.internal.util.ImportUtils;
+import net.rim.ejde.internal.util.PackageUtils;
+import net.rim.ejde.internal.util.PackagingUtils;
+import net.rim.ejde.internal.util.ProjectUtils;
+
+import org.apache.log4j.Logger;
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.QualifiedName;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.launching.IVMInstall;
+
+/**
+ * Computes the packaging fingerprint of a BlackBerry project, which is a digest of everything rapc reads when the project is
+ * packaged: the rapc options, the application descriptor, the custom jad and rapc files, the classpath and the imported jars,
+ * the deliverables of the dependency projects and the class output.
+ * <p>
+ * The fingerprint of the last successful packaging is persisted as a project property, a project only needs to be packaged
+ * again if its fingerprint has changed. The class output is digested from the modification stamps kept in the workspace tree,
+ * so no class file is read.
+ */
+public class PackagingFingerprint {
+    static private final Logger _log = Logger.getLogger( PackagingFingerprint.class );
+    final static public QualifiedName PACKAGING_FINGERPRINT_QUALIFIED_NAME = new QualifiedName( ContextManager.PLUGIN_ID,
+            "PackagingFingerprint" ); //$NON-NLS-1$
+    final static private String MISSING = "<missing>"; //$NON-NLS-1$
+
+    private PackagingFingerprint() {
+        // utility class
+    }
+
+    /**
+     * Calculates the current packaging fingerprint of the given <code>bbProject</code>.
+     *
+     * @param bbProject
+     * @return the fingerprint or <code>null</code> if it can not be calculated
+     */
+    static public String calculate( BlackBerryProject bbProject ) {
+        long startTime = System.currentTimeMillis();
+        MessageDigest digest = DigestUtils.createDigest();
+        IProject project = bbProject.getProject();
+        try {
+            // rapc and its options
+            IVMInstall vm = PackagingManager.getPackagingVM( bbProject );
+            DigestUtils.update( digest, vm == null ? MISSING : vm.getInstallLocation().getPath() );
+            for( String option : PackagingManager.getCompileOptions( bbProject ) ) {
+                DigestUtils.update( digest, option );
+            }
+            for( String option : PackagingManager.getProtectionOptions( bbProject, false ) ) {
+                DigestUtils.update( digest, option );
+            }
+            DigestUtils.update( digest, String.valueOf( PackagingUtils.getPackagExportedJar() ) );
+            // the application descriptor and the custom jad and rapc files
+            updateContent( digest, project.getFile( BlackBerryProject.METAFILE ).getLocation().toOSString() );
+            updateContent( digest, PackagingUtils.getCustomJadFile( bbProject ) );
+            updateContent( digest, PackagingUtils.getCustomRapcFile( bbProject ) );
+            // the source folders and the imported jars
+            for( IClasspathEntry entry : bbProject.getResolvedClasspath( true ) ) {
+                DigestUtils.update( digest, String.valueOf( entry.getEntryKind() ) );
+                DigestUtils.update( digest, entry.getPath().toString() );
+                DigestUtils.update( digest, String.valueOf( entry.isExported() ) );
+                if( entry.getEntryKind() == IClasspathEntry.CPE_LIBRARY ) {
+                    IPath jarPath = PackageUtils.getAbsolutePath( entry );
+                    updateStamp( digest, jarPath == null ? null : jarPath.toFile() );
+                }
+            }
+            // the dependency projects, they are packaged before the project itself
+            updateDependencies( digest, bbProject );
+            // the class output
+            for( IPath outputPath : ImportUtils.getOutputPathSet( bbProject ) ) {
+                updateOutputFolder( digest, outputPath );
+            }
+        } catch( CoreException e ) {
+            _log.error( e );
+            return null;
+        }
+        String fingerprint = DigestUtils.toHex( digest.digest() );
+        _log.trace( "Packaging fingerprint of project " + project.getName() + " is " + fingerprint + ", calculated in " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                + ( System.currentTimeMillis() - startTime ) + "ms" ); //$NON-NLS-1$
+        return fingerprint;
+    }
+
+    /**
+     * Checks if the given <code>fingerprint</code> equals the fingerprint of the last successful packaging of the given
+     * <code>project</code>.
+     *
+     * @param project
+     * @param fingerprint
+     * @return
+     */
+    static public boolean isUpToDate( IProject project, String fingerprint ) {
+        return fingerprint != null && fingerprint.equals( getFingerprint( project ) );
+    }
+
+    /**
+     * Gets the fingerprint of the last successful packaging of the given <code>project</code>.
+     *
+     * @param project
+     * @return the fingerprint or <code>null</code> if the project has not been packaged successfully
+     */
+    static public String getFingerprint( IProject project ) {
+        try {
+            return project.getPersistentProperty( PACKAGING_FINGERPRINT_QUALIFIED_NAME );
+        } catch( CoreException e ) {
+            _log.error( e );
+            return null;
+        }
+    }
+
+    /**
+     * Sets the fingerprint of the last packaging of the given <code>project</code>.
+     *
+     * @param project
+     * @param fingerprint
+     *            the fingerprint or <code>null</code> if the packaging failed
+     */
+    static public void setFingerprint( IProject project, String fingerprint ) {
+        try {
+            project.setPersistentProperty( PACKAGING_FINGERPRINT_QUALIFIED_NAME, fingerprint );
+        } catch( CoreException e ) {
+            _log.error( e );
+        }
+    }
+
+    private static void updateDependencies( MessageDigest digest, BlackBerryProject bbProject ) throws CoreException {
+        List< BlackBerryProject > dependencyProjects = ProjectUtils.getAllReferencedProjects( bbProject );
+        // the referenced projects are not returned in a stable order
+        Map< String, BlackBerryProject > sortedProjects = new TreeMap< String, BlackBerryProject >();
+        for( BlackBerryProject dependencyProject : dependencyProjects ) {
+            sortedProjects.put( dependencyProject.getProject().getName(), dependencyProject );
+        }
+        for( BlackBerryProject dependencyProject : sortedProjects.values() ) {
+            DigestUtils.update( digest, dependencyProject.getProject().getName() );
+            DigestUtils.update( digest, getFingerprint( dependencyProject.getProject() ) );
+            String outputFilePath = PackagingUtils.getAbsoluteStandardOutputFilePath( dependencyProject ).toOSString();
+            updateStamp( digest, new File( outputFilePath + IConstants.COD_FILE_EXTENSION_WITH_DOT ) );
+            updateStamp( digest, new File( outputFilePath + IConstants.JAR_EXTENSION_WITH_DOT ) );
+        }
+    }
+
+    private static void updateOutputFolder( final MessageDigest digest, IPath outputPath ) throws CoreException {
+        DigestUtils.update( digest, outputPath.toString() );
+        IResource outputFolder = ResourcesPlugin.getWorkspace().getRoot().findMember( outputPath );
+        if( !( outputFolder instanceof IContainer ) ) {
+            DigestUtils.update( digest, MISSING );
+            return;
+        }
+        // proxies are served from the workspace tree without touching the file system
+        outputFolder.accept( new IResourceProxyVisitor() {
+            public boolean visit( IResourceProxy proxy ) throws CoreException {
+                if( proxy.getType() == IResource.FILE ) {
+                    DigestUtils.update( digest, proxy.requestFullPath().toString() );
+                    DigestUtils.update( digest, String.valueOf( proxy.getModificationStamp() ) );
+                    DigestUtils.update( digest, String.valueOf( proxy.requestResource().getLocalTimeStamp() ) );
+                }
+                return true;
+            }
+        }, IResource.NONE );
+    }
+
+    private static void updateContent( MessageDigest digest, String filePath ) {
+        File file = filePath == null ? null : new File( filePath );
+        if( file == null || !file.isFile() ) {
+            DigestUtils.update( digest, MISSING );
+            return;
+        }
+        DigestUtils.update( digest, file.getPath() );
+        try {
+            DigestUtils.update( digest, file );
+        } catch( IOException e ) {
+            _log.debug( e.getMessage(), e );
+            // an unreadable file is never up to date
+            DigestUtils.update( digest, String.valueOf( System.nanoTime() ) );
+        }
+    }
+
+    private static void updateStamp( MessageDigest digest, File file ) {
+        if( file == null || !file.exists() ) {
+            DigestUtils.update( digest, MISSING );
+            return;
+        }
+        DigestUtils.update( digest, file.getPath() );
+        DigestUtils.update( digest, String.valueOf( file.length() ) );
+        DigestUtils.update( digest, String.valueOf( file.lastModified() ) );
+    }
+}
@@ -18,18 +18,31 @@ import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
-import net.rim.ejde.internal.core.ContextManager;
 import net.rim.ejde.internal.core.IConstants;
 import net.rim.ejde.internal.core.IRIMMarker;
 import net.rim.ejde.internal.launching.DeploymentHelper;
 import net.rim.ejde.internal.model.BlackBerryProject;
-import net.rim.ejde.internal.model.BlackBerryProjectCoreNature;
 import net.rim.ejde.internal.model.BlackBerryProperties;
 import net.rim.ejde.internal.signing.SignatureToolLaunchAction;
 import net.rim.ejde.internal.ui.consoles.PackagingConsole;
@@ -44,7 +57,6 @@ import net.rim.ejde.internal.validation.DiagnosticFactory;
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.eclipse.core.internal.resources.ResourceException;
-import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
@@ -57,8 +69,8 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
-import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.osgi.util.NLS;
 
@@ -69,10 +81,8 @@ import org.eclipse.osgi.util.NLS;
  */
 public abstract class PackagingJob implements IWorkspaceRunnable {
     static private final Logger _log = Logger.getLogger( PackagingJob.class );
-    final static public QualifiedName BUILT_BY_JAVA_BUILDER_FLAG_QUALIFIED_NAME = new QualifiedName( ContextManager.PLUGIN_ID,
-            "BuiltByEclipseBuilders" ); //$NON-NLS-1$
-    final static private String TRUE_STRING = "true"; //$NON-NLS-1$
-    final static private String FALSE_STRING = "false"; //$NON-NLS-1$
+    // seconds to wait for the packaging threads to stop after they have been interrupted
+    final static private int TERMINATION_TIMEOUT = 30;
     private Set< BlackBerryProject > _projects;
     private int _signingFlag;
     // sign flag
@@ -107,47 +117,6 @@ public abstract class PackagingJob implements IWorkspaceRunnable {
         _signingFlag = signingFlag;
     }
 
-    /**
-     * Mark the given <code>project</code> as need to be built.
-     *
-     * @param project
-     * @param needBuild
-     *            <code>true</code> mark the given <code>project</code> as need build, otherwise, mark the given
-     *            <code>project</code> as not need build.
-     */
-    static synchronized public void setBuiltByJavaBuilders( IProject project, boolean needBuild ) {
-        try {
-            _log.trace( "Project " + project.getName() + " is marked as" //$NON-NLS-1$ //$NON-NLS-2$
-                    + ( needBuild ? " need RAPC." : " not need RAPC." ) ); //$NON-NLS-1$ //$NON-NLS-2$
-            String newBuildFlag = needBuild ? TRUE_STRING : FALSE_STRING;
-            String oldBuildFlag = project.getPersistentProperty( BUILT_BY_JAVA_BUILDER_FLAG_QUALIFIED_NAME );
-            if( ( oldBuildFlag == null ) || !oldBuildFlag.equals( newBuildFlag ) ) {
-                project.setPersistentProperty( BUILT_BY_JAVA_BUILDER_FLAG_QUALIFIED_NAME, newBuildFlag );
-            }
-        } catch( CoreException e ) {
-            _log.error( e );
-        }
-    }
-
-    /**
-     * Check if the given <code>project</code> needs to be built.
-     *
-     * @param project
-     * @return
-     */
-    static synchronized private boolean builtByJavaBuilder( IProject project ) {
-        try {
-            String value = project.getProject().getPersistentProperty( BUILT_BY_JAVA_BUILDER_FLAG_QUALIFIED_NAME );
-            if( ( value == null ) || value.equals( TRUE_STRING ) ) {
-                return true;
-            }
-        } catch( CoreException e ) {
-            _log.error( e );
-            return true;
-        }
-        return false;
-    }
-
     /**
      * Gets projects which need to be packaged;
      *
@@ -167,7 +136,13 @@ public abstract class PackagingJob implements IWorkspaceRunnable {
         LinkedHashSet< BlackBerryProject > projectSet = ProjectUtils.getProjectsByBuildOrder( _projects );
         monitor.beginTask( IConstants.EMPTY_STRING, projectSet.size() * 10 );
         monitor.subTask( Messages.PackagingJob_Name );
-        boolean needSign = false;
+        // build and package the projects
+        boolean needSign = packageProjects( projectSet, monitor );
+        JarTypeCache.getInstance().save();
+        if( monitor.isCanceled() ) {
+            monitor.done();
+            return;
+        }
         // collect projects which need to be signed
         LinkedHashSet< BlackBerryProject > projectsNeedSigning = new LinkedHashSet< BlackBerryProject >();
         // collect projects whose dependent projects need to be signed
@@ -175,80 +150,31 @@ public abstract class PackagingJob implements IWorkspaceRunnable {
         // collect projects which are packaged successfully
         LinkedHashSet< BlackBerryProject > succesfullyPackagedProjects = new LinkedHashSet< BlackBerryProject >();
         for( BlackBerryProject bbProject : projectSet ) {
-            // 1. run java build on the project
-            if( !isBuildAutomaticallyOn() ) {
-                try {
-                    bbProject.getProject().build( IncrementalProjectBuilder.AUTO_BUILD, new SubProgressMonitor( monitor, 1 ) );
-                } catch( CoreException e ) {
-                    _log.error( e );
-                }
-            }
-            monitor.worked( 3 );
-            // 2. package the project
-            if( !needPackaging( bbProject ) ) {
-                if( needGenerateALXFile( bbProject ) ) {
-                    PackagingManager.generateALXForProject( bbProject );
-                }
-            } else {
-                // remove the package problems
-                ResourceBuilderUtils.cleanProblemMarkers( bbProject.getProject(), new String[] { IRIMMarker.PACKAGING_PROBLEM },
-                        IResource.DEPTH_INFINITE );
-                try {
-                    PackagingManager.packageProject( bbProject );
-                    if( !needSign ) {
-                        needSign = true;
-                    }
-                } catch( CoreException e ) {
-                    _log.error( e.getMessage() );
-                    try {
-                        ResourceBuilderUtils.createProblemMarker(
-                                e.getStatus().getCode() == DiagnosticFactory.CREATE_FOLDER_ERR_ID ? bbProject
-                                        .getMetaFileHandler() : bbProject.getProject(), IRIMMarker.PACKAGING_PROBLEM, e
-                                        .getMessage(), -1, IMarker.SEVERITY_ERROR );
-                    } catch( Exception e1 ) {
-                        _log.error( e1.getMessage() );
-                    }
-                }
-                PackagingJob.setBuiltByJavaBuilders( bbProject.getProject(), false );
-            }
-            monitor.worked( 4 );
-            // 3. run post-build command
-            runPostBuild( bbProject );
-            monitor.worked( 1 );
             // 4. check if the project needs to be signed or not
             if( !hasPackagingProblems( bbProject.getProject() ) ) {
                 succesfullyPackagedProjects.add( bbProject );
                 if( PackagingUtils.isSigningNeeded( bbProject ) ) {
                     projectsNeedSigning.add( bbProject );
                 } else {
+                    // the deployment files of projects which do not need to be signed have been copied once they were packaged
                     if( PackagingUtils.isSigningNeededForDependency( bbProject ) ) {
                         projectsDependencyNeedSigning.add( bbProject );
-                    } else {
-                        // if a project and its dependent projects do not need to be signed, copy the cod files to the web folder
-                        // copy the cod files of dependency projects to the deployment folders
-                        copyDependencyDeploymentFiles( bbProject );
-                        // copy files from "Standard" to "Web"
-                        copyToWebDeploymentFolder( bbProject );
                     }
                 }
             }
             monitor.worked( 2 );
-            if( monitor.isCanceled() ) {
-                monitor.done();
-                return;
-            }
         }
         // Code signing
         switch( _signingFlag ) {
             case SIGN_FORCE: {
                 if( !succesfullyPackagedProjects.isEmpty() ) {
-                    signCodFile( succesfullyPackagedProjects, monitor );
+                    signCodFile( succesfullyPackagedProjects, true, monitor );
                 }
                 break;
             }
             case SIGN_IF_PROTECTED_API_USED: {
                 if( !projectsNeedSigning.isEmpty() ) {
-                    signCodFile( projectsNeedSigning, monitor );
+                    signCodFile( projectsNeedSigning, false, monitor );
                     for( BlackBerryProject project : projectsDependencyNeedSigning ) {
                         // copy the cod files of dependency projects to the deployment folders
                         copyDependencyDeploymentFiles( project );
@@ -261,7 +187,7 @@ public abstract class PackagingJob implements IWorkspaceRunnable {
             case SIGN_IF_NECESSARY: {
                 if( needSign ) {
                     if( !projectsNeedSigning.isEmpty() ) {
-                        signCodFile( projectsNeedSigning, monitor );
+                        signCodFile( projectsNeedSigning, false, monitor );
                         for( BlackBerryProject project : projectsDependencyNeedSigning ) {
                             // copy the cod files of dependency projects to the deployment folders
                             copyDependencyDeploymentFiles( project );
@@ -277,10 +203,300 @@ public abstract class PackagingJob implements IWorkspaceRunnable {
         return;
     }
 
+    /**
+     * Builds and packages the given projects in build order. A project is packaged as soon as all projects it depends on have
+     * been packaged, rapc is run for up to {@link #getWorkerCount()} projects at the same time. All workspace changes are made on
+     * the calling thread, the worker threads only run rapc. If packaging stops early, e.g. because it has been canceled or a
+     * project could not be built, the running rapc processes are destroyed before this method returns.
+     *
+     * @param projectSet
+     *            projects in build order
+     * @param monitor
+     * @return <code>true</code> if any project has been packaged
+     * @throws CoreException
+     */
+    private boolean packageProjects( LinkedHashSet< BlackBerryProject > projectSet, IProgressMonitor monitor )
+            throws CoreException {
+        // the projects each project has to wait for
+        Map< IProject, Set< IProject >> dependencies = new HashMap< IProject, Set< IProject >>();
+        Set< IProject > packagedProjects = new HashSet< IProject >();
+        for( BlackBerryProject bbProject : projectSet ) {
+            packagedProjects.add( bbProject.getProject() );
+        }
+        for( BlackBerryProject bbProject : projectSet ) {
+            Set< IProject > projects = new HashSet< IProject >();
+            for( BlackBerryProject dependencyProject : ProjectUtils.getAllReferencedProjects( bbProject ) ) {
+                if( packagedProjects.contains( dependencyProject.getProject() ) ) {
+                    projects.add( dependencyProject.getProject() );
+                }
+            }
+            dependencies.put( bbProject.getProject(), projects );
+        }
+        int workerCount = Math.max( 1, Math.min( getWorkerCount(), projectSet.size() ) );
+        // the console output of projects packaged at the same time is printed per project once rapc has finished
+        boolean bufferConsoleOutput = workerCount > 1;
+        List< BlackBerryProject > waitingProjects = new LinkedList< BlackBerryProject >( projectSet );
+        Set< IProject > finishedProjects = new HashSet< IProject >();
+        ExecutorService executor = Executors.newFixedThreadPool( workerCount, new PackagingThreadFactory() );
+        CompletionService< PackagingTask > completionService = new ExecutorCompletionService< PackagingTask >( executor );
+        boolean packaged = false;
+        boolean completed = false;
+        int running = 0;
+        try {
+            while( true ) {
+                BlackBerryProject bbProject;
+                while( running < workerCount && !monitor.isCanceled()
+                        && ( bbProject = nextProject( waitingProjects, dependencies, finishedProjects, running == 0 ) ) != null ) {
+                    PackagingTask task = startPackaging( bbProject, bufferConsoleOutput, monitor );
+                    if( task == null ) {
+                        finishedProjects.add( bbProject.getProject() );
+                        continue;
+                    }
+                    if( task._manager == null ) {
+                        packaged |= finishPackaging( task, monitor );
+                        finishedProjects.add( bbProject.getProject() );
+                        continue;
+                    }
+                    completionService.submit( task );
+                    running++;
+                }
+                if( running == 0 ) {
+                    break;
+                }
+                Future< PackagingTask > future = completionService.poll( 500, TimeUnit.MILLISECONDS );
+                if( future == null ) {
+                    if( monitor.isCanceled() ) {
+                        return packaged;
+                    }
+                    continue;
+                }
+                PackagingTask task = future.get();
+                running--;
+                packaged |= finishPackaging( task, monitor );
+                finishedProjects.add( task._bbProject.getProject() );
+            }
+            completed = true;
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new OperationCanceledException();
+        } catch( ExecutionException e ) {
+            // PackagingTask does not throw
+            _log.error( e.getCause() );
+        } finally {
+            if( completed ) {
+                executor.shutdown();
+            } else {
+                cancel( executor );
+            }
+        }
+        return packaged;
+    }
+
+    /**
+     * Interrupts the packaging threads, which destroys their rapc processes, and waits for them to stop.
+     *
+     * @param executor
+     */
+    private static void cancel( ExecutorService executor ) {
+        executor.shutdownNow();
+        try {
+            if( !executor.awaitTermination( TERMINATION_TIMEOUT, TimeUnit.SECONDS ) ) {
+                _log.error( "Packaging threads did not stop within " + TERMINATION_TIMEOUT + " seconds" ); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Removes and returns the first of the <code>waitingProjects</code> whose dependencies have all finished packaging.
+     *
+     * @param waitingProjects
+     * @param dependencies
+     * @param finishedProjects
+     * @param force
+     *            <code>true</code> to return the first waiting project if no project is ready, e.g. in case of cyclic
+     *            dependencies
+     * @return the project or <code>null</code> if no project is ready
+     */
+    private BlackBerryProject nextProject( List< BlackBerryProject > waitingProjects, Map< IProject, Set< IProject >> dependencies,
+            Set< IProject > finishedProjects, boolean force ) {
+        for( Iterator< BlackBerryProject > iterator = waitingProjects.iterator(); iterator.hasNext(); ) {
+            BlackBerryProject bbProject = iterator.next();
+            if( finishedProjects.containsAll( dependencies.get( bbProject.getProject() ) ) ) {
+                iterator.remove();
+                return bbProject;
+            }
+        }
+        if( force && !waitingProjects.isEmpty() ) {
+            return waitingProjects.remove( 0 );
+        }
+        return null;
+    }
+
+    /**
+     * Builds the given <code>bbProject</code> and prepares its packaging.
+     *
+     * @param bbProject
+     * @param bufferConsoleOutput
+     * @param monitor
+     * @return the task which runs rapc or <code>null</code> if the project does not need to be packaged
+     * @throws CoreException
+     */
+    private PackagingTask startPackaging( BlackBerryProject bbProject, boolean bufferConsoleOutput, IProgressMonitor monitor )
+            throws CoreException {
+        // 1. run java build on the project
+        if( !isBuildAutomaticallyOn() ) {
+            try {
+                bbProject.getProject().build( IncrementalProjectBuilder.AUTO_BUILD, new SubProgressMonitor( monitor, 1 ) );
+            } catch( CoreException e ) {
+                _log.error( e );
+            }
+        }
+        monitor.worked( 3 );
+        // 2. package the project
+        String fingerprint = PackagingFingerprint.calculate( bbProject );
+        if( !needPackaging( bbProject, fingerprint ) ) {
+            if( needGenerateALXFile( bbProject ) ) {
+                PackagingManager.generateALXForProject( bbProject );
+            }
+            monitor.worked( 4 );
+            // 3. run post-build command
+            runPostBuild( bbProject );
+            monitor.worked( 1 );
+            copyUnsignedDeploymentFiles( bbProject );
+            return null;
+        }
+        // remove the package problems
+        ResourceBuilderUtils.cleanProblemMarkers( bbProject.getProject(), new String[] { IRIMMarker.PACKAGING_PROBLEM },
+                IResource.DEPTH_INFINITE );
+        PackagingTask task = new PackagingTask( bbProject, fingerprint );
+        try {
+            task._manager = PackagingManager.prepareProject( bbProject, bufferConsoleOutput );
+        } catch( CoreException e ) {
+            task._exception = e;
+        }
+        return task;
+    }
+
+    /**
+     * Finishes the packaging of a project after rapc has been run.
+     *
+     * @param task
+     * @param monitor
+     * @return <code>true</code> if the project has been packaged without exception
+     * @throws CoreException
+     */
+    private boolean finishPackaging( PackagingTask task, IProgressMonitor monitor ) throws CoreException {
+        BlackBerryProject bbProject = task._bbProject;
+        if( task._manager != null ) {
+            task._manager.flushConsoleOutput();
+            if( task._exception == null ) {
+                try {
+                    task._manager.finishPackaging();
+                } catch( CoreException e ) {
+                    task._exception = e;
+                }
+            }
+        }
+        if( task._exception != null ) {
+            CoreException e = task._exception;
+            _log.error( e.getMessage() );
+            try {
+                ResourceBuilderUtils.createProblemMarker(
+                        e.getStatus().getCode() == DiagnosticFactory.CREATE_FOLDER_ERR_ID ? bbProject.getMetaFileHandler()
+                                : bbProject.getProject(), IRIMMarker.PACKAGING_PROBLEM, e.getMessage(), -1,
+                        IMarker.SEVERITY_ERROR );
+            } catch( Exception e1 ) {
+                _log.error( e1.getMessage() );
+            }
+        }
+        // a project which failed to be packaged is never up to date
+        PackagingFingerprint.setFingerprint( bbProject.getProject(), hasPackagingProblems( bbProject.getProject() ) ? null
+                : task._fingerprint );
+        monitor.worked( 4 );
+        // 3. run post-build command
+        runPostBuild( bbProject );
+        monitor.worked( 1 );
+        copyUnsignedDeploymentFiles( bbProject );
+        return task._exception == null;
+    }
+
+    /**
+     * Copies the deployment files of the given <code>bbProject</code> if it has been packaged successfully and neither the
+     * project nor its dependency projects need to be signed. This is done right after the project has been packaged, before the
+     * projects which depend on it are packaged and their post-build commands are run.
+     *
+     * @param bbProject
+     * @throws CoreException
+     */
+    private void copyUnsignedDeploymentFiles( BlackBerryProject bbProject ) throws CoreException {
+        if( hasPackagingProblems( bbProject.getProject() ) || PackagingUtils.isSigningNeeded( bbProject )
+                || PackagingUtils.isSigningNeededForDependency( bbProject ) ) {
+            return;
+        }
+        // copy the cod files of dependency projects to the deployment folders
+        copyDependencyDeploymentFiles( bbProject );
+        // copy files from "Standard" to "Web"
+        copyToWebDeploymentFolder( bbProject );
+    }
+
+    /**
+     * Returns the maximum number of projects which are packaged at the same time. The <code>packaging_worker_count</code>
+     * preference is used if it is set to a positive value, otherwise one project per available processor is packaged.
+     *
+     * @return
+     */
+    static int getWorkerCount() {
+        int count = ImportUtils.getIntImportPref( IConstants.PACKAGING_WORKER_COUNT_KEY );
+        if( count <= 0 ) {
+            count = Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max( 1, count );
+    }
+
+    /**
+     * Runs rapc for a prepared project.
+     */
+    private static class PackagingTask implements Callable< PackagingTask > {
+        final BlackBerryProject _bbProject;
+        final String _fingerprint;
+        PackagingManager _manager;
+        CoreException _exception;
+
+        PackagingTask( BlackBerryProject bbProject, String fingerprint ) {
+            _bbProject = bbProject;
+            _fingerprint = fingerprint;
+        }
+
+        public PackagingTask call() {
+            try {
+                _manager.runRapc();
+            } catch( CoreException e ) {
+                _exception = e;
+            } catch( RuntimeException e ) {
+                _log.error( e.getMessage(), e );
+                _exception = new CoreException( StatusFactory.createErrorStatus( String.valueOf( e.getMessage() ) ) );
+            }
+            return this;
+        }
+    }
+
+    private static class PackagingThreadFactory implements ThreadFactory {
+        private static final AtomicInteger _threadNumber = new AtomicInteger( 1 );
+
+        public Thread newThread( Runnable runnable ) {
+            Thread thread = new Thread( runnable, "BlackBerry Packaging-" + _threadNumber.getAndIncrement() ); //$NON-NLS-1$
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+
     abstract protected void runPostBuild( BlackBerryProject properties );
 
-    private void signCodFile( Set< BlackBerryProject > projectSet, IProgressMonitor monitor ) throws CoreException {
-        boolean successful = SignatureToolLaunchAction.signCodFiles( projectSet, monitor );
+    private void signCodFile( Set< BlackBerryProject > projectSet, boolean force, IProgressMonitor monitor )
+            throws CoreException {
+        boolean successful = SignatureToolLaunchAction.signCodFiles( projectSet, force, monitor );
         if( successful ) {
             for( BlackBerryProject bbProject : projectSet ) {
                 // copy the cod files of dependency projects to the deployment folders
@@ -525,7 +741,7 @@ public abstract class PackagingJob implements IWorkspaceRunnable {
         return ResourcesPlugin.getWorkspace().getDescription().isAutoBuilding();
     }
 
-    private boolean needPackaging( BlackBerryProject bbproj ) throws CoreException {
+    private boolean needPackaging( BlackBerryProject bbproj, String fingerprint ) throws CoreException {
         // check if the project has any critical problem
         if( ProjectUtils.hasCriticalProblems( bbproj.getProject() ) ) {
             return false;
@@ -540,19 +756,12 @@ public abstract class PackagingJob implements IWorkspaceRunnable {
         if( hasPackagingProblems( bbproj.getProject() ) ) {
             return true;
         }
-        // check if the project has been built by the java builder
-        if( PackagingJob.builtByJavaBuilder( bbproj.getProject() ) ) {
+        // check if the deliverables have been removed
+        if( !hasCodFile( bbproj ) ) {
             return true;
         }
-        // check if the project has been updated
-        if( hasBeenUpdated( bbproj ) ) {
-            return true;
-        }
-        // check if the project's dependency projects have been updated
-        if( hasBeenUpdated( bbproj, dependencyPrjoects ) ) {
-            return true;
-        }
-        return false;
+        // check if anything rapc reads has been changed since the project was packaged
+        return !PackagingFingerprint.isUpToDate( bbproj.getProject(), fingerprint );
     }
 
     private boolean needGenerateALXFile( BlackBerryProject project ) {
@@ -567,83 +776,17 @@ public abstract class PackagingJob implements IWorkspaceRunnable {
     }
 
     /**
-     * Checks if any of the BlackBerry project in the given <code>bbProjects</code> has been update after the last time the
-     * <code>mainProject</code> was packaged.
+     * Checks if the cod file of the given <code>bbProject</code> exists in the standard output folder.
      *
-     * @param mainProject
-     * @param bbProjects
+     * @param bbProject
      * @return
      */
-    private boolean hasBeenUpdated( BlackBerryProject mainProject, List< BlackBerryProject > bbProjects ) {
-        // we only check the cod file in the standard output folder
-        IPath refFilePath = mainProject.getProject().getLocation()
-                .append( PackagingUtils.getRelativeStandardOutputFolder( mainProject ) );
-        refFilePath = refFilePath.append( new Path( mainProject.getProperties()._packaging.getOutputFileName()
+    private boolean hasCodFile( BlackBerryProject bbProject ) {
+        IPath codFilePath = bbProject.getProject().getLocation()
+                .append( PackagingUtils.getRelativeStandardOutputFolder( bbProject ) );
+        codFilePath = codFilePath.append( new Path( bbProject.getProperties()._packaging.getOutputFileName()
                 + IConstants.COD_FILE_EXTENSION_WITH_DOT ) );
-        File refFile = refFilePath.toFile();
-        if( !refFile.exists() ) {
-            return true;
-        }
-        IPath dependencySampleFilePath = null;
-        File dependencyCodFile = null;
-        for( BlackBerryProject bbProject : bbProjects ) {
-            dependencySampleFilePath = bbProject.getProject().getLocation()
-                    .append( PackagingUtils.getRelativeStandardOutputFolder( bbProject ) );
-            dependencySampleFilePath = dependencySampleFilePath.append( new Path( bbProject.getProperties()._packaging
-                    .getOutputFileName() + IConstants.DEBUG_FILE_EXTENSION_WITH_DOT ) );
-            dependencyCodFile = dependencySampleFilePath.toFile();
-            if( dependencyCodFile.lastModified() > refFile.lastModified() ) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private boolean hasBeenUpdated( BlackBerryProject bbproj ) throws CoreException {
-        IPath refFilePath = bbproj.getProject().getLocation()
-                .append( PackagingUtils.getRelativeStandardOutputFolder( bbproj ) );
-        refFilePath = refFilePath.append( new Path( bbproj.getProperties()._packaging.getOutputFileName()
-                + IConstants.DEBUG_FILE_EXTENSION_WITH_DOT ) );
-        File refFile = refFilePath.toFile();
-        if( !refFile.exists() ) {
-            return true;
-        }
-        IFile iDescriptorFile = bbproj.getProject().getFile( BlackBerryProject.METAFILE );
-        File descriptorFile = iDescriptorFile.getLocation().toFile();
-        // check the time stamp of the project descriptor file
-        if( !descriptorFile.exists() && bbproj.getProject().hasNature( BlackBerryProjectCoreNature.NATURE_ID ) ) {
-            // TODO not support java project now
-            throw new CoreException( StatusFactory.createErrorStatus( "Project does not have the descriptor file." ) );
-        }
-        if( descriptorFile.lastModified() > refFile.lastModified() ) {
-            return true;
-        }
-        //Find the custom JAD file in the project root
-        String custjad = PackagingUtils.getCustomJadFile(bbproj);
-        if(custjad!=null) {
-        	File jadFile = new File(custjad);
-	        if( jadFile.lastModified() > refFile.lastModified() ) {
-	            return true;
-	        }
-        }
-
-        //Find the custom rapc file in the project root
-        String custrapc = PackagingUtils.getCustomJadFile(bbproj);
-        if(custrapc!=null) {
-        	File rapcFile = new File(custrapc);
-	        if( rapcFile.lastModified() > refFile.lastModified() ) {
-	            return true;
-	        }
-        }
-
-        // check if the output folders and their children have been updated
-        Set< File > outputFolders = ImportUtils.getOutputFolderSet( bbproj );
-        for( File folder : outputFolders ) {
-            if( ProjectUtils.hasFolderBeenUpdated( folder, refFile.lastModified() ) ) {
-                 return true;
-            }
-        }
-        return false;
+        return codFilePath.toFile().exists();
     }
 
     /**
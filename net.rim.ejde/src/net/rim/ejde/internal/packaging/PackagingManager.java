@@ -24,20 +24,16 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.EmptyStackException;
-import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
 import java.util.Vector;
-import java.util.jar.JarEntry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import net.rim.ejde.internal.builders.ALXBuilder;
+import net.rim.ejde.internal.builders.PreprocessedContentStore;
 import net.rim.ejde.internal.builders.ResourceBuilder;
 import net.rim.ejde.internal.core.ContextManager;
 import net.rim.ejde.internal.core.IConstants;
@@ -76,10 +72,13 @@ import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceVisitor;
+import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
@@ -89,10 +88,6 @@ import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
-import org.eclipse.jdt.core.ToolFactory;
-import org.eclipse.jdt.core.util.IClassFileReader;
-import org.eclipse.jdt.core.util.IMethodInfo;
-import org.eclipse.jdt.core.util.IModifierConstants;
 import org.eclipse.jdt.internal.launching.JREContainer;
 import org.eclipse.jdt.launching.IVMInstall;
 import org.eclipse.jdt.launching.JavaRuntime;
@@ -135,6 +130,8 @@ public class PackagingManager {
     private Vector< String > _otherFiles;
     private Vector< String > _outputFolders;
     private MessageConsoleStream _consoleOutputStream;
+    // collects the console output of a project packaged in parallel with others, null if the output is printed right away
+    private StringBuffer _consoleBuffer;
     private boolean writeToFile;
 
     private PackagingManager( BlackBerryProject bbProject ) {
@@ -163,7 +160,69 @@ public class PackagingManager {
      */
     static public void packageProject( BlackBerryProject project ) throws CoreException {
         PackagingManager packagingManage = new PackagingManager( project );
-        packagingManage.internalPackageProject();
+        if( packagingManage.preparePackaging() ) {
+            // run rapc command
+            packagingManage.runRapcCommand();
+            // post packaging steps
+            packagingManage.postPackagingProcess( project );
+        }
+    }
+
+    /**
+     * Prepares the packaging of the given <code>project</code>, which makes all workspace changes needed before rapc is run. The
+     * rapc command of the returned instance can then be run by {@link #runRapc()} on any thread.
+     *
+     * @param project
+     *            A BlackBerry project
+     * @param bufferConsoleOutput
+     *            <code>true</code> if the console output should be kept until {@link #flushConsoleOutput()} is called
+     * @return the prepared instance or <code>null</code> if the project should not be packaged
+     * @throws CoreException
+     */
+    static PackagingManager prepareProject( BlackBerryProject project, boolean bufferConsoleOutput ) throws CoreException {
+        PackagingManager packagingManage = new PackagingManager( project );
+        if( bufferConsoleOutput ) {
+            packagingManage._consoleBuffer = new StringBuffer();
+        }
+        return packagingManage.preparePackaging() ? packagingManage : null;
+    }
+
+    /**
+     * Runs the rapc command prepared by {@link #prepareProject(BlackBerryProject, boolean)}. No workspace change is made except
+     * the problem markers reported by rapc.
+     *
+     * @throws CoreException
+     */
+    void runRapc() throws CoreException {
+        runRapcCommand();
+    }
+
+    /**
+     * Runs the post packaging steps after {@link #runRapc()} has finished. This must be called on the thread which prepared the
+     * packaging.
+     *
+     * @throws CoreException
+     */
+    void finishPackaging() throws CoreException {
+        postPackagingProcess( _bbProject );
+    }
+
+    /**
+     * Prints the buffered console output to the packaging console as one block.
+     */
+    void flushConsoleOutput() {
+        if( _consoleBuffer != null && _consoleBuffer.length() > 0 ) {
+            _consoleOutputStream.print( _consoleBuffer.toString() );
+            _consoleBuffer.setLength( 0 );
+        }
+    }
+
+    private void consolePrintln( String line ) {
+        if( _consoleBuffer != null ) {
+            _consoleBuffer.append( line ).append( IConstants.NEWLINE );
+        } else {
+            _consoleOutputStream.println( line );
+        }
     }
 
     /**
@@ -196,13 +255,13 @@ public class PackagingManager {
         outputFolder.refreshLocal( IResource.DEPTH_ONE, new NullProgressMonitor() );
     }
 
-    private void internalPackageProject() throws CoreException {
+    private boolean preparePackaging() throws CoreException {
         final BlackBerrySDKInstall bbVM = PackagingUtils.getBBSDKInstall( _bbProject.getJavaProject() );
         if( bbVM == null ) {
             String msg = NLS.bind( Messages.PackagingManager_PACKAGING_NO_BB_JRE_MSG, _bbProject.getProject().getName() );
             reportProblem( _bbProject.getProject(), -1, 0, 0, msg, Problem.ERROR );
             _log.error( msg );
-            return;
+            return false;
         }
         // clean the deployment folders
         try {
@@ -221,16 +280,12 @@ public class PackagingManager {
                     outputFolderPath ), e );
         }
 
+        // write the preprocessed files which are only kept in memory for the java compiler
+        PreprocessedContentStore.getInstance().materialize( eclipseProject, new NullProgressMonitor() );
         // calculate rapc commands
         calculateRAPCCommand();
         // check if the project should be packaged
-        if( !shouldPackage() ) {
-            return;
-        }
-        // run rapc command
-        runRapcCommand();
-        // post packaging steps
-        postPackagingProcess( _bbProject );
+        return shouldPackage();
     }
 
     private void postPackagingProcess( BlackBerryProject BBProject ) throws CoreException {
@@ -410,6 +465,7 @@ public class PackagingManager {
     }
 
     private void runRapcCommand() throws CoreException {
+        Process process = null;
         try {
             File workDir = _bbProject.getProject().getLocation().toFile();
             if( writeToFile ) {
@@ -443,27 +499,30 @@ public class PackagingManager {
             rapcBuilder.directory( workDir );
             rapcBuilder.redirectErrorStream( true );
             long startTime = System.currentTimeMillis();
-            _consoleOutputStream.println( NLS.bind( Messages.PackagingManager_PACKAGING_PROJECT_MSG, _bbProject.getProject()
-                    .getName() ) );
-            _consoleOutputStream.println( command );
-            Process process = rapcBuilder.start();
+            consolePrintln( NLS.bind( Messages.PackagingManager_PACKAGING_PROJECT_MSG, _bbProject.getProject().getName() ) );
+            consolePrintln( command );
+            process = rapcBuilder.start();
             InputStream inStream = process.getInputStream();
             InputStreamHandler inputHandler = new InputStreamHandler( _bbProject.getProject(), _consoleOutputStream, inStream );
+            inputHandler._consoleBuffer = _consoleBuffer;
             inputHandler.start();
             int result = process.waitFor();
             inputHandler.join();
             float spendTime = ( (float) ( System.currentTimeMillis() - startTime ) ) / 1000;
             if( result == 0 ) {
 
-                _consoleOutputStream.println( NLS.bind( Messages.PackagingManager_PACKAGING_SUCCEED_MSG, new String[] {
+                consolePrintln( NLS.bind( Messages.PackagingManager_PACKAGING_SUCCEED_MSG, new String[] {
                         _bbProject.getProject().getName(), String.valueOf( spendTime ) } ) );
             } else {
-                _consoleOutputStream.println( NLS.bind( Messages.PackagingManager_PACKAGING_FAILED_MSG, new String[] {
+                consolePrintln( NLS.bind( Messages.PackagingManager_PACKAGING_FAILED_MSG, new String[] {
                         _bbProject.getProject().getName(), String.valueOf( spendTime ) } ) );
             }
         } catch( IOException e ) {
             throw new CoreException( StatusFactory.createErrorStatus( e.getMessage() ) );
         } catch( InterruptedException e ) {
+            // packaging has been canceled, do not leave rapc running
+            process.destroy();
+            Thread.currentThread().interrupt();
             throw new CoreException( StatusFactory.createErrorStatus( e.getMessage() ) );
         }
     }
@@ -535,7 +594,7 @@ public class PackagingManager {
         }
 
         // get compile options
-        _compileOptions = getCompileOptions();
+        _compileOptions = getCompileOptions( _bbProject );
         // add compile options
         if( _compileOptions.size() > 0 ) {
             _rapcCommandsHead.addAll( _compileOptions );
@@ -557,7 +616,7 @@ public class PackagingManager {
             _rapcCommandsHead.add( rapcComandBuffer.toString() );
         }
         // get protection options
-        _protectionOptions = getProtectionOptions( false );
+        _protectionOptions = getProtectionOptions( _bbProject, false );
         // add imports
         rapcComandBuffer = new StringBuffer();
         writeToFile = ( _imports.size() + _protectionOptions.size() ) > MAX_COMMAND_ELEMENTS;
@@ -951,16 +1010,25 @@ public class PackagingManager {
         return -1;
     }
 
+    /**
+     * Gets the BlackBerry JRE whose rapc is used to package the given <code>bbProject</code>.
+     *
+     * @param bbProject
+     * @return
+     * @throws CoreException
+     */
+    static IVMInstall getPackagingVM( BlackBerryProject bbProject ) throws CoreException {
+        if( bbProject.getProject().hasNature( BlackBerryProjectCoreNature.NATURE_ID ) ) {
+            return JavaRuntime.getVMInstall( bbProject );
+        }
+        // for java proejct, we use the default BB jre
+        return VMUtils.getDefaultBBVM();
+    }
+
     private String getRAPCPath() {
         String rapcPath = IConstants.EMPTY_STRING;
         try {
-            IVMInstall vm = null;
-            if( _bbProject.getProject().hasNature( BlackBerryProjectCoreNature.NATURE_ID ) ) {
-                vm = JavaRuntime.getVMInstall( _bbProject );
-            } else {
-                // for java proejct, we use the default BB jre
-                vm = VMUtils.getDefaultBBVM();
-            }
+            IVMInstall vm = getPackagingVM( _bbProject );
             if( vm != null ) {
                 File vmLocation = vm.getInstallLocation();
                 IPath vmPath = new Path( vmLocation.getPath() );
@@ -988,9 +1056,9 @@ public class PackagingManager {
         return rapcPath;
     }
 
-    private Vector< String > getCompileOptions() {
+    static Vector< String > getCompileOptions( BlackBerryProject bbProject ) {
         Vector< String > options = new Vector< String >();
-        BlackBerryProperties properties = _bbProject.getProperties();
+        BlackBerryProperties properties = bbProject.getProperties();
         // TODO java home
         // get options from the compile section
         if( properties._compile.getCompressResources().booleanValue() ) {
@@ -1014,7 +1082,7 @@ public class PackagingManager {
         InternalPackagingUtils.addOtherOptions( options, properties );
         // add codename
         int projectType = getProjectTypeID( properties._application.getType() );
-        String outputFileName = PackagingUtils.getRelativeStandardOutputFilePath( _bbProject ).toOSString();
+        String outputFileName = PackagingUtils.getRelativeStandardOutputFilePath( bbProject ).toOSString();
         if( projectType == Project.LIBRARY ) {
             options.addElement( "library=" + outputFileName );
         } else {
@@ -1034,81 +1102,7 @@ public class PackagingManager {
      * @return
      */
     static public int getJarFileType( File f ) {
-        int type = 0x0;
-        if( !f.exists() ) {
-            return type;
-        }
-        java.util.jar.JarFile jar = null;
-        try {
-            jar = new java.util.jar.JarFile( f, false );
-            java.util.jar.Manifest manifest = jar.getManifest();
-            if( manifest != null ) {
-                java.util.jar.Attributes attributes = manifest.getMainAttributes();
-                String profile = attributes.getValue( "MicroEdition-Profile" );
-                if( profile != null ) {
-                    if( "MIDP-1.0".equals( profile ) || "MIDP-2.0".equals( profile ) ) {
-                        type = type | MIDLET_JAR;
-                    }
-                }
-            }
-            Enumeration< JarEntry > entries = jar.entries();
-            JarEntry entry;
-            String entryName;
-            InputStream is = null;
-            IClassFileReader classFileReader = null;
-            // check the attribute of the class files in the jar file
-            for( ; entries.hasMoreElements(); ) {
-                entry = entries.nextElement();
-                entryName = entry.getName();
-                if( entryName.endsWith( IConstants.CLASS_FILE_EXTENSION_WITH_DOT ) ) {
-                    is = jar.getInputStream( entry );
-                    classFileReader = ToolFactory.createDefaultClassFileReader( is, IClassFileReader.ALL );
-                    if( isEvisceratedClass( classFileReader ) ) {
-                        type = type | EVISCERATED_JAR;
-                        break;
-                    }
-                }
-            }
-        } catch( IOException e ) {
-            _log.error( e.getMessage() );
-        } finally {
-            try {
-                if( jar != null ) {
-                    jar.close();
-                }
-            } catch( IOException e ) {
-                _log.error( e.getMessage() );
-            }
-        }
-        return type;
-    }
-
-    /**
-     * Verify if the given <code>classFileReader</code> has code attributes.
-     *
-     * @param classFileReader
-     * @return
-     */
-    static private boolean isEvisceratedClass( IClassFileReader classFileReader ) {
-        // ignore interface classes
-        if( !classFileReader.isClass() ) {
-            return false;
-        }
-        IMethodInfo[] methodInfos = classFileReader.getMethodInfos();
-        if( methodInfos == null ) {
-            return false;
-        }
-        for( int i = 0; i < methodInfos.length; i++ ) {
-            // Ignore <init>, <clinit> and abstract methods
-            if( "<init>".equalsIgnoreCase( String.valueOf( methodInfos[ i ].getName() ) ) || methodInfos[ i ].isClinit()
-                    || ( methodInfos[ i ].getAccessFlags() & IModifierConstants.ACC_ABSTRACT ) != 0 ) {
-                continue;
-            }
-            if( methodInfos[ i ].getCodeAttribute() == null ) {
-                return true;
-            }
-        }
-        return false;
+        return JarTypeCache.getInstance().getType( f );
     }
 
     public static void reportProblem( IResource resource, int line, int start, int end, String msg, int level ) {
@@ -1143,11 +1137,11 @@ public class PackagingManager {
         }
     }
 
-    private Vector< String > getProtectionOptions( boolean forMakefile ) {
+    static Vector< String > getProtectionOptions( BlackBerryProject bbProject, boolean forMakefile ) {
         Vector< String > v = new Vector< String >();
         Hashtable< String, String > classProtection, packageProtection;
-        classProtection = _bbProject.getProperties()._hiddenProperties.getClassProtection();
-        packageProtection = _bbProject.getProperties()._hiddenProperties.getPackageProtection();
+        classProtection = bbProject.getProperties()._hiddenProperties.getClassProtection();
+        packageProtection = bbProject.getProperties()._hiddenProperties.getPackageProtection();
         Object keys[] = packageProtection.keySet().toArray();
         for( int i = 0; i < keys.length; ++i ) {
             v.addElement( "package:" + Util.doubleDollar( keys[ i ].toString() ) + "="
@@ -1166,7 +1160,7 @@ public class PackagingManager {
         return v;
     }
 
-    private String stripPath( Object f ) {
+    static private String stripPath( Object f ) {
         return new File( f.toString() ).getName();
     }
 
@@ -1268,36 +1262,15 @@ public class PackagingManager {
      *
      */
     static public class InputStreamHandler extends Thread {
+        // the problems are turned into markers in batches of this size while rapc is still running
+        private static final int MARKER_BATCH_SIZE = 64;
         private InputStream _stream;
         private MessageConsoleStream _consoleStream;
+        // set if the output is collected instead of being printed right away
+        StringBuffer _consoleBuffer;
         private IProject _project;
-
-        /**
-         * Regular expression to match an error line pattern. These lines are usually in the form file:line:msg
-         */
-        private static final Pattern javaErrorStartPattern = Pattern.compile( ".*\\.java:\\d+:\\s\\S.*" );
-        private static final Pattern rapcErrorStartPattern = Pattern.compile( "[Ee]rror.*" );
-        private static final Pattern rapcErrorStartPattern2 = Pattern.compile( ".*[Ee]rror!.*" );
-        /**
-         * Regular expression to match a symbol error. This typically looks like symbol : <missing symbol>
-         */
-        private static final Pattern errorSymbolPattern = Pattern.compile( "^symbol\\s*:\\s\\S.*" );
-
-        private static final Pattern errorLocationPattern = Pattern.compile( "^location\\s*:\\s\\S.*$" );
-
-        private static final Pattern errorSourcePattern = Pattern.compile( "^\\s+\\S.*$" );
-
-        private static final Pattern errorSourceLocationPattern = Pattern.compile( "^\\s*\\^\\s*$" );
-
-        /**
-         * Regular expression to match a warning line pattern. These lines are usually in the form file:line: Warning!: msg
-         */
-        private static final Pattern javaWarningStartPattern = Pattern.compile( ".*\\.java:\\d+:\\s[Ww]arning.*" );
-
-        private static final Pattern errorLineNumberPattern = Pattern.compile( ":\\d+:" );
-
-        private static final Pattern rapcWarningStartPattern = Pattern.compile( "[Ww]arning.*" );
-        private static final Pattern rapcWarningStartPattern2 = Pattern.compile( ".*[Ww]arning!.*" );
+        // the resources of the files problems have been reported for
+        private Map< String, IResource > _resources = new HashMap< String, IResource >();
 
         /**
          * @param captureBuffer
@@ -1317,11 +1290,7 @@ public class PackagingManager {
         @Override
         public void run() {
             try {
-                /*
-                 * List of queued problems to submit. This is a stack, because it is useful to get the problem just added to add
-                 * additional info to it.
-                 */
-                Stack< Problem > problems = new Stack< Problem >();
+                List< Problem > problems = new ArrayList< Problem >();
                 InputStreamReader isr = new InputStreamReader( _stream );
                 BufferedReader br = new BufferedReader( isr );
                 while( true ) {
@@ -1330,11 +1299,21 @@ public class PackagingManager {
                         break;
                     }
                     try {
-                        parse( line, problems );
+                        Problem problem = RapcOutputParser.parse( line );
+                        if( problem != null ) {
+                            problems.add( problem );
+                            if( problems.size() >= MARKER_BATCH_SIZE ) {
+                                reportProblems( problems );
+                            }
+                        }
                     } catch( RuntimeException e ) {
                         _log.error( e.getMessage(), e );
                     }
-                    _consoleStream.println( line );
+                    if( _consoleBuffer != null ) {
+                        _consoleBuffer.append( line ).append( IConstants.NEWLINE );
+                    } else {
+                        _consoleStream.println( line );
+                    }
                 }
                 _stream.close();
                 reportProblems( problems );
@@ -1343,9 +1322,23 @@ public class PackagingManager {
             }
         }
 
-        private void reportProblems( Stack< Problem > problems ) {
-            for( Problem problem : problems ) {
-                reportProblem( problem );
+        /**
+         * Creates the markers of the given problems in one workspace operation.
+         */
+        private void reportProblems( final List< Problem > problems ) {
+            if( problems.isEmpty() ) {
+                return;
+            }
+            try {
+                ResourcesPlugin.getWorkspace().run( new IWorkspaceRunnable() {
+                    public void run( IProgressMonitor monitor ) {
+                        for( Problem problem : problems ) {
+                            reportProblem( problem );
+                        }
+                    }
+                }, null, IWorkspace.AVOID_UPDATE, null );
+            } catch( CoreException e ) {
+                _log.error( e.getMessage(), e );
             }
             problems.clear();
         }
@@ -1354,8 +1347,13 @@ public class PackagingManager {
             _log.trace( "reporting problem " + problem.file + " at " + problem.line + " about " + problem.msg );
             IResource resource = null;
             if( problem.file != null ) {
-                IPath problemFileLocation = new Path( problem.file );
-                resource = ProjectUtils.getResource( _project, problemFileLocation.toFile() );
+                if( _resources.containsKey( problem.file ) ) {
+                    resource = _resources.get( problem.file );
+                } else {
+                    IPath problemFileLocation = new Path( problem.file );
+                    resource = ProjectUtils.getResource( _project, problemFileLocation.toFile() );
+                    _resources.put( problem.file, resource );
+                }
             } else {
                 resource = _project;
             }
@@ -1364,232 +1362,6 @@ public class PackagingManager {
                 PackagingManager.reportProblem( resource, problem.line, problem.start, problem.end, problem.msg, problem.level );
             }
         }
-
-        /**
-         * Takes a string and delegates it based on the pattern of it.
-         *
-         * @param s
-         */
-        protected void parse( String s, Stack< Problem > problems ) {
-            if( javaWarningStartPattern.matcher( s ).matches() ) {
-                parseJavaWarningStart( s, problems );
-            } else if( rapcWarningStartPattern.matcher( s ).matches() || rapcWarningStartPattern2.matcher( s ).matches() ) {
-                parseRAPCWarningStart( s, problems );
-            } else if( javaErrorStartPattern.matcher( s ).matches() ) {
-                parseJavaErrorString( s, problems );
-            } else if( rapcErrorStartPattern.matcher( s ).matches() || rapcErrorStartPattern2.matcher( s ).matches() ) {
-                parseRAPCErrorStart( s, problems );
-            }
-        }
-
-        /**
-         * Parses an error generated by RAPC.
-         */
-        private void parseRAPCErrorStart( String s, Stack< Problem > problems ) {
-            // For example:
-            // Error!: Error: java compiler failed:
-            // C:\Java\jdk1.6.0_01\bin\javac.exe -source 1.3
-            // -target 1.1 -g -O -d C:\DOCUME~1\zqiu\LOCALS~1\Temp\r ...
-
-            Matcher m = rapcErrorStartPattern.matcher( s );
-            if( !m.find() ) {
-                m = rapcErrorStartPattern2.matcher( s );
-                if( !m.find() ) {
-                    _log.error( "Failed to parse RAPC error message: " + s );
-                    return;
-                }
-            }
-
-            Problem problem = new Problem();
-            problem.msg = s;
-            problem.level = Problem.ERROR;
-
-            problems.add( problem );
-        }
-
-        /**
-         * Parses an error start. An error start has the file name, line number, and message. Subsequent lines will hold more
-         * information about the specific error.
-         */
-        private void parseRAPCWarningStart( String s, Stack< Problem > problems ) {
-            // For example:
-            // Warning!: Reference to class: net.rim.device.api.io.File requires
-            // signing
-            // with key: RIM Runtime API
-
-            Matcher m = rapcWarningStartPattern.matcher( s );
-            if( !m.find() ) {
-                m = rapcWarningStartPattern2.matcher( s );
-                if( !m.find() ) {
-                    _log.error( "Failed to parse RAPC warning message: " + s );
-                    return;
-                }
-            }
-
-            Problem problem = new Problem();
-            problem.msg = s;
-            problem.level = Problem.WARNING;
-
-            problems.add( problem );
-        }
-
-        /**
-         * Parses an error start. An error start has the file name, line number, and message. Subsequent lines will hold more
-         * information about the specific error.
-         */
-        private void parseJavaWarningStart( String s, Stack< Problem > problems ) {
-            // For example:
-            // C:\samples\com\rim\samples\device\tictactoe\TTTService.java:10:
-            // package net.rim.blackberry.api.blackberrymessenger does not exist
-
-            int firstColon, secondColon;
-
-            Matcher m = errorLineNumberPattern.matcher( s );
-            if( m.find() ) {
-                firstColon = m.start();
-                secondColon = m.end() - 1;
-            } else {
-                _log.warn( "Faling back to old way of doing things..." );
-                secondColon = s.lastIndexOf( ':' );
-                firstColon = s.lastIndexOf( ':', secondColon - 1 );
-            }
-
-            Problem problem = new Problem();
-            problem.file = s.substring( 0, firstColon ).trim();
-            problem.line = Integer.parseInt( s.substring( firstColon + 1, secondColon ) );
-            problem.msg = s.substring( secondColon + 1 ).trim();
-            problem.level = Problem.WARNING;
-
-            problems.add( problem );
-        }
-
-        /* Keep track of state for parse() automaton */
-        private int parseState;
-
-        /**
-         * Takes a string and delegates it based on the pattern of it.
-         *
-         * @param s
-         */
-        private void parseJavaErrorString( String s, Stack< Problem > problems ) {
-            _log.trace( "Parsing " + s );
-            if( javaErrorStartPattern.matcher( s ).matches() ) {
-                // Some warnings appear on stderr for some reason...
-                // For example:
-                // C:\samples\com\rim\samples\device\syncdemo\SyncDemo.java:288:
-                // warning: [deprecation] getScreenWidth() in
-                // net.rim.device.api.ui.Graphics has been deprecated
-                if( javaWarningStartPattern.matcher( s ).matches() ) {
-                    parseJavaWarningStart( s, problems );
-                } else {
-                    parseErrorStart( s, problems );
-                }
-                parseState = 0;
-            } else if( ( parseState == 0 ) && errorSymbolPattern.matcher( s ).matches() ) {
-                parseErrorSymbol( s, problems );
-                parseState = 1;
-            } else if( ( parseState == 1 ) && errorLocationPattern.matcher( s ).matches() ) {
-                // Optional "location:*" line. Only occurs for stuff in inner
-                // classes or methods.
-            } else if( ( parseState == 1 ) && errorSourcePattern.matcher( s ).matches() ) {
-                parseErrorSource( s, problems );
-                parseState = 2;
-            } else if( ( parseState == 2 ) && errorSourceLocationPattern.matcher( s ).matches() ) {
-                parseErrorLocation( s, problems );
-                parseState = 3;
-            }
-        }
-
-        /**
-         * Parses an error start. An error start has the file name, line number, and message. Subsequent lines will hold more
-         * information about the specific error.
-         */
-        private void parseErrorStart( String s, Stack< Problem > problems ) {
-            // For example:
-            // C:\samples\com\rim\samples\device\tictactoe\TTTService.java:10:
-            // package net.rim.blackberry.api.blackberrymessenger does not exist
-
-            int firstColon, secondColon;
-
-            Matcher m = errorLineNumberPattern.matcher( s );
-            if( m.find() ) {
-                firstColon = m.start();
-                secondColon = m.end() - 1;
-            } else {
-                _log.warn( "Faling back to old way of doing things..." );
-                secondColon = s.lastIndexOf( ':' );
-                firstColon = s.lastIndexOf( ':', secondColon - 1 );
-            }
-
-            Problem problem = new Problem();
-            problem.file = s.substring( 0, firstColon ).trim();
-            problem.line = Integer.parseInt( s.substring( firstColon + 1, secondColon ) );
-            problem.msg = s.substring( secondColon + 1 ).trim();
-            problem.level = Problem.ERROR;
-
-            problems.add( problem );
-        }
-
-        /**
-         * This parses the line associated with a "cannot find symbol" error. Following such an error, rapc will output the undef
-         * symbol.
-         *
-         * @param s
-         */
-        private void parseErrorSymbol( String s, Stack< Problem > problems ) {
-            // For example:
-            // C:\samples\com\rim\samples\device\tictactoe\TTTRequestListener.java
-            // :28: cannot find symbol
-            // symbol : class Session
-
-            try {
-                int colon = s.indexOf( ":" );
-                Problem problem = problems.peek();
-                if( ( problem.msg != null ) && problem.msg.equals( "cannot find symbol" ) ) {
-                    problem.msg += " " + s.substring( colon ).trim();
-                }
-            } catch( EmptyStackException e ) {
-                _log.error( e.getMessage(), e );
-            }
-        }
-
-        private void parseErrorLocation( String s, Stack< Problem > problems ) {
-            try {
-                Problem problem = problems.peek();
-                if( problem != null ) {
-                    problem.start = s.indexOf( '^' );
-
-                    String source = problem.source;
-                    int sourceLength = source.length();
-                    for( int i = problem.start; i < sourceLength; i++ ) {
-                        char c = source.charAt( i );
-
-                        // All valid characters that can go into java
-                        // identifiers.
-                        if( ( ( c > 96 ) && ( c < 123 ) ) || ( ( c > 64 ) && ( c < 91 ) ) || ( ( c > 47 ) && ( c < 58 ) )
-                                || ( c == 36 ) || ( c == 95 ) ) {
-                            // Do Nothing
-                        } else {
-                            problem.end = i + 1;
-                            break;
-                        }
-                    }
-                }
-            } catch( EmptyStackException e ) {
-                _log.error( e.getMessage(), e );
-            }
-        }
-
-        private void parseErrorSource( String s, Stack< Problem > problems ) {
-            try {
-                Problem problem = problems.peek();
-                if( problem != null ) {
-                    problem.source = s;
-                }
-            } catch( EmptyStackException e ) {
-                _log.error( e.getMessage(), e );
-            }
-        }
     }
 
     /**
@@ -1605,10 +1377,27 @@ public class PackagingManager {
         String msg;
         int level;
 
-        String source;
         int start = -1;
         int end = -1;
 
+        /**
+         * Gets the file reported by a java problem.
+         *
+         * @return the file or <code>null</code> if the problem has been reported by rapc
+         */
+        public String getFile() {
+            return file;
+        }
+
+        /**
+         * Gets the line reported by a java problem.
+         *
+         * @return
+         */
+        public int getLine() {
+            return line;
+        }
+
         @Override
         public String toString() {
             return "Problem[file=" + file + ";line=" + line + ";msg=" + msg + ";level=" + level + ";]";
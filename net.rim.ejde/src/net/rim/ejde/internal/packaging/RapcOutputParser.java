@@ -0,0 +1,160 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.packaging;
+
+import net.rim.ejde.internal.packaging.PackagingManager.Problem;
+
+/**
+ * Recognizes the problems in the output of rapc. Every line is scanned once by hand instead of being matched against a list of
+ * regular expressions. The following line shapes are recognized, in this order:
+ *
+ * <pre>
+ * JAVA_WARNING   &lt;file&gt;.java:&lt;line&gt;: [Ww]arning...
+ * RAPC_WARNING   [Ww]arning... or ...[Ww]arning!...
+ * JAVA_ERROR     &lt;file&gt;.java:&lt;line&gt;: &lt;message&gt;
+ * RAPC_ERROR     [Ee]rror... or ...[Ee]rror!...
+ * </pre>
+ *
+ * All other lines, e.g. progress messages or the source lines printed by javac below an error, are of kind OTHER.
+ */
+public class RapcOutputParser {
+    private static final String JAVA_LOCATION = ".java:"; //$NON-NLS-1$
+    private static final String ARNING = "arning"; //$NON-NLS-1$
+    private static final String RROR = "rror"; //$NON-NLS-1$
+
+    /**
+     * The kinds of rapc output lines.
+     */
+    public static enum LineKind {
+        JAVA_WARNING, RAPC_WARNING, JAVA_ERROR, RAPC_ERROR, OTHER
+    }
+
+    private RapcOutputParser() {
+    }
+
+    /**
+     * Gets the kind of the given rapc output <code>line</code>.
+     *
+     * @param line
+     * @return
+     */
+    public static LineKind classify( String line ) {
+        int length = line.length();
+        boolean javaError = false;
+        for( int i = line.indexOf( JAVA_LOCATION ); i >= 0; i = line.indexOf( JAVA_LOCATION, i + 1 ) ) {
+            int digits = i + JAVA_LOCATION.length();
+            int colon = skipDigits( line, digits );
+            if( colon == digits || colon + 2 >= length || line.charAt( colon ) != ':'
+                    || !isWhitespace( line.charAt( colon + 1 ) ) ) {
+                continue;
+            }
+            char c = line.charAt( colon + 2 );
+            if( ( c == 'W' || c == 'w' ) && line.startsWith( ARNING, colon + 3 ) ) {
+                return LineKind.JAVA_WARNING;
+            }
+            javaError |= !isWhitespace( c );
+        }
+        if( startsWith( line, 'W', 'w', ARNING ) || contains( line, 'W', 'w', ARNING ) ) {
+            return LineKind.RAPC_WARNING;
+        }
+        if( javaError ) {
+            return LineKind.JAVA_ERROR;
+        }
+        if( startsWith( line, 'E', 'e', RROR ) || contains( line, 'E', 'e', RROR ) ) {
+            return LineKind.RAPC_ERROR;
+        }
+        return LineKind.OTHER;
+    }
+
+    /**
+     * Parses the given rapc output <code>line</code>.
+     *
+     * @param line
+     * @return the problem reported by the line or <code>null</code> if the line does not report a problem
+     */
+    public static Problem parse( String line ) {
+        switch( classify( line ) ) {
+            case JAVA_WARNING:
+                return parseJavaProblem( line, Problem.WARNING );
+            case JAVA_ERROR:
+                return parseJavaProblem( line, Problem.ERROR );
+            case RAPC_WARNING:
+                return createProblem( line, Problem.WARNING );
+            case RAPC_ERROR:
+                return createProblem( line, Problem.ERROR );
+            default:
+                return null;
+        }
+    }
+
+    private static Problem createProblem( String line, int level ) {
+        // For example:
+        // Warning!: Reference to class: net.rim.device.api.io.File requires signing with key: RIM Runtime API
+        Problem problem = new Problem();
+        problem.msg = line;
+        problem.level = level;
+        return problem;
+    }
+
+    private static Problem parseJavaProblem( String line, int level ) {
+        // For example:
+        // C:\samples\com\rim\samples\device\tictactoe\TTTService.java:10: package net.rim.blackberry.api.blackberrymessenger does
+        // not exist
+        // the file name ends at the first :<line>:, there is at least the one following .java
+        for( int firstColon = line.indexOf( ':' ); firstColon >= 0; firstColon = line.indexOf( ':', firstColon + 1 ) ) {
+            int secondColon = skipDigits( line, firstColon + 1 );
+            if( secondColon == firstColon + 1 || secondColon >= line.length() || line.charAt( secondColon ) != ':' ) {
+                continue;
+            }
+            Problem problem = new Problem();
+            problem.file = line.substring( 0, firstColon ).trim();
+            try {
+                problem.line = Integer.parseInt( line.substring( firstColon + 1, secondColon ) );
+            } catch( NumberFormatException e ) {
+                return null;
+            }
+            problem.msg = line.substring( secondColon + 1 ).trim();
+            problem.level = level;
+            return problem;
+        }
+        return null;
+    }
+
+    private static int skipDigits( String line, int index ) {
+        int length = line.length();
+        while( index < length && line.charAt( index ) >= '0' && line.charAt( index ) <= '9' ) {
+            index++;
+        }
+        return index;
+    }
+
+    // the white space characters of a regular expression, i.e. [ \t\n\x0B\f\r]
+    private static boolean isWhitespace( char c ) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // checks if the line starts with the given word whose first character may be upper or lower case
+    private static boolean startsWith( String line, char upper, char lower, String rest ) {
+        return line.length() > 0 && ( line.charAt( 0 ) == upper || line.charAt( 0 ) == lower ) && line.startsWith( rest, 1 );
+    }
+
+    // checks if the line contains the given word followed by an exclamation mark
+    private static boolean contains( String line, char upper, char lower, String rest ) {
+        int length = rest.length();
+        for( int i = line.indexOf( rest ); i >= 0; i = line.indexOf( rest, i + 1 ) ) {
+            if( i > 0 && ( line.charAt( i - 1 ) == upper || line.charAt( i - 1 ) == lower ) && i + length < line.length()
+                    && line.charAt( i + length ) == '!' ) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
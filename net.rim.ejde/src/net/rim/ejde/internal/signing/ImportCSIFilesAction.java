@@ -166,6 +166,8 @@ public class ImportCSIFilesAction implements IWorkbenchWindowActionDelegate {
                 System.out.println( buffer );
             }
             process = null;
+            // the cod files signed with the previous keys have to be signed again
+            SigningManifest.getInstance().clear();
         } catch( IOException e ) {
             e.printStackTrace();
         }
@@ -45,6 +45,8 @@ public class ImportSignKeysAction implements IWorkbenchWindowActionDelegate {
             ArrayList< File > oldKeyFiles = oldKeyDialog.search();
             if( oldKeyFiles != null ) {
                 oldKeyDialog.copyFileIntoSignToolDir( oldKeyFiles );
+                // the cod files signed with the previous keys have to be signed again
+                SigningManifest.getInstance().clear();
                 MessageDialog dialog = new MessageDialog( ContextManager.getActiveWorkbenchShell(),
                         Messages.CodeSigningPrefsPage_MessageDialogTitle1, null, Messages.CodeSigningPrefsPage_MessageDialogMsg1,
                         MessageDialog.INFORMATION, new String[] { IDialogConstants.OK_LABEL }, 0 );
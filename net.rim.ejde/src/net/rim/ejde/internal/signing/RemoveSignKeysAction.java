@@ -67,6 +67,7 @@ public class RemoveSignKeysAction implements IWorkbenchWindowActionDelegate {
                         + IConstants.UNDERSCORE_STRING + System.currentTimeMillis() ) );
             }
             if( ( !cskFile.exists() ) && ( !dbFile.exists() ) ) {
+                SigningManifest.getInstance().clear();
                 MessageDialog dialog = new MessageDialog( ContextManager.getActiveWorkbenchShell(),
                         Messages.CodeSigningPrefsPage_MessageDialogTitle3, null, Messages.CodeSigningPrefsPage_MessageDialogMsg5
                                 + Messages.CodeSigningPrefsPage_MessageDialogMsg6, MessageDialog.INFORMATION,
@@ -16,10 +16,13 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,7 +43,6 @@ import net.rim.ejde.internal.util.ResourceBuilderUtils;
 import net.rim.ejde.internal.util.VMToolsUtils;
 import net.rim.ejde.internal.util.VMUtils;
 import net.rim.ejde.internal.util.WindowsRegistryReader;
-import net.rim.ide.core.Util;
 
 import org.apache.log4j.Logger;
 import org.eclipse.core.resources.IMarker;
@@ -66,11 +68,15 @@ import org.eclipse.ui.dialogs.PreferencesUtil;
 public class SignatureToolLaunchAction {
     private static Logger log = Logger.getLogger( SignatureToolLaunchAction.class );
     Pattern _pattern = Pattern.compile( "Signing of files is complete.:(\\d+)/(\\d+)" );
+    // how often a waiting packaging job checks if it has been canceled
+    private static final long CANCEL_CHECK_INTERVAL = 200;
 
     /**
      * Pointer to process if the signature tool is running
      */
-    private static Process _process;
+    private static volatile Process _process;
+    // set when the packaging job waiting for the signature tool has been canceled
+    private static volatile boolean _canceled;
     private String _sigToolPath, _password;
     private boolean _runSilent;
     private IStatus _status;
@@ -85,17 +91,22 @@ public class SignatureToolLaunchAction {
     /**
      * Signs the cod file of the BlackBerry projects in the given <code>projects</code>.
      *
-     * @param action
      * @param projects
+     * @param force
+     *            <code>true</code> to sign all cod files, <code>false</code> to skip the files which have not changed since they
+     *            have been signed
+     * @param monitor
      */
-    public static boolean signCodFiles( final Set< BlackBerryProject > projects, final IProgressMonitor monitor ) {
+    public static boolean signCodFiles( final Set< BlackBerryProject > projects, boolean force,
+            final IProgressMonitor monitor ) {
         try {
             ResourceBuilderUtils.cleanProblemMarkers( ResourcesPlugin.getWorkspace().getRoot(),
                     new String[] { IRIMMarker.SIGNATURE_TOOL_PROBLEM_MARKER }, IResource.DEPTH_ZERO );
         } catch( CoreException e ) {
             log.error( e.getMessage() );
         }
-        CodeSigningRunnable runnable = new CodeSigningRunnable( projects );
+        _canceled = false;
+        CodeSigningRunnable runnable = new CodeSigningRunnable( projects, force );
         new Thread( runnable ).start();
         return runnable.waitForSigningToFinish( monitor );
     }
@@ -155,18 +166,29 @@ public class SignatureToolLaunchAction {
 
     static class CodeSigningRunnable implements Runnable {
         private Set< BlackBerryProject > _targetProjects;
-        private boolean _running = true;
+        private boolean _force;
+        // counted down when the signing has finished
+        private final CountDownLatch _finished = new CountDownLatch( 1 );
         private boolean _succesful;
 
-        public CodeSigningRunnable( Set< BlackBerryProject > projects ) {
+        public CodeSigningRunnable( Set< BlackBerryProject > projects, boolean force ) {
             _targetProjects = projects;
+            _force = force;
         }
 
         @Override
         public void run() {
             try {
                 _succesful = true;
-                List< String > codFileList = PackagingUtils.getCodFilePathsFromProjects( _targetProjects );
+                // all cod files of the packaging run are signed by one SignatureTool process, files which have not changed
+                // since they have been signed are skipped unless signing is forced
+                List< String > codFilePaths = PackagingUtils.getCodFilePathsFromProjects( _targetProjects );
+                List< String > codFileList = _force ? new ArrayList< String >( new LinkedHashSet< String >( codFilePaths ) )
+                        : SigningManifest.getInstance().getUnsignedFiles( codFilePaths );
+                if( codFileList.isEmpty() ) {
+                    printSigningSkipped();
+                    return;
+                }
                 IPath sigPath;
                 String sigPathString = IConstants.EMPTY_STRING;
                 sigPath = VMToolsUtils.getSignatureToolPath();
@@ -177,7 +199,6 @@ public class SignatureToolLaunchAction {
                             IMarker.SEVERITY_ERROR );
                     log.error( Messages.SignatureTool_Not_Found_Msg );
                     _succesful = false;
-                    _running = false;
                     return;
                 }
 
@@ -225,27 +246,44 @@ public class SignatureToolLaunchAction {
             } catch( Exception ex ) {
                 log.error( ex );
                 _succesful = false;
+            } finally {
+                _finished.countDown();
             }
-            _running = false;
         }
 
         public boolean isSucceed() {
             return _succesful;
         }
 
-        public synchronized boolean waitForSigningToFinish( IProgressMonitor monitor ) {
-            while( _running ) {
-                Util.sleep( 1000 );
-                if( monitor.isCanceled() ) {
-                    // close simulator tool
-                    if( _process != null ) {
-                        _process.destroy();
+        public boolean waitForSigningToFinish( IProgressMonitor monitor ) {
+            try {
+                while( !_finished.await( CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS ) ) {
+                    if( monitor.isCanceled() ) {
+                        // close simulator tool
+                        _canceled = true;
+                        Process process = _process;
+                        if( process != null ) {
+                            process.destroy();
+                        }
+                        return true;
                     }
-                    return true;
                 }
+            } catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                return false;
             }
             return _succesful;
         }
+
+        private static void printSigningSkipped() {
+            MessageConsoleStream consoleOutputStream = PackagingConsole.getInstance().newMessageStream();
+            consoleOutputStream.println( Messages.SignatureTool_Signing_Skipped_Msg );
+            try {
+                consoleOutputStream.close();
+            } catch( IOException e ) {
+                // do nothing
+            }
+        }
     }
 
     /**
@@ -292,6 +330,9 @@ public class SignatureToolLaunchAction {
         // Run the command
         ProcessBuilder processBuilder = new ProcessBuilder( commands );
         String signedFiles = "0";
+        // only a run which has signed all files is recorded, a file whose signing failed is passed to the next run again
+        boolean signedAll = false;
+        Map< String, String > fingerprints = SigningManifest.getInstance().getFingerprints( codFileList );
         try {
             _consoleOutputStream = PackagingConsole.getInstance().newMessageStream();
             _consoleOutputStream.println( "Signing files: " + codFileList );
@@ -304,6 +345,7 @@ public class SignatureToolLaunchAction {
                 Matcher matcher = _pattern.matcher( buffer );
                 if( matcher.matches() ) {
                     signedFiles = matcher.group( 1 );
+                    signedAll = signedFiles.equals( matcher.group( 2 ) );
                     try {
                         if( Integer.parseInt( signedFiles ) > 0 ) {
                             // at least one file has been signed successful, cache the password
@@ -326,6 +368,10 @@ public class SignatureToolLaunchAction {
         		_consoleOutputStream.println( "Signing completed:" + signedFiles + " files signed." );
         	}
             _process = null;
+            // remember the files which have been signed
+            if( signedAll && !_canceled ) {
+                SigningManifest.getInstance().signingFinished( fingerprints );
+            }
             try {
                 _consoleOutputStream.close();
             } catch( IOException e ) {
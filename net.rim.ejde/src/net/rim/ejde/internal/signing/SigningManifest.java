@@ -0,0 +1,207 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.signing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.rim.ejde.internal.core.ContextManager;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Records the cod files which have been signed by the SignatureTool. The SignatureTool rewrites a cod file when it signs it, so
+ * a file whose size or time stamp has changed during a signing run has been signed. A signed file is not passed to the
+ * SignatureTool again as long as its size and time stamp do not change, i.e. until it is rebuilt.
+ * <p>
+ * The manifest is stored in the state location of the plug-in and written after every signing run which has signed all files
+ * passed to the SignatureTool. It is cleared when the signing keys are imported or removed.
+ */
+public class SigningManifest {
+    private static final Logger _log = Logger.getLogger( SigningManifest.class );
+    private static final String MANIFEST_FILE_NAME = "signing.manifest"; //$NON-NLS-1$
+    private static final String TEMP_EXTENSION = ".tmp"; //$NON-NLS-1$
+    private static final int FORMAT_VERSION = 1;
+
+    private static class SigningManifestHolder {
+        public static SigningManifest signingManifest = new SigningManifest();
+    }
+
+    // the fingerprints of the signed cod files by absolute path
+    private final Map< String, String > _entries = new ConcurrentHashMap< String, String >();
+    private boolean _loaded;
+    private volatile boolean _dirty;
+
+    private SigningManifest() {
+    }
+
+    /**
+     * Singleton getInstance() method.
+     *
+     * @return the unique instance of the class
+     */
+    public static SigningManifest getInstance() {
+        return SigningManifestHolder.signingManifest;
+    }
+
+    private static String getFingerprint( File file ) {
+        return file.isFile() ? file.length() + "@" + file.lastModified() : null; //$NON-NLS-1$
+    }
+
+    /**
+     * Gets the files which have to be signed, i.e. which have not been signed or have changed since. Duplicated paths are
+     * removed.
+     *
+     * @param codFilePaths
+     * @return
+     */
+    public List< String > getUnsignedFiles( Collection< String > codFilePaths ) {
+        load();
+        List< String > unsignedFiles = new ArrayList< String >();
+        for( String path : new LinkedHashSet< String >( codFilePaths ) ) {
+            File file = new File( path );
+            String fingerprint = getFingerprint( file );
+            if( fingerprint == null || !fingerprint.equals( _entries.get( file.getAbsolutePath() ) ) ) {
+                unsignedFiles.add( path );
+            }
+        }
+        return unsignedFiles;
+    }
+
+    /**
+     * Gets the current fingerprints of the given files. Called before the files are passed to the SignatureTool.
+     *
+     * @param codFilePaths
+     * @return
+     */
+    public Map< String, String > getFingerprints( Collection< String > codFilePaths ) {
+        Map< String, String > fingerprints = new HashMap< String, String >();
+        for( String path : codFilePaths ) {
+            fingerprints.put( path, getFingerprint( new File( path ) ) );
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Records the files which have been changed by the SignatureTool as signed and writes the manifest.
+     *
+     * @param fingerprints
+     *            the fingerprints of the files before the SignatureTool has been run
+     */
+    public void signingFinished( Map< String, String > fingerprints ) {
+        load();
+        for( Map.Entry< String, String > entry : fingerprints.entrySet() ) {
+            File file = new File( entry.getKey() );
+            String fingerprint = getFingerprint( file );
+            if( fingerprint != null && !fingerprint.equals( entry.getValue() ) ) {
+                _entries.put( file.getAbsolutePath(), fingerprint );
+                _dirty = true;
+            }
+        }
+        save();
+    }
+
+    /**
+     * Drops all entries so that every cod file is signed again, e.g. because the signing keys have changed.
+     */
+    public synchronized void clear() {
+        _loaded = true;
+        _entries.clear();
+        _dirty = false;
+        File manifestFile = getManifestFile();
+        if( manifestFile.exists() && !manifestFile.delete() ) {
+            _log.debug( "Could not delete signing manifest " + manifestFile ); //$NON-NLS-1$
+        }
+    }
+
+    private File getManifestFile() {
+        return ContextManager.PLUGIN.getStateLocation().append( MANIFEST_FILE_NAME ).toFile();
+    }
+
+    private synchronized void load() {
+        if( _loaded ) {
+            return;
+        }
+        _loaded = true;
+        File manifestFile = getManifestFile();
+        if( !manifestFile.isFile() ) {
+            return;
+        }
+        try {
+            DataInputStream input = new DataInputStream( new BufferedInputStream( new FileInputStream( manifestFile ) ) );
+            try {
+                if( input.readInt() != FORMAT_VERSION ) {
+                    return;
+                }
+                int count = input.readInt();
+                for( int i = 0; i < count; i++ ) {
+                    _entries.put( input.readUTF(), input.readUTF() );
+                }
+            } finally {
+                input.close();
+            }
+        } catch( IOException e ) {
+            _log.debug( "Could not read signing manifest " + manifestFile, e ); //$NON-NLS-1$
+            _entries.clear();
+        }
+    }
+
+    /**
+     * Writes the manifest to the state location of the plug-in if it has changed. Entries of files which no longer exist are
+     * dropped.
+     */
+    public synchronized void save() {
+        if( !_dirty ) {
+            return;
+        }
+        File manifestFile = getManifestFile();
+        File tempFile = new File( manifestFile.getPath() + TEMP_EXTENSION );
+        try {
+            DataOutputStream output = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tempFile ) ) );
+            try {
+                Map< String, String > entries = new HashMap< String, String >();
+                for( Map.Entry< String, String > entry : _entries.entrySet() ) {
+                    if( new File( entry.getKey() ).isFile() ) {
+                        entries.put( entry.getKey(), entry.getValue() );
+                    }
+                }
+                output.writeInt( FORMAT_VERSION );
+                output.writeInt( entries.size() );
+                for( Map.Entry< String, String > entry : entries.entrySet() ) {
+                    output.writeUTF( entry.getKey() );
+                    output.writeUTF( entry.getValue() );
+                }
+            } finally {
+                output.close();
+            }
+            manifestFile.delete();
+            tempFile.renameTo( manifestFile );
+            _dirty = false;
+        } catch( IOException e ) {
+            _log.debug( "Could not write signing manifest " + manifestFile, e ); //$NON-NLS-1$
+        } finally {
+            tempFile.delete();
+        }
+    }
+}
@@ -11,7 +11,6 @@
 package net.rim.ejde.internal.sourcelookup;
 
 import java.io.File;
-import java.util.ArrayList;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
@@ -36,15 +35,10 @@ public class RIMDirSourceContainer extends DirectorySourceContainer {
      * @see org.eclipse.debug.core.sourcelookup.ISourceContainer#findSourceElements(java.lang.String)
      */
     public Object[] findSourceElements( String name ) throws CoreException {
-        ArrayList sources = new ArrayList();
-        File directory = getDirectory();
-        File file = new File( directory, name );
-        if( file.exists() && file.isFile() ) {
-            sources.add( new LocalFileStorage( file ) );
-        }
-
-        if( sources.isEmpty() )
+        // the results are indexed by RIMSourceLookupParticipant, a name is only looked up once per launch
+        File file = new File( getDirectory(), name );
+        if( !file.isFile() )
             return EMPTY;
-        return sources.toArray();
+        return new Object[] { new LocalFileStorage( file ) };
     }
 }
@@ -12,9 +12,11 @@ package net.rim.ejde.internal.sourcelookup;
 
 import java.io.File;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.debug.core.DebugException;
+import org.eclipse.debug.core.sourcelookup.ISourceLookupDirector;
 import org.eclipse.jdt.debug.core.IJavaReferenceType;
 import org.eclipse.jdt.debug.core.IJavaStackFrame;
 import org.eclipse.jdt.debug.core.IJavaThread;
@@ -25,6 +27,61 @@ import org.eclipse.jdt.launching.sourcelookup.containers.JavaSourceLookupPartici
 import com.sun.jdi.VMDisconnectedException;
 
 public class RIMSourceLookupParticipant extends JavaSourceLookupParticipant {
+    // the source elements found by previous lookups
+    private final SourceLookupIndex _index = new SourceLookupIndex();
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.eclipse.debug.core.sourcelookup.ISourceLookupParticipant#init(org.eclipse.debug.core.sourcelookup.ISourceLookupDirector)
+     */
+    public void init( ISourceLookupDirector director ) {
+        super.init( director );
+        _index.connect();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.eclipse.debug.core.sourcelookup.ISourceLookupParticipant#dispose()
+     */
+    public void dispose() {
+        _index.disconnect();
+        super.dispose();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.eclipse.debug.core.sourcelookup.ISourceLookupParticipant#sourceContainersChanged(org.eclipse.debug.core.sourcelookup.
+     * ISourceLookupDirector)
+     */
+    public void sourceContainersChanged( ISourceLookupDirector director ) {
+        _index.clear();
+        super.sourceContainersChanged( director );
+    }
+
+    /**
+     * Finds the source elements of the given object. The elements found for a source name are kept in a
+     * {@link SourceLookupIndex}, so the source containers are only searched the first time a name is looked up. Unless all
+     * duplicates are wanted, a java file of the leading workspace projects is taken from the workspace index of the
+     * {@link SourceLookupIndex} without searching the containers at all.
+     *
+     * @see org.eclipse.debug.core.sourcelookup.ISourceLookupParticipant#findSourceElements(java.lang.Object)
+     */
+    public Object[] findSourceElements( Object object ) throws CoreException {
+        String sourceName = getSourceName( object );
+        if( sourceName == null ) {
+            return super.findSourceElements( object );
+        }
+        Object[] elements = _index.get( sourceName );
+        if( elements == null ) {
+            IFile file = isFindDuplicates() ? null : _index.getWorkspaceFile( sourceName, getSourceContainers() );
+            elements = file == null ? super.findSourceElements( object ) : new Object[] { file };
+            _index.put( sourceName, elements );
+        }
+        return elements;
+    }
 
     /**
      *
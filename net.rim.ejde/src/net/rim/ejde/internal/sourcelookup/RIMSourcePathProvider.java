@@ -11,6 +11,7 @@
 package net.rim.ejde.internal.sourcelookup;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -128,7 +129,7 @@ public class RIMSourcePathProvider extends StandardSourcePathProvider {
      */
     public IRuntimeClasspathEntry[] resolveClasspath( IRuntimeClasspathEntry[] entries, ILaunchConfiguration configuration )
             throws CoreException {
-        List< IRuntimeClasspathEntry > all = new UniqueList( entries.length );
+        List< IRuntimeClasspathEntry > all = new UniqueList< IRuntimeClasspathEntry >( entries.length );
         for( int i = 0; i < entries.length; i++ ) {
             try {
                 switch( entries[ i ].getType() ) {
@@ -216,22 +217,30 @@ public class RIMSourcePathProvider extends StandardSourcePathProvider {
     }
 
     /*
-     * An ArrayList that acts like a set -i.e. does not allow duplicate items.
+     * An ArrayList that acts like a set -i.e. does not allow duplicate items. The items are kept in a hash set as well, so adding
+     * an item and checking if it is contained take constant time.
      */
-    class UniqueList extends ArrayList {
+    static class UniqueList< E > extends ArrayList< E > {
+        private final Set< E > _items;
 
         public UniqueList( int length ) {
             super( length );
+            _items = new HashSet< E >( length * 2 );
         }
 
         public UniqueList() {
             super();
+            _items = new HashSet< E >();
         }
 
-        public boolean add( Object o ) {
-            if( !super.contains( o ) )
+        public boolean add( E o ) {
+            if( _items.add( o ) )
                 return super.add( o );
             return false;
         }
+
+        public boolean contains( Object o ) {
+            return _items.contains( o );
+        }
     }
 }
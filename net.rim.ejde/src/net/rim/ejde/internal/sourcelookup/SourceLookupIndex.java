@@ -0,0 +1,298 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.sourcelookup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.debug.core.sourcelookup.ISourceContainer;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.launching.sourcelookup.containers.JavaProjectSourceContainer;
+
+/**
+ * Maps the source names looked up during a debug session, e.g. <code>net/rim/device/api/ui/Screen.java</code>, to the source
+ * elements found in the source containers of the launch, so a stack frame of a type which has been displayed before is resolved
+ * without asking every container again. Names which have not been found are remembered as well.
+ * <p>
+ * The java files of the workspace projects the source containers of a launch start with are indexed by their names in one pass
+ * over their source folders, the first time a name is looked up, so even the first lookup of a name found in the workspace does
+ * not ask the containers. The external source folders of the BlackBerry runtime environment are still searched on demand.
+ * <p>
+ * An index lives as long as the source lookup participant of a launch. Entries are dropped when a file with the same name is
+ * added to or removed from the workspace, and all entries are dropped when a folder or a project is added, removed, opened or
+ * closed, a classpath changes or the source containers change. The number of lookups served from the index is traced when the
+ * index is disconnected.
+ */
+public class SourceLookupIndex implements IResourceChangeListener {
+    private static final Logger _log = Logger.getLogger( SourceLookupIndex.class );
+    private static final char SEPARATOR = '/';
+    private static final String CLASSPATH_FILE = ".classpath"; //$NON-NLS-1$
+
+    private final Map< String, Object[] > _elements = new ConcurrentHashMap< String, Object[] >();
+    private final AtomicInteger _hits = new AtomicInteger();
+    private final AtomicInteger _misses = new AtomicInteger();
+    // the source folders of the workspace projects and the java files found in them, null if they have not been indexed yet
+    private volatile IContainer[] _sourceFolders;
+    private volatile Map< String, IFile > _workspaceFiles;
+    private final AtomicInteger _workspaceHits = new AtomicInteger();
+
+    /**
+     * Starts listening to workspace changes.
+     */
+    public void connect() {
+        ResourcesPlugin.getWorkspace().addResourceChangeListener( this,
+                IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE | IResourceChangeEvent.POST_CHANGE );
+    }
+
+    /**
+     * Stops listening to workspace changes and drops all entries.
+     */
+    public void disconnect() {
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener( this );
+        _log.trace( "Source lookup index: " + _hits.get() + " hits, " + _misses.get() + " misses, " + _elements.size() //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                + " entries, " + _workspaceHits.get() + " found in the workspace index" ); //$NON-NLS-1$ //$NON-NLS-2$
+        clear();
+    }
+
+    /**
+     * Gets the source elements found for the given <code>sourceName</code>.
+     *
+     * @param sourceName
+     * @return the elements, an empty array if nothing has been found or <code>null</code> if the name has not been looked up yet
+     */
+    public Object[] get( String sourceName ) {
+        Object[] elements = _elements.get( normalize( sourceName ) );
+        if( elements == null ) {
+            _misses.incrementAndGet();
+        } else {
+            _hits.incrementAndGet();
+        }
+        return elements;
+    }
+
+    /**
+     * Remembers the source elements found for the given <code>sourceName</code>.
+     *
+     * @param sourceName
+     * @param elements
+     */
+    public void put( String sourceName, Object[] elements ) {
+        if( elements != null ) {
+            _elements.put( normalize( sourceName ), elements );
+        }
+    }
+
+    /**
+     * Gets the workspace file of the given java <code>sourceName</code> from the source folders of the workspace projects the
+     * given <code>containers</code> start with. The source folders are indexed when this method is called for the first time.
+     *
+     * @param sourceName
+     * @param containers
+     *            the source containers of the launch
+     * @return the file the first of these containers would find or <code>null</code> if the name is not in the index
+     */
+    public IFile getWorkspaceFile( String sourceName, ISourceContainer[] containers ) {
+        if( !JavaCore.isJavaLikeFileName( sourceName ) ) {
+            return null;
+        }
+        Map< String, IFile > workspaceFiles = _workspaceFiles;
+        if( workspaceFiles == null ) {
+            workspaceFiles = index( containers );
+        }
+        IFile file = workspaceFiles.get( normalize( sourceName ) );
+        // a file excluded from its source folder is not a source element, let the containers decide
+        if( file == null || JavaCore.create( file ) == null ) {
+            return null;
+        }
+        _workspaceHits.incrementAndGet();
+        return file;
+    }
+
+    private synchronized Map< String, IFile > index( ISourceContainer[] containers ) {
+        if( _workspaceFiles != null ) {
+            return _workspaceFiles;
+        }
+        long start = System.currentTimeMillis();
+        final Map< String, IFile > workspaceFiles = new ConcurrentHashMap< String, IFile >();
+        IContainer[] sourceFolders = getSourceFolders( containers );
+        for( IContainer sourceFolder : sourceFolders ) {
+            final int segments = sourceFolder.getFullPath().segmentCount();
+            try {
+                sourceFolder.accept( new IResourceProxyVisitor() {
+                    public boolean visit( IResourceProxy proxy ) {
+                        if( proxy.getType() == IResource.FILE && JavaCore.isJavaLikeFileName( proxy.getName() ) ) {
+                            String name = proxy.requestFullPath().removeFirstSegments( segments ).toString();
+                            // the first source folder wins, as it does for the containers
+                            if( !workspaceFiles.containsKey( name ) ) {
+                                workspaceFiles.put( name, (IFile) proxy.requestResource() );
+                            }
+                        }
+                        return true;
+                    }
+                }, IResource.NONE );
+            } catch( CoreException e ) {
+                _log.error( e.getMessage(), e );
+            }
+        }
+        _sourceFolders = sourceFolders;
+        _workspaceFiles = workspaceFiles;
+        long time = System.currentTimeMillis() - start;
+        _log.trace( "Indexed " + workspaceFiles.size() + " workspace source files in " + time + "ms" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        return workspaceFiles;
+    }
+
+    /**
+     * Gets the source folders of the workspace projects the given <code>containers</code> start with. The containers which
+     * follow the first other container are searched on demand, since a file found in them must not hide a file of an earlier
+     * container.
+     */
+    private static IContainer[] getSourceFolders( ISourceContainer[] containers ) {
+        List< IContainer > sourceFolders = new ArrayList< IContainer >();
+        for( ISourceContainer container : containers ) {
+            if( !( container instanceof JavaProjectSourceContainer ) ) {
+                break;
+            }
+            IJavaProject javaProject = ( (JavaProjectSourceContainer) container ).getJavaProject();
+            if( !javaProject.getProject().isOpen() ) {
+                continue;
+            }
+            try {
+                for( IPackageFragmentRoot root : javaProject.getPackageFragmentRoots() ) {
+                    if( root.getKind() == IPackageFragmentRoot.K_SOURCE && root.getResource() instanceof IContainer ) {
+                        sourceFolders.add( (IContainer) root.getResource() );
+                    }
+                }
+            } catch( CoreException e ) {
+                _log.error( e.getMessage(), e );
+            }
+        }
+        return sourceFolders.toArray( new IContainer[ sourceFolders.size() ] );
+    }
+
+    /**
+     * Updates the indexed workspace file with the same name as the given added or removed <code>file</code>.
+     */
+    private synchronized void updateWorkspaceFile( IFile file ) {
+        IContainer[] sourceFolders = _sourceFolders;
+        Map< String, IFile > workspaceFiles = _workspaceFiles;
+        if( sourceFolders == null || workspaceFiles == null || !JavaCore.isJavaLikeFileName( file.getName() ) ) {
+            return;
+        }
+        for( IContainer sourceFolder : sourceFolders ) {
+            IPath folderPath = sourceFolder.getFullPath();
+            if( folderPath.isPrefixOf( file.getFullPath() ) ) {
+                IPath name = file.getFullPath().removeFirstSegments( folderPath.segmentCount() );
+                IFile first = null;
+                for( IContainer folder : sourceFolders ) {
+                    if( folder.getFile( name ).exists() ) {
+                        first = folder.getFile( name );
+                        break;
+                    }
+                }
+                if( first == null ) {
+                    workspaceFiles.remove( name.toString() );
+                } else {
+                    workspaceFiles.put( name.toString(), first );
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops all entries.
+     */
+    public void clear() {
+        _elements.clear();
+        clearWorkspaceFiles();
+    }
+
+    private synchronized void clearWorkspaceFiles() {
+        _workspaceFiles = null;
+        _sourceFolders = null;
+    }
+
+    private static String normalize( String sourceName ) {
+        return sourceName.replace( File.separatorChar, SEPARATOR );
+    }
+
+    private void removeFileName( String fileName ) {
+        for( String sourceName : _elements.keySet() ) {
+            if( sourceName.equals( fileName ) || sourceName.endsWith( SEPARATOR + fileName ) ) {
+                _elements.remove( sourceName );
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.eclipse.core.resources.IResourceChangeListener#resourceChanged(org.eclipse.core.resources.IResourceChangeEvent)
+     */
+    public void resourceChanged( IResourceChangeEvent event ) {
+        if( _elements.isEmpty() && _workspaceFiles == null ) {
+            return;
+        }
+        switch( event.getType() ) {
+            case IResourceChangeEvent.PRE_CLOSE:
+            case IResourceChangeEvent.PRE_DELETE:
+                clear();
+                break;
+            case IResourceChangeEvent.POST_CHANGE:
+                try {
+                    event.getDelta().accept( new IResourceDeltaVisitor() {
+                        public boolean visit( IResourceDelta delta ) {
+                            int kind = delta.getKind();
+                            IResource resource = delta.getResource();
+                            if( kind != IResourceDelta.ADDED && kind != IResourceDelta.REMOVED ) {
+                                boolean classpathChanged = resource.getType() == IResource.FILE
+                                        && resource.getName().equals( CLASSPATH_FILE );
+                                if( classpathChanged || ( delta.getFlags() & IResourceDelta.OPEN ) != 0 ) {
+                                    // the source folders may have changed
+                                    clear();
+                                    return false;
+                                }
+                                return true;
+                            }
+                            if( resource.getType() == IResource.FILE ) {
+                                removeFileName( resource.getName() );
+                                updateWorkspaceFile( (IFile) resource );
+                            } else {
+                                clear();
+                            }
+                            return false;
+                        }
+                    } );
+                } catch( CoreException e ) {
+                    _log.error( e.getMessage(), e );
+                }
+                break;
+        }
+    }
+}
@@ -10,23 +10,29 @@
 */
 package net.rim.ejde.internal.ui.consoles;
 
-import java.io.FileOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+
 import net.rim.ejde.internal.model.preferences.RootPreferences;
 
 import org.apache.log4j.Logger;
 import org.eclipse.ui.console.MessageConsole;
 import org.eclipse.ui.console.MessageConsoleStream;
 
+/**
+ * A console stream which also appends the output to the console log file if the preference is set. The file is written by a
+ * {@link ConsoleLogWriter}.
+ */
 public class BBLogConsoleStream extends MessageConsoleStream {
     private static Logger log = Logger.getLogger( ConsoleUtils.class );
 
-	private FileOutputStream out = null;
+	private ConsoleLogWriter out = null;
 
 	public BBLogConsoleStream(MessageConsole console) {
 		super(console);
 		if (RootPreferences.getAppendConsoleLogToFile()) try {
-			out = new FileOutputStream(RootPreferences.getConsoleLogFile(), true);
+			out = ConsoleLogWriter.getWriter(new File(RootPreferences.getConsoleLogFile()));
 		} catch (Exception e) {
 			log.error(e.getLocalizedMessage(), e);
 		}
@@ -39,13 +45,14 @@ public class BBLogConsoleStream extends MessageConsoleStream {
 
     public void write(byte[] b, int off, int len) throws IOException {
     	super.write(b, off, len);
-    	if (out != null) out.write(b, off, len);
+    	if (out != null) out.write(Arrays.copyOfRange(b, off, off + len));
     }
 
     public void close() throws IOException {
     	super.close();
     	if (out != null) {
-    		out.close();
+    		// the writer is shared with the other consoles
+    		out.flush();
     		out = null;
     	}
     }
@@ -54,7 +61,6 @@ public class BBLogConsoleStream extends MessageConsoleStream {
     	super.flush();
     	if (out != null) {
     		out.flush();
-    		out = null;
     	}
     }
 
@@ -0,0 +1,175 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.ui.consoles;
+
+import java.util.List;
+
+/**
+ * A fixed-capacity ring buffer of console lines. Lines are added by the thread which produces the output and drained in batches
+ * by the thread which displays them. What happens when the buffer is full is defined by a {@link Policy}.
+ */
+public class ConsoleLineBuffer {
+    // with the SAMPLE policy one of this many lines is kept while the buffer is full
+    static final int SAMPLE_RATE = 10;
+
+    /**
+     * Defines what happens to a line which is added while the buffer is full.
+     */
+    public static enum Policy {
+        // the producer waits until the buffer has been drained
+        BLOCK,
+        // the oldest line is dropped
+        DROP_OLDEST,
+        // one of SAMPLE_RATE lines replaces the oldest line, the other lines are dropped
+        SAMPLE;
+
+        /**
+         * Gets the policy with the given name, e.g. <code>drop_oldest</code>.
+         *
+         * @param name
+         * @return the policy or {@link #DROP_OLDEST} if the name is unknown
+         */
+        public static Policy fromName( String name ) {
+            if( name != null ) {
+                for( Policy policy : values() ) {
+                    if( policy.name().equalsIgnoreCase( name.trim() ) ) {
+                        return policy;
+                    }
+                }
+            }
+            return DROP_OLDEST;
+        }
+    }
+
+    private final String[] _lines;
+    private final Policy _policy;
+    // index of the oldest line
+    private int _head;
+    private int _size;
+    private int _sampleCount;
+    // lines dropped since the last drain
+    private int _pendingDropped;
+    private long _droppedCount;
+
+    /**
+     * Constructs a ConsoleLineBuffer instance.
+     *
+     * @param capacity
+     *            the maximum number of lines which have not been drained yet
+     * @param policy
+     */
+    public ConsoleLineBuffer( int capacity, Policy policy ) {
+        _lines = new String[ Math.max( 1, capacity ) ];
+        _policy = policy;
+    }
+
+    /**
+     * Adds a line. Depending on the policy the call blocks, the oldest line is dropped or the line is dropped if the buffer is
+     * full.
+     *
+     * @param line
+     * @return <code>true</code> if the line has been added
+     */
+    public synchronized boolean add( String line ) {
+        if( _size == _lines.length ) {
+            switch( _policy ) {
+                case BLOCK:
+                    try {
+                        while( _size == _lines.length ) {
+                            wait();
+                        }
+                    } catch( InterruptedException e ) {
+                        Thread.currentThread().interrupt();
+                        dropped();
+                        return false;
+                    }
+                    break;
+                case SAMPLE:
+                    if( ++_sampleCount % SAMPLE_RATE != 0 ) {
+                        dropped();
+                        return false;
+                    }
+                    removeOldest();
+                    break;
+                default:
+                    removeOldest();
+                    break;
+            }
+        }
+        _lines[ ( _head + _size ) % _lines.length ] = line;
+        _size++;
+        return true;
+    }
+
+    private void removeOldest() {
+        _lines[ _head ] = null;
+        _head = ( _head + 1 ) % _lines.length;
+        _size--;
+        dropped();
+    }
+
+    private void dropped() {
+        _pendingDropped++;
+        _droppedCount++;
+    }
+
+    /**
+     * Moves all lines to the given list, oldest first.
+     *
+     * @param lines
+     * @return the number of lines which have been dropped since the previous call
+     */
+    public synchronized int drain( List< String > lines ) {
+        for( ; _size > 0; _size-- ) {
+            lines.add( _lines[ _head ] );
+            _lines[ _head ] = null;
+            _head = ( _head + 1 ) % _lines.length;
+        }
+        _head = 0;
+        _sampleCount = 0;
+        int dropped = _pendingDropped;
+        _pendingDropped = 0;
+        notifyAll();
+        return dropped;
+    }
+
+    /**
+     * Drops all lines which have not been drained yet. They are not counted as dropped.
+     */
+    public synchronized void clear() {
+        for( int i = 0; i < _lines.length; i++ ) {
+            _lines[ i ] = null;
+        }
+        _head = 0;
+        _size = 0;
+        _sampleCount = 0;
+        _pendingDropped = 0;
+        notifyAll();
+    }
+
+    /**
+     * Checks if there are lines or dropped lines which have not been drained yet.
+     *
+     * @return
+     */
+    public synchronized boolean hasPending() {
+        return _size > 0 || _pendingDropped > 0;
+    }
+
+    /**
+     * Gets the total number of lines which have been dropped because the buffer was full.
+     *
+     * @return
+     */
+    public synchronized long getDroppedCount() {
+        return _droppedCount;
+    }
+}
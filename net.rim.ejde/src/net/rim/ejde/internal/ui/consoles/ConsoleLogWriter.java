@@ -0,0 +1,293 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.ui.consoles;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import net.rim.ejde.internal.core.IConstants;
+import net.rim.ejde.internal.util.ImportUtils;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Appends console output to a log file from a dedicated thread, so the threads which print to a console never wait for the
+ * disk. The log file is rotated when it exceeds the <code>console_log_max_size</code> preference (in KB) or when it is older than
+ * the <code>console_log_rotation_hours</code> preference. A rotated file is compressed to
+ * <code>&lt;log file&gt;.&lt;yyyyMMdd-HHmmss&gt;.gz</code> and only the newest <code>console_log_max_files</code> rotated files
+ * are kept. A value of 0 disables the respective limit.
+ * <p>
+ * All consoles which log to the same file share one writer.
+ */
+public class ConsoleLogWriter implements Runnable {
+    private static final Logger _log = Logger.getLogger( ConsoleLogWriter.class );
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final long CLOSE_TIMEOUT = 2000;
+    private static final String ROTATED_EXTENSION = ".gz"; //$NON-NLS-1$
+    private static final String TIMESTAMP_PATTERN = "yyyyMMdd-HHmmss"; //$NON-NLS-1$
+    // markers put into the queue
+    private static final byte[] FLUSH = new byte[ 0 ];
+    private static final byte[] CLOSE = new byte[ 0 ];
+
+    // the writers by absolute log file path
+    private static final Map< String, ConsoleLogWriter > _writers = new HashMap< String, ConsoleLogWriter >();
+
+    private final File _file;
+    private final long _maxSize;
+    private final long _rotationInterval;
+    private final int _maxFiles;
+    private final BlockingQueue< byte[] > _queue = new LinkedBlockingQueue< byte[] >( QUEUE_CAPACITY );
+    private final Thread _thread;
+    private OutputStream _output;
+    private long _size;
+    private long _openedTime;
+    private volatile boolean _closed;
+    private boolean _rotationFailed;
+
+    private ConsoleLogWriter( File file ) {
+        _file = file;
+        _maxSize = Math.max( 0, ImportUtils.getIntImportPref( IConstants.CONSOLE_LOG_MAX_SIZE_KEY ) ) * 1024L;
+        _rotationInterval = Math.max( 0, ImportUtils.getIntImportPref( IConstants.CONSOLE_LOG_ROTATION_HOURS_KEY ) ) * 3600000L;
+        _maxFiles = Math.max( 0, ImportUtils.getIntImportPref( IConstants.CONSOLE_LOG_MAX_FILES_KEY ) );
+        _thread = new Thread( this, "BlackBerry Console Log Writer" ); //$NON-NLS-1$
+        _thread.setDaemon( true );
+    }
+
+    /**
+     * Gets the writer of the given log <code>file</code>.
+     *
+     * @param file
+     * @return
+     */
+    public static ConsoleLogWriter getWriter( File file ) {
+        synchronized( _writers ) {
+            ConsoleLogWriter writer = _writers.get( file.getAbsolutePath() );
+            if( writer == null ) {
+                writer = new ConsoleLogWriter( file.getAbsoluteFile() );
+                _writers.put( file.getAbsolutePath(), writer );
+                writer._thread.start();
+            }
+            return writer;
+        }
+    }
+
+    /**
+     * Writes the pending output of all writers to disk and stops them. Called when the plug-in stops.
+     */
+    public static void closeAll() {
+        List< ConsoleLogWriter > writers;
+        synchronized( _writers ) {
+            writers = new ArrayList< ConsoleLogWriter >( _writers.values() );
+            _writers.clear();
+        }
+        for( ConsoleLogWriter writer : writers ) {
+            writer._closed = true;
+            writer.enqueue( CLOSE );
+        }
+        for( ConsoleLogWriter writer : writers ) {
+            try {
+                writer._thread.join( CLOSE_TIMEOUT );
+            } catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Queues the given bytes to be appended to the log file. Blocks only if the writer is far behind.
+     *
+     * @param bytes
+     */
+    public void write( byte[] bytes ) {
+        if( bytes.length > 0 && !_closed ) {
+            enqueue( bytes );
+        }
+    }
+
+    /**
+     * Requests that the output queued so far is written to disk.
+     */
+    public void flush() {
+        if( !_closed ) {
+            _queue.offer( FLUSH );
+        }
+    }
+
+    private void enqueue( byte[] bytes ) {
+        try {
+            _queue.put( bytes );
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Runnable#run()
+     */
+    public void run() {
+        try {
+            while( true ) {
+                byte[] bytes = _queue.poll();
+                if( bytes == null ) {
+                    // the queue is empty, write the buffered output to disk before waiting
+                    flushOutput();
+                    bytes = _queue.poll( 1, TimeUnit.DAYS );
+                    if( bytes == null ) {
+                        continue;
+                    }
+                }
+                if( bytes == CLOSE ) {
+                    break;
+                }
+                if( bytes == FLUSH ) {
+                    flushOutput();
+                    continue;
+                }
+                if( !_rotationFailed && needsRotation( bytes.length ) ) {
+                    try {
+                        rotate();
+                    } catch( IOException e ) {
+                        // keep appending to the current file
+                        _log.error( "Could not rotate console log " + _file, e ); //$NON-NLS-1$
+                        _rotationFailed = true;
+                    }
+                }
+                try {
+                    if( _output == null ) {
+                        open();
+                    }
+                    _output.write( bytes );
+                    _size += bytes.length;
+                } catch( IOException e ) {
+                    _log.error( e.getMessage(), e );
+                    closeOutput();
+                }
+            }
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeOutput();
+        }
+    }
+
+    private void open() throws IOException {
+        File parent = _file.getParentFile();
+        if( parent != null ) {
+            parent.mkdirs();
+        }
+        _size = _file.length();
+        _openedTime = System.currentTimeMillis();
+        _output = new BufferedOutputStream( new FileOutputStream( _file, true ) );
+    }
+
+    private boolean needsRotation( int length ) {
+        if( _output == null ) {
+            // rotate a log file which has become too large before the writer was started
+            return _maxSize > 0 && _file.length() > 0 && _file.length() + length > _maxSize;
+        }
+        if( _size == 0 ) {
+            return false;
+        }
+        return ( _maxSize > 0 && _size + length > _maxSize )
+                || ( _rotationInterval > 0 && System.currentTimeMillis() - _openedTime > _rotationInterval );
+    }
+
+    /**
+     * Compresses the current log file and starts a new one.
+     */
+    private void rotate() throws IOException {
+        closeOutput();
+        String timestamp = new SimpleDateFormat( TIMESTAMP_PATTERN ).format( new Date() );
+        File rotatedFile = new File( _file.getPath() + IConstants.DOT_MARK + timestamp + ROTATED_EXTENSION );
+        InputStream input = new FileInputStream( _file );
+        try {
+            OutputStream output = new GZIPOutputStream( new FileOutputStream( rotatedFile ) );
+            try {
+                byte[] buffer = new byte[ 64 * 1024 ];
+                int count;
+                while( ( count = input.read( buffer ) ) != -1 ) {
+                    output.write( buffer, 0, count );
+                }
+            } finally {
+                output.close();
+            }
+        } finally {
+            input.close();
+        }
+        if( !_file.delete() ) {
+            _log.error( "Could not delete rotated console log " + _file ); //$NON-NLS-1$
+        }
+        deleteOldFiles();
+    }
+
+    private void deleteOldFiles() {
+        if( _maxFiles <= 0 || _file.getParentFile() == null ) {
+            return;
+        }
+        String prefix = _file.getName() + IConstants.DOT_MARK;
+        List< String > rotatedNames = new ArrayList< String >();
+        String[] names = _file.getParentFile().list();
+        if( names == null ) {
+            return;
+        }
+        for( String name : names ) {
+            if( name.startsWith( prefix ) && name.endsWith( ROTATED_EXTENSION ) ) {
+                rotatedNames.add( name );
+            }
+        }
+        // the time stamps sort chronologically
+        Collections.sort( rotatedNames );
+        for( int i = 0; i < rotatedNames.size() - _maxFiles; i++ ) {
+            new File( _file.getParentFile(), rotatedNames.get( i ) ).delete();
+        }
+    }
+
+    private void flushOutput() {
+        if( _output != null ) {
+            try {
+                _output.flush();
+            } catch( IOException e ) {
+                _log.error( e.getMessage(), e );
+                closeOutput();
+            }
+        }
+    }
+
+    private void closeOutput() {
+        if( _output != null ) {
+            try {
+                _output.close();
+            } catch( IOException e ) {
+                _log.error( e.getMessage(), e );
+            }
+            _output = null;
+        }
+    }
+}
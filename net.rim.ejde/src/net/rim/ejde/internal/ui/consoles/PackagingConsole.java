@@ -14,6 +14,8 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import net.rim.ejde.internal.core.ContextManager;
+import net.rim.ejde.internal.packaging.PackagingManager.Problem;
+import net.rim.ejde.internal.packaging.RapcOutputParser;
 import net.rim.ejde.internal.util.ProjectUtils;
 
 import org.apache.log4j.Logger;
@@ -51,13 +53,9 @@ public class PackagingConsole extends MessageConsole {
     private Logger log = Logger.getLogger( PackagingConsole.class );
     private static PackagingConsole rapcConsole;
 
-    // The difference between a "LinePattern" and a simple "Pattern" is that a
-    // LinePattern matches a whole line that contains that pattern. A Pattern
-    // will return the exact occurence of that thing. This is confusing, I
-    // agree, but saves time having to compile regex'es dynamically on the fly.
-    static public final Pattern errorLinePattern = Pattern.compile( "\\S.*\\.[Jj][Aa][Vv][Aa]:\\d+:\\s.*" );
-    static public final Pattern errorPattern = Pattern.compile( "\\S.*\\.[Jj][Aa][Vv][Aa]:\\d+:" );
-    static public final Pattern projectLinePattern = Pattern.compile( "(Cleaning|Building|Project).*" );
+    // the lines which start with one of these words refer to a project
+    private static final String[] PROJECT_LINE_PREFIXES = new String[] { "Cleaning", "Building", "Project" };
+    private static final String LINE_QUALIFIER = "Cleaning|Building|Project|\\.[Jj][Aa][Vv][Aa]:\\d"; //$NON-NLS-1$
 
     private static Pattern projectPattern = null;
 
@@ -129,10 +127,14 @@ public class PackagingConsole extends MessageConsole {
                 int length = event.getLength();
 
                 String match = console.getDocument().get( event.getOffset(), event.getLength() );
-                if( projectLinePattern.matcher( match ).matches() ) {
+                if( isProjectLine( match ) ) {
                     processProject( match, offset, length );
-                } else if( errorLinePattern.matcher( match ).matches() ) {
-                    processError( match, offset, length );
+                } else {
+                    // the java problems are recognized by the same parser which creates the problem markers
+                    RapcOutputParser.LineKind kind = RapcOutputParser.classify( match );
+                    if( kind == RapcOutputParser.LineKind.JAVA_ERROR || kind == RapcOutputParser.LineKind.JAVA_WARNING ) {
+                        processError( match, offset, length );
+                    }
                 }
             } catch( BadLocationException e ) {
                 log.error( e.getMessage(), e );
@@ -157,7 +159,8 @@ public class PackagingConsole extends MessageConsole {
          * @see org.eclipse.ui.console.IPatternMatchListener#getLineQualifier()
          */
         public String getLineQualifier() {
-            return null;
+            // only lines which may refer to a project or a java file are matched against the pattern
+            return LINE_QUALIFIER;
         }
 
         /*
@@ -169,6 +172,15 @@ public class PackagingConsole extends MessageConsole {
             return ".*\\w.*"; //$NON-NLS-1$
         }
 
+        private boolean isProjectLine( String match ) {
+            for( String prefix : PROJECT_LINE_PREFIXES ) {
+                if( match.startsWith( prefix ) ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         private void processProject( String match, int offset, int length ) throws BadLocationException {
             if( projectPattern == null ) {
                 return;
@@ -187,11 +199,15 @@ public class PackagingConsole extends MessageConsole {
         }
 
         private void processError( String match, int offset, int length ) throws BadLocationException {
-            Matcher matcher = errorPattern.matcher( match );
-            if( matcher.find() ) {
-                SourceCodeHyperlink link = new SourceCodeHyperlink( matcher.group(), cachedProjectName );
-                console.addHyperlink( link, offset + matcher.start(), matcher.end() - matcher.start() - 1 );
+            Problem problem = RapcOutputParser.parse( match );
+            if( problem == null || problem.getFile() == null ) {
+                return;
             }
+            // the link covers <file>:<line>
+            int start = match.indexOf( problem.getFile() );
+            int end = start + problem.getFile().length() + 1 + String.valueOf( problem.getLine() ).length();
+            SourceCodeHyperlink link = new SourceCodeHyperlink( problem.getFile(), problem.getLine(), cachedProjectName );
+            console.addHyperlink( link, offset + start, end - start );
         }
     }
 
@@ -238,11 +254,13 @@ public class PackagingConsole extends MessageConsole {
      * A hyperlink that opens up a line of source code in an editor. It searchs all project source folders.
      */
     class SourceCodeHyperlink implements IHyperlink {
-        private String code;
+        private String file;
+        private int lineNumber;
         private String projectName;
 
-        public SourceCodeHyperlink( String code, String projectName ) {
-            this.code = code;
+        public SourceCodeHyperlink( String file, int lineNumber, String projectName ) {
+            this.file = file;
+            this.lineNumber = lineNumber;
             this.projectName = projectName;
         }
 
@@ -252,11 +270,6 @@ public class PackagingConsole extends MessageConsole {
          * @see org.eclipse.ui.console.IHyperlink#linkActivated()
          */
         public void linkActivated() {
-            int lastColon = code.lastIndexOf( ':' );
-            int secondLastColon = code.lastIndexOf( ':', lastColon - 1 );
-
-            String file = code.substring( 0, secondLastColon );
-            int lineNumber = Integer.parseInt( code.substring( secondLastColon + 1, lastColon ) );
             IPath filePath = new Path( file );
 
             log.debug( "Jumping to " + filePath.toOSString() + " on line " + lineNumber ); //$NON-NLS-1$ //$NON-NLS-2$
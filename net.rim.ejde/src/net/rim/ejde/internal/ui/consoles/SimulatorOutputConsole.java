@@ -12,13 +12,24 @@ package net.rim.ejde.internal.ui.consoles;
 
 //import java.util.regex.Pattern;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 //import net.rim.eide.RimIDEUtil;
+import net.rim.ejde.internal.core.IConstants;
+import net.rim.ejde.internal.util.ImportUtils;
 import net.rim.ejde.internal.util.Messages;
 import net.rim.ide.RIA;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.debug.core.ILaunch;
 import org.eclipse.debug.core.ILaunchManager;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.console.MessageConsole;
 import org.eclipse.ui.console.MessageConsoleStream;
@@ -31,17 +42,49 @@ import org.eclipse.ui.console.MessageConsoleStream;
 /**
  * This Class displayed the Simulator Output message in the console <i>Blackberry Simulator Output Console</i> by setting the
  * setSimulatorOutputCallback method.
+ * <p>
+ * The simulator output is collected in a {@link ConsoleLineBuffer} and appended to the console in batches, at most once per
+ * {@link #FRAME_INTERVAL}. The size of the buffer and what happens when it is full are defined by the
+ * <code>simulator_console_capacity</code> and <code>simulator_console_policy</code> preferences. The document keeps about as
+ * many characters as that many lines of average length, older output is discarded. The number of lines dropped since the
+ * console was last cleared is shown in the name of the console.
  *
  * @see net.rim.eide.internal.ui.viewers.simulatoroutput.Messages
  */
 public class SimulatorOutputConsole extends MessageConsole {
 
+    // minimum time between two updates of the document
+    static final long FRAME_INTERVAL = 100;
+    private static final int DEFAULT_CAPACITY = 10000;
+    private static final int AVERAGE_LINE_LENGTH = 100;
+    private static final String NAME = "BlackBerry Simulator Output Console"; //$NON-NLS-1$
     private static SimulatorOutputConsole SimulatorOutputConsole;
     private IDocument myDocument;
+    private ConsoleLineBuffer _buffer;
+    private MessageConsoleStream _outputStream;
+    // total number of dropped lines when the console was last cleared
+    private volatile long _clearedDroppedCount;
+    private final AtomicBoolean _flushScheduled = new AtomicBoolean();
+    private final Job _flushJob = new Job( "Simulator Output" ) { //$NON-NLS-1$
+        @Override
+        protected IStatus run( IProgressMonitor monitor ) {
+            flushLines();
+            return Status.OK_STATUS;
+        }
+    };
 
     private SimulatorOutputConsole() {
-        this( "BlackBerry Simulator Output Console" );
+        this( NAME );
         myDocument = this.getDocument();
+        int capacity = ImportUtils.getIntImportPref( IConstants.SIMULATOR_CONSOLE_CAPACITY_KEY );
+        if( capacity <= 0 ) {
+            capacity = DEFAULT_CAPACITY;
+        }
+        _buffer = new ConsoleLineBuffer( capacity, ConsoleLineBuffer.Policy.fromName( ImportUtils
+                .getImportPref( IConstants.SIMULATOR_CONSOLE_POLICY_KEY ) ) );
+        int highWaterMark = capacity * AVERAGE_LINE_LENGTH;
+        setWaterMarks( highWaterMark - highWaterMark / 5, highWaterMark );
+        _flushJob.setSystem( true );
     }
 
     public void setRIACallback() {
@@ -50,18 +93,72 @@ public class SimulatorOutputConsole extends MessageConsole {
             return;
         }
         RIA.getCurrentDebugger().setSimulatorOutputCallback( new RIA.CommandOutput() {
-        	private MessageConsoleStream cs = newMessageStream();
             /*
              * (non-Javadoc)
              *
              * @see net.rim.ide.RIA$CommandOutput#addLine(java.lang.String)
              */
             public void addLine( String line ) {
-                cs.println(line);
+                _buffer.add( line );
+                if( _flushScheduled.compareAndSet( false, true ) ) {
+                    _flushJob.schedule( FRAME_INTERVAL );
+                }
             }
         } );
     }
 
+    /**
+     * Appends the buffered lines to the console in one write.
+     */
+    private void flushLines() {
+        _flushScheduled.set( false );
+        List< String > lines = new ArrayList< String >();
+        int dropped = _buffer.drain( lines );
+        if( lines.isEmpty() && dropped == 0 ) {
+            return;
+        }
+        StringBuffer text = new StringBuffer();
+        if( dropped > 0 ) {
+            text.append( NLS.bind( Messages.SimulatorOutputView_LINES_DROPPED, Integer.valueOf( dropped ) ) ).append( '\n' );
+        }
+        for( String line : lines ) {
+            text.append( line ).append( '\n' );
+        }
+        synchronized( this ) {
+            if( _outputStream == null ) {
+                _outputStream = newMessageStream();
+            }
+        }
+        _outputStream.print( text.toString() );
+        if( dropped > 0 ) {
+            updateName();
+        }
+    }
+
+    /**
+     * Shows the number of dropped lines in the name of the console.
+     */
+    private void updateName() {
+        long dropped = getDroppedLineCount();
+        final String name = dropped > 0 ? NLS.bind( Messages.SimulatorOutputConsole_NAME_DROPPED, NAME, Long.valueOf( dropped ) )
+                : NAME;
+        Display.getDefault().asyncExec( new Runnable() {
+            public void run() {
+                setName( name );
+            }
+        } );
+    }
+
+    /**
+     * Gets the number of simulator output lines which have been dropped since the console was last cleared because they were
+     * produced faster than they could be displayed.
+     *
+     * @return
+     */
+    public long getDroppedLineCount() {
+        return _buffer.getDroppedCount() - _clearedDroppedCount;
+    }
+
     public static SimulatorOutputConsole getInstance() {
         if( SimulatorOutputConsole == null ) {
             synchronized( SimulatorOutputConsole.class ) {
@@ -99,6 +196,9 @@ public class SimulatorOutputConsole extends MessageConsole {
      */
     public void clear() {
         // super.setHasData( false );
+        _buffer.clear();
+        _clearedDroppedCount = _buffer.getDroppedCount();
+        updateName();
         myDocument.set( "" ); //$NON-NLS-1$
         // super.updateToolbar();
     }
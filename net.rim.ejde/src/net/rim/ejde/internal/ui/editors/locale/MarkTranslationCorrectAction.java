@@ -141,7 +141,7 @@ class MarkTranslationCorrectAction extends Action {
             // selected RIMResourceElement
 
             // Step 3: Now refresh versioning highlighting
-            ResourceEditorOptionsDialog.updateVersioningForResourceElementOnly( false, element );
+            ResourceEditorOptionsDialog.updateVersioningForResourceElementOnly( element );
         }
     }
 }
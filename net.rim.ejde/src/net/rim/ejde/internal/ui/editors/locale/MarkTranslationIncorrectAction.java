@@ -137,7 +137,7 @@ class MarkTranslationIncorrectAction extends Action {
             // selected RIMResourceElement
 
             // Step 3: Now refresh versioning highlighting
-            ResourceEditorOptionsDialog.updateVersioningForResourceElementOnly( true, element );
+            ResourceEditorOptionsDialog.updateVersioningForResourceElementOnly( element );
         }
     }
 }
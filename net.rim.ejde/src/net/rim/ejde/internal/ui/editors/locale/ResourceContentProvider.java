@@ -10,31 +10,108 @@
 */
 package net.rim.ejde.internal.ui.editors.locale;
 
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import net.rim.sdk.resourceutil.ResourceElement;
 import net.rim.sdk.resourceutil.ResourceLocale;
 
-import org.eclipse.jface.viewers.IStructuredContentProvider;
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jface.viewers.Viewer;
 
 /**
- * The content provider used for resources
+ * The content provider used for resources. It keeps the elements of the locale in display order and feeds the rows of the
+ * virtual table on demand, so only the visible rows are materialized.
  *
  * @author jkeshavarzi
  *
  */
-public class ResourceContentProvider implements IStructuredContentProvider {
-    public Object[] getElements( Object inputElement ) {
-        if( inputElement instanceof ResourceLocale ) {
-            return ( (ResourceLocale) inputElement ).getResourceElements();
-        }
+public class ResourceContentProvider implements ILazyContentProvider {
+    private TableViewer _viewer;
+    private ResourceSorter _sorter;
+    private ResourceLocale _locale;
+    // the elements in display order
+    private ResourceElement[] _elements = new ResourceElement[ 0 ];
+    private Map< ResourceElement, Integer > _rows = new IdentityHashMap< ResourceElement, Integer >();
+    private Map< String, Integer > _keyRows = new HashMap< String, Integer >();
 
-        return null;
+    public ResourceContentProvider( TableViewer viewer ) {
+        _viewer = viewer;
+    }
+
+    /**
+     * Sets the sorter which defines the display order of the elements.
+     *
+     * @param sorter
+     */
+    void setSorter( ResourceSorter sorter ) {
+        _sorter = sorter;
+    }
+
+    public void updateElement( int index ) {
+        if( index < _elements.length ) {
+            _viewer.replace( _elements[ index ], index );
+        }
     }
 
     public void dispose() {
-        // TODO Auto-generated method stub
+        _elements = new ResourceElement[ 0 ];
+        _rows.clear();
+        _keyRows.clear();
     }
 
     public void inputChanged( Viewer viewer, Object oldInput, Object newInput ) {
-        // TODO Auto-generated method stub
+        _locale = newInput instanceof ResourceLocale ? (ResourceLocale) newInput : null;
+        reload();
+    }
+
+    /**
+     * Reads the elements of the locale again, e.g. after keys have been added or deleted.
+     */
+    void reload() {
+        ResourceElement[] elements = _locale == null ? null : _locale.getResourceElements();
+        _elements = elements == null ? new ResourceElement[ 0 ] : elements.clone();
+        sort();
+    }
+
+    /**
+     * Sorts the elements according to the sorter and repaints the table.
+     */
+    void sort() {
+        if( _sorter != null ) {
+            _sorter.sort( _elements );
+        }
+        _rows.clear();
+        _keyRows.clear();
+        for( int i = 0; i < _elements.length; i++ ) {
+            _rows.put( _elements[ i ], Integer.valueOf( i ) );
+            _keyRows.put( _elements[ i ].getKey(), Integer.valueOf( i ) );
+        }
+        _viewer.setItemCount( _elements.length );
+        _viewer.getTable().clearAll();
+    }
+
+    /**
+     * Gets the row of the given <code>element</code>.
+     *
+     * @param element
+     * @return the row or <em>-1</em> if the element is not displayed
+     */
+    int indexOf( ResourceElement element ) {
+        Integer row = _rows.get( element );
+        return row == null ? -1 : row.intValue();
+    }
+
+    /**
+     * Gets the row of the element with the given <code>key</code>.
+     *
+     * @param key
+     * @return the row or <em>-1</em> if there is no element with the key
+     */
+    int indexOf( String key ) {
+        Integer row = _keyRows.get( key );
+        return row == null ? -1 : row.intValue();
     }
 }
@@ -16,7 +16,9 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.Hashtable;
+import java.util.Map;
 import java.util.Vector;
+import java.util.WeakHashMap;
 import java.util.zip.Adler32;
 
 import net.rim.ejde.internal.util.Messages;
@@ -30,15 +32,12 @@ import net.rim.sdk.resourceutil.ResourceLocale;
 import org.apache.log4j.Logger;
 import org.eclipse.jface.dialogs.Dialog;
 import org.eclipse.jface.dialogs.MessageDialog;
-import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.ModifyEvent;
 import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
-import org.eclipse.swt.graphics.Color;
-import org.eclipse.swt.graphics.RGB;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
@@ -47,7 +46,6 @@ import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Shell;
-import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.IEditorPart;
 import org.eclipse.ui.IWorkbench;
@@ -111,6 +109,19 @@ public class ResourceEditorOptionsDialog extends Dialog implements IDisplayable
     // in original locale and Adler-32 hex checksum corresponding values
     // see generateOriginalLocaleHashtable(ResourceLocale) method
 
+    // Adler-32 checksums of the values of the original locale elements, an entry is valid as long as the value does not change
+    private static Map< ResourceElement, ChecksumEntry > _checksumCache = new WeakHashMap< ResourceElement, ChecksumEntry >();
+
+    private static class ChecksumEntry {
+        final String _value;
+        final long _checksum;
+
+        ChecksumEntry( String value, long checksum ) {
+            _value = value;
+            _checksum = checksum;
+        }
+    }
+
     private static boolean _isTranslatorModeSet = false; // true if
     // "Set in Translator" mode is activated
     private static boolean _isStrictModeSet = false; // true if
@@ -173,22 +184,74 @@ public class ResourceEditorOptionsDialog extends Dialog implements IDisplayable
             }
 
             // Retrieve all RIMResourceElements from original locale
-            RIMResourceLocale originalLocale = null;
-            if( originalLocaleString.equals( ROOT ) ) {
-                originalLocale = ( (RIMResourceLocale) locale ).getCollection().getLocale( ResourceConstants.ROOT_LOCALE );
-                // Root locale is a special case
-            } else {
-                originalLocale = ( (RIMResourceLocale) locale ).getCollection().getLocale( originalLocaleString );
-            }
+            RIMResourceLocale originalLocale = getOriginalLocale( (RIMResourceLocale) locale, originalLocaleString );
 
             _originalLocaleHashtable.clear();
             RIMResourceElement[] elements = originalLocale.getResourceElements();
             for( int i = 0; i < elements.length; i++ ) {
-                _originalLocaleHashtable.put( elements[ i ].getKey(), getChecksumInHex( elements[ i ].getValue().toString() ) );
+                _originalLocaleHashtable.put( elements[ i ].getKey(), HEX_PREFIX
+                        + Long.toHexString( getCachedChecksum( elements[ i ] ) ).toUpperCase() );
             }
         }
     }
 
+    private static RIMResourceLocale getOriginalLocale( RIMResourceLocale locale, String originalLocaleString ) {
+        if( originalLocaleString.equals( ROOT ) ) {
+            // Root locale is a special case
+            return locale.getCollection().getLocale( ResourceConstants.ROOT_LOCALE );
+        }
+        return locale.getCollection().getLocale( originalLocaleString );
+    }
+
+    /**
+     * Returns the checksum of the value of <code>element</code>, it is only computed again if the value has changed.
+     *
+     * @param element
+     * @return
+     */
+    private static long getCachedChecksum( ResourceElement element ) {
+        String value = element.getValue().toString();
+        ChecksumEntry entry = _checksumCache.get( element );
+        if( entry == null || !entry._value.equals( value ) ) {
+            entry = new ChecksumEntry( value, getChecksum( value ) );
+            _checksumCache.put( element, entry );
+        }
+        return entry._checksum;
+    }
+
+    /**
+     * Checks if the translation of <code>element</code> is out of date, i.e. its hash does not match the checksum of the value
+     * with the same key in the original locale. Elements of the original locale are never out of date.
+     *
+     * @param element
+     * @return true if the row of element should be highlighted
+     */
+    protected static boolean isTranslationOutOfDate( ResourceElement element ) {
+        if( !( element instanceof RIMResourceElement ) ) {
+            return false;
+        }
+        RIMResourceLocale locale = ( (RIMResourceElement) element ).getLocale();
+        String originalLocaleString = locale.getCollection().getOriginalLocaleName();
+        if( null == originalLocaleString ) {
+            return false;
+        }
+        String currentLocaleName = locale.getLocaleName();
+        if( currentLocaleName.equals( ResourceConstants.ROOT_LOCALE ) && originalLocaleString.equals( ROOT ) ) {
+            return false; // do not highlight original locale under any circumstances
+        } else if( currentLocaleName.equals( originalLocaleString ) ) {
+            return false; // do not highlight original locale under any circumstances
+        }
+        RIMResourceLocale originalLocale = getOriginalLocale( locale, originalLocaleString );
+        if( originalLocale == null ) {
+            return false;
+        }
+        RIMResourceElement originalElement = originalLocale.getResourceElement( element.getKey() );
+        if( originalElement == null ) {
+            return false;
+        }
+        return getCachedChecksum( originalElement ) != ( (RIMResourceElement) element ).getHash();
+    }
+
     /**
      * Helper method used to compute checksum for a string and returns result in hexadecimal prepended with "0x" (using Adler-32
      * checksum algorithm)
@@ -594,46 +657,30 @@ public class ResourceEditorOptionsDialog extends Dialog implements IDisplayable
 
     /**
      * Helper method updates the color of the table row (in resource editor) containing element. This is used by the
-     * MarkTranslationCorrectAction and MarkTranslationIncorrectAction classes
+     * MarkTranslationCorrectAction and MarkTranslationIncorrectAction classes after the hash of element has been changed
      *
-     * @param highlight
-     *            true if element should be marked as incorrect, false if it should be marked correct
      * @param element
      *            the ResourceElement whose row color in the resource editor needs to be updated
      *
      * @see MarkTranslationCorrectAction
      * @see MarkTranslationIncorrectAction
      */
-    protected static void updateVersioningForResourceElementOnly( boolean highlight, ResourceElement element ) {
+    protected static void updateVersioningForResourceElementOnly( ResourceElement element ) {
         if( element instanceof RIMResourceElement ) {
             Vector< ResourceEditorPage > pages = ResourceEditor.getResourceEditorPages();
 
             for( int i = 0; i < pages.size(); i++ ) {
                 if( pages.get( i ).getRrcFile().getAbsolutePath()
                         .equals( ( (RIMResourceElement) element ).getLocale().getRrcFileAbsolutePath() ) ) {
-                    TableViewer viewer = pages.get( i ).getTableViewer();
-                    Table table = viewer.getTable();
-                    Color versioningColor = getVersioningColor( table );
-
-                    for( int j = 0; j < table.getItemCount(); j++ ) {
-                        if( table.getItem( j ).getText( ResourceEditorPage.KEY_COLUMN_INDEX )
-                                .equals( ( (RIMResourceElement) element ).getKey() ) ) {
-                            if( highlight ) {
-                                table.getItem( j ).setBackground( versioningColor );
-                            } else {
-                                table.getItem( j ).setBackground( table.getDisplay().getSystemColor( SWT.COLOR_WHITE ) );
-                            }
-                        }
-                    }
-
+                    pages.get( i ).updateVersioning( element.getKey() );
                 }
             }
         }
     }
 
     /**
-     * Helper method is used to update the versioning highlighting after user modifies resources in some manner (e.g. Add Key,
-     * delete/edit resource value, etc.)
+     * Helper method is used to update the versioning highlighting after user modifies resources in some manner (e.g. delete/edit
+     * resource value, etc.). Only the rows of the key of element are updated.
      *
      * @param element
      */
@@ -644,74 +691,37 @@ public class ResourceEditorOptionsDialog extends Dialog implements IDisplayable
             if( originalLocaleString != null ) { // versioning highlighting
                 // turned on
                 ( (RIMResourceElement) element ).setHash( 0 );
-                ResourceEditorOptionsDialog
-                        .updateVersioningForResourceEditor( true, ( (RIMResourceElement) element ).getLocale() );
+                // a changed value of the original locale affects the rows of the key in all locales
+                Vector< ResourceEditorPage > pages = getResourceBundlePages( ( (RIMResourceElement) element ).getLocale() );
+                for( int i = 0; i < pages.size(); i++ ) {
+                    pages.get( i ).updateVersioning( element.getKey() );
+                }
             }
         }
     }
 
     /**
-     * Helper method used to update versioning highlighting for a TableViewer object. This is used to preserve versioning
-     * highlighting after user clicks on sort indicator in resource editor to sort resource key columns/values.
+     * Returns the opened ResourceEditorPage objects which belong to the resource bundle of locale.
      *
-     * @param turnOn
-     *            true if versioning highlighting is to be turned on, false if it is to be turned off
-     * @param viewer
-     *            the TableViewer object associated with a resource locale in the resource editor
      * @param locale
-     *            the ResourceLocale associated with viewer
-     *
-     * @see ResourceEditorPage
+     * @return
      */
-    protected static void updateVersioningForTableViewer( boolean turnOn, TableViewer viewer, ResourceLocale locale ) {
-        String originalLocaleString = ( (RIMResourceLocale) locale ).getCollection().getOriginalLocaleName();
-        Table table = viewer.getTable();
-        Color versioningColor = getVersioningColor( table );
-
-        Hashtable originalLocaleHashTable = getOriginalLocaleHashtable();
-
-        // Reset colors in Resource Editor table widget to white prior to
-        // highlighting
-        for( int k = 0; k < table.getItemCount(); k++ ) {
-            table.getItem( k ).setBackground( table.getDisplay().getSystemColor( SWT.COLOR_WHITE ) );
-        }
-
-        if( turnOn ) {
-            for( int j = 0; j < table.getItemCount(); j++ ) {
-                String resourceKey = table.getItem( j ).getText( ResourceEditorPage.KEY_COLUMN_INDEX );
-                String originalLocaleChecksumHex = originalLocaleHashTable.get( resourceKey ).toString().trim();
-                ResourceLocale resourceLocale = locale;
-                long hash = ( (RIMResourceLocale) resourceLocale ).getResourceElement( resourceKey ).getHash();
-                String currentLocaleChecksumHex = HEX_PREFIX + Long.toHexString( hash ).toUpperCase();
-
-                if( originalLocaleChecksumHex.equals( currentLocaleChecksumHex ) ) {
-                    // Mark as correct
-                    table.getItem( j ).setBackground( table.getDisplay().getSystemColor( SWT.COLOR_WHITE ) );
-                } else {
-                    // Check if current locale is the original locale
-                    boolean highlight = false; // boolean flag used to determine
-                    // whether we highlight the given
-                    // resource element
-                    String currentLocaleName = ( (RIMResourceLocale) locale ).getLocaleName();
-
-                    if( currentLocaleName.equals( ResourceConstants.ROOT_LOCALE ) && originalLocaleString.equals( ROOT ) ) {
-                        highlight = false; // do not highlight original locale
-                        // under any circumstances
-                    } else if( currentLocaleName.equals( originalLocaleString ) ) {
-                        highlight = false; // do not highlight original locale
-                        // under any circumstances
-                    } else {
-                        highlight = true; // mark as incorrect
-                    }
-
-                    if( highlight ) {
-                        table.getItem( j ).setBackground( versioningColor );
-                    } else {
-                        table.getItem( j ).setBackground( table.getDisplay().getSystemColor( SWT.COLOR_WHITE ) );
-                    }
-                }
+    private static Vector< ResourceEditorPage > getResourceBundlePages( RIMResourceLocale locale ) {
+        // .rrh file of the resource bundle without extension
+        String rrhPath = new File( locale.getCollection().getRrhFileAbsolutePath() ).getAbsolutePath();
+        int indexOfRrhExt = rrhPath.lastIndexOf( ResourceConstants.RRH_SUFFIX );
+        rrhPath = rrhPath.substring( 0, indexOfRrhExt );
+        Vector< ResourceEditorPage > pages = ResourceEditor.getResourceEditorPages();
+        Vector< ResourceEditorPage > bundlePages = new Vector< ResourceEditorPage >();
+        for( int i = 0; i < pages.size(); i++ ) {
+            // prevents versioning highlighting from inadvertently being turned on for other resource bundles (i.e. other
+            // ResourceEditor instances)
+            String rrcPath = pages.get( i ).getRrcFile().getAbsolutePath();
+            if( rrcPath.length() >= indexOfRrhExt && rrhPath.equals( rrcPath.substring( 0, indexOfRrhExt ) ) ) {
+                bundlePages.add( pages.get( i ) );
             }
         }
+        return bundlePages;
     }
 
     /**
@@ -729,88 +739,10 @@ public class ResourceEditorOptionsDialog extends Dialog implements IDisplayable
             // checksums for the original locale
             generateOriginalLocaleHashtable( locale );
 
-            File rrhFile = new File( ( (RIMResourceLocale) locale ).getCollection().getRrhFileAbsolutePath() );
-            String originalLocaleString = ( (RIMResourceLocale) locale ).getCollection().getOriginalLocaleName();
-            Vector< ResourceEditorPage > pages = ResourceEditor.getResourceEditorPages();
-
+            Vector< ResourceEditorPage > pages = getResourceBundlePages( (RIMResourceLocale) locale );
             for( int i = 0; i < pages.size(); i++ ) {
-                // Check if current ResourceEditorPage object in pages vector
-                // belongs to this resource bundle
-                String rrcPath = pages.get( i ).getRrcFile().getAbsolutePath(); // .
-                // rrc
-                // file
-                // in
-                // pages
-                // vector
-                String rrhPath = rrhFile.getAbsolutePath(); // .rrh file from
-                // which this
-                // options dialog
-                // was activated
-                // from
-                int indexOfRrhExt = rrhPath.lastIndexOf( ResourceConstants.RRH_SUFFIX );
-                rrhPath = rrhPath.substring( 0, indexOfRrhExt );
-                rrcPath = rrcPath.substring( 0, indexOfRrhExt );
-
-                if( !rrhPath.equals( rrcPath ) ) {
-                    continue; // current ResourceEditorPage object is not in
-                    // this resource bundle, so skip to next object
-                    // prevents versioning highlighting from inadvertently being
-                    // turned on for other resource bundles (i.e. other
-                    // ResourceEditor instances)
-                }
-
-                TableViewer viewer = pages.get( i ).getTableViewer();
-                Table table = viewer.getTable();
-                Color versioningColor = getVersioningColor( table );
-                Hashtable originalLocaleHashTable = getOriginalLocaleHashtable();
-
-                // Reset colors in Resource Editor table widget to white prior
-                // to highlighting
-                for( int k = 0; k < table.getItemCount(); k++ ) {
-                    table.getItem( k ).setBackground( table.getDisplay().getSystemColor( SWT.COLOR_WHITE ) );
-                }
-
-                if( turnOn ) {
-                    for( int j = 0; j < table.getItemCount(); j++ ) {
-                        String resourceKey = table.getItem( j ).getText( ResourceEditorPage.KEY_COLUMN_INDEX );
-                        String originalLocaleChecksumHex = originalLocaleHashTable.get( resourceKey ).toString().trim();
-                        ResourceLocale resourceLocale = pages.get( i ).getLocale();
-                        long hash = ( (RIMResourceLocale) resourceLocale ).getResourceElement( resourceKey ).getHash();
-                        String currentLocaleChecksumHex = HEX_PREFIX + Long.toHexString( hash ).toUpperCase();
-
-                        if( originalLocaleChecksumHex.equals( currentLocaleChecksumHex ) ) {
-                            // Marked correct
-                            table.getItem( j ).setBackground( table.getDisplay().getSystemColor( SWT.COLOR_WHITE ) );
-                        } else {
-                            // Check if current locale is the original locale
-                            boolean highlight = false; // boolean flag used to
-                            // determine whether we
-                            // highlight the given
-                            // resource element
-                            String currentLocaleName = ( (RIMResourceLocale) pages.get( i ).getLocale() ).getLocaleName();
-
-                            if( currentLocaleName.equals( ResourceConstants.ROOT_LOCALE ) && originalLocaleString.equals( ROOT ) ) {
-                                highlight = false; // do not highlight original
-                                // locale under any
-                                // circumstances
-                            } else if( currentLocaleName.equals( originalLocaleString ) ) {
-                                highlight = false; // do not highlight original
-                                // locale under any
-                                // circumstances
-                            } else {
-                                highlight = true;
-                            }
-
-                            // Highlight the appropriate table row in resource
-                            // editor page if necessary
-                            if( highlight ) {
-                                table.getItem( j ).setBackground( versioningColor );
-                            } else {
-                                table.getItem( j ).setBackground( table.getDisplay().getSystemColor( SWT.COLOR_WHITE ) );
-                            }
-                        }
-                    }
-                }
+                // rows are highlighted when they are painted
+                pages.get( i ).setVersioningHighlight( turnOn );
             }
         }
     }
@@ -844,23 +776,4 @@ public class ResourceEditorOptionsDialog extends Dialog implements IDisplayable
         return _isStrictModeSet;
     }
 
-    /**
-     * Returns Color object used for versioning highlighting (light pink color)
-     *
-     * @param table
-     * @return
-     */
-    private static Color getVersioningColor( Table table ) {
-        RGB versioningRGB = new RGB( 255, 204, 204 );
-        Color versioningColor;
-
-        if( !table.isDisposed() ) {
-            versioningColor = new Color( table.getDisplay(), versioningRGB );
-        } else {
-            versioningColor = new Color( null, versioningRGB );
-        }
-
-        return versioningColor;
-    }
-
 }
@@ -45,13 +45,17 @@ import org.eclipse.jface.viewers.TableLayout;
 import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jface.window.Window;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.events.MouseAdapter;
 import org.eclipse.swt.events.MouseEvent;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.FontData;
 import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.RGB;
 import org.eclipse.swt.layout.FormAttachment;
 import org.eclipse.swt.layout.FormData;
 import org.eclipse.swt.layout.FormLayout;
@@ -84,11 +88,16 @@ public class ResourceEditorPage {
     private Composite _composite;
     private IInputValidator _newKeyValidator;
     private TableViewer _viewer;
+    private ResourceContentProvider _contentProvider;
 
-    private static ResourceContentProvider _contentProvider = new ResourceContentProvider();
-    private static ResourceLabelProvider _labelProvider = new ResourceLabelProvider();
     private static String[] _columnProperties;
-    private static Vector< Comparator< ResourceElement >> _comparators = new Vector< Comparator< ResourceElement >>( NUM_COLUMNS );
+    private static Vector< Comparator< String >> _comparators = new Vector< Comparator< String >>( NUM_COLUMNS );
+
+    // true if rows whose translation is out of date are highlighted
+    private boolean _versioningHighlight = false;
+
+    // light pink color used for versioning highlighting
+    private Color _versioningColor;
 
     // underlying .rrc file associated with then locale represented by this ResourceEditorPage (if applicable)
     private File _rrcFile = null;
@@ -110,16 +119,14 @@ public class ResourceEditorPage {
         _columnProperties[ KEY_COLUMN_INDEX ] = KEY_COLUMN_ID;
         _columnProperties[ VALUE_COLUMN_INDEX ] = VALUE_COLUMN_ID;
 
-        _comparators.add( KEY_COLUMN_INDEX, new Comparator< ResourceElement >() {
-            public int compare( ResourceElement e1, ResourceElement e2 ) {
-                return e1.getKey().compareToIgnoreCase( e2.getKey() );
+        _comparators.add( KEY_COLUMN_INDEX, new Comparator< String >() {
+            public int compare( String key1, String key2 ) {
+                return key1.compareToIgnoreCase( key2 );
             }
         } );
 
-        _comparators.add( VALUE_COLUMN_INDEX, new Comparator< ResourceElement >() {
-            public int compare( ResourceElement e1, ResourceElement e2 ) {
-                String value1 = e1.getValueAsString();
-                String value2 = e2.getValueAsString();
+        _comparators.add( VALUE_COLUMN_INDEX, new Comparator< String >() {
+            public int compare( String value1, String value2 ) {
                 if( value1.length() == 0 && value2.length() != 0 ) {
                     return 1;
                 }
@@ -142,25 +149,7 @@ public class ResourceEditorPage {
             _rrcFile = new File( ( (RIMResourceLocale) locale ).getRrcFileAbsolutePath() );
         }
         _locale = locale;
-
-        // Preserve Versioning Highlighting if user sorts resource key column in Resource Editor
-        Table table = _viewer.getTable();
-        TableColumn keyColumn = table.getColumn( KEY_COLUMN_INDEX );
-        keyColumn.addSelectionListener( new SelectionAdapter() {
-            public void widgetSelected( SelectionEvent e ) {
-                String originalLocaleString = ( (RIMResourceLocale) _locale ).getCollection().getOriginalLocaleName();
-                ResourceEditorOptionsDialog.updateVersioningForTableViewer( null != originalLocaleString, _viewer, _locale );
-            }
-        } );
-
-        // Preserve Versioning Highlighting if user sorts resource value column in Resource Editor
-        TableColumn valueColumn = table.getColumn( VALUE_COLUMN_INDEX );
-        valueColumn.addSelectionListener( new SelectionAdapter() {
-            public void widgetSelected( SelectionEvent e ) {
-                String originalLocaleString = ( (RIMResourceLocale) _locale ).getCollection().getOriginalLocaleName();
-                ResourceEditorOptionsDialog.updateVersioningForTableViewer( null != originalLocaleString, _viewer, _locale );
-            }
-        } );
+        // Versioning Highlighting is preserved when the user sorts a column since the colors are provided by the label provider
     }
 
     void createContextMenu( IWorkbenchPartSite site ) {
@@ -212,7 +201,7 @@ public class ResourceEditorPage {
     }
 
     void refresh() {
-        _viewer.refresh();
+        _contentProvider.reload();
     }
 
     void setFocus() {
@@ -220,7 +209,54 @@ public class ResourceEditorPage {
     }
 
     void update( Object element, String[] properties ) {
-        _viewer.update( element, properties );
+        if( element instanceof ResourceElement ) {
+            int row = _contentProvider.indexOf( (ResourceElement) element );
+            if( row >= 0 ) {
+                // the row is requested from the content provider again when it is painted
+                _viewer.getTable().clear( row );
+            }
+        }
+    }
+
+    /**
+     * Turns versioning highlighting of this page on or off.
+     *
+     * @param turnOn
+     */
+    void setVersioningHighlight( boolean turnOn ) {
+        _versioningHighlight = turnOn;
+        _viewer.getTable().clearAll();
+    }
+
+    /**
+     * Updates the versioning highlighting of the row of the given <code>key</code>.
+     *
+     * @param key
+     */
+    void updateVersioning( String key ) {
+        int row = _contentProvider.indexOf( key );
+        if( row >= 0 ) {
+            _viewer.getTable().clear( row );
+        }
+    }
+
+    /**
+     * Checks if the row of <code>element</code> is highlighted because its translation is out of date.
+     *
+     * @param element
+     * @return
+     */
+    boolean isVersioningHighlighted( ResourceElement element ) {
+        return _versioningHighlight && ResourceEditorOptionsDialog.isTranslationOutOfDate( element );
+    }
+
+    /**
+     * Returns Color object used for versioning highlighting (light pink color)
+     *
+     * @return
+     */
+    Color getVersioningColor() {
+        return _versioningColor;
     }
 
     private Button createAddButton( final ResourceLocale locale ) {
@@ -496,8 +532,8 @@ public class ResourceEditorPage {
                                 }
                                 long checksumLongValue = Long.parseLong( checksumHexValue.trim(), 16 );
                                 currentElement.setHash( checksumLongValue );
-                                ResourceEditorOptionsDialog.updateVersioningForResourceElementOnly( false, currentElement );
                             }
+                            _viewer.getTable().clearAll();
                         }
                     }
                 }
@@ -544,7 +580,7 @@ public class ResourceEditorPage {
         data.top = new FormAttachment( topAttachControl );
 
         final Table table = new Table( _composite, SWT.SINGLE | SWT.H_SCROLL | SWT.V_SCROLL | SWT.BORDER | SWT.FULL_SELECTION
-                | SWT.HIDE_SELECTION );
+                | SWT.HIDE_SELECTION | SWT.VIRTUAL );
         table.setHeaderVisible( true );
         table.setLinesVisible( true );
         table.setLayout( new TableLayout() );
@@ -598,6 +634,13 @@ public class ResourceEditorPage {
         Font unicodeFont = new Font( table.getDisplay(), unicodeFontData );
         table.setFont( unicodeFont );
 
+        _versioningColor = new Color( table.getDisplay(), new RGB( 255, 204, 204 ) );
+        table.addDisposeListener( new DisposeListener() {
+            public void widgetDisposed( DisposeEvent e ) {
+                _versioningColor.dispose();
+            }
+        } );
+
         TableColumn keyColumn = new TableColumn( table, SWT.NONE );
         keyColumn.setText( "Keys" );
         ( (TableLayout) table.getLayout() ).addColumnData( new ColumnWeightData( 50 ) );
@@ -613,9 +656,11 @@ public class ResourceEditorPage {
         Table table = createTable( topAttachControl );
         TableViewer viewer = new TableViewer( table );
         viewer.setColumnProperties( _columnProperties );
+        // the elements are sorted by the content provider, a virtual table does not support viewer sorters
+        _contentProvider = new ResourceContentProvider( viewer );
+        _contentProvider.setSorter( new ResourceSorter( viewer, _contentProvider, _comparators ) );
         viewer.setContentProvider( _contentProvider );
-        viewer.setLabelProvider( _labelProvider );
-        viewer.setSorter( new ResourceSorter( viewer, _comparators ) );
+        viewer.setLabelProvider( new ResourceLabelProvider( this ) );
         viewer.setInput( locale );
 
         return viewer;
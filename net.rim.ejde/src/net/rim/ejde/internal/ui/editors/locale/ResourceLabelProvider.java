@@ -12,17 +12,26 @@ package net.rim.ejde.internal.ui.editors.locale;
 
 import net.rim.sdk.resourceutil.ResourceElement;
 
+import org.eclipse.jface.viewers.ITableColorProvider;
 import org.eclipse.jface.viewers.ITableLabelProvider;
 import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Image;
 
 /**
- * The label provider used in the resource editor
+ * The label provider used in the resource editor. Rows whose translation is out of date are painted with the versioning
+ * highlight color of the page.
  *
  * @author jkeshavarzi
  *
  */
-public class ResourceLabelProvider extends LabelProvider implements ITableLabelProvider {
+public class ResourceLabelProvider extends LabelProvider implements ITableLabelProvider, ITableColorProvider {
+    private ResourceEditorPage _page;
+
+    public ResourceLabelProvider( ResourceEditorPage page ) {
+        _page = page;
+    }
+
     public Image getColumnImage( Object element, int columnIndex ) {
         return null;
     }
@@ -38,4 +47,15 @@ public class ResourceLabelProvider extends LabelProvider implements ITableLabelP
         }
         return null;
     }
+
+    public Color getBackground( Object element, int columnIndex ) {
+        if( element instanceof ResourceElement && _page.isVersioningHighlighted( (ResourceElement) element ) ) {
+            return _page.getVersioningColor();
+        }
+        return null;
+    }
+
+    public Color getForeground( Object element, int columnIndex ) {
+        return null;
+    }
 }
@@ -10,6 +10,7 @@
 */
 package net.rim.ejde.internal.ui.editors.locale;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Vector;
 
@@ -17,24 +18,40 @@ import net.rim.ejde.internal.core.ContextManager;
 import net.rim.sdk.resourceutil.ResourceElement;
 
 import org.eclipse.jface.viewers.TableViewer;
-import org.eclipse.jface.viewers.Viewer;
-import org.eclipse.jface.viewers.ViewerSorter;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.widgets.TableColumn;
 
-public class ResourceSorter extends ViewerSorter {
+/**
+ * Sorts the elements of a resource editor page by the columns of its table. The column clicked last is the primary sort column.
+ * The texts of the sort columns are read once per sort, the comparators compare these texts.
+ */
+public class ResourceSorter {
     private static class SortInfo {
         int _columnIndex;
-        Comparator< ResourceElement > _comparator;
+        Comparator< String > _comparator;
         boolean _descending;
     }
 
+    private static class SortEntry {
+        final ResourceElement _element;
+        final String[] _texts;
+
+        SortEntry( ResourceElement element, int columnCount ) {
+            _element = element;
+            _texts = new String[ columnCount ];
+            for( int i = 0; i < columnCount; i++ ) {
+                _texts[ i ] = getColumnText( element, i );
+            }
+        }
+    }
+
     private static Image _ascendingImage;
     private static Image _descendingImage;
 
     private TableViewer _viewer;
+    private ResourceContentProvider _contentProvider;
     private Vector< SortInfo > _sortInfos;
 
     static {
@@ -44,22 +61,51 @@ public class ResourceSorter extends ViewerSorter {
                 .createImage();
     }
 
-    public ResourceSorter( TableViewer viewer, Vector< Comparator< ResourceElement >> comparators ) {
+    public ResourceSorter( TableViewer viewer, ResourceContentProvider contentProvider,
+            Vector< Comparator< String >> comparators ) {
         _viewer = viewer;
+        _contentProvider = contentProvider;
         _sortInfos = createSortInfos( comparators );
         setColumnSortIcon( 0, false );
     }
 
-    public int compare( Viewer viewer, Object o1, Object o2 ) {
-        ResourceElement element1 = (ResourceElement) o1;
-        ResourceElement element2 = (ResourceElement) o2;
-        for( SortInfo sortInfo : _sortInfos ) {
-            int result = sortInfo._comparator.compare( element1, element2 );
-            if( result != 0 ) {
-                return sortInfo._descending ? -result : result;
+    /**
+     * Sorts the given <code>elements</code> in place.
+     *
+     * @param elements
+     */
+    public void sort( ResourceElement[] elements ) {
+        int columnCount = _sortInfos.size();
+        SortEntry[] entries = new SortEntry[ elements.length ];
+        for( int i = 0; i < elements.length; i++ ) {
+            entries[ i ] = new SortEntry( elements[ i ], columnCount );
+        }
+        Arrays.sort( entries, new Comparator< SortEntry >() {
+            public int compare( SortEntry entry1, SortEntry entry2 ) {
+                for( SortInfo sortInfo : _sortInfos ) {
+                    int result = sortInfo._comparator.compare( entry1._texts[ sortInfo._columnIndex ],
+                            entry2._texts[ sortInfo._columnIndex ] );
+                    if( result != 0 ) {
+                        return sortInfo._descending ? -result : result;
+                    }
+                }
+                return 0;
             }
+        } );
+        for( int i = 0; i < elements.length; i++ ) {
+            elements[ i ] = entries[ i ]._element;
+        }
+    }
+
+    private static String getColumnText( ResourceElement element, int columnIndex ) {
+        switch( columnIndex ) {
+            case ResourceEditorPage.KEY_COLUMN_INDEX:
+                return element.getKey();
+            case ResourceEditorPage.VALUE_COLUMN_INDEX:
+                return element.getValueAsString();
+            default:
+                return ""; //$NON-NLS-1$
         }
-        return 0;
     }
 
     private void createSelectionListener( TableColumn column, final SortInfo sortInfo ) {
@@ -70,7 +116,7 @@ public class ResourceSorter extends ViewerSorter {
         } );
     }
 
-    private Vector< SortInfo > createSortInfos( Vector< Comparator< ResourceElement >> comparators ) {
+    private Vector< SortInfo > createSortInfos( Vector< Comparator< String >> comparators ) {
         TableColumn[] columns = _viewer.getTable().getColumns();
         Vector< SortInfo > sortInfos = new Vector< SortInfo >( columns.length );
         for( int i = 0; i < columns.length; ++i ) {
@@ -113,6 +159,6 @@ public class ResourceSorter extends ViewerSorter {
             sortInfo._descending = false;
         }
         setColumnSortIcon( sortInfo._columnIndex, sortInfo._descending );
-        _viewer.refresh();
+        _contentProvider.sort();
     }
 }
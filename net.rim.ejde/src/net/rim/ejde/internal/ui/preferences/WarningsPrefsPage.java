@@ -19,6 +19,7 @@ import java.util.Map;
 import net.rim.ejde.internal.core.ContextManager;
 import net.rim.ejde.internal.core.IConstants;
 import net.rim.ejde.internal.core.IRIMMarker;
+import net.rim.ejde.internal.launching.LaunchCheckCache;
 import net.rim.ejde.internal.model.preferences.WarningsPreferences;
 import net.rim.ejde.internal.signing.BBSigningKeys;
 import net.rim.ejde.internal.util.Messages;
@@ -42,6 +43,9 @@ import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.Tree;
 import org.eclipse.swt.widgets.TreeItem;
 
@@ -55,6 +59,7 @@ public class WarningsPrefsPage extends BasicPrefsPage {
     private Map< String, List< String >> _keyTable;
     private Tree _checkTree;
     private Map< String, Boolean > _statusTable;
+    private Table _launchChecksTable;
 
     @Override
     protected Control createContents( Composite parent ) {
@@ -108,11 +113,59 @@ public class WarningsPrefsPage extends BasicPrefsPage {
         _promptForMissingDependenciesFileButton.setToolTipText( Messages.SDKPrefsPage_WarnForMissingDependenciesMsg );
         _promptForMissingDependenciesFileButton.setLayoutData( gridData );
 
+        createLaunchChecksArea( main );
+
         initValues();
 
         return parent;
     }
 
+    /**
+     * Creates the table which shows the cached results of the launch checks and the button which drops them.
+     *
+     * @param parent
+     */
+    private void createLaunchChecksArea( Composite parent ) {
+        Label launchChecksLabel = new Label( parent, SWT.NONE );
+        launchChecksLabel.setText( Messages.DebugPrefsPage_LaunchChecksLabel );
+        GridData gridData = new GridData( SWT.FILL, SWT.CENTER, true, false );
+        gridData.verticalIndent = 10;
+        launchChecksLabel.setLayoutData( gridData );
+
+        _launchChecksTable = new Table( parent, SWT.BORDER | SWT.FULL_SELECTION );
+        _launchChecksTable.setHeaderVisible( true );
+        _launchChecksTable.setLinesVisible( true );
+        gridData = new GridData( SWT.FILL, SWT.FILL, true, false );
+        gridData.heightHint = _launchChecksTable.getItemHeight() * 4;
+        _launchChecksTable.setLayoutData( gridData );
+        new TableColumn( _launchChecksTable, SWT.LEFT ).setText( Messages.DebugPrefsPage_LaunchCheckColumn );
+        new TableColumn( _launchChecksTable, SWT.LEFT ).setText( Messages.DebugPrefsPage_LaunchCheckFileColumn );
+        new TableColumn( _launchChecksTable, SWT.LEFT ).setText( Messages.DebugPrefsPage_LaunchCheckResultColumn );
+
+        Button clearButton = new Button( parent, SWT.PUSH );
+        clearButton.setText( Messages.DebugPrefsPage_ClearLaunchChecksButton );
+        clearButton.addSelectionListener( new SelectionAdapter() {
+            @Override
+            public void widgetSelected( SelectionEvent e ) {
+                LaunchCheckCache.getInstance().clear();
+                fillLaunchChecksTable();
+            }
+        } );
+        fillLaunchChecksTable();
+    }
+
+    private void fillLaunchChecksTable() {
+        _launchChecksTable.removeAll();
+        for( LaunchCheckCache.Entry entry : LaunchCheckCache.getInstance().getEntries() ) {
+            TableItem item = new TableItem( _launchChecksTable, SWT.NONE );
+            item.setText( new String[] { entry.getCheck(), entry.getFile().getPath(),
+                    entry.getValue() == null ? Messages.DebugPrefsPage_LaunchCheckNotFound : entry.getValue().toString() } );
+        }
+        for( TableColumn column : _launchChecksTable.getColumns() ) {
+            column.pack();
+        }
+    }
+
     private Map< String, List< String >> populateKeyTable() {
         String id = null;
         _keyTable = new HashMap< String, List< String >>();
@@ -10,10 +10,17 @@
 */
 package net.rim.ejde.internal.ui.views;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import net.rim.ejde.internal.util.DebugUtils;
+import net.rim.ide.core.IDEError;
+import net.rim.ide.core.VarContentsHelper;
+import net.rim.ide.core.VarContentsHelper.Line;
 
 import org.apache.log4j.Logger;
 import org.eclipse.core.runtime.CoreException;
@@ -30,47 +37,144 @@ import org.eclipse.debug.core.model.IDebugTarget;
 import org.eclipse.debug.core.model.IThread;
 import org.eclipse.jdt.debug.core.IJavaThread;
 import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Table;
 
+/**
+ * Updates a {@link VarContentDebugView} periodically while the debugged application is running.
+ * <p>
+ * On each update the target is suspended only as long as it takes to read the contents, the rows are compared with the rows
+ * read by the previous update and only the changed rows are repainted. The interval between two updates grows with the time an
+ * update takes. The job pauses while the view is hidden.
+ */
 public class DebuggerLiveUpdateJob extends Job implements IDebugEventSetListener {
     private static final Logger _log = Logger.getLogger( DebuggerLiveUpdateJob.class );
+    // bounds of the interval between two updates
+    private static final long MIN_INTERVAL = 2000;
+    private static final long MAX_INTERVAL = 30000;
+    // the interval is kept this many times as long as an update, so the application is suspended a small part of the time
+    private static final int LOAD_FACTOR = 10;
+    // the contents are read anyway if the target has not reported to be suspended by then
+    private static final long SUSPEND_TIMEOUT = 1000;
+    private static final long SUSPEND_POLL_INTERVAL = 20;
     private VarContentDebugView _view;
-    private boolean _isLiveUpdateCanceled = false;
-    private boolean _skipUpdate = false;
-    private Set< IJavaThread > debugThreadList = new HashSet< IJavaThread >();
+    private volatile boolean _isLiveUpdateCanceled = false;
+    private volatile boolean _skipUpdate = false;
+    private volatile boolean _isViewVisible = true;
+    private long _interval = MIN_INTERVAL;
+    // the rows read by the last update, null if the view has been refreshed otherwise since then
+    private volatile Snapshot _lastSnapshot;
+    private Set< IJavaThread > debugThreadList = Collections.synchronizedSet( new HashSet< IJavaThread >() );
+
+    /**
+     * The rows of a {@link VarContentsHelper} at the time of an update.
+     */
+    private static class Snapshot {
+        final VarContentsHelper _helper;
+        final Line[] _lines;
+        final String[][] _values;
+
+        Snapshot( VarContentsHelper helper, Line[] lines, String[][] values ) {
+            _helper = helper;
+            _lines = lines;
+            _values = values;
+        }
+
+        /**
+         * Gets the rows which differ from the <code>previous</code> snapshot.
+         *
+         * @param previous
+         * @return the indexes of the changed rows or <code>null</code> if all rows have to be displayed again
+         */
+        int[] getChangedRows( Snapshot previous ) {
+            if( previous == null || previous._helper != _helper || previous._lines.length != _lines.length ) {
+                return null;
+            }
+            List< Integer > changedRows = new ArrayList< Integer >();
+            for( int i = 0; i < _lines.length; i++ ) {
+                if( _lines[ i ] != previous._lines[ i ] || !Arrays.equals( _values[ i ], previous._values[ i ] ) ) {
+                    changedRows.add( Integer.valueOf( i ) );
+                }
+            }
+            int[] rows = new int[ changedRows.size() ];
+            for( int i = 0; i < rows.length; i++ ) {
+                rows[ i ] = changedRows.get( i ).intValue();
+            }
+            return rows;
+        }
+    }
 
     public DebuggerLiveUpdateJob( String name, VarContentDebugView view ) {
         super( name );
+        setSystem( true );
         DebugPlugin.getDefault().addDebugEventListener( this );
         _view = view;
         _log.trace( "Debugger live update job was created" );
     }
 
+    /**
+     * Starts the periodic updates.
+     */
+    public void startUpdate() {
+        _isLiveUpdateCanceled = false;
+        schedule( _interval );
+    }
+
     public void cancelUpdate() {
         _isLiveUpdateCanceled = true;
+        cancel();
     }
 
     public boolean isUpdateCanceled() {
         return _isLiveUpdateCanceled;
     }
 
+    /**
+     * Stops the updates and stops listening to debug events.
+     */
+    public void dispose() {
+        cancelUpdate();
+        DebugPlugin.getDefault().removeDebugEventListener( this );
+    }
+
+    /**
+     * Pauses the updates while the view is hidden, the view is updated as soon as it becomes visible again.
+     *
+     * @param visible
+     */
+    public void setViewVisible( boolean visible ) {
+        _isViewVisible = visible;
+        if( visible && !_isLiveUpdateCanceled && getState() == Job.NONE ) {
+            schedule();
+        }
+    }
+
+    /**
+     * Forgets the rows read by the last update, the next update displays all rows. Called when the view has been refreshed by
+     * other means.
+     */
+    public void resetSnapshot() {
+        _lastSnapshot = null;
+    }
+
     @Override
     protected IStatus run( IProgressMonitor monitor ) {
-        _log.trace( "Debugger live update job started" );
-        _isLiveUpdateCanceled = false;
-        while( !_isLiveUpdateCanceled && !monitor.isCanceled() ) {
-            try {
-                Thread.sleep( 2000 );
-            } catch( InterruptedException e ) {
-                _log.error( e );
-            }
-            try {
-                updateUI();
-            } catch( CoreException e ) {
-                _log.error( e );
-            }
+        if( _isLiveUpdateCanceled || monitor.isCanceled() ) {
+            return Status.OK_STATUS;
         }
-        if( monitor.isCanceled() ) {
-            _isLiveUpdateCanceled = true;
+        if( !_isViewVisible ) {
+            // rescheduled by setViewVisible()
+            _log.trace( "Debugger live update paused" );
+            return Status.OK_STATUS;
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            updateUI();
+        } catch( CoreException e ) {
+            _log.error( e );
+        }
+        _interval = Math.min( MAX_INTERVAL, Math.max( MIN_INTERVAL, ( System.currentTimeMillis() - startTime ) * LOAD_FACTOR ) );
+        if( !_isLiveUpdateCanceled && !monitor.isCanceled() ) {
+            schedule( _interval );
         }
         return Status.OK_STATUS;
     }
@@ -93,32 +197,96 @@ public class DebuggerLiveUpdateJob extends Job implements IDebugEventSetListener
         if( hasThreadSuspended( debugTarget ) ) {
             return;
         }
-        if( !debugTarget.isSuspended() && debugTarget.canSuspend() ) {
-            debugTarget.suspend();
-            try {
-                Thread.sleep( 1000 );
-            } catch( InterruptedException e ) {
-                _log.error( e );
-            }
+        if( debugTarget.isSuspended() || !debugTarget.canSuspend() ) {
+            return;
+        }
+        final Snapshot[] snapshot = new Snapshot[ 1 ];
+        debugTarget.suspend();
+        try {
+            waitForSuspend( debugTarget );
             Display.getDefault().syncExec( new Runnable() {
-
                 @Override
                 public void run() {
-                    try {
-                        _log.trace( "Updating debugger view" );
-                        if( !_view.getTableView().getTable().isDisposed() ) {
-                            _view.refresh();
-                        }
-                    } catch( CoreException e ) {
-                        _log.error( e );
-                    }
+                    snapshot[ 0 ] = takeSnapshot();
                 }
-
             } );
+        } finally {
             if( debugTarget.canResume() ) {
                 resumeDebugger( debugTarget );
             }
         }
+        if( snapshot[ 0 ] == null ) {
+            return;
+        }
+        final int[] changedRows = snapshot[ 0 ].getChangedRows( _lastSnapshot );
+        _lastSnapshot = snapshot[ 0 ];
+        if( changedRows != null && changedRows.length == 0 ) {
+            return;
+        }
+        Display.getDefault().asyncExec( new Runnable() {
+            @Override
+            public void run() {
+                Table table = _view.getTableView().getTable();
+                if( table.isDisposed() ) {
+                    return;
+                }
+                _log.trace( "Updating debugger view" );
+                if( changedRows == null ) {
+                    _view.showContents( _view.getContentsHelper() );
+                } else {
+                    _view.showChangedRows( changedRows );
+                }
+            }
+        } );
+    }
+
+    /**
+     * Reads the contents of the view while the target is suspended. Must be called on the UI thread since the view paints from
+     * the same contents helper.
+     *
+     * @return the snapshot or <code>null</code> if there is nothing to display
+     */
+    private Snapshot takeSnapshot() {
+        if( _view.getTableView() == null || _view.getTableView().getTable().isDisposed() ) {
+            return null;
+        }
+        VarContentsHelper helper = _view.getContentsHelper();
+        if( helper == null ) {
+            return null;
+        }
+        try {
+            helper.updateContents();
+        } catch( IDEError e ) {
+            _log.error( e );
+            return null;
+        }
+        int columnCount = _view.getTableView().getTable().getColumnCount();
+        int rowCount = helper.getRowCount();
+        Line[] lines = new Line[ rowCount ];
+        String[][] values = new String[ rowCount ][];
+        for( int i = 0; i < rowCount; i++ ) {
+            lines[ i ] = helper.getLine( i );
+            values[ i ] = new String[ columnCount ];
+            if( lines[ i ] == null ) {
+                continue;
+            }
+            for( int j = 0; j < columnCount; j++ ) {
+                values[ i ][ j ] = String.valueOf( helper.getValue( lines[ i ], j ) );
+            }
+        }
+        return new Snapshot( helper, lines, values );
+    }
+
+    private void waitForSuspend( IDebugTarget debugTarget ) {
+        long deadline = System.currentTimeMillis() + SUSPEND_TIMEOUT;
+        while( !debugTarget.isSuspended() && System.currentTimeMillis() < deadline ) {
+            try {
+                Thread.sleep( SUSPEND_POLL_INTERVAL );
+            } catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
     }
 
     private void resumeDebugger( IDebugTarget debugTarget ) {
@@ -52,7 +52,9 @@ import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
 import org.eclipse.swt.widgets.TableItem;
+import org.eclipse.ui.IPartListener2;
 import org.eclipse.ui.IWorkbenchActionConstants;
+import org.eclipse.ui.IWorkbenchPartReference;
 
 /**
  * This view is the parent of views which display data from a {@link VarContentsHelper}, e.g. process view, locals view, locks
@@ -77,6 +79,9 @@ public abstract class VarContentDebugView extends BasicDebugView {
 
     DebuggerLiveUpdateJob _liveUpdateJob;
 
+    // pauses the live update while the view is hidden
+    private IPartListener2 _visibilityListener;
+
     /**
      * Get the instance of the contents helper used by this view.
      *
@@ -114,10 +119,12 @@ public abstract class VarContentDebugView extends BasicDebugView {
         }
         if( _liveUpdateJob == null ) {
             _liveUpdateJob = new DebuggerLiveUpdateJob( "", this );
-            _liveUpdateJob.schedule();
+            _visibilityListener = new VisibilityListener();
+            getSite().getPage().addPartListener( _visibilityListener );
+            _liveUpdateJob.startUpdate();
         } else {
             if( _liveUpdateJob.getState() == Job.NONE || _liveUpdateJob.isUpdateCanceled() ) {
-                _liveUpdateJob.schedule();
+                _liveUpdateJob.startUpdate();
             }
         }
     }
@@ -127,8 +134,11 @@ public abstract class VarContentDebugView extends BasicDebugView {
      */
     public void dispose() {
         super.dispose();
+        if( _visibilityListener != null ) {
+            getSite().getPage().removePartListener( _visibilityListener );
+        }
         if( _liveUpdateJob != null ) {
-            _liveUpdateJob.cancelUpdate();
+            _liveUpdateJob.dispose();
         }
     }
 
@@ -147,22 +157,58 @@ public abstract class VarContentDebugView extends BasicDebugView {
             }
             try {
                 contentHelper.updateContents();
-                Table table = getTableView().getTable();
-                table.setRedraw( false );
-                getTableView().setInput( contentHelper );
-                table.setItemCount( getContentsHelper().getRowCount() );
-                table.setRedraw( true );
-
-                if( _selectedRow >= 0 ) {
-                    table.setSelection( _selectedRow );
-                    table.showSelection();
+                if( _liveUpdateJob != null ) {
+                    _liveUpdateJob.resetSnapshot();
                 }
+                showContents( contentHelper );
             } catch( IDEError e ) {
                 _log.error( e );
             }
         }
     }
 
+    /**
+     * Displays all rows of <code>contentHelper</code>.
+     *
+     * @param contentHelper
+     */
+    void showContents( VarContentsHelper contentHelper ) {
+        if( contentHelper == null ) {
+            return;
+        }
+        Table table = getTableView().getTable();
+        table.setRedraw( false );
+        getTableView().setInput( contentHelper );
+        table.setItemCount( contentHelper.getRowCount() );
+        table.setRedraw( true );
+
+        if( _selectedRow >= 0 ) {
+            table.setSelection( _selectedRow );
+            table.showSelection();
+        }
+    }
+
+    /**
+     * Repaints the given <code>rows</code> of the table after the contents helper has been updated. All rows are displayed again
+     * if the number of rows has changed.
+     *
+     * @param rows
+     */
+    void showChangedRows( int[] rows ) {
+        VarContentsHelper contentHelper = getContentsHelper();
+        Table table = getTableView().getTable();
+        if( contentHelper == null || !( getTableView().getContentProvider() instanceof VarContentProvider )
+                || contentHelper.getRowCount() != table.getItemCount() ) {
+            showContents( contentHelper );
+            return;
+        }
+        ( (VarContentProvider) getTableView().getContentProvider() ).updateLines( contentHelper );
+        for( int i = 0; i < rows.length; i++ ) {
+            // a cleared item of a virtual table is requested from the content provider again when it is painted
+            table.clear( rows[ i ] );
+        }
+    }
+
     /**
      * Gets the TableViewer component used in this view.
      *
@@ -313,7 +359,9 @@ public abstract class VarContentDebugView extends BasicDebugView {
             _log.error( e.getMessage(), e );
             return;
         }
-        //
+        if( _liveUpdateJob != null ) {
+            _liveUpdateJob.resetSnapshot();
+        }
 
         table.setRedraw( false );
         _tableViewer.setInput( contentsHelper );
@@ -406,11 +454,19 @@ public abstract class VarContentDebugView extends BasicDebugView {
                 _models = new Object[ 0 ];
             } else {
                 VarContentsHelper helper = (VarContentsHelper) newInput;
-                int rowCount = helper.getRowCount();
-                _models = new Object[ rowCount ];
-                for( int i = 0; i < rowCount; i++ ) {
-                    _models[ i ] = helper.getLine( i );
-                }
+                _models = new Object[ helper.getRowCount() ];
+                updateLines( helper );
+            }
+        }
+
+        /**
+         * Reads the lines of <code>helper</code> again, the number of lines must not have changed.
+         *
+         * @param helper
+         */
+        void updateLines( VarContentsHelper helper ) {
+            for( int i = 0; i < _models.length; i++ ) {
+                _models[ i ] = helper.getLine( i );
             }
         }
 
@@ -431,6 +487,47 @@ public abstract class VarContentDebugView extends BasicDebugView {
         updateToolbar();
     }
 
+    /**
+     * Passes the visibility of this view to the live update job.
+     */
+    private class VisibilityListener implements IPartListener2 {
+        public void partVisible( IWorkbenchPartReference partRef ) {
+            if( partRef.getPart( false ) == VarContentDebugView.this && _liveUpdateJob != null ) {
+                _liveUpdateJob.setViewVisible( true );
+            }
+        }
+
+        public void partHidden( IWorkbenchPartReference partRef ) {
+            if( partRef.getPart( false ) == VarContentDebugView.this && _liveUpdateJob != null ) {
+                _liveUpdateJob.setViewVisible( false );
+            }
+        }
+
+        public void partActivated( IWorkbenchPartReference partRef ) {
+            // nothing to do
+        }
+
+        public void partBroughtToTop( IWorkbenchPartReference partRef ) {
+            // nothing to do
+        }
+
+        public void partClosed( IWorkbenchPartReference partRef ) {
+            // nothing to do
+        }
+
+        public void partDeactivated( IWorkbenchPartReference partRef ) {
+            // nothing to do
+        }
+
+        public void partOpened( IWorkbenchPartReference partRef ) {
+            // nothing to do
+        }
+
+        public void partInputChanged( IWorkbenchPartReference partRef ) {
+            // nothing to do
+        }
+    }
+
     /**
      * Label provider of objects tree view.
      */
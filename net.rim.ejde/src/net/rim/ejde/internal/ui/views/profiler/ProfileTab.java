@@ -13,6 +13,7 @@ package net.rim.ejde.internal.ui.views.profiler;
 import java.text.DecimalFormat;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Vector;
 
 import net.rim.ejde.internal.core.IConstants;
@@ -99,6 +100,10 @@ abstract public class ProfileTab implements IConstants {
     // map which stores the objects which are expanded on the view
     protected HashMap< Object, Object > _expansions = new HashMap< Object, Object >();
 
+    // sorted children of the items expanded since the data or the comparator changed, children are only sorted when their
+    // parent is expanded for the first time
+    private IdentityHashMap< Object, Object[] > _sortedChildren = new IdentityHashMap< Object, Object[] >();
+
     // data which will be set to the content provider of a tab to be displayed
     protected Object[] _data;
 
@@ -198,6 +203,7 @@ abstract public class ProfileTab implements IConstants {
      */
     protected void clearExpansion() {
         _expansions.clear();
+        _sortedChildren.clear();
     }
 
     /**
@@ -256,6 +262,7 @@ abstract public class ProfileTab implements IConstants {
         if( _comparator.equals( comparator ) )
             return;
         _comparator = comparator;
+        _sortedChildren.clear();
         _profilerView.displayProfileData( new ProfileTab[] { this } );
     }
 
@@ -299,7 +306,7 @@ abstract public class ProfileTab implements IConstants {
     }
 
     Object[] expandItem( Object[] data, Object item ) {
-        Object[] children = getChildren( item );
+        Object[] children = getSortedChildren( item );
         int childrenCount = children.length;
         Object[] newData = new Object[ data.length + childrenCount ];
         int index = getItemIndex( data, item );
@@ -338,7 +345,7 @@ abstract public class ProfileTab implements IConstants {
     }
 
     private int numChildrenToRemove( Object obj ) {
-        Object[] children = getChildren( obj );
+        Object[] children = getSortedChildren( obj );
         int childrenCount = children.length;
         for( int i = 0; i < children.length; i++ )
             if( isItemExpanded( children[ i ] ) ) {
@@ -388,6 +395,22 @@ abstract public class ProfileTab implements IConstants {
         return new Object[ 0 ];
     }
 
+    /**
+     * Gets the children of given <code>obj</code> returned by {@link #getChildren(Object)}. The children are computed once and
+     * reused until the data or the comparator of the tab changes.
+     *
+     * @param obj
+     * @return
+     */
+    Object[] getSortedChildren( Object obj ) {
+        Object[] children = _sortedChildren.get( obj );
+        if( children == null ) {
+            children = getChildren( obj );
+            _sortedChildren.put( obj, children );
+        }
+        return children;
+    }
+
     /**
      * Gets the display level of given <code>obj</code>.
      *
@@ -445,6 +468,7 @@ abstract public class ProfileTab implements IConstants {
      */
     public void clearTab( boolean clearPreferences ) {
         _tableViewer.getTable().removeAll();
+        _sortedChildren.clear();
         if( clearPreferences ) {
             clearExpansion();
             clearHistory();
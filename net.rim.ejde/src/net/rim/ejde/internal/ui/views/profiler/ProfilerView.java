@@ -11,10 +11,14 @@
 package net.rim.ejde.internal.ui.views.profiler;
 
 import java.awt.Desktop;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.io.PrintWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -44,6 +48,9 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.debug.core.DebugEvent;
 import org.eclipse.debug.core.ILaunch;
 import org.eclipse.jface.dialogs.MessageDialog;
@@ -59,7 +66,6 @@ import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.TabFolder;
 import org.eclipse.ui.IViewSite;
 import org.eclipse.ui.IWorkbenchPage;
-import org.eclipse.ui.PlatformUI;
 
 /**
  * View to display profile data.
@@ -85,7 +91,10 @@ public class ProfilerView extends BasicDebugView implements SourceResolver {
 
     private ProfileTab[] _profileTabs;
 
-    private ProfileData _pd;
+    // only replaced on the UI thread
+    private volatile ProfileData _pd;
+
+    private final RefreshProfilerViewJob _refreshJob = new RefreshProfilerViewJob();
 
     boolean _isInitialized = false;
 
@@ -280,25 +289,57 @@ public class ProfilerView extends BasicDebugView implements SourceResolver {
     private void saveProfile() {
         if( _pd == null )
             return;
+        File file;
         try {
-            // save profile data to the file
-            saveContents( RimIDEUtil.openCSVFileForSave( getSite().getShell() ) );
+            file = RimIDEUtil.openCSVFileForSave( getSite().getShell() );
         } catch( IDEError e ) {
             log.error( "", e );
+            return;
         }
+        if( file == null ) {
+            return;
+        }
+        // save profile data to the file
+        runExport( new SaveCSVRunnable( file, _pd ) );
     }
 
     /**
-     * Writes the profile data to <code>file</code>.
+     * Runs the given export <code>runnable</code> in a cancelable progress dialog outside of the UI thread.
+     *
+     * @param runnable
+     * @return <code>true</code> if the export has completed, <code>false</code> if it has failed or has been canceled
+     */
+    private boolean runExport( IRunnableWithProgress runnable ) {
+        ProgressMonitorDialog dialog = new ProgressMonitorDialog( ContextManager.getActiveWorkbenchShell() );
+        try {
+            dialog.run( true, true, runnable );
+            return true;
+        } catch( InvocationTargetException e ) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            log.error( cause );
+            MessageDialog.openError( ContextManager.getActiveWorkbenchShell(), Messages.ErrorHandler_DIALOG_TITLE, cause
+                    .getMessage() );
+        } catch( InterruptedException e ) {
+            log.debug( "Profile export canceled" ); //$NON-NLS-1$
+        }
+        return false;
+    }
+
+    /**
+     * Writes the profile data <code>pd</code> to <code>file</code>. The file is written module by module, a partially written
+     * file is deleted if the export fails or is canceled.
      *
      * @param file
      *            Destination file.
+     * @param pd
+     * @param monitor
      * @throws IDEError
+     * @throws IOException
+     * @throws InterruptedException
+     *             if the export has been canceled
      */
-    private void saveContents( File file ) throws IDEError {
-        if( file == null ) {
-            return;
-        }
+    private void saveContents( File file, ProfileData pd, IProgressMonitor monitor ) throws IDEError, IOException,
+            InterruptedException {
         RIA ria = RIA.getCurrentDebugger();
         if( ria == null ) {
             return;
@@ -308,16 +349,20 @@ public class ProfilerView extends BasicDebugView implements SourceResolver {
             return;
         }
 
-        PrintStream out = null;
+        PrintWriter out = new PrintWriter( new BufferedWriter( new OutputStreamWriter( new FileOutputStream( file ) ) ) );
+        boolean completed = false;
         try {
-            out = new PrintStream( new FileOutputStream( file ) );
             out.print( RIA.getString( "ProfileCSVFileHeader1" ) ); //$NON-NLS-1$
             out.print( ria.profileGetTypes()[ _whatToProfile ].getDescription() );
             out.print( RIA.getString( "ProfileCSVFileHeader2" ) ); //$NON-NLS-1$
             out.println();
 
-            ProfileItem[] modules = sortedElements( _pd, null );
+            ProfileItem[] modules = sortedElements( pd, null );
+            monitor.beginTask( "Saving profiling data...", modules.length ); //$NON-NLS-1$
             for( int i = 0; i < modules.length; i++ ) {
+                if( monitor.isCanceled() ) {
+                    throw new InterruptedException();
+                }
                 ProfileItem module = modules[ i ];
                 Object moduleName = module;
 
@@ -339,10 +384,18 @@ public class ProfilerView extends BasicDebugView implements SourceResolver {
                     out.print( method.getCount() );
                     out.println();
                 }
+                monitor.worked( 1 );
             }
+            // PrintWriter does not throw, the error flag is checked once the data has been flushed
+            if( out.checkError() ) {
+                throw new IOException( "Could not write " + file ); //$NON-NLS-1$
+            }
+            completed = true;
+        } finally {
             out.close();
-        } catch( IOException e ) {
-            log.error( "", e );
+            if( !completed ) {
+                file.delete();
+            }
         }
     }
 
@@ -387,45 +440,72 @@ public class ProfilerView extends BasicDebugView implements SourceResolver {
     }
 
     private void refresh( boolean clearPreferences ) throws CoreException {
-        RefreshProfilerViewJob job = new RefreshProfilerViewJob();
-        try {
-            PlatformUI.getWorkbench().getProgressService().run( false, true, job );
-        } catch( InvocationTargetException e ) {
-            log.error( "", e );
-        } catch( InterruptedException e ) {
-            log.error( "", e );
+        // a refresh requested while the job is running is performed once it has completed
+        _refreshJob.schedule();
+    }
+
+    /**
+     * Publishes the profile data retrieved by the refresh job and displays it on all tabs. Must be called on the UI thread.
+     *
+     * @param pd
+     *            the new profile data, may be <code>null</code>
+     */
+    private void publishProfileData( ProfileData pd ) {
+        // the view could have been disposed while the data was retrieved
+        if( _profileTabs == null ) {
+            return;
         }
+        clearVeiwer( true );
+        _pd = pd;
+        if( _pd == null )
+            return;
+        ProfileItem.setTickMode( _methodTimeType );
+        displayProfileData( new ProfileTab[] { _profileTabs[ INDEX_OF_TAB_SUMMARY ], _profileTabs[ INDEX_OF_TAB_METHOD ],
+                _profileTabs[ INDEX_OF_TAB_SOURCE ] } );
+        setHasData( true );
+        updateToolbar();
     }
 
-    class RefreshProfilerViewJob implements IRunnableWithProgress {
+    /**
+     * Retrieves the profile data from the debugger outside of the UI thread, the data is displayed on the UI thread once it has
+     * been retrieved completely.
+     */
+    class RefreshProfilerViewJob extends Job {
 
-        public void run( IProgressMonitor monitor ) throws InvocationTargetException, InterruptedException {
+        RefreshProfilerViewJob() {
+            super( Messages.ProfilerView_Refresh );
+            setUser( true );
+        }
+
+        @Override
+        protected IStatus run( IProgressMonitor monitor ) {
             monitor.beginTask( Messages.ProfilerView_Refresh, 100 );
-            RIA ria = RIA.getCurrentDebugger();
-            if( ria == null ) {
-                return;
-            }
-            clearVeiwer( true );
-            monitor.worked( 10 );
             try {
+                RIA ria = RIA.getCurrentDebugger();
+                if( ria == null ) {
+                    return Status.OK_STATUS;
+                }
                 ria.profileRefreshData();
-                monitor.worked( 20 );
-                _pd = ria.profileGetData();
-                monitor.worked( 30 );
-                if( _pd == null )
-                    return;
-                ProfileItem.setTickMode( _methodTimeType );
-                monitor.worked( 40 );
-                displayProfileData( new ProfileTab[] { _profileTabs[ INDEX_OF_TAB_SUMMARY ], _profileTabs[ INDEX_OF_TAB_METHOD ],
-                        _profileTabs[ INDEX_OF_TAB_SOURCE ] } );
                 monitor.worked( 50 );
-                setHasData( true );
-                monitor.worked( 60 );
-                updateToolbar();
+                if( monitor.isCanceled() ) {
+                    return Status.CANCEL_STATUS;
+                }
+                final ProfileData pd = ria.profileGetData();
+                monitor.worked( 50 );
+                if( monitor.isCanceled() ) {
+                    return Status.CANCEL_STATUS;
+                }
+                Display.getDefault().asyncExec( new Runnable() {
+                    public void run() {
+                        publishProfileData( pd );
+                    }
+                } );
             } catch( IDEError e ) {
                 log.error( "", e );
+            } finally {
+                monitor.done();
             }
-            monitor.done();
+            return Status.OK_STATUS;
         }
     }
 
@@ -578,19 +658,7 @@ public class ProfilerView extends BasicDebugView implements SourceResolver {
                 return;
             }
         }
-        ProgressMonitorDialog dialog = new ProgressMonitorDialog( ContextManager.getActiveWorkbenchShell() );
-        SaveDataRunnale runnable = new SaveDataRunnale( xmlFile, this );
-        try {
-            dialog.run( false, true, runnable );
-        } catch( InvocationTargetException e ) {
-            log.error( e );
-            MessageDialog
-                    .openError( ContextManager.getActiveWorkbenchShell(), e.getMessage(), Messages.ErrorHandler_DIALOG_TITLE );
-        } catch( InterruptedException e ) {
-            log.error( e );
-            MessageDialog
-                    .openError( ContextManager.getActiveWorkbenchShell(), e.getMessage(), Messages.ErrorHandler_DIALOG_TITLE );
-        }
+        runExport( new SaveDataRunnale( xmlFile, this ) );
     }
 
     /**
@@ -609,22 +677,17 @@ public class ProfilerView extends BasicDebugView implements SourceResolver {
                 return;
             }
         }
-        ProgressMonitorDialog dialog = new ProgressMonitorDialog( ContextManager.getActiveWorkbenchShell() );
-        SaveRawDataRunnale runnable = new SaveRawDataRunnale( xmlFile, this );
-        try {
-            dialog.run( false, true, runnable );
-        } catch( InvocationTargetException e ) {
-            log.error( e );
-            MessageDialog
-                    .openError( ContextManager.getActiveWorkbenchShell(), e.getMessage(), Messages.ErrorHandler_DIALOG_TITLE );
-        } catch( InterruptedException e ) {
-            log.error( e );
-            MessageDialog
-                    .openError( ContextManager.getActiveWorkbenchShell(), e.getMessage(), Messages.ErrorHandler_DIALOG_TITLE );
-        }
+        runExport( new SaveRawDataRunnale( xmlFile, this ) );
     }
 
-    private void saveRawData( File xmlFile ) {
+    /**
+     * Dumps the raw profile data of the debugger to <code>xmlFile</code> through a buffered stream.
+     *
+     * @param xmlFile
+     * @throws Exception
+     *             if the data could not be dumped or written
+     */
+    private void saveRawData( File xmlFile ) throws Exception {
         RIA ria = RIA.getCurrentDebugger();
         if( ria == null ) {
             return;
@@ -638,18 +701,14 @@ public class ProfilerView extends BasicDebugView implements SourceResolver {
                 return;
             }
         }
-        PrintStream out = null;
+        PrintStream out = new PrintStream( new BufferedOutputStream( new FileOutputStream( xmlFile ) ) );
         try {
-            out = new PrintStream( new FileOutputStream( xmlFile ) );
             ria.profileDumpRawXML( out );
-        } catch( Exception e ) {
-            log.error( e );
-            MessageDialog
-                    .openError( ContextManager.getActiveWorkbenchShell(), Messages.ErrorHandler_DIALOG_TITLE, e.getMessage() );
-        } finally {
-            if( out != null ) {
-                out.close();
+            if( out.checkError() ) {
+                throw new IOException( "Could not write " + xmlFile ); //$NON-NLS-1$
             }
+        } finally {
+            out.close();
         }
     }
 
@@ -690,20 +749,11 @@ public class ProfilerView extends BasicDebugView implements SourceResolver {
     }
 
     public void openProfileVis() {
+        // ProfileVisDesktop is a separate application which can only be handed a file
         File tmpFile = getTmpFile();
-        ProgressMonitorDialog dialog = new ProgressMonitorDialog( ContextManager.getActiveWorkbenchShell() );
-        SaveRawDataRunnale runnable = new SaveRawDataRunnale( tmpFile, this );
-        try {
-            dialog.run( false, true, runnable );
-        } catch( InvocationTargetException e ) {
-            log.error( e );
-            MessageDialog
-                    .openError( ContextManager.getActiveWorkbenchShell(), e.getMessage(), Messages.ErrorHandler_DIALOG_TITLE );
-            return;
-        } catch( InterruptedException e ) {
-            log.error( e );
-            MessageDialog
-                    .openError( ContextManager.getActiveWorkbenchShell(), e.getMessage(), Messages.ErrorHandler_DIALOG_TITLE );
+        tmpFile.deleteOnExit();
+        if( !runExport( new SaveRawDataRunnale( tmpFile, this ) ) ) {
+            tmpFile.delete();
             return;
         }
         try {
@@ -769,7 +819,14 @@ public class ProfilerView extends BasicDebugView implements SourceResolver {
                 monitor.beginTask( "Saving profiling raw data...", 10 );
                 log.trace( "Save raw to XML" );
                 monitor.worked( 1 );
+                if( monitor.isCanceled() ) {
+                    throw new InterruptedException();
+                }
                 saveRawData( destFile );
+            } catch( InterruptedException e ) {
+                throw e;
+            } catch( Exception e ) {
+                throw new InvocationTargetException( e, e.getMessage() );
             } finally {
                 monitor.done();
             }
@@ -778,6 +835,31 @@ public class ProfilerView extends BasicDebugView implements SourceResolver {
 
     }
 
+    class SaveCSVRunnable implements IRunnableWithProgress {
+        File destFile;
+        ProfileData profileData;
+
+        public SaveCSVRunnable( File destFile, ProfileData profileData ) {
+            this.destFile = destFile;
+            this.profileData = profileData;
+        }
+
+        @Override
+        public void run( IProgressMonitor monitor ) throws InvocationTargetException, InterruptedException {
+            try {
+                log.trace( "Save CSV" );
+                saveContents( destFile, profileData, monitor );
+            } catch( IDEError e ) {
+                throw new InvocationTargetException( e, e.getMessage() );
+            } catch( IOException e ) {
+                throw new InvocationTargetException( e, e.getMessage() );
+            } finally {
+                monitor.done();
+            }
+        }
+
+    }
+
     class SaveDataRunnale implements IRunnableWithProgress {
         File destFile;
         SourceResolver sourceResolver;
@@ -802,13 +884,14 @@ public class ProfilerView extends BasicDebugView implements SourceResolver {
                     return;
                 }
                 monitor.worked( 1 );
+                if( monitor.isCanceled() ) {
+                    throw new InterruptedException();
+                }
                 try {
                     profileData.saveContentsInXml( destFile, ria.profileGetTypes()[ getWhatToProfile() ].getDescription(),
                             this.sourceResolver );
                 } catch( IDEError e ) {
-                    log.error( e );
-                    MessageDialog.openError( ContextManager.getActiveWorkbenchShell(), Messages.ErrorHandler_DIALOG_TITLE,
-                            e.getMessage() );
+                    throw new InvocationTargetException( e, e.getMessage() );
                 }
             } finally {
                 monitor.done();
@@ -0,0 +1,104 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A utility class to compute content digests used as cache keys and fingerprints.
+ */
+public class DigestUtils {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+    /**
+     * Creates a new SHA-1 message digest.
+     *
+     * @return
+     */
+    public static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance( "SHA-1" ); //$NON-NLS-1$
+        } catch( NoSuchAlgorithmException e ) {
+            // every Java platform is required to support SHA-1
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * Updates the given <code>digest</code> with the UTF-8 bytes of the given <code>value</code> followed by a separator, so that
+     * consecutive values can not be confused with each other.
+     *
+     * @param digest
+     * @param value
+     */
+    public static void update( MessageDigest digest, String value ) {
+        try {
+            digest.update( ( value == null ? "" : value ).getBytes( "UTF-8" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        } catch( UnsupportedEncodingException e ) {
+            throw new IllegalStateException( e );
+        }
+        digest.update( (byte) 0 );
+    }
+
+    /**
+     * Updates the given <code>digest</code> with the content of the given <code>file</code>.
+     *
+     * @param digest
+     * @param file
+     * @throws IOException
+     */
+    public static void update( MessageDigest digest, File file ) throws IOException {
+        InputStream input = new FileInputStream( file );
+        try {
+            byte[] buffer = new byte[ 8192 ];
+            int count;
+            while( ( count = input.read( buffer ) ) != -1 ) {
+                digest.update( buffer, 0, count );
+            }
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Returns the hex encoded SHA-1 digest of the content of the given <code>file</code>.
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static String getFileDigest( File file ) throws IOException {
+        MessageDigest digest = createDigest();
+        update( digest, file );
+        return toHex( digest.digest() );
+    }
+
+    /**
+     * Returns the lower case hex representation of the given <code>bytes</code>.
+     *
+     * @param bytes
+     * @return
+     */
+    public static String toHex( byte[] bytes ) {
+        char[] chars = new char[ bytes.length * 2 ];
+        for( int i = 0; i < bytes.length; i++ ) {
+            chars[ i * 2 ] = HEX_DIGITS[ ( bytes[ i ] >> 4 ) & 0xf ];
+            chars[ i * 2 + 1 ] = HEX_DIGITS[ bytes[ i ] & 0xf ];
+        }
+        return new String( chars );
+    }
+}
@@ -398,6 +398,33 @@ public class FileUtils {
         }
     }
 
+    /**
+     * Reads the whole content of the given file.
+     *
+     * @param f
+     *            File that should be read
+     * @return The content of the file
+     * @throws IOException
+     *             Any error during reading the file
+     */
+    public static byte[] readBytes( File f ) throws IOException {
+        InputStream inputStream = new FileInputStream( f );
+        try {
+            byte[] content = new byte[ (int) f.length() ];
+            int offset = 0;
+            int count;
+            while( offset < content.length && ( count = inputStream.read( content, offset, content.length - offset ) ) != -1 ) {
+                offset += count;
+            }
+            if( offset < content.length ) {
+                return Arrays.copyOf( content, offset );
+            }
+            return content;
+        } finally {
+            inputStream.close();
+        }
+    }
+
     /**
      * Returns the file extension of the given file.
      *
@@ -0,0 +1,187 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.rim.ejde.internal.core.IConstants;
+
+import org.apache.log4j.Logger;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+/**
+ * Collects the files of a legacy project which are copied into an Eclipse project during a copy import and copies them on a pool
+ * of worker threads. The files are written to disk directly, the project has to be refreshed once all files have been copied.
+ */
+public class ImportFileCopier {
+    private static final Logger _log = Logger.getLogger( ImportFileCopier.class );
+    // seconds to wait for the copy threads to stop after they have been interrupted
+    private static final int TERMINATION_TIMEOUT = 30;
+
+    // the source files by absolute destination path
+    private final Map< String, File > _copies = new LinkedHashMap< String, File >();
+
+    /**
+     * Adds a file to be copied. A destination which already exists is not overwritten.
+     *
+     * @param srcFile
+     * @param dstFile
+     */
+    public void add( File srcFile, File dstFile ) {
+        if( dstFile.exists() ) {
+            return;
+        }
+        String dstPath = dstFile.getAbsolutePath();
+        if( !_copies.containsKey( dstPath ) ) {
+            _copies.put( dstPath, srcFile );
+        }
+    }
+
+    /**
+     * Gets the number of files to be copied.
+     *
+     * @return
+     */
+    public int size() {
+        return _copies.size();
+    }
+
+    /**
+     * Copies all files which have been added. A file which can not be copied is logged and skipped, a file whose copy has been
+     * interrupted because the monitor has been canceled is deleted.
+     *
+     * @param monitor
+     * @return {@link Status#CANCEL_STATUS} if the monitor has been canceled, otherwise {@link Status#OK_STATUS}
+     */
+    public IStatus run( IProgressMonitor monitor ) {
+        monitor.beginTask( IConstants.EMPTY_STRING, _copies.size() );
+        if( _copies.isEmpty() ) {
+            monitor.done();
+            return Status.OK_STATUS;
+        }
+        int workerCount = Math.max( 1, Math.min( getWorkerCount(), _copies.size() ) );
+        ExecutorService executor = Executors.newFixedThreadPool( workerCount, new ImportThreadFactory() );
+        CompletionService< File > completionService = new ExecutorCompletionService< File >( executor );
+        try {
+            for( Map.Entry< String, File > copy : _copies.entrySet() ) {
+                final File srcFile = copy.getValue();
+                final File dstFile = new File( copy.getKey() );
+                completionService.submit( new Callable< File >() {
+                    public File call() throws IOException {
+                        copy( srcFile, dstFile );
+                        return dstFile;
+                    }
+                } );
+            }
+            for( int i = 0; i < _copies.size(); ) {
+                if( monitor.isCanceled() ) {
+                    return Status.CANCEL_STATUS;
+                }
+                Future< File > future = completionService.poll( 500, TimeUnit.MILLISECONDS );
+                if( future == null ) {
+                    continue;
+                }
+                i++;
+                monitor.worked( 1 );
+                try {
+                    future.get();
+                } catch( ExecutionException e ) {
+                    _log.error( e.getCause().getMessage(), e.getCause() );
+                }
+            }
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            return Status.CANCEL_STATUS;
+        } finally {
+            executor.shutdownNow();
+            try {
+                if( !executor.awaitTermination( TERMINATION_TIMEOUT, TimeUnit.SECONDS ) ) {
+                    _log.error( "Copy threads did not stop within " + TERMINATION_TIMEOUT //$NON-NLS-1$
+                            + " seconds" ); //$NON-NLS-1$
+                }
+            } catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+            monitor.done();
+        }
+        return Status.OK_STATUS;
+    }
+
+    private static void copy( File srcFile, File dstFile ) throws IOException {
+        File parent = dstFile.getParentFile();
+        if( parent != null && !parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory() ) {
+            throw new IOException( "Could not create folder " + parent ); //$NON-NLS-1$
+        }
+        FileChannel srcChannel = new FileInputStream( srcFile ).getChannel();
+        boolean copied = false;
+        try {
+            FileChannel dstChannel = new FileOutputStream( dstFile ).getChannel();
+            try {
+                long size = srcChannel.size();
+                long position = 0;
+                while( position < size ) {
+                    position += srcChannel.transferTo( position, size - position, dstChannel );
+                }
+            } finally {
+                dstChannel.close();
+            }
+            copied = true;
+        } finally {
+            srcChannel.close();
+            // do not leave a partly written file, the next import would skip it
+            if( !copied ) {
+                dstFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of files which are copied at the same time. The <code>import_worker_count</code> preference is used if
+     * it is set to a positive value, otherwise one file per available processor is copied.
+     *
+     * @return
+     */
+    static int getWorkerCount() {
+        int count = ImportUtils.getIntImportPref( IConstants.IMPORT_WORKER_COUNT_KEY );
+        if( count <= 0 ) {
+            count = Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max( 1, count );
+    }
+
+    private static class ImportThreadFactory implements ThreadFactory {
+        private static final AtomicInteger _threadNumber = new AtomicInteger( 1 );
+
+        public Thread newThread( Runnable runnable ) {
+            Thread thread = new Thread( runnable, "BlackBerry Import-" + _threadNumber.getAndIncrement() ); //$NON-NLS-1$
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+}
@@ -55,8 +55,10 @@ import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
@@ -453,13 +455,18 @@ public class ImportUtils {
             monitor.worked( 2 );
             // link or copy files
             if( importType == LegacyImportHelper.COPY_IMPORT ) {
-                copySourceFiles( legacyProject, eclipseJavaProject.getProject() );
+                ImportFileCopier copier = new ImportFileCopier();
+                copySourceFiles( legacyProject, eclipseJavaProject.getProject(), copier );
 
                 int AEPNumber = legacyProject.getNumEntries();
 
                 // Copy AEP source files as well.
                 for( int i = 0; i < AEPNumber; i++ ) {
-                    copySourceFiles( legacyProject.getEntry( i ), eclipseJavaProject.getProject() );
+                    copySourceFiles( legacyProject.getEntry( i ), eclipseJavaProject.getProject(), copier );
+                }
+                // the files are written to disk directly, refresh the project once they are all there
+                if( copier.run( new SubProgressMonitor( monitor, 4 ) ).getSeverity() != IStatus.CANCEL ) {
+                    project.refreshLocal( IResource.DEPTH_INFINITE, new SubProgressMonitor( monitor, 2 ) );
                 }
             } else {
                 /**
@@ -474,8 +481,8 @@ public class ImportUtils {
                     resourcesBuffer = createProjectResourcesBuffer( legacyProject.getEntry( i ) );
                     createBulkLinks( eclipseJavaProject, resourcesBuffer, legacyProject.getEntry( i ) );
                 }
+                monitor.worked( 6 );
             }
-            monitor.worked( 6 );
             return eclipseJavaProject;
         } finally {
             monitor.done();
@@ -1386,12 +1393,14 @@ public class ImportUtils {
     }
 
     /**
-     * Copies files form the <code>legacyProject</code> to the eclipse project <code>iproject</code>.
+     * Adds the files of the <code>legacyProject</code> to the given <code>copier</code> which copies them to the eclipse project
+     * <code>iproject</code>.
      *
      * @param legacyProject
      * @param iproject
+     * @param copier
      */
-    static public void copySourceFiles( Project legacyProject, IProject iproject ) {
+    static public void copySourceFiles( Project legacyProject, IProject iproject, ImportFileCopier copier ) {
         IPath srcFolderPath, resFolderPath, localeFolderPath;
         File srcFile, headerFile;
 
@@ -1491,16 +1500,13 @@ public class ImportUtils {
             }
 
             if( !isAbsolute ) {
-                if( iproject.isOpen() )
-                    createFolders( iproject.getLocation().toOSString(), fileFolderPath.removeLastSegments( 1 ) );
-
-                copyFile( iproject, srcFile, fileFolderPath );
+                copyFile( iproject, srcFile, fileFolderPath, copier );
             }
 
             if( ( wsFile.getIsResourceHeader() || wsFile.getIsLanguageResource() ) && !isLinked( iproject, wsFile ) )
                 // need to copy all associated rrc and rrh files, some of which
                 // may not be explicitly included in jdp
-                copyLocaleFiles( iproject, legacyProject, srcFile, fileFolderPath.removeLastSegments( 1 ) );
+                copyLocaleFiles( iproject, srcFile, fileFolderPath.removeLastSegments( 1 ), copier );
         }
     }
 
@@ -1631,26 +1637,60 @@ public class ImportUtils {
     }
 
     /*
-     * Copies all rrc files associated with given rrh file to destFilePath
+     * Adds all rrc files associated with given rrh file to the copier which copies them to destPath
      *
      * @param iproject
      *
-     * @param rrhFile
+     * @param origFile
      *
      * @param destPath
+     *
+     * @param copier
      */
-    static public void copyLocaleFiles( IProject iproject, Project legacyProject, File origFile, IPath destPath ) {
+    static private void copyLocaleFiles( IProject iproject, File origFile, IPath destPath, ImportFileCopier copier ) {
         String fileName = origFile.getName();
 
         File[] resourceFiles = getResourceFiles( origFile, fileName );
 
         if( resourceFiles != null ) {
-            for( int i = 0; i < resourceFiles.length; i++ )
-                createFolders( iproject.getLocation().toOSString(), destPath );
-
             for( File resourceFile : resourceFiles )
-                copyFile( iproject, resourceFile, destPath.append( resourceFile.getName() ) );
+                copyFile( iproject, resourceFile, destPath.append( resourceFile.getName() ), copier );
+        }
+    }
+
+    /**
+     * Adds the given <code>srcFile</code> to the given <code>copier</code> which copies it to <code>newFilePath</code> in the
+     * location of the <code>iproject</code>.
+     *
+     * @param iproject
+     * @param srcFile
+     * @param newFilePath
+     *            the project relative path
+     * @param copier
+     */
+    static private void copyFile( IProject iproject, File srcFile, IPath newFilePath, ImportFileCopier copier ) {
+        if( null == srcFile || !srcFile.exists() || srcFile.isDirectory() ) {
+            String msg = null == srcFile ? "" : srcFile.getPath();
+            _log.error( "Can't copy undefined file or directory [" + msg + "]" );
+            return;
+        }
+
+        if( null == iproject || !iproject.exists() || null == iproject.getLocation() ) {
+            String msg = null == iproject ? "" : iproject.getName();
+            _log.error( "Can't copy file [" + srcFile.getPath() + "] to undefined project [" + msg + "]" );
+            return;
+        }
+
+        if( null == newFilePath || newFilePath.isEmpty() ) {
+            String msg = null == newFilePath ? "" : newFilePath.toOSString();
+            _log.error( "Can't copy the file [" + srcFile.getPath() + "] to undefined path [" + msg + "]" );
+            return;
+        }
+        // if the file is there, do not copy
+        if( iproject.getFile( newFilePath ).exists() ) {
+            return;
         }
+        copier.add( srcFile, iproject.getLocation().append( newFilePath ).toFile() );
     }
 
     static public void copyFile( IProject iproject, File srcFile, IPath newFilePath ) {
@@ -1687,7 +1727,6 @@ public class ImportUtils {
                 }
             }
             iFile.create( inputStream, IResource.FORCE, new NullProgressMonitor() );
-            iFile.refreshLocal( IResource.DEPTH_INFINITE, new NullProgressMonitor() );
         } catch( Throwable e ) {
             _log.error( e.getMessage(), e );
         } finally {// just in case the Eclipse API doesn't close it for whatever
@@ -41,6 +41,7 @@ public class Messages extends NLS {
     public static String SignatureToolPrefsPage_AutomaticallySigningBtnMsg;
     public static String SignatureToolPrefsPage_AutomaticallySigningBtnTooltipMsg;
     public static String SignatureTool_Not_Found_Msg;
+    public static String SignatureTool_Signing_Skipped_Msg;
     public static String JavaLoader_Not_Found_Msg;
 
     public static String SignCommandHandler_MissingFilesDialogMsg;
@@ -97,6 +98,7 @@ public class Messages extends NLS {
 
     public static String LegacyImportOperation_ERROR_INDICATION_MSG;
     public static String LegacyImportOperation_PROJECT_IMPORT_FAIL_MSG;
+    public static String LegacyImportOperation_IMPORTING_PROJECT_MSG;
     public static String LegacyImportOperation_WRONG_IMPORT_TYPE_MSG;
 
     // ///////////////////////////////////////////////////////////////////////////////////////////////
@@ -430,6 +432,12 @@ public class Messages extends NLS {
 
     public static String DebugPrefsPage_WarnForDebugMsg;
     public static String DebugPrefsPage_WarnDebugBorderLabel;
+    public static String DebugPrefsPage_LaunchChecksLabel;
+    public static String DebugPrefsPage_LaunchCheckColumn;
+    public static String DebugPrefsPage_LaunchCheckFileColumn;
+    public static String DebugPrefsPage_LaunchCheckResultColumn;
+    public static String DebugPrefsPage_LaunchCheckNotFound;
+    public static String DebugPrefsPage_ClearLaunchChecksButton;
 
     public static String SDKPrefsPage_WarnForMissingDependenciesMsg;
 
@@ -505,6 +513,8 @@ public class Messages extends NLS {
     public static String RunningSimulatorConfigurationTab_simChoiceLabel;
     public static String RunningSimulatorConfigurationTab_simChoiceToolTip;
     public static String SimulatorOutputView_DEBUG_MODE_ONLY;
+    public static String SimulatorOutputView_LINES_DROPPED;
+    public static String SimulatorOutputConsole_NAME_DROPPED;
     public static String SimulatorConfigurationTab_jreSelectorLabel;
     public static String SimulatorConfigurationTab_generalTabLabel;
     public static String SimulatorConfigurationTab_debuggingTabLabel;
@@ -0,0 +1,300 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.rim.ejde.internal.core.ContextManager;
+import net.rim.ejde.internal.core.IConstants;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Caches the package declared by java and rrh files. An entry is valid as long as the size and the time stamp of the file do
+ * not change. The cache is persisted in the state location of the plug-in when the plug-in stops.
+ * <p>
+ * The package is read by a small tokenizer which stops right after the package clause. Files it can not handle are parsed by the
+ * callers as before.
+ */
+public class PackageDeclarationCache {
+    private static final Logger _log = Logger.getLogger( PackageDeclarationCache.class );
+    private static final String CACHE_FILE_NAME = "packageDeclarations.dat"; //$NON-NLS-1$
+    private static final String TEMP_EXTENSION = ".tmp"; //$NON-NLS-1$
+    private static final int FORMAT_VERSION = 1;
+    private static final String PACKAGE_KEYWORD = "package"; //$NON-NLS-1$
+
+    private static class PackageDeclarationCacheHolder {
+        public static PackageDeclarationCache packageDeclarationCache = new PackageDeclarationCache();
+    }
+
+    private final Map< String, Entry > _entries = new ConcurrentHashMap< String, Entry >();
+    private boolean _loaded;
+    private volatile boolean _dirty;
+
+    private static class Entry {
+        final long _size;
+        final long _lastModified;
+        final String _packageId;
+
+        Entry( long size, long lastModified, String packageId ) {
+            _size = size;
+            _lastModified = lastModified;
+            _packageId = packageId;
+        }
+    }
+
+    private PackageDeclarationCache() {
+    }
+
+    /**
+     * Singleton getInstance() method.
+     *
+     * @return the unique instance of the class
+     */
+    public static PackageDeclarationCache getInstance() {
+        return PackageDeclarationCacheHolder.packageDeclarationCache;
+    }
+
+    /**
+     * Gets the cached package of the given <code>file</code>.
+     *
+     * @param file
+     * @return the package in <code>com.rim.test</code> format or <code>null</code> if the file has not been cached or has changed
+     */
+    String get( File file ) {
+        load();
+        Entry entry = _entries.get( file.getAbsolutePath() );
+        if( entry != null && entry._size == file.length() && entry._lastModified == file.lastModified() ) {
+            return entry._packageId;
+        }
+        return null;
+    }
+
+    /**
+     * Caches the package of the given <code>file</code>.
+     *
+     * @param file
+     * @param packageId
+     *            the package in <code>com.rim.test</code> format
+     */
+    void put( File file, String packageId ) {
+        if( packageId == null ) {
+            return;
+        }
+        _entries.put( file.getAbsolutePath(), new Entry( file.length(), file.lastModified(), packageId ) );
+        _dirty = true;
+    }
+
+    /**
+     * Reads the package clause at the beginning of the given <code>file</code>. Comments are skipped.
+     *
+     * @param file
+     * @return the package in <code>com.rim.test</code> format, an empty string if the file does not start with a package clause
+     *         or <code>null</code> if the beginning of the file can not be tokenized
+     * @throws IOException
+     */
+    static String readPackageClause( File file ) throws IOException {
+        Reader reader = new BufferedReader( new FileReader( file ) );
+        try {
+            return readPackageClause( reader );
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads the package clause at the beginning of the given <code>reader</code>.
+     *
+     * @param reader
+     * @return see {@link #readPackageClause(File)}
+     * @throws IOException
+     */
+    static String readPackageClause( Reader reader ) throws IOException {
+        PackageTokenizer tokenizer = new PackageTokenizer( reader );
+        String token = tokenizer.next();
+        if( token == null ) {
+            return IConstants.EMPTY_STRING;
+        }
+        if( !PACKAGE_KEYWORD.equals( token ) ) {
+            // a compilation unit in the default package starts with an import or a type declaration, annotations may also
+            // precede a package clause
+            return Character.isJavaIdentifierStart( token.charAt( 0 ) ) ? IConstants.EMPTY_STRING : null;
+        }
+        StringBuffer packageId = new StringBuffer();
+        while( true ) {
+            token = tokenizer.next();
+            if( token == null || !Character.isJavaIdentifierStart( token.charAt( 0 ) ) ) {
+                return null;
+            }
+            packageId.append( token );
+            token = tokenizer.next();
+            if( ";".equals( token ) ) { //$NON-NLS-1$
+                return packageId.toString();
+            }
+            if( !".".equals( token ) ) { //$NON-NLS-1$
+                return null;
+            }
+            packageId.append( IConstants.DOT_CHAR );
+        }
+    }
+
+    /**
+     * Splits the beginning of a java or rrh file into identifiers and single punctuation characters, skipping white space and
+     * comments.
+     */
+    private static class PackageTokenizer {
+        private final Reader _reader;
+        private int _next = -2;
+
+        PackageTokenizer( Reader reader ) {
+            _reader = reader;
+        }
+
+        private int peek() throws IOException {
+            if( _next == -2 ) {
+                _next = _reader.read();
+            }
+            return _next;
+        }
+
+        private int read() throws IOException {
+            int c = peek();
+            _next = -2;
+            return c;
+        }
+
+        /**
+         * Returns the next token or <code>null</code> at the end of the stream.
+         */
+        String next() throws IOException {
+            int c;
+            while( true ) {
+                c = read();
+                if( c == -1 ) {
+                    return null;
+                }
+                if( Character.isWhitespace( c ) || c == '\uFEFF' ) {
+                    continue;
+                }
+                if( c == '/' && peek() == '/' ) {
+                    while( ( c = read() ) != -1 && c != '\n' && c != '\r' ) {
+                        // skip the line comment
+                    }
+                    continue;
+                }
+                if( c == '/' && peek() == '*' ) {
+                    read();
+                    int previous = 0;
+                    while( ( c = read() ) != -1 && !( previous == '*' && c == '/' ) ) {
+                        previous = c;
+                    }
+                    continue;
+                }
+                break;
+            }
+            if( !Character.isJavaIdentifierStart( c ) ) {
+                return String.valueOf( (char) c );
+            }
+            StringBuffer identifier = new StringBuffer();
+            identifier.append( (char) c );
+            while( peek() != -1 && Character.isJavaIdentifierPart( peek() ) ) {
+                identifier.append( (char) read() );
+            }
+            return identifier.toString();
+        }
+    }
+
+    private synchronized void load() {
+        if( _loaded ) {
+            return;
+        }
+        _loaded = true;
+        File cacheFile = ContextManager.PLUGIN.getStateLocation().append( CACHE_FILE_NAME ).toFile();
+        if( !cacheFile.isFile() ) {
+            return;
+        }
+        try {
+            DataInputStream input = new DataInputStream( new BufferedInputStream( new FileInputStream( cacheFile ) ) );
+            try {
+                if( input.readInt() != FORMAT_VERSION ) {
+                    return;
+                }
+                int count = input.readInt();
+                for( int i = 0; i < count; i++ ) {
+                    String key = input.readUTF();
+                    Entry entry = new Entry( input.readLong(), input.readLong(), input.readUTF() );
+                    // entries cached since the plug-in started are newer
+                    if( !_entries.containsKey( key ) ) {
+                        _entries.put( key, entry );
+                    }
+                }
+            } finally {
+                input.close();
+            }
+        } catch( IOException e ) {
+            _log.debug( "Could not read package declaration cache " + cacheFile, e ); //$NON-NLS-1$
+            _entries.clear();
+        }
+    }
+
+    /**
+     * Writes the cache to the state location of the plug-in if it has changed. Entries of files which no longer exist are
+     * dropped.
+     */
+    public synchronized void save() {
+        if( !_dirty ) {
+            return;
+        }
+        File cacheFile = ContextManager.PLUGIN.getStateLocation().append( CACHE_FILE_NAME ).toFile();
+        File tempFile = new File( cacheFile.getPath() + TEMP_EXTENSION );
+        try {
+            DataOutputStream output = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tempFile ) ) );
+            try {
+                Map< String, Entry > entries = new HashMap< String, Entry >();
+                for( Map.Entry< String, Entry > entry : _entries.entrySet() ) {
+                    if( new File( entry.getKey() ).isFile() ) {
+                        entries.put( entry.getKey(), entry.getValue() );
+                    }
+                }
+                output.writeInt( FORMAT_VERSION );
+                output.writeInt( entries.size() );
+                for( Map.Entry< String, Entry > entry : entries.entrySet() ) {
+                    output.writeUTF( entry.getKey() );
+                    output.writeLong( entry.getValue()._size );
+                    output.writeLong( entry.getValue()._lastModified );
+                    output.writeUTF( entry.getValue()._packageId );
+                }
+            } finally {
+                output.close();
+            }
+            cacheFile.delete();
+            tempFile.renameTo( cacheFile );
+            _dirty = false;
+        } catch( IOException e ) {
+            _log.debug( "Could not write package declaration cache " + cacheFile, e ); //$NON-NLS-1$
+        } finally {
+            tempFile.delete();
+        }
+    }
+}
@@ -171,6 +171,25 @@ public class PackageUtils implements net.rim.ejde.internal.core.IConstants {
             throw new CoreException( StatusFactory.createErrorStatus( NLS.bind( Messages.PackageUtils_RRH_FILE_NOT_EXIST,
                     rrhFile.toString() ) ) );
         }
+        PackageDeclarationCache cache = PackageDeclarationCache.getInstance();
+        String packageName = cache.get( rrhFile );
+        if( packageName != null ) {
+            return packageName;
+        }
+        try {
+            packageName = PackageDeclarationCache.readPackageClause( rrhFile );
+        } catch( IOException e ) {
+            _logger.debug( e.getMessage(), e );
+        }
+        if( StringUtils.isBlank( packageName ) ) {
+            // let the resource header parser deal with files not starting with a package clause
+            packageName = parseRRHPackageID( rrhFile );
+        }
+        cache.put( rrhFile, packageName );
+        return packageName;
+    }
+
+    private static String parseRRHPackageID( File rrhFile ) throws CoreException {
         String fileStringPath = rrhFile.getPath();
         ResourceCollection collection = new ResourceCollection( fileStringPath.substring( 0, fileStringPath.length() - 4 ) );
         ResourceHeaderParser parser = null;
@@ -548,10 +567,32 @@ public class PackageUtils implements net.rim.ejde.internal.core.IConstants {
      * @return packageId String
      */
     public static String getJavaFilePackageID( File file ) {
-        String packageId = EMPTY_STRING;
         if( file == null ) {
             return EMPTY_STRING;
         }
+        PackageDeclarationCache cache = PackageDeclarationCache.getInstance();
+        String packageId = cache.get( file );
+        if( packageId != null ) {
+            return packageId;
+        }
+        try {
+            packageId = PackageDeclarationCache.readPackageClause( file );
+        } catch( FileNotFoundException fnfe ) {
+            return EMPTY_STRING;
+        } catch( IOException e ) {
+            _logger.debug( e.getMessage(), e );
+            packageId = null;
+        }
+        if( packageId == null ) {
+            // let the java parser deal with files the package clause could not be read from
+            packageId = parseJavaFilePackageID( file );
+        }
+        cache.put( file, packageId );
+        return packageId;
+    }
+
+    private static String parseJavaFilePackageID( File file ) {
+        String packageId = EMPTY_STRING;
         try {
             FileReader fileReader = new FileReader( file );
             JavaParser parser = new JavaParser( file, fileReader, true );
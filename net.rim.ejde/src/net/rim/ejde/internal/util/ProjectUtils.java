@@ -13,7 +13,6 @@ package net.rim.ejde.internal.util;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileFilter;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -29,7 +28,6 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Vector;
 
 import net.rim.ejde.internal.core.ContextManager;
 import net.rim.ejde.internal.core.IConstants;
@@ -43,7 +41,6 @@ import net.rim.ide.OSUtils;
 import net.rim.ide.core.Util;
 import net.rim.sdk.resourceutil.ResourceCollection;
 import net.rim.sdk.resourceutil.ResourceCollectionFactory;
-import net.rim.sdk.resourceutil.ResourceConstants;
 import net.rim.sdk.resourceutil.ResourceElement;
 import net.rim.sdk.resourceutil.ResourceLocale;
 
@@ -940,89 +937,6 @@ public class ProjectUtils {
         return true;
     }
 
-    /**
-     * Use a simple breadth-first algorithm to check if the given <code>folder</code> and its children folders have bee updated
-     * after the <code>lastModifiedTimeStamp</code>.
-     *
-     * @param folder
-     * @param lastModifiedTimeStamp
-     * @return
-     */
-    public static boolean hasFolderBeenUpdated( File folder, long lastModifiedTimeStamp ) {
-        File[] folders;
-        SimpleQueue queue = new SimpleQueue();
-        queue.offer( folder );
-        File elementFolder;
-        while( ( elementFolder = (File) queue.poll() ) != null ) {
-            if( elementFolder.lastModified() > lastModifiedTimeStamp ) {
-                return true;
-            }
-            folders = elementFolder.listFiles( new FileFilterImpl() );
-            for( int i = 0; i < folders.length; i++ ) {
-                queue.offer( folders[ i ] );
-            }
-        }
-        return false;
-    }
-
-    static private class FileFilterImpl implements FileFilter {
-
-        @Override
-        public boolean accept( File pathname ) {
-            if( pathname.isDirectory() ) {
-                return true;
-            }
-            return false;
-        }
-
-    }
-
-    /**
-     * This is a simple implementation of Queue.
-     *
-     *
-     */
-    static public class SimpleQueue {
-        Vector< Object > _vector;
-
-        public SimpleQueue() {
-            _vector = new Vector< Object >();
-        }
-
-        /**
-         * Gets the first element and remove it from the queue.
-         *
-         * @return
-         */
-        public synchronized Object poll() {
-            if( _vector.isEmpty() ) {
-                return null;
-            }
-            return _vector.remove( 0 );
-        }
-
-        /**
-         * Gets the first element but not remove it from the queue.
-         *
-         * @return
-         */
-        public synchronized Object peak() {
-            if( _vector.isEmpty() ) {
-                return null;
-            }
-            return _vector.get( 0 );
-        }
-
-        /**
-         * Adds an element to the bottom of the queue.
-         *
-         * @param obj
-         */
-        public synchronized void offer( Object obj ) {
-            _vector.addElement( obj );
-        }
-    }
-
     /**
      * Check if the projects in the given <code>project</code> have any critical problems.
      *
@@ -1131,23 +1045,16 @@ public class ProjectUtils {
 
     static protected void getResourceFilesRecursively( IJavaProject javaProject, Map< String, RRHFile > rrhFileMap )
             throws CoreException {
-        // search for rrh files in the project
-        FileVisitor visitor = new FileVisitor( IConstants.RRH_FILE_EXTENSION, false );
-        javaProject.getProject().accept( visitor );
-        List< IFile > rrhFiles = visitor.getFiles();
-        String fileNameWithPackage, fileName;
-        Hashtable< String, String > constantsTable;
-        for( IFile file : rrhFiles ) {
-            fileNameWithPackage = PackageUtils.getRRHPackageID( file.getLocation().toFile() );
-            fileName = file.getName();
-            fileNameWithPackage += "." + fileName.substring( 0, fileName.indexOf( ResourceConstants.RRH_SUFFIX ) );
+        // the rrh files in the project are parsed once and served from the index afterwards
+        ResourceBundleIndex index = ResourceBundleIndex.getInstance();
+        for( ResourceBundleIndex.Bundle bundle : index.getBundles( javaProject.getProject() ).values() ) {
+            String fileNameWithPackage = bundle.getClassName();
             if( rrhFileMap.get( fileNameWithPackage ) != null ) {
                 logger.debug( "Found duplicated rrh file: " + fileNameWithPackage );
             } else {
-                constantsTable = getKeysFromRRHFile( file.getLocation().toOSString() );
-                if( constantsTable != null ) {
-                    rrhFileMap.put( fileNameWithPackage, new RRHFile( fileNameWithPackage, file, constantsTable ) );
-                }
+                IFile file = javaProject.getProject().getWorkspace().getRoot().getFile( new Path( bundle.getRRHPath() ) );
+                rrhFileMap.put( fileNameWithPackage, new RRHFile( fileNameWithPackage, file, new Hashtable< String, String >( bundle
+                        .getKeys() ) ) );
             }
         }
         // search for rrh interfaces in the jar files imported by the project
@@ -0,0 +1,527 @@
+/*
+* Copyright (c) 2010-2012 Research In Motion Limited. All rights reserved.
+*
+* This program and the accompanying materials are made available
+* under the terms of the Eclipse Public License, Version 1.0,
+* which accompanies this distribution and is available at
+*
+* http://www.eclipse.org/legal/epl-v10.html
+*
+*/
+package net.rim.ejde.internal.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.rim.ejde.internal.core.ContextManager;
+import net.rim.ejde.internal.core.IConstants;
+
+import org.apache.log4j.Logger;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Indexes the rrh resource bundles of the workspace: the bundle class name, the package id, the header keys and the locales of
+ * each bundle.
+ * <p>
+ * A bundle is parsed when it is queried for the first time and its entry is reused until the rrh file or one of its rrc files
+ * changes. Entries are dropped from resource deltas and validated against the time stamps of the files kept in the workspace
+ * tree, so a valid entry is returned without touching the disk. The indexed bundles are also mapped by their package id and
+ * by their header keys. The index is persisted in the state location of the plug-in when the plug-in stops.
+ */
+public class ResourceBundleIndex implements IResourceChangeListener {
+    private static final Logger _log = Logger.getLogger( ResourceBundleIndex.class );
+    private static final String INDEX_FILE_NAME = "resourceBundles.dat"; //$NON-NLS-1$
+    private static final String TEMP_EXTENSION = ".tmp"; //$NON-NLS-1$
+    private static final int FORMAT_VERSION = 1;
+
+    private static class ResourceBundleIndexHolder {
+        public static ResourceBundleIndex resourceBundleIndex = new ResourceBundleIndex();
+    }
+
+    // full path of the rrh file -> bundle
+    private final Map< String, Bundle > _bundles = new ConcurrentHashMap< String, Bundle >();
+    // package id -> bundles, guarded by this
+    private final Map< String, Set< Bundle > > _bundlesByPackage = new HashMap< String, Set< Bundle > >();
+    // header key -> bundles, guarded by this
+    private final Map< String, Set< Bundle > > _bundlesByKey = new HashMap< String, Set< Bundle > >();
+    private boolean _loaded;
+    private volatile boolean _dirty;
+
+    /**
+     * An immutable snapshot of an indexed resource bundle.
+     */
+    public static class Bundle {
+        final String _rrhPath;
+        // identifies the versions of the rrh and rrc files the bundle has been read from
+        final long _stamp;
+        final String _packageId;
+        final String _className;
+        final List< String > _locales;
+        final Map< String, String > _keys;
+
+        Bundle( String rrhPath, long stamp, String packageId, String className, List< String > locales,
+                Map< String, String > keys ) {
+            _rrhPath = rrhPath;
+            _stamp = stamp;
+            _packageId = packageId;
+            _className = className;
+            _locales = Collections.unmodifiableList( locales );
+            _keys = Collections.unmodifiableMap( keys );
+        }
+
+        /**
+         * Gets the workspace path of the rrh file, e.g. <code>/project/src/com/rim/test/Test.rrh</code>.
+         *
+         * @return
+         */
+        public String getRRHPath() {
+            return _rrhPath;
+        }
+
+        /**
+         * Gets the package id of the bundle in <code>com.rim.test</code> format.
+         *
+         * @return
+         */
+        public String getPackageId() {
+            return _packageId;
+        }
+
+        /**
+         * Gets the fully qualified name of the bundle, e.g. <code>com.rim.test.Test</code>.
+         *
+         * @return
+         */
+        public String getClassName() {
+            return _className;
+        }
+
+        /**
+         * Gets the locales the bundle has rrc files for. The root locale is the empty string.
+         *
+         * @return
+         */
+        public List< String > getLocales() {
+            return _locales;
+        }
+
+        /**
+         * Gets the single value header keys of the bundle mapped to their ids.
+         *
+         * @return
+         */
+        public Map< String, String > getKeys() {
+            return _keys;
+        }
+    }
+
+    private ResourceBundleIndex() {
+    }
+
+    /**
+     * Singleton getInstance() method.
+     *
+     * @return the unique instance of the class
+     */
+    public static ResourceBundleIndex getInstance() {
+        return ResourceBundleIndexHolder.resourceBundleIndex;
+    }
+
+    /**
+     * Starts listening to the resource changes which invalidate indexed bundles.
+     */
+    public static void addListener() {
+        ResourcesPlugin.getWorkspace().addResourceChangeListener( getInstance(),
+                IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE | IResourceChangeEvent.POST_CHANGE );
+    }
+
+    /**
+     * Stops listening to resource changes and persists the index.
+     */
+    public static void removeListener() {
+        ResourceBundleIndex index = getInstance();
+        ResourcesPlugin.getWorkspace().removeResourceChangeListener( index );
+        if( index._dirty ) {
+            index.save();
+        }
+    }
+
+    /**
+     * Gets the bundle of the given <code>rrhFile</code>.
+     *
+     * @param rrhFile
+     * @return the bundle or <code>null</code> if the file does not exist
+     * @throws CoreException
+     *             if the package of the bundle can not be read
+     */
+    public Bundle getBundle( IFile rrhFile ) throws CoreException {
+        if( !rrhFile.exists() ) {
+            return null;
+        }
+        load();
+        String rrhPath = rrhFile.getFullPath().toString();
+        List< String > locales = new ArrayList< String >();
+        long stamp = getStamp( rrhFile, locales );
+        Bundle bundle = _bundles.get( rrhPath );
+        if( bundle != null && bundle._stamp == stamp ) {
+            return bundle;
+        }
+        File file = rrhFile.getLocation().toFile();
+        Hashtable< String, String > keys = ProjectUtils.getKeysFromRRHFile( file.getPath() );
+        if( keys == null ) {
+            return null;
+        }
+        String packageId = PackageUtils.getRRHPackageID( file );
+        String fileName = rrhFile.getName();
+        String className = packageId + "." + fileName.substring( 0, fileName.length() - IConstants.RRH_FILE_EXTENSION_WITH_DOT.length() ); //$NON-NLS-1$
+        bundle = new Bundle( rrhPath, stamp, packageId, className, locales, new HashMap< String, String >( keys ) );
+        putBundle( bundle );
+        _dirty = true;
+        return bundle;
+    }
+
+    /**
+     * Gets the bundles of the given <code>project</code>.
+     *
+     * @param project
+     * @return the bundles mapped by their class name, the first bundle found wins if a name is used more than once
+     * @throws CoreException
+     */
+    public Map< String, Bundle > getBundles( IProject project ) throws CoreException {
+        Map< String, Bundle > bundles = new LinkedHashMap< String, Bundle >();
+        ProjectUtils.FileVisitor visitor = new ProjectUtils.FileVisitor( IConstants.RRH_FILE_EXTENSION, false );
+        project.accept( visitor );
+        for( IFile rrhFile : visitor.getFiles() ) {
+            Bundle bundle = getBundle( rrhFile );
+            if( bundle == null ) {
+                continue;
+            }
+            if( bundles.containsKey( bundle.getClassName() ) ) {
+                _log.debug( "Found duplicated rrh file: " + bundle.getClassName() ); //$NON-NLS-1$
+            } else {
+                bundles.put( bundle.getClassName(), bundle );
+            }
+        }
+        return Collections.unmodifiableMap( bundles );
+    }
+
+    /**
+     * Gets the bundles of the given <code>projects</code> which are in the package <code>packageId</code>.
+     *
+     * @param projects
+     * @param packageId
+     *            the package in <code>com.rim.test</code> format
+     * @return
+     * @throws CoreException
+     */
+    public List< Bundle > getBundlesByPackage( Collection< IProject > projects, String packageId ) throws CoreException {
+        return getBundles( projects, _bundlesByPackage, packageId );
+    }
+
+    /**
+     * Gets the bundles of the given <code>projects</code> which define the header key <code>key</code>.
+     *
+     * @param projects
+     * @param key
+     * @return
+     * @throws CoreException
+     */
+    public List< Bundle > getBundlesByKey( Collection< IProject > projects, String key ) throws CoreException {
+        return getBundles( projects, _bundlesByKey, key );
+    }
+
+    /**
+     * Brings the bundles of the given <code>projects</code> up to date and returns those of them which are mapped to the given
+     * <code>value</code> in the given reverse map.
+     */
+    private List< Bundle > getBundles( Collection< IProject > projects, Map< String, Set< Bundle > > map, String value )
+            throws CoreException {
+        List< String > prefixes = new ArrayList< String >();
+        for( IProject project : projects ) {
+            getBundles( project );
+            prefixes.add( project.getFullPath().toString() + "/" ); //$NON-NLS-1$
+        }
+        List< Bundle > bundles = new ArrayList< Bundle >();
+        synchronized( this ) {
+            Set< Bundle > candidates = map.get( value );
+            if( candidates != null ) {
+                for( Bundle bundle : candidates ) {
+                    for( String prefix : prefixes ) {
+                        if( bundle._rrhPath.startsWith( prefix ) ) {
+                            bundles.add( bundle );
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableList( bundles );
+    }
+
+    /**
+     * Indexes the given <code>bundle</code>, replacing the bundle of the same rrh file.
+     */
+    private synchronized void putBundle( Bundle bundle ) {
+        unmap( _bundles.put( bundle._rrhPath, bundle ) );
+        addTo( _bundlesByPackage, bundle._packageId, bundle );
+        for( String key : bundle._keys.keySet() ) {
+            addTo( _bundlesByKey, key, bundle );
+        }
+    }
+
+    /**
+     * Drops the bundle of the given <code>rrhPath</code> from the index.
+     *
+     * @return <code>true</code> if a bundle has been dropped
+     */
+    private synchronized boolean removeBundle( String rrhPath ) {
+        Bundle bundle = _bundles.remove( rrhPath );
+        unmap( bundle );
+        return bundle != null;
+    }
+
+    private void unmap( Bundle bundle ) {
+        if( bundle == null ) {
+            return;
+        }
+        removeFrom( _bundlesByPackage, bundle._packageId, bundle );
+        for( String key : bundle._keys.keySet() ) {
+            removeFrom( _bundlesByKey, key, bundle );
+        }
+    }
+
+    private static void addTo( Map< String, Set< Bundle > > map, String value, Bundle bundle ) {
+        Set< Bundle > bundles = map.get( value );
+        if( bundles == null ) {
+            bundles = new HashSet< Bundle >();
+            map.put( value, bundles );
+        }
+        bundles.add( bundle );
+    }
+
+    private static void removeFrom( Map< String, Set< Bundle > > map, String value, Bundle bundle ) {
+        Set< Bundle > bundles = map.get( value );
+        if( bundles != null && bundles.remove( bundle ) && bundles.isEmpty() ) {
+            map.remove( value );
+        }
+    }
+
+    /**
+     * Calculates the stamp of the given <code>rrhFile</code> and its rrc files from the workspace tree and adds the locales of
+     * the rrc files to the given list.
+     */
+    private static long getStamp( IFile rrhFile, List< String > locales ) throws CoreException {
+        String fileName = rrhFile.getName();
+        String baseName = fileName.substring( 0, fileName.length() - IConstants.RRH_FILE_EXTENSION_WITH_DOT.length() );
+        long stamp = rrhFile.getLocalTimeStamp();
+        // the members are served from the workspace tree
+        for( IResource member : rrhFile.getParent().members() ) {
+            String locale = getLocale( member, baseName );
+            if( locale != null ) {
+                locales.add( locale );
+                stamp = stamp * 31 + member.getName().hashCode();
+                stamp = stamp * 31 + member.getLocalTimeStamp();
+            }
+        }
+        Collections.sort( locales );
+        return stamp;
+    }
+
+    /**
+     * Returns the locale of the given resource if it is a rrc file of the bundle <code>baseName</code>, otherwise
+     * <code>null</code>. The rrc files of a bundle are named <code>baseName.rrc</code> and <code>baseName_locale.rrc</code>.
+     */
+    private static String getLocale( IResource resource, String baseName ) {
+        String name = resource.getName();
+        if( resource.getType() != IResource.FILE || !PackageUtils.hasRRCExtension( name ) || !name.startsWith( baseName ) ) {
+            return null;
+        }
+        String rest = name.substring( baseName.length(), name.length() - IConstants.RRC_FILE_EXTENSION_WITH_DOT.length() );
+        if( rest.length() == 0 ) {
+            return ""; //$NON-NLS-1$
+        }
+        if( rest.charAt( 0 ) != '_' ) {
+            return null;
+        }
+        return rest.substring( 1 );
+    }
+
+    /**
+     * Returns the workspace paths of the rrh files the given rrh/rrc <code>file</code> may belong to. The name of a rrc file does
+     * not tell where the bundle name ends, e.g. <code>My_Bundle_fr.rrc</code> belongs to <code>My_Bundle.rrh</code> but could
+     * also belong to <code>My.rrh</code>, so the locale suffixes are stripped from the last one on and every candidate is
+     * returned, the longest first.
+     */
+    private static List< String > getRRHPaths( IResource file ) {
+        String name = file.getName();
+        List< String > rrhPaths = new ArrayList< String >();
+        if( PackageUtils.hasRRHExtension( name ) ) {
+            rrhPaths.add( file.getFullPath().toString() );
+            return rrhPaths;
+        }
+        String baseName = name.substring( 0, name.length() - IConstants.RRC_FILE_EXTENSION_WITH_DOT.length() );
+        for( int index = baseName.length(); index > 0; index = baseName.lastIndexOf( '_', index - 1 ) ) {
+            rrhPaths.add( file.getParent().getFullPath().append(
+                    baseName.substring( 0, index ) + IConstants.RRH_FILE_EXTENSION_WITH_DOT ).toString() );
+        }
+        return rrhPaths;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.eclipse.core.resources.IResourceChangeListener#resourceChanged(org.eclipse.core.resources.IResourceChangeEvent)
+     */
+    public void resourceChanged( IResourceChangeEvent event ) {
+        switch( event.getType() ) {
+            case IResourceChangeEvent.PRE_CLOSE:
+            case IResourceChangeEvent.PRE_DELETE:
+                removeBundles( event.getResource().getFullPath().toString() + "/" ); //$NON-NLS-1$
+                break;
+            case IResourceChangeEvent.POST_CHANGE:
+                try {
+                    event.getDelta().accept( new IResourceDeltaVisitor() {
+                        public boolean visit( IResourceDelta delta ) {
+                            IResource resource = delta.getResource();
+                            if( resource.getType() != IResource.FILE ) {
+                                if( delta.getKind() == IResourceDelta.REMOVED ) {
+                                    removeBundles( resource.getFullPath().toString() + "/" ); //$NON-NLS-1$
+                                    return false;
+                                }
+                                return true;
+                            }
+                            String name = resource.getName();
+                            if( PackageUtils.hasRRHExtension( name ) || PackageUtils.hasRRCExtension( name ) ) {
+                                for( String rrhPath : getRRHPaths( resource ) ) {
+                                    if( removeBundle( rrhPath ) ) {
+                                        _dirty = true;
+                                    }
+                                }
+                            }
+                            return false;
+                        }
+                    } );
+                } catch( CoreException e ) {
+                    _log.error( e.getMessage(), e );
+                }
+                break;
+        }
+    }
+
+    private void removeBundles( String pathPrefix ) {
+        for( String rrhPath : _bundles.keySet() ) {
+            if( rrhPath.startsWith( pathPrefix ) && removeBundle( rrhPath ) ) {
+                _dirty = true;
+            }
+        }
+    }
+
+    private synchronized void load() {
+        if( _loaded ) {
+            return;
+        }
+        _loaded = true;
+        File indexFile = ContextManager.PLUGIN.getStateLocation().append( INDEX_FILE_NAME ).toFile();
+        if( !indexFile.isFile() ) {
+            return;
+        }
+        try {
+            DataInputStream input = new DataInputStream( new BufferedInputStream( new FileInputStream( indexFile ) ) );
+            try {
+                if( input.readInt() != FORMAT_VERSION ) {
+                    return;
+                }
+                int count = input.readInt();
+                for( int i = 0; i < count; i++ ) {
+                    String rrhPath = input.readUTF();
+                    long stamp = input.readLong();
+                    String packageId = input.readUTF();
+                    String className = input.readUTF();
+                    int localeCount = input.readInt();
+                    List< String > locales = new ArrayList< String >( localeCount );
+                    for( int j = 0; j < localeCount; j++ ) {
+                        locales.add( input.readUTF() );
+                    }
+                    int keyCount = input.readInt();
+                    Map< String, String > keys = new HashMap< String, String >();
+                    for( int j = 0; j < keyCount; j++ ) {
+                        keys.put( input.readUTF(), input.readUTF() );
+                    }
+                    // entries updated since the plug-in started are newer
+                    if( !_bundles.containsKey( rrhPath ) ) {
+                        putBundle( new Bundle( rrhPath, stamp, packageId, className, locales, keys ) );
+                    }
+                }
+            } finally {
+                input.close();
+            }
+        } catch( IOException e ) {
+            _log.debug( "Could not read resource bundle index " + indexFile, e ); //$NON-NLS-1$
+            _bundles.clear();
+            _bundlesByPackage.clear();
+            _bundlesByKey.clear();
+        }
+    }
+
+    private synchronized void save() {
+        File indexFile = ContextManager.PLUGIN.getStateLocation().append( INDEX_FILE_NAME ).toFile();
+        File tempFile = new File( indexFile.getPath() + TEMP_EXTENSION );
+        try {
+            DataOutputStream output = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tempFile ) ) );
+            try {
+                List< Bundle > bundles = new ArrayList< Bundle >( _bundles.values() );
+                output.writeInt( FORMAT_VERSION );
+                output.writeInt( bundles.size() );
+                for( Bundle bundle : bundles ) {
+                    output.writeUTF( bundle._rrhPath );
+                    output.writeLong( bundle._stamp );
+                    output.writeUTF( bundle._packageId );
+                    output.writeUTF( bundle._className );
+                    output.writeInt( bundle._locales.size() );
+                    for( String locale : bundle._locales ) {
+                        output.writeUTF( locale );
+                    }
+                    output.writeInt( bundle._keys.size() );
+                    for( Map.Entry< String, String > entry : bundle._keys.entrySet() ) {
+                        output.writeUTF( entry.getKey() );
+                        output.writeUTF( entry.getValue() );
+                    }
+                }
+            } finally {
+                output.close();
+            }
+            indexFile.delete();
+            tempFile.renameTo( indexFile );
+            _dirty = false;
+        } catch( IOException e ) {
+            _log.debug( "Could not write resource bundle index " + indexFile, e ); //$NON-NLS-1$
+        } finally {
+            tempFile.delete();
+        }
+    }
+}
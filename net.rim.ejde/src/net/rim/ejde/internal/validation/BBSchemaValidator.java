@@ -10,9 +10,11 @@
 */
 package net.rim.ejde.internal.validation;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 
-import javax.xml.transform.Source;
+import javax.xml.XMLConstants;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
@@ -27,6 +29,10 @@ import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
+/**
+ * Validates the application descriptor against the BlackBerry schema. The schema is compiled once per plugin session and every
+ * thread uses its own validator, since validators are not thread safe.
+ */
 public class BBSchemaValidator implements IBBComponentValidator {
 
     private static final Logger _logger = Logger.getLogger( BBSchemaValidator.class );
@@ -34,38 +40,64 @@ public class BBSchemaValidator implements IBBComponentValidator {
     /** Indicates the source of the diagnostic. */
     public static final String SCHEMA_SOURCE = "net.rim.ejde.internal.validation.schema";
 
+    private static final ThreadLocal< Validator > _validator = new ThreadLocal< Validator >() {
+        @Override
+        protected Validator initialValue() {
+            Schema schema = SchemaHolder.SCHEMA;
+            return schema == null ? null : schema.newValidator();
+        }
+    };
+
+    private static class SchemaHolder {
+        private static final Schema SCHEMA = compileSchema( InternalSchemaValidatorUtils.getSchemaLocation() );
+    }
+
     /**
      * Validates the given object (IProject)
      */
     public BBDiagnostic validate( Object validateThis ) {
         IFile modelFile = (IFile) validateThis;
-        URL schema = InternalSchemaValidatorUtils.getSchemaLocation();
-        BBDiagnostic ret = validateBBSchema( modelFile, schema );
+        BBDiagnostic ret = validateBBSchema( modelFile );
         return ret;
     }
 
-    private BBDiagnostic validateBBSchema( IFile modelFile, URL schemaLocation ) {
-
-        BBDiagnostic diag = AbstractDiagnosticFactory.createChainedDiagnostic();
+    private static Schema compileSchema( URL schemaLocation ) {
+        try {
+            return SchemaFactory.newInstance( XMLConstants.W3C_XML_SCHEMA_NS_URI ).newSchema( schemaLocation );
+        } catch( SAXException e ) {
+            _logger.error( "Could not compile schema " + schemaLocation, e ); //$NON-NLS-1$
+            return null;
+        }
+    }
 
-        // 1. Lookup a factory for the W3C XML Schema language
-        SchemaFactory factory = SchemaFactory.newInstance( "http://www.w3.org/2001/XMLSchema" );
+    private BBDiagnostic validateBBSchema( IFile modelFile ) {
 
+        BBDiagnostic diag = AbstractDiagnosticFactory.createChainedDiagnostic();
+        Validator validator = _validator.get();
+        if( validator == null ) {
+            diag.add( DiagnosticFactory.createDiagnostic( BBDiagnostic.ERROR, 0, "Could not compile schema " //$NON-NLS-1$
+                    + InternalSchemaValidatorUtils.getSchemaLocation() ) );
+            return diag;
+        }
+        InputStream input = null;
         try {
-            // 2. Compile the schema.
-            // Here the schema is loaded from a java.io.File, but you could use
-            // a java.net.URL or a javax.xml.transform.Source instead.
-            Schema schema = factory.newSchema( schemaLocation );
-            // 3. Get a validator from the schema.
-            Validator validator = schema.newValidator();
+            // the validator is reused, drop the state of the previous validation
+            validator.reset();
             validator.setErrorHandler( new MyErrorHandler( diag ) );
-            // 4. Parse the document you want to check.
-            Source source = new StreamSource( modelFile.getContents() );
-            // 5. Check the document
-            validator.validate( source );
+            input = modelFile.getContents();
+            validator.validate( new StreamSource( input ) );
         } catch( Exception e ) {
             _logger.error( e );
             diag.add( DiagnosticFactory.createDiagnostic( BBDiagnostic.ERROR, 0, e.getMessage() ) );
+        } finally {
+            validator.setErrorHandler( null );
+            if( input != null ) {
+                try {
+                    input.close();
+                } catch( IOException e ) {
+                    _logger.error( e );
+                }
+            }
         }
         return diag;
     }
@@ -13,6 +13,7 @@ package net.rim.ejde.internal.validation;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -57,7 +58,42 @@ public class DiagnosticManager {
         }
     }
 
-    public BBDiagnostic get( IProject project, Object forThisObject ) {
+    /**
+     * Replaces the diagnostics of the given objects of the given <code>project</code> in one step. Readers either see all
+     * previous or all new diagnostics, the listeners are notified after the registry has been updated.
+     *
+     * @param project
+     * @param diagnostics
+     *            the diagnostics mapped by the validated objects
+     */
+    protected synchronized void putAll( IProject project, Map< Object, BBDiagnostic > diagnostics ) {
+        Map< Object, BBDiagnostic > projectRegistry = new HashMap< Object, BBDiagnostic >( getProjectRegistry( project ) );
+        Map< Object, BBDiagnostic > added = new LinkedHashMap< Object, BBDiagnostic >();
+        List< Object > removed = new ArrayList< Object >();
+        for( Map.Entry< Object, BBDiagnostic > entry : diagnostics.entrySet() ) {
+            Object forThisObject = entry.getKey();
+            BBDiagnostic diagnostic = entry.getValue();
+            if( diagnostic.getSeverity() != Diagnostic.OK ) {
+                BBDiagnostic oldDiagnostic = projectRegistry.get( forThisObject );
+                if( oldDiagnostic == null || !oldDiagnostic.compare( diagnostic ) ) {
+                    projectRegistry.put( forThisObject, diagnostic );
+                    added.put( forThisObject, diagnostic );
+                }
+            } else {
+                projectRegistry.remove( forThisObject );
+                removed.add( forThisObject );
+            }
+        }
+        _registry.put( project, projectRegistry );
+        for( Map.Entry< Object, BBDiagnostic > entry : added.entrySet() ) {
+            fireAddedEvent( project, entry.getKey(), entry.getValue() );
+        }
+        for( Object forThisObject : removed ) {
+            fireRemovedEvent( project, forThisObject );
+        }
+    }
+
+    public synchronized BBDiagnostic get( IProject project, Object forThisObject ) {
         BBDiagnostic wdiag = null;
         Map< Object, BBDiagnostic > projectRegistry = getProjectRegistry( project );
         wdiag = projectRegistry.get( forThisObject );
@@ -75,12 +111,12 @@ public class DiagnosticManager {
         return registry;
     }
 
-    protected void removeProjectRegistry( IProject project ) {
+    protected synchronized void removeProjectRegistry( IProject project ) {
         _registry.remove( project );
         fireRemovedProject( project );
     }
 
-    protected void cleanObjectDiags( IProject project, Object obj ) {
+    protected synchronized void cleanObjectDiags( IProject project, Object obj ) {
         Map< Object, BBDiagnostic > omap = _registry.get( project );
         if( omap != null && omap.size() > 0 ) {
             omap.remove( obj );
@@ -11,6 +11,7 @@
 package net.rim.ejde.internal.validation;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -74,25 +75,36 @@ public class ProjectValidationManager {
      * @return
      */
     public BBDiagnostic validate( Object validateThis ) {
-        IBBComponentValidator validator = getValidator( validateThis.getClass() );
-        BBDiagnostic result = null;
-        if( validator != null ) {
-            result = validator.validate( validateThis );
+        BBDiagnostic result = doValidate( validateThis );
+        if( result != null ) {
             _diagnostics.put( _iProject, validateThis, result );
         }
         return result;
     }
 
+    private BBDiagnostic doValidate( Object validateThis ) {
+        IBBComponentValidator validator = getValidator( validateThis.getClass() );
+        if( validator == null ) {
+            return null;
+        }
+        return validator.validate( validateThis );
+    }
+
     /**
      * Validates the given object and its children.
      *
      * @param validateThis
      *            The object to be validated
+     * @param results
+     *            The map the results are added to
      * @param monitor
      *            The progress monitor
      */
-    private void validateAll( Object validateThis, IProgressMonitor monitor ) {
-        validate( validateThis );
+    private void validateAll( Object validateThis, Map< Object, BBDiagnostic > results, IProgressMonitor monitor ) {
+        BBDiagnostic result = doValidate( validateThis );
+        if( result != null ) {
+            results.put( validateThis, result );
+        }
 
         List< Object > validationChildren = _validationProvider.getValidationChildren( validateThis );
         int nv = validationChildren.size();
@@ -102,7 +114,7 @@ public class ProjectValidationManager {
         }
 
         for( Object obj : validationChildren ) {
-            validateAll( obj, monitor );
+            validateAll( obj, results, monitor );
             if( prog != null ) {
                 prog.worked();
             }
@@ -110,13 +122,15 @@ public class ProjectValidationManager {
     }
 
     /**
-     * Validates the project
+     * Validates the project. The results of the project and its children are published together.
      *
      * @param monitor
      *            The progress monitor or <code>null</code> if no progress monitor.
      */
     public void validateProject( IProgressMonitor monitor ) {
-        validateAll( _iProject, monitor );
+        Map< Object, BBDiagnostic > results = new LinkedHashMap< Object, BBDiagnostic >();
+        validateAll( _iProject, results, monitor );
+        _diagnostics.putAll( _iProject, results );
     }
 
     public void removeAllDiagnostics( IProject project, Object object ) {
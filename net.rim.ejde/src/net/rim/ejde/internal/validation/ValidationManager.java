@@ -12,7 +12,10 @@ package net.rim.ejde.internal.validation;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -30,17 +33,23 @@ import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.emf.common.util.Diagnostic;
 import org.eclipse.jface.text.BadLocationException;
 
 /**
  * Singleton class that controls validation for all BB projects
  *
- * Listens for resource changes and triggers validation when any occur
+ * Listens for resource changes and triggers validation when any occur. The changed projects are validated by a system job, so
+ * that a burst of resource changes results in a single validation of each affected project.
  *
  * @author bchabot
  */
@@ -50,13 +59,20 @@ public class ValidationManager {
 
     private static final int NO_SEVERITY = -1;
 
-    private static ValidationManager _instance;
+    // gives a burst of resource changes time to arrive before the projects are validated
+    private static final long VALIDATION_DELAY = 200;
 
     /** Map of IProject to ProjectValidationManager */
     private Map< IProject, ProjectValidationManager > _projectModelValidators;
 
     private DiagnosticManager _diagnosticManager;
 
+    private ValidationJob _validationJob;
+
+    private static class ValidationManagerHolder {
+        private static final ValidationManager INSTANCE = new ValidationManager();
+    }
+
     /**
      * private constructor, cannot be instantiated
      */
@@ -64,6 +80,7 @@ public class ValidationManager {
         _projectModelValidators = new Hashtable< IProject, ProjectValidationManager >();
         _diagnosticManager = new DiagnosticManager();
         _diagnosticManager.addChangeListener( new MarkerSynchronizer() );
+        _validationJob = new ValidationJob();
         ResourcesPlugin.getWorkspace().addResourceChangeListener( new MyResourceChangeListener(),
                 IResourceChangeEvent.POST_CHANGE );
     }
@@ -74,10 +91,17 @@ public class ValidationManager {
      * @return <code>ValidationManager</code>
      */
     public static ValidationManager getInstance() {
-        if( _instance == null ) {
-            _instance = new ValidationManager();
-        }
-        return _instance;
+        return ValidationManagerHolder.INSTANCE;
+    }
+
+    /**
+     * Schedules the validation of the given project and the projects referencing it. Requests made before the validation starts
+     * are coalesced.
+     *
+     * @param iproject
+     */
+    public void scheduleValidation( IProject iproject ) {
+        _validationJob.request( Collections.singleton( iproject ), Collections.< IProject > emptySet() );
     }
 
     /**
@@ -145,6 +169,11 @@ public class ValidationManager {
         }
         monitor.beginTask( "Validating projects", changedProjects.size() );
         for( IProject iproject : changedProjects ) {
+            // the project may have been closed since the validation has been requested
+            if( !iproject.isOpen() ) {
+                monitor.worked( 1 );
+                continue;
+            }
             // do not validate non-BB project
             try {
                 if( !iproject.hasNature( BlackBerryProjectCoreNature.NATURE_ID ) ) {
@@ -375,11 +404,82 @@ public class ValidationManager {
                 } catch( CoreException e ) {
                     _logger.error( "", e );
                 }
-                Set< IProject > allChangedProjects = ProjectUtils.getAllReferencingProjects( visitor.changedProjects
-                        .toArray( new IProject[ visitor.changedProjects.size() ] ) );
-                validateProjects( allChangedProjects, new NullProgressMonitor() );
-                handleClosedProjects( visitor.closedOrDeletedProjects );
+                if( !visitor.changedProjects.isEmpty() || !visitor.closedOrDeletedProjects.isEmpty() ) {
+                    _validationJob.request( visitor.changedProjects, visitor.closedOrDeletedProjects );
+                }
+            }
+        }
+    }
+
+    /**
+     * Validates the projects changed since its last run. The markers of all projects are updated in one workspace operation.
+     */
+    private class ValidationJob extends Job {
+
+        // the latest pending change of each project, TRUE if the project has been closed or deleted
+        private Map< IProject, Boolean > _pendingProjects = new LinkedHashMap< IProject, Boolean >();
+
+        ValidationJob() {
+            super( "Validating BlackBerry projects" ); //$NON-NLS-1$
+            setSystem( true );
+        }
+
+        /**
+         * Adds the given projects to the pending changes and (re)schedules this job. A later change of a project replaces an
+         * earlier one, e.g. a project which is closed and opened again before the job runs is validated.
+         *
+         * @param changedProjects
+         * @param closedProjects
+         */
+        void request( Collection< IProject > changedProjects, Collection< IProject > closedProjects ) {
+            synchronized( this ) {
+                for( IProject project : changedProjects ) {
+                    _pendingProjects.remove( project );
+                    _pendingProjects.put( project, Boolean.FALSE );
+                }
+                for( IProject project : closedProjects ) {
+                    _pendingProjects.remove( project );
+                    _pendingProjects.put( project, Boolean.TRUE );
+                }
+            }
+            schedule( VALIDATION_DELAY );
+        }
+
+        @Override
+        protected IStatus run( IProgressMonitor monitor ) {
+            final Map< IProject, Boolean > pendingProjects;
+            synchronized( this ) {
+                pendingProjects = _pendingProjects;
+                _pendingProjects = new LinkedHashMap< IProject, Boolean >();
+            }
+            if( pendingProjects.isEmpty() ) {
+                return Status.OK_STATUS;
+            }
+            final Set< IProject > changedProjects = new LinkedHashSet< IProject >();
+            final Set< IProject > closedProjects = new LinkedHashSet< IProject >();
+            for( Map.Entry< IProject, Boolean > entry : pendingProjects.entrySet() ) {
+                IProject project = entry.getKey();
+                // the project may have been opened or created again since the event
+                if( entry.getValue().booleanValue() && !project.isOpen() ) {
+                    closedProjects.add( project );
+                } else {
+                    changedProjects.add( project );
+                }
+            }
+            try {
+                ResourcesPlugin.getWorkspace().run( new IWorkspaceRunnable() {
+                    public void run( IProgressMonitor monitor ) throws CoreException {
+                        Set< IProject > allChangedProjects = ProjectUtils.getAllReferencingProjects( changedProjects
+                                .toArray( new IProject[ changedProjects.size() ] ) );
+                        allChangedProjects.removeAll( closedProjects );
+                        validateProjects( allChangedProjects, monitor );
+                        handleClosedProjects( closedProjects );
+                    }
+                }, null, IWorkspace.AVOID_UPDATE, monitor );
+            } catch( CoreException e ) {
+                _logger.error( e.getMessage(), e );
             }
+            return Status.OK_STATUS;
         }
     }
 